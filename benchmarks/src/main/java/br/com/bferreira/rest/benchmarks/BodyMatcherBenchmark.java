@@ -0,0 +1,86 @@
+package br.com.bferreira.rest.benchmarks;
+
+import io.restassured.http.ContentType;
+import io.restassured.response.Response;
+import io.restassured.response.ValidatableResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import static br.com.bferreira.rest.gpath.GPathMatchers.gpath;
+import static br.com.bferreira.rest.gpath.SoftBody.soft;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Uma cadeia de {@code body()} como as do UserJsonTest, com o JsonPath do RestAssured
+ * (Groovy a cada assertiva), com os matchers do GPath compilado e com as mesmas
+ * verificações num único {@code soft()}, que compartilha as projeções entre os paths. Os dois
+ * últimos alternam entre duas respostas iguais para que cada invocação pague o parse do corpo.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BodyMatcherBenchmark {
+
+    @Param({"3", "100", "10000"})
+    public int usuarios;
+
+    private Response response;
+    private Response[] alternadas;
+    private int vez;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        String corpo = Payloads.usersJson(usuarios);
+        response = Payloads.response(corpo, ContentType.JSON);
+        alternadas = Payloads.alternating(corpo, ContentType.JSON);
+    }
+
+    @Benchmark
+    public ValidatableResponse restAssured() {
+        return response.then()
+                .statusCode(200)
+                .body("name", hasItems("João da Silva", "Maria Joaquina"))
+                .body("find{it.age <= 25}.name", is("Maria Joaquina"))
+                .body("age.findAll{it <= 25}.size()", greaterThanOrEqualTo(2))
+                .body("id.max()", is(usuarios))
+                .body("salary.findAll{it != null}.sum()", greaterThan(0d));
+    }
+
+    @Benchmark
+    public ValidatableResponse gpathCompilado() {
+        return alternadas[vez++ & 1].then()
+                .statusCode(200)
+                .body(gpath("name", hasItems("João da Silva", "Maria Joaquina")))
+                .body(gpath("find{it.age <= 25}.name", is("Maria Joaquina")))
+                .body(gpath("age.findAll{it <= 25}.size()", greaterThanOrEqualTo(2)))
+                .body(gpath("id.max()", is(usuarios)))
+                .body(gpath("salary.findAll{it != null}.sum()", greaterThan(0d)));
+    }
+
+    @Benchmark
+    public ValidatableResponse softEmLote() {
+        return alternadas[vez++ & 1].then()
+                .statusCode(200)
+                .body(soft()
+                        .body("name", hasItems("João da Silva", "Maria Joaquina"))
+                        .body("find{it.age <= 25}.name", is("Maria Joaquina"))
+                        .body("age.findAll{it <= 25}.size()", greaterThanOrEqualTo(2))
+                        .body("id.max()", is(usuarios))
+                        .body("salary.findAll{it != null}.sum()", greaterThan(0d)));
+    }
+}
@@ -0,0 +1,84 @@
+package br.com.bferreira.rest.benchmarks;
+
+import br.com.bferreira.rest.body.BodyTemplate;
+import br.com.bferreira.rest.body.BodyWriter;
+import com.google.gson.Gson;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Montagem do corpo de um POST de usuário, como no VerbosTest (literal concatenado) e no
+ * AuthTest (HashMap serializado pelo Gson), contra o {@link BodyTemplate} pré-compilado.
+ * Rode com {@code -prof gc} para ver as alocações por operação.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BodyTemplateBenchmark {
+
+    private static final Gson GSON = new Gson();
+    private static final BodyTemplate USUARIO_JSON = BodyTemplate.json("{\"name\": \"${name}\",\"age\":${age}}");
+    private static final BodyTemplate USUARIO_XML = BodyTemplate.xml("<user><name>${name}</name><age>${age}</age></user>");
+    private static final String[] NOMES = {"José Alfredo", "Maria Alberta", "Ana Júlia", "João da Silva"};
+
+    private int contador;
+
+    private String nome() {
+        return NOMES[contador++ & 3];
+    }
+
+    @Benchmark
+    public byte[] jsonLiteralConcatenado() {
+        return ("{\"name\": \"" + nome() + "\",\"age\":" + contador + "}").getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] jsonHashMapGson() {
+        Map<String, Object> usuario = new HashMap<>();
+        usuario.put("name", nome());
+        usuario.put("age", contador);
+        return GSON.toJson(usuario).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] jsonTemplateCopia() {
+        return USUARIO_JSON.with().value(nome()).value(contador).bytes();
+    }
+
+    @Benchmark
+    public int jsonTemplateBuffer() {
+        BodyWriter corpo = USUARIO_JSON.with().value(nome()).value(contador);
+        return corpo.array()[corpo.length() - 1] + corpo.length();
+    }
+
+    @Benchmark
+    public byte[] xmlLiteralConcatenado() {
+        return ("<user><name>" + nome() + "</name><age>" + contador + "</age></user>").getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] xmlTemplateCopia() {
+        return USUARIO_XML.with().value(nome()).value(contador).bytes();
+    }
+
+    @Benchmark
+    public int xmlTemplateBuffer() {
+        BodyWriter corpo = USUARIO_XML.with().value(nome()).value(contador);
+        return corpo.array()[corpo.length() - 1] + corpo.length();
+    }
+}
@@ -0,0 +1,109 @@
+package br.com.bferreira.rest.benchmarks;
+
+import br.com.bferreira.rest.matchers.CollectionMatchers;
+import org.hamcrest.Matcher;
+import org.hamcrest.Matchers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code hasItems} e {@code containsInAnyOrder} do Hamcrest contra os do
+ * {@link CollectionMatchers}, sobre listas como as extraídas de {@code body("id")} e
+ * {@code body("name")}. O matcher é montado dentro do benchmark, como acontece a cada
+ * {@code body(...)}. O {@code containsInAnyOrder} compara os {@code esperados} primeiros
+ * elementos embaralhados: com a lista inteira, o do Hamcrest não termina em tempo útil.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CollectionMatcherBenchmark {
+
+    @Param({"1000", "100000"})
+    public int tamanho;
+
+    @Param({"10", "500"})
+    public int esperados;
+
+    private List<Integer> ids;
+    private List<String> nomes;
+    private Integer[] idsEsperados;
+    private String[] nomesEsperados;
+    private List<Integer> idsEmbaralhados;
+    private Integer[] idsEmOrdem;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        ids = new ArrayList<>(tamanho);
+        nomes = new ArrayList<>(tamanho);
+        for (int i = 1; i <= tamanho; i++) {
+            ids.add(i);
+            nomes.add("Usuario " + i);
+        }
+        Random aleatorio = new Random(42);
+        idsEsperados = new Integer[esperados];
+        nomesEsperados = new String[esperados];
+        for (int i = 0; i < esperados; i++) {
+            idsEsperados[i] = 1 + aleatorio.nextInt(tamanho);
+            nomesEsperados[i] = "Usuario " + idsEsperados[i];
+        }
+        idsEmOrdem = ids.subList(0, esperados).toArray(new Integer[0]);
+        idsEmbaralhados = new ArrayList<>(ids.subList(0, esperados));
+        Collections.shuffle(idsEmbaralhados, aleatorio);
+    }
+
+    @Benchmark
+    public boolean hamcrestHasItemsIds() {
+        return verificar(Matchers.hasItems(idsEsperados), ids);
+    }
+
+    @Benchmark
+    public boolean indexadoHasItemsIds() {
+        return verificar(CollectionMatchers.hasItems(idsEsperados), ids);
+    }
+
+    @Benchmark
+    public boolean hamcrestHasItemsNomes() {
+        return verificar(Matchers.hasItems(nomesEsperados), nomes);
+    }
+
+    @Benchmark
+    public boolean indexadoHasItemsNomes() {
+        return verificar(CollectionMatchers.hasItems(nomesEsperados), nomes);
+    }
+
+    @Benchmark
+    public boolean hamcrestContainsInAnyOrder() {
+        return verificar(Matchers.containsInAnyOrder(idsEmOrdem), idsEmbaralhados);
+    }
+
+    @Benchmark
+    public boolean indexadoContainsInAnyOrder() {
+        return verificar(CollectionMatchers.containsInAnyOrder(idsEmOrdem), idsEmbaralhados);
+    }
+
+    private static boolean verificar(Matcher<?> matcher, Object lista) {
+        if (!matcher.matches(lista)) {
+            throw new IllegalStateException("os dois matchers deveriam aceitar a lista");
+        }
+        return true;
+    }
+}
@@ -0,0 +1,93 @@
+package br.com.bferreira.rest.benchmarks;
+
+import br.com.bferreira.rest.gpath.CompiledPath;
+import br.com.bferreira.rest.gpath.GPath;
+import io.restassured.http.ContentType;
+import io.restassured.path.json.JsonPath;
+import io.restassured.response.Response;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * As quatro formas de ler o mesmo campo do {@code UserJsonTest.deveVerificarPrimeiroNivelOutrasFormas}
+ * (as duas últimas refazem o parse do corpo a cada leitura), mais o JsonPath reaproveitado e o
+ * {@link GPath} compilado, para payloads de 1, 100 e 10.000 usuários. O {@code gpathCompilado}
+ * lê uma resposta nova a cada invocação (parse + avaliação); o {@code gpathMesmoCorpo}
+ * reaproveita o parse do mesmo corpo, como o {@code jsonPathReaproveitado}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExtractionBenchmark {
+
+    private static final String PATH = "id[0]";
+
+    @Param({"1", "100", "10000"})
+    public int usuarios;
+
+    private String corpo;
+    private Response response;
+    private Response[] alternadas;
+    private int vez;
+    private JsonPath jsonPath;
+    private CompiledPath compilado;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        corpo = Payloads.usersJson(usuarios);
+        response = Payloads.response(corpo, ContentType.JSON);
+        alternadas = Payloads.alternating(corpo, ContentType.JSON);
+        jsonPath = new JsonPath(corpo);
+        compilado = GPath.compile(PATH);
+    }
+
+    @Benchmark
+    public Object responsePath() {
+        return response.path(PATH);
+    }
+
+    @Benchmark
+    public Object responsePathFormatado() {
+        return response.path("%s[0]", "id");
+    }
+
+    @Benchmark
+    public int newJsonPath() {
+        return new JsonPath(response.asString()).getInt(PATH);
+    }
+
+    @Benchmark
+    public int jsonPathFrom() {
+        return JsonPath.from(response.asString()).getInt(PATH);
+    }
+
+    @Benchmark
+    public int jsonPathReaproveitado() {
+        return jsonPath.getInt(PATH);
+    }
+
+    @Benchmark
+    public Object gpathCompilado() {
+        return compilado.evaluate(alternadas[vez++ & 1].asString());
+    }
+
+    @Benchmark
+    public Object gpathMesmoCorpo() {
+        return compilado.evaluate(response.asString());
+    }
+}
@@ -0,0 +1,86 @@
+package br.com.bferreira.rest.benchmarks;
+
+import com.google.gson.Gson;
+import io.restassured.builder.ResponseBuilder;
+import io.restassured.filter.Filter;
+import io.restassured.http.ContentType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static io.restassured.RestAssured.given;
+
+/**
+ * Serialização de corpos com Gson: o {@code body(login)} do AuthTest e listas de usuários.
+ * Compara um Gson novo por chamada (o que o mapper padrão do RestAssured faz), um Gson
+ * compartilhado e o pipeline inteiro do RestAssured até a rede, interrompido por um filtro
+ * que devolve a resposta sem enviar nada.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GsonSerializationBenchmark {
+
+    private static final Gson GSON = new Gson();
+
+    //responde sem ir para a rede, depois de o RestAssured já ter serializado o corpo
+    private static final Filter SEM_REDE = (requisicao, resposta, contexto) -> new ResponseBuilder().setStatusCode(200)
+            .setBody(String.valueOf(requisicao.<String>getBody())).build();
+
+    @Param({"1", "100", "10000"})
+    public int usuarios;
+
+    private Map<String, String> login;
+    private List<Map<String, Object>> lista;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        login = new HashMap<>();
+        login.put("email", "bruno_graves@bol.com.br");
+        login.put("senha", "admin");
+        lista = Payloads.users(usuarios);
+    }
+
+    @Benchmark
+    public String loginGsonNovo() {
+        return new Gson().toJson(login);
+    }
+
+    @Benchmark
+    public String loginGsonCompartilhado() {
+        return GSON.toJson(login);
+    }
+
+    @Benchmark
+    public String listaGsonNovo() {
+        return new Gson().toJson(lista);
+    }
+
+    @Benchmark
+    public String listaGsonCompartilhado() {
+        return GSON.toJson(lista);
+    }
+
+    @Benchmark
+    public String listaRestAssured() {
+        return given().filter(SEM_REDE).contentType(ContentType.JSON).body(lista)
+                .post("http://localhost/users").asString();
+    }
+}
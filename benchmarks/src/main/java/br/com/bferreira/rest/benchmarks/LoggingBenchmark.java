@@ -0,0 +1,119 @@
+package br.com.bferreira.rest.benchmarks;
+
+import br.com.bferreira.rest.log.BufferedLog;
+import io.restassured.RestAssured;
+import io.restassured.builder.ResponseBuilder;
+import io.restassured.config.LogConfig;
+import io.restassured.filter.Filter;
+import io.restassured.filter.FilterContext;
+import io.restassured.filter.OrderedFilter;
+import io.restassured.http.ContentType;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+import static io.restassured.RestAssured.given;
+
+/**
+ * Custo por requisição do log: sem log, com um filtro que não faz nada, com o
+ * {@code log().all()} na requisição e na
+ * resposta (como no VerbosTest) e com o {@link BufferedLog} guardando a troca no buffer
+ * da thread, escrevendo numa thread à parte, ou guardando e imprimindo tudo (o caso de
+ * um teste que falha). Tudo vai para um stream descartável e a resposta vem de um filtro,
+ * sem rede, para sobrar só o custo do log.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoggingBenchmark {
+
+    private static final PrintStream DESCARTE = new PrintStream(OutputStream.nullOutputStream());
+
+    @Param({"1", "100"})
+    public int usuarios;
+
+    private Filter semRede;
+    private Filter buffer;
+    private Filter assincrono;
+    //mede só o custo de ter mais um filtro na cadeia do RestAssured, sem log nenhum
+    private final Filter vazio = (requisicao, resposta, contexto) -> contexto.next(requisicao, resposta);
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        RestAssured.config = RestAssured.config().logConfig(LogConfig.logConfig().defaultStream(DESCARTE));
+        String corpo = Payloads.usersJson(usuarios);
+        //roda depois dos filtros de log, que então veem a requisição completa
+        semRede = new OrderedFilter() {
+            @Override
+            public Response filter(FilterableRequestSpecification requisicao, FilterableResponseSpecification resposta, FilterContext contexto) {
+                return new ResponseBuilder().setStatusCode(200).setContentType(ContentType.JSON).setBody(corpo).build();
+            }
+
+            @Override
+            public int getOrder() {
+                return LOWEST_PRECEDENCE;
+            }
+        };
+        buffer = BufferedLog.filter(BufferedLog.Modo.FAILURE);
+        assincrono = BufferedLog.filter(BufferedLog.Modo.ASYNC);
+    }
+
+    @TearDown(Level.Iteration)
+    public void esvaziar() throws InterruptedException {
+        BufferedLog.flush(10_000);
+        BufferedLog.clear();
+    }
+
+    @Benchmark
+    public int semLog() {
+        return given().filter(semRede).get("http://localhost/users").then().statusCode(200).extract().statusCode();
+    }
+
+    @Benchmark
+    public int filtroVazio() {
+        return given().filter(vazio).filter(semRede).get("http://localhost/users").then().statusCode(200).extract().statusCode();
+    }
+
+    @Benchmark
+    public int logAll() {
+        return given().log().all().filter(semRede).get("http://localhost/users")
+                .then().log().all().statusCode(200).extract().statusCode();
+    }
+
+    @Benchmark
+    public int bufferPorThread() {
+        return given().filter(buffer).filter(semRede).get("http://localhost/users").then().statusCode(200).extract().statusCode();
+    }
+
+    @Benchmark
+    public int escritaAssincrona() {
+        return given().filter(assincrono).filter(semRede).get("http://localhost/users").then().statusCode(200).extract().statusCode();
+    }
+
+    @Benchmark
+    public int bufferImpressoNaFalha() {
+        int status = given().filter(buffer).filter(semRede).get("http://localhost/users").then().statusCode(200).extract().statusCode();
+        BufferedLog.dump(DESCARTE);
+        return status;
+    }
+}
@@ -0,0 +1,84 @@
+package br.com.bferreira.rest.benchmarks;
+
+import br.com.bferreira.rest.mapping.Mappers;
+import br.com.bferreira.rest.model.User;
+import com.google.gson.Gson;
+import io.restassured.common.mapper.TypeRef;
+import io.restassured.http.ContentType;
+import io.restassured.path.json.JsonPath;
+import io.restassured.response.Response;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lista do /users como {@code List<User>}: o {@code as(...)} do RestAssured (Gson reflexivo
+ * sobre a String do corpo), o {@code getList} do JsonPath (árvore do Groovy e depois o
+ * mapper), o Gson direto, e o mapper gerado pelo {@code @JsonMapped}, lendo os bytes. Rodar
+ * com {@code -prof gc} para ver a alocação.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapperBenchmark {
+
+    private static final Type LISTA = new TypeRef<List<User>>() {}.getType();
+
+    @Param({"100", "10000"})
+    public int usuarios;
+
+    private String corpo;
+    private Response response;
+    private Gson gson;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        corpo = Payloads.usersJson(usuarios);
+        response = Payloads.response(corpo, ContentType.JSON);
+        gson = new Gson();
+        if (Mappers.asList(response, User.class).size() != usuarios) {
+            throw new IllegalStateException("mapper gerado não leu todos os usuários");
+        }
+    }
+
+    @Benchmark
+    public List<User> restAssuredAs() {
+        return response.as(LISTA);
+    }
+
+    @Benchmark
+    public List<User> jsonPathGetList() {
+        return JsonPath.from(response.asString()).getList("", User.class);
+    }
+
+    @Benchmark
+    public List<User> gsonReflexivo() {
+        return gson.fromJson(response.asString(), LISTA);
+    }
+
+    @Benchmark
+    public List<User> mapperGerado() {
+        return Mappers.asList(response, User.class);
+    }
+
+    @Benchmark
+    public List<User> mapperGeradoComoObjectMapper() {
+        return response.as(LISTA, Mappers.objectMapper());
+    }
+}
@@ -0,0 +1,101 @@
+package br.com.bferreira.rest.benchmarks;
+
+import io.restassured.builder.ResponseBuilder;
+import io.restassured.http.ContentType;
+import io.restassured.response.Response;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Corpos fixos no formato do restapi.wcaquino.me (/users, /usersXML e uma página HTML
+ * com tabela), com a quantidade de usuários pedida. Os três primeiros são sempre os da
+ * API, então as mesmas assertivas valem para qualquer tamanho.
+ */
+final class Payloads {
+
+    private static final String[] NOMES = {"João da Silva", "Maria Joaquina", "Ana Júlia"};
+    private static final int[] IDADES = {30, 25, 20};
+
+    private Payloads() {
+    }
+
+    static String usersJson(int quantidade) {
+        StringBuilder json = new StringBuilder(quantidade * 80).append('[');
+        for (int i = 0; i < quantidade; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"id\":").append(i + 1)
+                    .append(",\"name\":\"").append(nome(i))
+                    .append("\",\"age\":").append(idade(i))
+                    .append(",\"salary\":").append(i == 2 ? "null" : 1234.5678 + i);
+            if (i == 0) {
+                json.append(",\"endereco\":{\"rua\":\"Rua dos bobos\",\"numero\":0}");
+            }
+            json.append('}');
+        }
+        return json.append(']').toString();
+    }
+
+    static String usersXml(int quantidade) {
+        StringBuilder xml = new StringBuilder(quantidade * 100).append("<users>");
+        for (int i = 0; i < quantidade; i++) {
+            xml.append("<user id=\"").append(i + 1).append("\"><name>").append(nome(i))
+                    .append("</name><age>").append(idade(i)).append("</age>");
+            if (i != 2) {
+                xml.append("<salary>").append(1234.5678 + i).append("</salary>");
+            }
+            xml.append("</user>");
+        }
+        return xml.append("</users>").toString();
+    }
+
+    /** Página como a do seubarriga: HTML sem fechar {@code <br>} e {@code <input>}, com uma linha por usuário. */
+    static String usersHtml(int quantidade) {
+        StringBuilder html = new StringBuilder(quantidade * 120)
+                .append("<html><head><title>Seu Barriga</title></head><body><form><input name=\"busca\"><br>")
+                .append("</form><table id=\"tabelaSaldo\"><thead><tr><th>Conta</th><th>Saldo</th></tr></thead><tbody>");
+        for (int i = 0; i < quantidade; i++) {
+            html.append("<tr><td>").append(nome(i)).append("</td><td>").append(idade(i) * 100).append(".00</td></tr>");
+        }
+        return html.append("</tbody></table></body></html>").toString();
+    }
+
+    static List<Map<String, Object>> users(int quantidade) {
+        List<Map<String, Object>> usuarios = new ArrayList<>(quantidade);
+        for (int i = 0; i < quantidade; i++) {
+            Map<String, Object> usuario = new LinkedHashMap<>();
+            usuario.put("id", i + 1);
+            usuario.put("name", nome(i));
+            usuario.put("age", idade(i));
+            usuario.put("salary", i == 2 ? null : 1234.5678 + i);
+            usuarios.add(usuario);
+        }
+        return usuarios;
+    }
+
+    /** Resposta montada em memória, sem rede, para medir só extração e validação. */
+    static Response response(String corpo, ContentType tipo) {
+        return new ResponseBuilder().setStatusCode(200).setContentType(tipo).setBody(corpo).build();
+    }
+
+    /**
+     * Duas respostas com o mesmo conteúdo, a segunda com um espaço a mais no fim. Alternar
+     * entre elas faz o {@code ParsedBody.cached} errar a cada invocação, então o benchmark
+     * mede o parse de cada resposta nova e não só a avaliação sobre a árvore já montada.
+     */
+    static Response[] alternating(String corpo, ContentType tipo) {
+        return new Response[]{response(corpo, tipo), response(corpo + " ", tipo)};
+    }
+
+    private static String nome(int i) {
+        return i < NOMES.length ? NOMES[i] : "Usuario " + (i + 1);
+    }
+
+    private static int idade(int i) {
+        return i < IDADES.length ? IDADES[i] : 18 + i % 60;
+    }
+}
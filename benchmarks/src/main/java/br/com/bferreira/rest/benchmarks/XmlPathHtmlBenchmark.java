@@ -0,0 +1,62 @@
+package br.com.bferreira.rest.benchmarks;
+
+import io.restassured.path.xml.XmlPath;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * O XmlPath em modo HTML do {@code AuthTest.deveAcessarAplicacaoWeb} (parse tolerante do
+ * HTML a cada {@code new XmlPath}), comparado ao XmlPath reaproveitado e ao modo XML
+ * sobre um documento equivalente bem formado.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class XmlPathHtmlBenchmark {
+
+    private static final String PATH = "html.body.table.tbody.tr[0].td[0]";
+
+    @Param({"1", "100", "10000"})
+    public int linhas;
+
+    private String html;
+    private String xhtml;
+    private XmlPath reaproveitado;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        html = Payloads.usersHtml(linhas);
+        xhtml = html.replace("<input name=\"busca\">", "<input name=\"busca\"/>").replace("<br>", "<br/>");
+        reaproveitado = new XmlPath(XmlPath.CompatibilityMode.HTML, html);
+    }
+
+    @Benchmark
+    public String modoHtml() {
+        return new XmlPath(XmlPath.CompatibilityMode.HTML, html).getString(PATH);
+    }
+
+    @Benchmark
+    public String modoHtmlReaproveitado() {
+        return reaproveitado.getString(PATH);
+    }
+
+    @Benchmark
+    public String modoXml() {
+        return new XmlPath(XmlPath.CompatibilityMode.XML, xhtml).getString(PATH);
+    }
+}
@@ -0,0 +1,133 @@
+package br.com.bferreira.rest.async;
+
+import br.com.bferreira.rest.cassette.Recording;
+import io.restassured.http.Header;
+import io.restassured.response.ValidatableResponse;
+
+import java.io.Closeable;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cliente HTTP não bloqueante ({@link HttpClient} do JDK) por trás do {@link AsyncRest}. As
+ * respostas viram {@link io.restassured.response.Response} do RestAssured, então o
+ * {@code then()} valida do mesmo jeito que na API síncrona. Quem envia nunca bloqueia: acima
+ * de {@code maxInFlight} requisições em andamento as novas esperam numa fila.
+ *
+ * <p>Os filtros globais do RestAssured (log, fita de gravações, métricas) não passam por aqui.</p>
+ */
+public final class AsyncClient implements Closeable {
+
+    private static final int EM_ANDAMENTO = Integer.getInteger("async.maxInFlight", 64);
+    private static final int THREADS = Integer.getInteger("async.threads", Math.max(2, Runtime.getRuntime().availableProcessors()));
+    private static volatile AsyncClient compartilhado;
+
+    private final ExecutorService executor;
+    private final HttpClient http;
+    private final InFlightLimiter limitador;
+    private final LongAdder enviadas = new LongAdder();
+    private final LongAdder concluidas = new LongAdder();
+    private final LongAdder falhas = new LongAdder();
+
+    private AsyncClient(int maxInFlight, int threads, HttpClient.Version versao) {
+        AtomicInteger contador = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, tarefa -> {
+            Thread thread = new Thread(tarefa, "http-assincrono-" + contador.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.http = HttpClient.newBuilder()
+                .version(versao)
+                .connectTimeout(Duration.ofSeconds(10))
+                .executor(executor)
+                .build();
+        this.limitador = new InFlightLimiter(maxInFlight);
+    }
+
+    /** Cliente da JVM, com {@code async.maxInFlight} (padrão 64) e {@code async.threads} das propriedades de sistema. */
+    public static AsyncClient shared() {
+        AsyncClient atual = compartilhado;
+        if (atual == null) {
+            synchronized (AsyncClient.class) {
+                atual = compartilhado;
+                if (atual == null) {
+                    atual = create(EM_ANDAMENTO);
+                    compartilhado = atual;
+                }
+            }
+        }
+        return atual;
+    }
+
+    public static AsyncClient create(int maxInFlight) {
+        return create(maxInFlight, HttpClient.Version.HTTP_1_1);
+    }
+
+    /**
+     * Com {@link HttpClient.Version#HTTP_2}, servidores com h2 recebem as requisições como
+     * streams multiplexados numa única conexão; os demais continuam em HTTP/1.1.
+     */
+    public static AsyncClient create(int maxInFlight, HttpClient.Version versao) {
+        return new AsyncClient(maxInFlight, THREADS, versao);
+    }
+
+    public AsyncRequest given() {
+        return new AsyncRequest(this);
+    }
+
+    /** Requisições enviadas, concluídas, com erro de rede, pico em andamento e quantas esperaram vaga. */
+    public Map<String, Long> stats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("sent", enviadas.sum());
+        stats.put("completed", concluidas.sum());
+        stats.put("failed", falhas.sum());
+        stats.put("inFlight", (long) limitador.inFlight());
+        stats.put("peakInFlight", limitador.peak());
+        stats.put("queued", limitador.queued());
+        stats.put("maxInFlight", (long) limitador.limit());
+        return stats;
+    }
+
+    CompletableFuture<ValidatableResponse> send(HttpRequest requisicao) {
+        return limitador.submit(() -> {
+            enviadas.increment();
+            return http.sendAsync(requisicao, HttpResponse.BodyHandlers.ofByteArray());
+        }).handle((resposta, erro) -> {
+            if (erro != null) {
+                falhas.increment();
+                Throwable causa = erro instanceof CompletionException && erro.getCause() != null ? erro.getCause() : erro;
+                throw new AsyncRequestException(requisicao.method() + " " + requisicao.uri(), causa);
+            }
+            concluidas.increment();
+            return resposta(resposta).toResponse().then();
+        });
+    }
+
+    private static Recording resposta(HttpResponse<byte[]> resposta) {
+        List<Header> headers = new ArrayList<>();
+        resposta.headers().map().forEach((nome, valores) -> {
+            if (!nome.startsWith(":")) {//pseudo-headers do HTTP/2
+                valores.forEach(valor -> headers.add(new Header(nome, valor)));
+            }
+        });
+        String versao = resposta.version() == HttpClient.Version.HTTP_2 ? "HTTP/2" : "HTTP/1.1";
+        return new Recording(resposta.statusCode(), versao + " " + resposta.statusCode(), headers, resposta.body());
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,181 @@
+package br.com.bferreira.rest.async;
+
+import br.com.bferreira.rest.config.RestContext;
+import com.google.gson.Gson;
+import io.restassured.RestAssured;
+import io.restassured.http.ContentType;
+import io.restassured.response.ValidatableResponse;
+import io.restassured.specification.QueryableRequestSpecification;
+import io.restassured.specification.SpecificationQuerier;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Especificação de uma requisição assíncrona, no formato do {@code given()} do RestAssured:
+ * headers, parâmetros de path e de query, corpo e o verbo no fim. O verbo devolve um
+ * {@link CompletableFuture} com o {@link ValidatableResponse}, para encadear as mesmas
+ * assertivas do {@code then()}. Paths relativos usam o {@code baseURI}/{@code port}/{@code basePath}
+ * do {@link RestContext} da thread que monta a requisição (ou os globais do RestAssured, sem
+ * contexto), como a API síncrona.
+ */
+public final class AsyncRequest {
+
+    private static final Gson GSON = new Gson();
+
+    private final AsyncClient cliente;
+    private final Map<String, List<String>> headers = new LinkedHashMap<>();
+    private final Map<String, Object> pathParams = new LinkedHashMap<>();
+    private final StringBuilder query = new StringBuilder();
+    private final StringBuilder cookies = new StringBuilder();
+    private String contentType;
+    private byte[] corpo;
+
+    AsyncRequest(AsyncClient cliente) {
+        this.cliente = cliente;
+    }
+
+    public AsyncRequest header(String nome, Object valor) {
+        headers.computeIfAbsent(nome, chave -> new ArrayList<>()).add(String.valueOf(valor));
+        return this;
+    }
+
+    public AsyncRequest contentType(ContentType tipo) {
+        return contentType(tipo.withCharset(StandardCharsets.UTF_8));
+    }
+
+    public AsyncRequest contentType(String tipo) {
+        this.contentType = tipo;
+        return this;
+    }
+
+    /** Os cookies vão todos num único header {@code Cookie}, separados por {@code "; "}. */
+    public AsyncRequest cookie(String nome, Object valor) {
+        cookies.append(cookies.length() == 0 ? "" : "; ").append(nome).append('=').append(valor);
+        return this;
+    }
+
+    public AsyncRequest pathParam(String nome, Object valor) {
+        pathParams.put(nome, valor);
+        return this;
+    }
+
+    public AsyncRequest queryParam(String nome, Object... valores) {
+        for (Object valor : valores) {
+            query.append(query.length() == 0 ? "" : "&").append(codificar(nome)).append('=').append(codificar(String.valueOf(valor)));
+        }
+        return this;
+    }
+
+    /** Corpo em texto, bytes, ou um objeto serializado como JSON (pelo Gson). */
+    public AsyncRequest body(Object conteudo) {
+        if (conteudo instanceof byte[]) {
+            corpo = (byte[]) conteudo;
+        } else if (conteudo instanceof String) {
+            corpo = ((String) conteudo).getBytes(StandardCharsets.UTF_8);
+        } else {
+            corpo = GSON.toJson(conteudo).getBytes(StandardCharsets.UTF_8);
+            if (contentType == null) {
+                contentType(ContentType.JSON);
+            }
+        }
+        return this;
+    }
+
+    /** Só para ler como no RestAssured: {@code given()...when().get(...)}. */
+    public AsyncRequest when() {
+        return this;
+    }
+
+    public CompletableFuture<ValidatableResponse> get(String path, Object... pathParams) {
+        return request("GET", path, pathParams);
+    }
+
+    public CompletableFuture<ValidatableResponse> post(String path, Object... pathParams) {
+        return request("POST", path, pathParams);
+    }
+
+    public CompletableFuture<ValidatableResponse> put(String path, Object... pathParams) {
+        return request("PUT", path, pathParams);
+    }
+
+    public CompletableFuture<ValidatableResponse> patch(String path, Object... pathParams) {
+        return request("PATCH", path, pathParams);
+    }
+
+    public CompletableFuture<ValidatableResponse> delete(String path, Object... pathParams) {
+        return request("DELETE", path, pathParams);
+    }
+
+    public CompletableFuture<ValidatableResponse> request(String metodo, String path, Object... pathParams) {
+        HttpRequest.Builder requisicao = HttpRequest.newBuilder(uri(path, pathParams));
+        StringBuilder cookie = new StringBuilder(cookies);
+        headers.forEach((nome, valores) -> valores.forEach(valor -> {
+            if ("Cookie".equalsIgnoreCase(nome)) {
+                cookie.append(cookie.length() == 0 ? "" : "; ").append(valor);
+            } else {
+                requisicao.header(nome, valor);
+            }
+        }));
+        if (cookie.length() > 0) {
+            requisicao.header("Cookie", cookie.toString());
+        }
+        if (contentType != null) {
+            requisicao.header("Content-Type", contentType);
+        }
+        requisicao.method(metodo, corpo == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofByteArray(corpo));
+        return cliente.send(requisicao.build());
+    }
+
+    URI uri(String path, Object... posicionais) {
+        String completo = path.startsWith("http://") || path.startsWith("https://") ? path : base() + path;
+        StringBuilder uri = new StringBuilder(completo.length() + query.length() + 1);
+        int proximo = 0;
+        for (int i = 0; i < completo.length(); i++) {
+            char c = completo.charAt(i);
+            int fim = c == '{' ? completo.indexOf('}', i) : -1;
+            if (fim < 0) {
+                uri.append(c);
+                continue;
+            }
+            String nome = completo.substring(i + 1, fim);
+            Object valor = pathParams.containsKey(nome) ? pathParams.get(nome)
+                    : proximo < posicionais.length ? posicionais[proximo++] : null;
+            if (valor == null) {
+                throw new IllegalArgumentException("Sem valor para o parâmetro de path {" + nome + "} em " + path);
+            }
+            uri.append(codificar(String.valueOf(valor)).replace("+", "%20"));
+            i = fim;
+        }
+        if (query.length() > 0) {
+            uri.append(uri.indexOf("?") < 0 ? '?' : '&').append(query);
+        }
+        return URI.create(uri.toString());
+    }
+
+    private static String base() {
+        //o given() do contexto já traz os specs da thread sobre os estáticos do RestAssured
+        QueryableRequestSpecification spec = SpecificationQuerier.query(RestContext.given());
+        String base = spec.getBaseUri();
+        URI endereco = URI.create(base);
+        if (endereco.getPort() < 0 && spec.getPort() != RestAssured.UNDEFINED_PORT) {
+            base += ":" + spec.getPort();
+        }
+        String basePath = spec.getBasePath();
+        if (basePath != null && !basePath.isEmpty() && !"/".equals(basePath)) {
+            base += basePath.startsWith("/") ? basePath : "/" + basePath;
+        }
+        return base;
+    }
+
+    private static String codificar(String texto) {
+        return URLEncoder.encode(texto, StandardCharsets.UTF_8);
+    }
+}
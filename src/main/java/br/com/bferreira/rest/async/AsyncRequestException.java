@@ -0,0 +1,9 @@
+package br.com.bferreira.rest.async;
+
+/** A requisição assíncrona não teve resposta (conexão recusada, timeout...). */
+public class AsyncRequestException extends RuntimeException {
+
+    public AsyncRequestException(String requisicao, Throwable causa) {
+        super("Falha em " + requisicao + ": " + causa, causa);
+    }
+}
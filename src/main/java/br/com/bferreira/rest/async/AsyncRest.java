@@ -0,0 +1,70 @@
+package br.com.bferreira.rest.async;
+
+import io.restassured.response.ValidatableResponse;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Variante assíncrona do {@code given()} do RestAssured, para verificar muitos recursos de
+ * uma vez: as requisições saem juntas (até {@code async.maxInFlight} em andamento) e o tempo
+ * total fica perto de uma ida ao servidor em vez de uma por recurso.
+ *
+ * <pre>
+ * List&lt;CompletableFuture&lt;ValidatableResponse&gt;&gt; verificacoes = new ArrayList&lt;&gt;();
+ * for (int id : List.of(1, 2, 3)) {
+ *     verificacoes.add(AsyncRest.given().when().get("/users/{id}", id)
+ *             .thenApply(resposta -&gt; resposta.statusCode(200).body("id", is(id))));
+ * }
+ * AsyncRest.awaitAll(verificacoes);
+ * </pre>
+ */
+public final class AsyncRest {
+
+    private AsyncRest() {
+    }
+
+    public static AsyncRequest given() {
+        return AsyncClient.shared().given();
+    }
+
+    /**
+     * Espera todas as requisições e assertivas terminarem. Se alguma falhou, lança a primeira
+     * falha (um {@link AssertionError} continua sendo {@link AssertionError}) com as outras
+     * como suprimidas.
+     */
+    public static List<ValidatableResponse> awaitAll(Collection<? extends CompletableFuture<? extends ValidatableResponse>> futuros) {
+        List<ValidatableResponse> respostas = new ArrayList<>(futuros.size());
+        Throwable primeira = null;
+        for (CompletableFuture<? extends ValidatableResponse> futuro : futuros) {
+            try {
+                respostas.add(futuro.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CompletionException(e);
+            } catch (ExecutionException e) {
+                Throwable causa = e.getCause() instanceof CompletionException && e.getCause().getCause() != null
+                        ? e.getCause().getCause() : e.getCause();
+                if (primeira == null) {
+                    primeira = causa;
+                } else {
+                    primeira.addSuppressed(causa);
+                }
+            }
+        }
+        if (primeira instanceof Error) {
+            throw (Error) primeira;
+        }
+        if (primeira instanceof RuntimeException) {
+            throw (RuntimeException) primeira;
+        }
+        if (primeira != null) {
+            throw new CompletionException(primeira);
+        }
+        return respostas;
+    }
+}
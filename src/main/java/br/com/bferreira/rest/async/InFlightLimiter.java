@@ -0,0 +1,108 @@
+package br.com.bferreira.rest.async;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Limita as requisições em andamento sem bloquear quem envia: acima do limite a requisição
+ * entra numa fila e é disparada pela thread que terminar a anterior. Uma só thread drena a
+ * fila por vez, num laço: requisições que terminam na hora (falha imediata, resposta da fita)
+ * não empilham uma chamada por item da fila.
+ */
+final class InFlightLimiter {
+
+    private final int limite;
+    private final AtomicInteger emAndamento = new AtomicInteger();
+    private final AtomicInteger pedidosDeDrenagem = new AtomicInteger();
+    private final Queue<Runnable> fila = new ConcurrentLinkedQueue<>();
+    private final LongAccumulator pico = new LongAccumulator(Math::max, 0);
+    private final LongAdder enfileiradas = new LongAdder();
+
+    InFlightLimiter(int limite) {
+        if (limite < 1) {
+            throw new IllegalArgumentException("Limite de requisições em andamento deve ser positivo: " + limite);
+        }
+        this.limite = limite;
+    }
+
+    <T> CompletableFuture<T> submit(Supplier<CompletableFuture<T>> tarefa) {
+        CompletableFuture<T> resultado = new CompletableFuture<>();
+        if (emAndamento.get() >= limite) {
+            enfileiradas.increment();
+        }
+        fila.add(() -> {
+            CompletableFuture<T> enviada;
+            try {
+                enviada = tarefa.get();
+            } catch (Throwable e) {
+                enviada = CompletableFuture.failedFuture(e);
+            }
+            enviada.whenComplete((valor, erro) -> {
+                liberar();//a vaga volta antes de rodar as assertivas encadeadas no resultado
+                if (erro != null) {
+                    resultado.completeExceptionally(erro);
+                } else {
+                    resultado.complete(valor);
+                }
+            });
+        });
+        drenar();
+        return resultado;
+    }
+
+    int limit() {
+        return limite;
+    }
+
+    int inFlight() {
+        return emAndamento.get();
+    }
+
+    long peak() {
+        return pico.get();
+    }
+
+    long queued() {
+        return enfileiradas.sum();
+    }
+
+    private void liberar() {
+        emAndamento.decrementAndGet();
+        drenar();
+    }
+
+    private void drenar() {
+        if (pedidosDeDrenagem.getAndIncrement() != 0) {
+            return;//quem já está drenando (esta thread mais acima na pilha, ou outra) passa de novo pela fila
+        }
+        int pendentes = 1;
+        do {
+            despachar();
+            pendentes = pedidosDeDrenagem.addAndGet(-pendentes);
+        } while (pendentes != 0);
+    }
+
+    private void despachar() {
+        while (!fila.isEmpty()) {
+            int atual = emAndamento.get();
+            if (atual >= limite) {
+                return;//quem está com a vaga drena quando terminar
+            }
+            if (!emAndamento.compareAndSet(atual, atual + 1)) {
+                continue;
+            }
+            Runnable proxima = fila.poll();
+            if (proxima == null) {
+                emAndamento.decrementAndGet();//outra thread levou a última; o while confere a fila de novo
+                continue;
+            }
+            pico.accumulate(atual + 1);
+            proxima.run();
+        }
+    }
+}
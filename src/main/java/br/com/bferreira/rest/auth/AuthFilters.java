@@ -0,0 +1,104 @@
+package br.com.bferreira.rest.auth;
+
+import io.restassured.filter.Filter;
+import io.restassured.filter.FilterContext;
+import io.restassured.http.ContentType;
+import io.restassured.http.Cookie;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+import static io.restassured.RestAssured.given;
+
+/**
+ * Filtros que anexam a credencial do {@link CredentialCache} a cada requisição, fazendo o
+ * login só quando não há credencial válida. Se o servidor responder 401, a credencial é
+ * descartada e a próxima requisição faz um login novo.
+ *
+ * <pre>
+ * given().filter(AuthFilters.jwt("https://barrigarest.wcaquino.me/signin", email, senha))
+ *     .get("https://barrigarest.wcaquino.me/contas")
+ * </pre>
+ */
+public final class AuthFilters {
+
+    private AuthFilters() {
+    }
+
+    /** POST de {@code {"email", "senha"}} no signin; o token da resposta vai no header {@code Authorization: JWT <token>}. */
+    public static Filter jwt(String signinUrl, String email, String senha) {
+        return jwt(CredentialCache.shared(), signinUrl, email, senha);
+    }
+
+    public static Filter jwt(CredentialCache cache, String signinUrl, String email, String senha) {
+        CredentialCache.Login login = () -> {
+            Map<String, String> corpo = new LinkedHashMap<>();
+            corpo.put("email", email);
+            corpo.put("senha", senha);
+            Response resposta = given().contentType(ContentType.JSON).body(corpo).post(signinUrl);
+            exigirSucesso(resposta, signinUrl);
+            return Credential.jwt(resposta.path("token"), cache.agora());
+        };
+        return new CredentialFilter(cache, "jwt " + signinUrl + " " + email, login,
+                (requisicao, credencial) -> requisicao.header("Authorization", "JWT " + credencial.value()));
+    }
+
+    /** POST de formulário com email e senha; o cookie de sessão {@code cookieName} da resposta vai nas requisições seguintes. */
+    public static Filter sessionCookie(String loginUrl, String email, String senha, String cookieName) {
+        return sessionCookie(CredentialCache.shared(), loginUrl, email, senha, cookieName);
+    }
+
+    public static Filter sessionCookie(CredentialCache cache, String loginUrl, String email, String senha, String cookieName) {
+        CredentialCache.Login login = () -> {
+            Response resposta = given()
+                    .formParam("email", email)
+                    .formParam("senha", senha)
+                    .contentType(ContentType.URLENC.withCharset("UTF-8"))
+                    .post(loginUrl);
+            exigirSucesso(resposta, loginUrl);
+            Cookie cookie = resposta.getDetailedCookie(cookieName);
+            if (cookie == null) {
+                throw new IllegalStateException("Login em " + loginUrl + " não devolveu o cookie " + cookieName);
+            }
+            return Credential.cookie(cookieName, cookie.getValue(), cookie.getMaxAge(), cookie.getExpiryDate(), cache.agora());
+        };
+        return new CredentialFilter(cache, "cookie " + loginUrl + " " + email, login,
+                (requisicao, credencial) -> requisicao.cookie(credencial.name(), credencial.value()));
+    }
+
+    private static void exigirSucesso(Response resposta, String url) {
+        if (resposta.statusCode() >= 300) {
+            throw new IllegalStateException("Login em " + url + " falhou com status " + resposta.statusCode());
+        }
+    }
+
+    private static final class CredentialFilter implements Filter {
+        private final CredentialCache cache;
+        private final String chave;
+        private final CredentialCache.Login login;
+        private final BiConsumer<FilterableRequestSpecification, Credential> anexar;
+
+        CredentialFilter(CredentialCache cache, String chave, CredentialCache.Login login,
+                         BiConsumer<FilterableRequestSpecification, Credential> anexar) {
+            this.cache = cache;
+            this.chave = chave;
+            this.login = login;
+            this.anexar = anexar;
+        }
+
+        @Override
+        public Response filter(FilterableRequestSpecification requisicao, FilterableResponseSpecification resposta, FilterContext contexto) {
+            Credential credencial = cache.get(chave, login);
+            anexar.accept(requisicao, credencial);
+            Response recebida = contexto.next(requisicao, resposta);
+            if (recebida.statusCode() == 401) {
+                cache.invalidate(chave, credencial);
+            }
+            return recebida;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package br.com.bferreira.rest.auth;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * Token ou cookie de sessão obtido num login, com o instante em que expira. Para JWT a
+ * expiração vem do claim {@code exp}; para cookie, do Max-Age/Expires. Quando não há
+ * expiração conhecida vale {@code auth.sessionTtlSeconds} (padrão 1800) a partir do login.
+ */
+public final class Credential {
+
+    static final long TTL_PADRAO_MILLIS = Long.getLong("auth.sessionTtlSeconds", 1800L) * 1000;
+
+    private final String name;
+    private final String value;
+    private final long expiresAtMillis;
+
+    private Credential(String name, String value, long expiresAtMillis) {
+        this.name = name;
+        this.value = value;
+        this.expiresAtMillis = expiresAtMillis;
+    }
+
+    /** Token JWT; a expiração é o claim {@code exp} do payload (sem validar a assinatura). */
+    public static Credential jwt(String token, long agoraMillis) {
+        Long exp = exp(token);
+        return new Credential("JWT", token, exp == null ? agoraMillis + TTL_PADRAO_MILLIS : exp * 1000);
+    }
+
+    /** Cookie de sessão; {@code maxAgeSeconds} negativo e {@code expiry} null significam sem expiração informada. */
+    public static Credential cookie(String name, String value, long maxAgeSeconds, Date expiry, long agoraMillis) {
+        long expira;
+        if (maxAgeSeconds >= 0) {
+            expira = agoraMillis + maxAgeSeconds * 1000;
+        } else if (expiry != null) {
+            expira = expiry.getTime();
+        } else {
+            expira = agoraMillis + TTL_PADRAO_MILLIS;
+        }
+        return new Credential(name, value, expira);
+    }
+
+    /** Nome do cookie, ou "JWT" para tokens. */
+    public String name() {
+        return name;
+    }
+
+    public String value() {
+        return value;
+    }
+
+    public long expiresAtMillis() {
+        return expiresAtMillis;
+    }
+
+    public boolean isExpired(long agoraMillis) {
+        return agoraMillis >= expiresAtMillis;
+    }
+
+    /** Expira dentro da margem: hora de renovar. */
+    public boolean expiresWithin(long margemMillis, long agoraMillis) {
+        return agoraMillis + margemMillis >= expiresAtMillis;
+    }
+
+    static Long exp(String token) {
+        String[] partes = token.split("\\.");
+        if (partes.length < 2) {
+            return null;
+        }
+        try {
+            String payload = new String(Base64.getUrlDecoder().decode(partes[1]), StandardCharsets.UTF_8);
+            JsonElement json = JsonParser.parseString(payload);
+            if (!json.isJsonObject()) {
+                return null;
+            }
+            JsonObject claims = json.getAsJsonObject();
+            return claims.has("exp") && claims.get("exp").isJsonPrimitive() ? claims.get("exp").getAsLong() : null;
+        } catch (RuntimeException e) {
+            return null;//não é um JWT legível: fica com o TTL padrão
+        }
+    }
+
+    @Override
+    public String toString() {
+        return name + " (expira em " + new Date(expiresAtMillis) + ")";
+    }
+}
@@ -0,0 +1,126 @@
+package br.com.bferreira.rest.auth;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Cache de credenciais por usuário: faz o login uma vez e reaproveita o token/cookie até
+ * perto de expirar. A renovação é single-flight: só uma thread por chave faz o login;
+ * enquanto isso as outras seguem com a credencial atual se ela ainda vale, ou esperam o
+ * mesmo login se ela já expirou. A renovação começa {@code auth.refreshAheadSeconds}
+ * (padrão 30) antes da expiração.
+ */
+public final class CredentialCache {
+
+    /** Faz o login e devolve a credencial obtida. */
+    public interface Login {
+        Credential login();
+    }
+
+    private static final CredentialCache COMPARTILHADO = new CredentialCache(
+            Long.getLong("auth.refreshAheadSeconds", 30L) * 1000, System::currentTimeMillis);
+
+    private final Map<String, Entrada> entradas = new ConcurrentHashMap<>();
+    private final long margemMillis;
+    private final LongSupplier relogio;
+    private final LongAdder acertos = new LongAdder();
+    private final LongAdder logins = new LongAdder();
+    private final LongAdder esperas = new LongAdder();
+
+    CredentialCache(long margemMillis, LongSupplier relogio) {
+        this.margemMillis = margemMillis;
+        this.relogio = relogio;
+    }
+
+    public static CredentialCache shared() {
+        return COMPARTILHADO;
+    }
+
+    long agora() {
+        return relogio.getAsLong();
+    }
+
+    public Credential get(String chave, Login login) {
+        Entrada entrada = entradas.computeIfAbsent(chave, k -> new Entrada());
+        Credential atual = entrada.atual;
+        long agora = agora();
+        if (atual != null && !atual.expiresWithin(margemMillis, agora)) {
+            acertos.increment();
+            return atual;
+        }
+
+        CompletableFuture<Credential> emAndamento;
+        boolean dono = false;
+        synchronized (entrada) {
+            //outro login pode ter terminado entre a leitura acima e aqui: não logar de novo
+            Credential recente = entrada.atual;
+            if (recente != atual && recente != null && !recente.expiresWithin(margemMillis, agora)) {
+                acertos.increment();
+                return recente;
+            }
+            if (entrada.emAndamento == null) {
+                entrada.emAndamento = new CompletableFuture<>();
+                dono = true;
+            }
+            emAndamento = entrada.emAndamento;
+        }
+        if (dono) {
+            return logar(entrada, emAndamento, login);
+        }
+        if (atual != null && !atual.isExpired(agora)) {
+            acertos.increment();//outra thread já está renovando e a atual ainda vale
+            return atual;
+        }
+        esperas.increment();
+        try {
+            return emAndamento.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+    }
+
+    private Credential logar(Entrada entrada, CompletableFuture<Credential> emAndamento, Login login) {
+        try {
+            Credential nova = login.login();
+            logins.increment();
+            entrada.atual = nova;
+            emAndamento.complete(nova);
+            return nova;
+        } catch (RuntimeException | Error e) {
+            emAndamento.completeExceptionally(e);
+            throw e;
+        } finally {
+            synchronized (entrada) {
+                entrada.emAndamento = null;
+            }
+        }
+    }
+
+    /** Descarta a credencial (ex.: o servidor respondeu 401), se ainda for a mesma. */
+    public void invalidate(String chave, Credential credencial) {
+        Entrada entrada = entradas.get(chave);
+        if (entrada != null && entrada.atual == credencial) {
+            entrada.atual = null;
+        }
+    }
+
+    /** Requisições atendidas pelo cache, logins feitos e threads que esperaram um login em andamento. */
+    public Map<String, Long> stats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("hits", acertos.sum());
+        stats.put("logins", logins.sum());
+        stats.put("waits", esperas.sum());
+        stats.put("cached", (long) entradas.size());
+        return stats;
+    }
+
+    private static final class Entrada {
+        volatile Credential atual;
+        CompletableFuture<Credential> emAndamento;
+    }
+}
@@ -0,0 +1,125 @@
+package br.com.bferreira.rest.body;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Corpo de requisição pré-compilado: o texto fixo vira bytes UTF-8 uma única vez e os
+ * campos {@code ${nome}} são escritos direto num buffer de bytes da thread, sem montar
+ * String, Map ou passar por serialização por reflexão a cada requisição.
+ *
+ * <pre>
+ * static final BodyTemplate USUARIO = BodyTemplate.json("{\"name\": \"${name}\",\"age\":${age}}");
+ * given().contentType(ContentType.JSON).body(USUARIO.with().value("José Alfredo").value(50).bytes())
+ * </pre>
+ *
+ * No JSON, um campo entre aspas recebe o valor escapado como conteúdo da string; fora de
+ * aspas, o valor é escrito como literal JSON (números e booleanos como estão, null como
+ * {@code null}, texto entre aspas). Um campo entre aspas não tem como receber null (seria a
+ * string vazia, não null): para um valor que pode faltar, deixe o campo fora das aspas. NaN e
+ * infinitos não existem em JSON e são recusados, como no Gson. No XML, o valor é escapado como
+ * texto ou atributo, e null deixa o campo vazio.
+ * Os campos são preenchidos na ordem em que aparecem. Templates são imutáveis e podem ser
+ * compartilhados entre threads.
+ */
+public final class BodyTemplate {
+
+    /** Como os valores são escapados. */
+    enum Formato {
+        JSON, XML
+    }
+
+    private final String texto;
+    private final Formato formato;
+    final byte[][] trechos;//trechos[i] vem antes do campo i; o último fecha o corpo
+    final boolean[] entreAspas;
+    private final List<String> campos;
+
+    private BodyTemplate(String texto, Formato formato, byte[][] trechos, boolean[] entreAspas, List<String> campos) {
+        this.texto = texto;
+        this.formato = formato;
+        this.trechos = trechos;
+        this.entreAspas = entreAspas;
+        this.campos = campos;
+    }
+
+    public static BodyTemplate json(String template) {
+        return compilar(template, Formato.JSON);
+    }
+
+    public static BodyTemplate xml(String template) {
+        return compilar(template, Formato.XML);
+    }
+
+    /** Começa a preencher o template no buffer da thread (descarta o que estava sendo preenchido nele). */
+    public BodyWriter with() {
+        return BodyWriter.atual().iniciar(this);
+    }
+
+    /** Preenche todos os campos de uma vez e devolve uma cópia do tamanho exato. */
+    public byte[] render(Object... valores) {
+        BodyWriter escritor = with();
+        for (Object valor : valores) {
+            escritor.value(valor);
+        }
+        return escritor.bytes();
+    }
+
+    /** Nomes dos campos, na ordem de preenchimento. */
+    public List<String> fields() {
+        return campos;
+    }
+
+    Formato formato() {
+        return formato;
+    }
+
+    @Override
+    public String toString() {
+        return texto;
+    }
+
+    private static BodyTemplate compilar(String template, Formato formato) {
+        List<byte[]> trechos = new ArrayList<>();
+        List<Boolean> aspas = new ArrayList<>();
+        List<String> campos = new ArrayList<>();
+        boolean dentroDeString = false;
+        StringBuilder trecho = new StringBuilder();
+        for (int i = 0; i < template.length(); i++) {
+            char c = template.charAt(i);
+            if (c == '$' && i + 1 < template.length() && template.charAt(i + 1) == '{') {
+                int fim = template.indexOf('}', i + 2);
+                if (fim < 0) {
+                    throw new IllegalArgumentException("Campo sem '}' na posição " + i + ": " + template);
+                }
+                campos.add(template.substring(i + 2, fim).trim());
+                trechos.add(trecho.toString().getBytes(StandardCharsets.UTF_8));
+                aspas.add(formato == Formato.JSON && dentroDeString);
+                trecho.setLength(0);
+                i = fim;
+                continue;
+            }
+            if (formato == Formato.JSON && c == '"' && !escapado(trecho)) {
+                dentroDeString = !dentroDeString;
+            }
+            trecho.append(c);
+        }
+        trechos.add(trecho.toString().getBytes(StandardCharsets.UTF_8));
+        boolean[] entreAspas = new boolean[aspas.size()];
+        for (int i = 0; i < entreAspas.length; i++) {
+            entreAspas[i] = aspas.get(i);
+        }
+        return new BodyTemplate(template, formato, trechos.toArray(new byte[0][]), entreAspas, Collections.unmodifiableList(campos));
+    }
+
+    //aspas precedidas por um número ímpar de barras fazem parte da string
+    private static boolean escapado(CharSequence anterior) {
+        int barras = 0;
+        for (int i = anterior.length() - 1; i >= 0 && anterior.charAt(i) == '\\'; i--) {
+            barras++;
+        }
+        return barras % 2 == 1;
+    }
+}
@@ -0,0 +1,324 @@
+package br.com.bferreira.rest.body;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Buffer de bytes da thread onde um {@link BodyTemplate} é preenchido. Cada
+ * {@code value(...)} escreve o trecho fixo seguinte e o valor, já em UTF-8 e escapado;
+ * números inteiros, booleanos e texto não alocam nada. O buffer é reaproveitado pelo
+ * próximo {@code with()} na mesma thread: {@link #bytes()} devolve uma cópia para entregar
+ * ao RestAssured; {@link #array()}/{@link #length()} e {@link #writeTo(OutputStream)} dão
+ * acesso ao conteúdo sem cópia, válido até o próximo preenchimento.
+ */
+public final class BodyWriter {
+
+    private static final ThreadLocal<BodyWriter> BUFFER = ThreadLocal.withInitial(BodyWriter::new);
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] NULL = {'n', 'u', 'l', 'l'};
+    private static final byte[] TRUE = {'t', 'r', 'u', 'e'};
+    private static final byte[] FALSE = {'f', 'a', 'l', 's', 'e'};
+    private static final byte[] MIN_LONG = String.valueOf(Long.MIN_VALUE).getBytes(StandardCharsets.US_ASCII);
+
+    private byte[] dados = new byte[Integer.getInteger("body.buffer.initial", 1024)];
+    private int tamanho;
+    private BodyTemplate template;
+    private int campo;
+
+    private BodyWriter() {
+    }
+
+    static BodyWriter atual() {
+        return BUFFER.get();
+    }
+
+    BodyWriter iniciar(BodyTemplate template) {
+        this.template = template;
+        this.tamanho = 0;
+        this.campo = 0;
+        return this;
+    }
+
+    public BodyWriter value(CharSequence texto) {
+        abrirCampo();
+        if (texto == null) {
+            escreverNull();
+        } else if (template.formato() == BodyTemplate.Formato.XML) {
+            xml(texto);
+        } else if (template.entreAspas[campo]) {
+            json(texto);
+        } else {
+            um('"');
+            json(texto);
+            um('"');
+        }
+        campo++;
+        return this;
+    }
+
+    public BodyWriter value(long numero) {
+        abrirCampo();
+        numero(numero);
+        campo++;
+        return this;
+    }
+
+    public BodyWriter value(int numero) {
+        return value((long) numero);
+    }
+
+    /**
+     * Decimais passam pelo {@link Double#toString}, que aloca; prefira inteiros nos caminhos quentes.
+     * NaN e infinitos são recusados com {@link IllegalArgumentException}.
+     */
+    public BodyWriter value(double numero) {
+        return value((Object) numero);
+    }
+
+    public BodyWriter value(boolean valor) {
+        abrirCampo();
+        bytes(valor ? TRUE : FALSE);
+        campo++;
+        return this;
+    }
+
+    /**
+     * Texto, número, booleano ou null; outros objetos pelo {@code toString()}. Null num campo
+     * JSON entre aspas e decimais NaN ou infinitos são recusados com {@link IllegalArgumentException}.
+     */
+    public BodyWriter value(Object valor) {
+        if (valor instanceof CharSequence || valor == null) {
+            return value((CharSequence) valor);
+        }
+        if (valor instanceof Long || valor instanceof Integer || valor instanceof Short || valor instanceof Byte) {
+            return value(((Number) valor).longValue());
+        }
+        if (valor instanceof Boolean) {
+            return value(((Boolean) valor).booleanValue());
+        }
+        if (!(valor instanceof Number)) {
+            return value((CharSequence) String.valueOf(valor));
+        }
+        if ((valor instanceof Double || valor instanceof Float) && !Double.isFinite(((Number) valor).doubleValue())) {
+            throw new IllegalArgumentException(valor + " não é um número JSON válido (campo " + nomeDoCampo() + ")");
+        }
+        abrirCampo();
+        String texto = valor.toString();
+        if (template.formato() == BodyTemplate.Formato.JSON && template.entreAspas[campo]) {
+            json(texto);
+        } else {
+            ascii(texto);
+        }
+        campo++;
+        return this;
+    }
+
+    /** Bytes do corpo completo, numa cópia do tamanho exato (para o {@code body(byte[])} do RestAssured). */
+    public byte[] bytes() {
+        fechar();
+        return Arrays.copyOf(dados, tamanho);
+    }
+
+    /** Array interno do buffer; o corpo ocupa de 0 a {@link #length()}. Sem cópia; vale até o próximo preenchimento. */
+    public byte[] array() {
+        fechar();
+        return dados;
+    }
+
+    public int length() {
+        fechar();
+        return tamanho;
+    }
+
+    /** Escreve o corpo sem cópia intermediária. */
+    public void writeTo(OutputStream saida) throws IOException {
+        fechar();
+        saida.write(dados, 0, tamanho);
+    }
+
+    /** Stream sobre o buffer (sem cópia); vale até o próximo preenchimento na thread. */
+    public InputStream asInputStream() {
+        fechar();
+        return new ByteArrayInputStream(dados, 0, tamanho);
+    }
+
+    private void abrirCampo() {
+        if (template == null) {
+            throw new IllegalStateException("Chame with() no template antes de preencher");
+        }
+        if (campo >= template.entreAspas.length) {
+            throw new IllegalStateException("O template tem " + template.entreAspas.length + " campo(s): " + template);
+        }
+        bytes(template.trechos[campo]);
+    }
+
+    private void fechar() {
+        if (template == null) {
+            throw new IllegalStateException("Nenhum template sendo preenchido");
+        }
+        if (campo < template.entreAspas.length) {
+            throw new IllegalStateException("Falta preencher " + template.fields().subList(campo, template.entreAspas.length)
+                    + " em " + template);
+        }
+        if (campo == template.entreAspas.length) {
+            bytes(template.trechos[campo]);
+            campo++;//fechado: chamadas seguintes de bytes()/length() não repetem o último trecho
+        }
+    }
+
+    //entre aspas, null viraria a string vazia: o template precisa deixar o campo fora das aspas
+    private void escreverNull() {
+        if (template.formato() == BodyTemplate.Formato.XML) {
+            return;
+        }
+        if (template.entreAspas[campo]) {
+            throw new IllegalArgumentException("null no campo entre aspas " + nomeDoCampo()
+                    + "; deixe o campo fora das aspas no template para enviar null");
+        }
+        bytes(NULL);
+    }
+
+    private String nomeDoCampo() {
+        return template == null || campo >= template.entreAspas.length ? "?" : template.fields().get(campo);
+    }
+
+    private void numero(long numero) {
+        if (numero == Long.MIN_VALUE) {
+            bytes(MIN_LONG);
+            return;
+        }
+        if (numero < 0) {
+            um('-');
+            numero = -numero;
+        }
+        int digitos = 1;
+        for (long resto = numero / 10; resto > 0; resto /= 10) {
+            digitos++;
+        }
+        garantir(digitos);
+        for (int i = tamanho + digitos - 1; i >= tamanho; i--) {
+            dados[i] = (byte) ('0' + numero % 10);
+            numero /= 10;
+        }
+        tamanho += digitos;
+    }
+
+    private void json(CharSequence texto) {
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            switch (c) {
+                case '"':
+                    um('\\');
+                    um('"');
+                    break;
+                case '\\':
+                    um('\\');
+                    um('\\');
+                    break;
+                case '\n':
+                    um('\\');
+                    um('n');
+                    break;
+                case '\r':
+                    um('\\');
+                    um('r');
+                    break;
+                case '\t':
+                    um('\\');
+                    um('t');
+                    break;
+                default:
+                    if (c < 0x20) {
+                        um('\\');
+                        um('u');
+                        um('0');
+                        um('0');
+                        um(HEX[c >> 4]);
+                        um(HEX[c & 0xF]);
+                    } else {
+                        i = utf8(texto, i, c);
+                    }
+            }
+        }
+    }
+
+    private void xml(CharSequence texto) {
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            switch (c) {
+                case '<':
+                    ascii("&lt;");
+                    break;
+                case '>':
+                    ascii("&gt;");
+                    break;
+                case '&':
+                    ascii("&amp;");
+                    break;
+                case '"':
+                    ascii("&quot;");
+                    break;
+                case '\'':
+                    ascii("&apos;");
+                    break;
+                default:
+                    i = utf8(texto, i, c);
+            }
+        }
+    }
+
+    /** Escreve o caractere (ou o par substituto) em UTF-8; devolve o índice do último char consumido. */
+    private int utf8(CharSequence texto, int i, char c) {
+        if (c < 0x80) {
+            um(c);
+        } else if (c < 0x800) {
+            garantir(2);
+            dados[tamanho++] = (byte) (0xC0 | (c >> 6));
+            dados[tamanho++] = (byte) (0x80 | (c & 0x3F));
+        } else if (Character.isHighSurrogate(c) && i + 1 < texto.length() && Character.isLowSurrogate(texto.charAt(i + 1))) {
+            int codigo = Character.toCodePoint(c, texto.charAt(i + 1));
+            garantir(4);
+            dados[tamanho++] = (byte) (0xF0 | (codigo >> 18));
+            dados[tamanho++] = (byte) (0x80 | ((codigo >> 12) & 0x3F));
+            dados[tamanho++] = (byte) (0x80 | ((codigo >> 6) & 0x3F));
+            dados[tamanho++] = (byte) (0x80 | (codigo & 0x3F));
+            return i + 1;
+        } else if (Character.isSurrogate(c)) {
+            um('?');//substituto sem par, como o String.getBytes
+        } else {
+            garantir(3);
+            dados[tamanho++] = (byte) (0xE0 | (c >> 12));
+            dados[tamanho++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+            dados[tamanho++] = (byte) (0x80 | (c & 0x3F));
+        }
+        return i;
+    }
+
+    private void ascii(String texto) {
+        garantir(texto.length());
+        for (int i = 0; i < texto.length(); i++) {
+            dados[tamanho++] = (byte) texto.charAt(i);
+        }
+    }
+
+    private void bytes(byte[] trecho) {
+        garantir(trecho.length);
+        System.arraycopy(trecho, 0, dados, tamanho, trecho.length);
+        tamanho += trecho.length;
+    }
+
+    private void um(int b) {
+        garantir(1);
+        dados[tamanho++] = (byte) b;
+    }
+
+    private void garantir(int mais) {
+        if (tamanho + mais > dados.length) {
+            dados = Arrays.copyOf(dados, Math.max(dados.length * 2, tamanho + mais));
+        }
+    }
+}
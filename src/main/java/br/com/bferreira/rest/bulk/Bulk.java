@@ -0,0 +1,187 @@
+package br.com.bferreira.rest.bulk;
+
+import br.com.bferreira.rest.async.AsyncClient;
+import br.com.bferreira.rest.async.AsyncRequest;
+import com.google.gson.Gson;
+import io.restassured.RestAssured;
+import io.restassured.response.ValidatableResponse;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Lote de POST/PUT/DELETE para montar massa de dados: em vez de uma requisição bloqueante
+ * por vez, todas seguem por uma única conexão, em HTTP/1.1 com pipelining (padrão) ou em
+ * HTTP/2 com streams multiplexados. Cada item pode ter a sua verificação, com as mesmas
+ * assertivas do {@code then()}; o {@link BulkReport} junta as falhas e a vazão.
+ *
+ * <pre>
+ * BulkReport relatorio = Bulk.toBaseUri()
+ *         .post("/users", "{\"name\":\"Ana\",\"age\":20}", resposta -&gt; resposta.statusCode(201))
+ *         .delete("/users/1", resposta -&gt; resposta.statusCode(204))
+ *         .run();
+ * relatorio.assertAllPassed();
+ * </pre>
+ *
+ * <p>A janela ({@code bulk.window}, padrão 64) limita as requisições enviadas sem resposta.
+ * No HTTP/2 as requisições vão pelo {@link HttpClient} do JDK: num {@code http://} o primeiro
+ * item vai sozinho e faz o {@code Upgrade: h2c} (o stand-in dos testes entende), e os outros
+ * seguem multiplexados nessa conexão; servidores só HTTP/1.1 recusam o upgrade e recebem uma
+ * conexão por requisição em andamento. Em ambos os modos as verificações rodam depois da
+ * última resposta. Os filtros globais do RestAssured não passam pelo lote.</p>
+ */
+public final class Bulk {
+
+    /** Como o lote usa a conexão. */
+    public enum Modo {
+        /** HTTP/1.1, uma conexão, requisições escritas sem esperar as respostas. */
+        PIPELINE,
+        /** HTTP/2, streams multiplexados numa conexão (quando o servidor suporta). */
+        HTTP2
+    }
+
+    private static final Gson GSON = new Gson();
+    private static final String JSON = "application/json; charset=UTF-8";
+
+    private final URI base;
+    private final Map<String, String> headers = new LinkedHashMap<>();
+    private final List<BulkItem> itens = new ArrayList<>();
+    private Modo modo = Modo.PIPELINE;
+    private int janela = Integer.getInteger("bulk.window", 64);
+
+    private Bulk(URI base) {
+        this.base = base;
+    }
+
+    /** Lote para o servidor informado, ex.: {@code http://127.0.0.1:8080}. */
+    public static Bulk to(String baseUri) {
+        return new Bulk(URI.create(baseUri));
+    }
+
+    /** Lote para o {@code baseURI}/{@code port}/{@code basePath} globais do RestAssured. */
+    public static Bulk toBaseUri() {
+        String base = RestAssured.baseURI;
+        if (URI.create(base).getPort() < 0 && RestAssured.port != RestAssured.UNDEFINED_PORT) {
+            base += ":" + RestAssured.port;
+        }
+        String basePath = RestAssured.basePath;
+        if (basePath != null && !basePath.isEmpty() && !"/".equals(basePath)) {
+            base += basePath.startsWith("/") ? basePath : "/" + basePath;
+        }
+        return to(base);
+    }
+
+    public Bulk mode(Modo modo) {
+        this.modo = modo;
+        return this;
+    }
+
+    /** Requisições enviadas sem resposta ao mesmo tempo. */
+    public Bulk window(int janela) {
+        if (janela < 1) {
+            throw new IllegalArgumentException("Janela deve ser positiva: " + janela);
+        }
+        this.janela = janela;
+        return this;
+    }
+
+    /** Header enviado em todas as requisições do lote (ex.: Authorization). */
+    public Bulk header(String nome, Object valor) {
+        headers.put(nome, String.valueOf(valor));
+        return this;
+    }
+
+    /** POST com corpo JSON: texto como está, ou um objeto serializado pelo Gson. */
+    public Bulk post(String path, Object corpo, Consumer<ValidatableResponse> verificacao) {
+        return request("POST", path, JSON, json(corpo), verificacao);
+    }
+
+    public Bulk put(String path, Object corpo, Consumer<ValidatableResponse> verificacao) {
+        return request("PUT", path, JSON, json(corpo), verificacao);
+    }
+
+    public Bulk delete(String path, Consumer<ValidatableResponse> verificacao) {
+        return request("DELETE", path, null, null, verificacao);
+    }
+
+    /** Item qualquer; {@code verificacao} pode ser null (só conta o status). */
+    public Bulk request(String metodo, String path, String contentType, byte[] corpo, Consumer<ValidatableResponse> verificacao) {
+        itens.add(new BulkItem(metodo.toUpperCase(Locale.ROOT), path, contentType, corpo, verificacao));
+        return this;
+    }
+
+    public int size() {
+        return itens.size();
+    }
+
+    /** Envia o lote, espera todas as respostas e devolve o relatório (não lança por verificação reprovada). */
+    public BulkReport run() {
+        BulkReport relatorio = new BulkReport(modo, itens.size());
+        if (modo == Modo.PIPELINE) {
+            PipelinedConnection.run(base, headers, itens, janela, relatorio);
+        } else {
+            multiplexado(relatorio);
+        }
+        return relatorio;
+    }
+
+    private void multiplexado(BulkReport relatorio) {
+        long inicio = System.nanoTime();
+        String prefixo = base.toString().endsWith("/") ? base.toString().substring(0, base.toString().length() - 1) : base.toString();
+        ValidatableResponse[] respostas = new ValidatableResponse[itens.size()];
+        Throwable[] erros = new Throwable[itens.size()];
+        try (AsyncClient cliente = AsyncClient.create(janela, HttpClient.Version.HTTP_2)) {
+            //o primeiro vai sozinho: é ele que faz o Upgrade: h2c e abre a conexão que os outros compartilham
+            if (!itens.isEmpty()) {
+                enviar(cliente, prefixo, 0, respostas, erros).join();
+            }
+            List<CompletableFuture<?>> envios = new ArrayList<>(itens.size());
+            for (int i = 1; i < itens.size(); i++) {
+                envios.add(enviar(cliente, prefixo, i, respostas, erros));
+            }
+            CompletableFuture.allOf(envios.toArray(new CompletableFuture<?>[0])).join();
+        }
+        long nanosNaRede = System.nanoTime() - inicio;
+        for (int i = 0; i < itens.size(); i++) {
+            if (erros[i] != null) {
+                relatorio.failure(i, itens.get(i), erros[i]);
+            } else {
+                relatorio.response(i, itens.get(i), respostas[i].extract().statusCode(), respostas[i]);
+            }
+        }
+        relatorio.finish(System.nanoTime() - inicio, nanosNaRede, -1, -1);
+    }
+
+    private CompletableFuture<?> enviar(AsyncClient cliente, String prefixo, int indice, ValidatableResponse[] respostas, Throwable[] erros) {
+        BulkItem item = itens.get(indice);
+        AsyncRequest requisicao = cliente.given();
+        headers.forEach(requisicao::header);
+        if (item.contentType != null) {
+            requisicao.contentType(item.contentType);
+        }
+        if (item.body != null) {
+            requisicao.body(item.body);
+        }
+        return requisicao.request(item.method, prefixo + item.path).handle((resposta, erro) -> {
+            if (erro != null) {
+                erros[indice] = erro.getCause() != null ? erro.getCause() : erro;
+            } else {
+                respostas[indice] = resposta;
+            }
+            return null;
+        });
+    }
+
+    private static byte[] json(Object corpo) {
+        String texto = corpo instanceof String ? (String) corpo : GSON.toJson(corpo);
+        return texto.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,28 @@
+package br.com.bferreira.rest.bulk;
+
+import io.restassured.response.ValidatableResponse;
+
+import java.util.function.Consumer;
+
+/** Uma requisição do lote e a verificação da sua resposta. */
+final class BulkItem {
+
+    final String method;
+    final String path;
+    final String contentType;
+    final byte[] body;
+    final Consumer<ValidatableResponse> check;
+
+    BulkItem(String method, String path, String contentType, byte[] body, Consumer<ValidatableResponse> check) {
+        this.method = method;
+        this.path = path;
+        this.contentType = contentType;
+        this.body = body;
+        this.check = check;
+    }
+
+    @Override
+    public String toString() {
+        return method + " " + path;
+    }
+}
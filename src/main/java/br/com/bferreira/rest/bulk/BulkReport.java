@@ -0,0 +1,143 @@
+package br.com.bferreira.rest.bulk;
+
+import io.restassured.response.ValidatableResponse;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Resultado de um {@link Bulk}: quantas requisições passaram nas verificações, a contagem
+ * por status, os bytes na conexão (só no pipelining) e a vazão, total e só na rede (até a
+ * última resposta chegar, antes das verificações). Guarda as primeiras
+ * {@code bulk.maxFailures} (padrão 50) falhas para a mensagem.
+ */
+public final class BulkReport {
+
+    private static final int MAX_FALHAS = Integer.getInteger("bulk.maxFailures", 50);
+
+    private final Bulk.Modo modo;
+    private final int requisicoes;
+    private final Map<Integer, Long> porStatus = new TreeMap<>();
+    private final List<String> falhas = new ArrayList<>();
+    private int respondidas;
+    private int reprovadas;
+    private long nanos;
+    private long nanosNaRede;
+    private long bytesEnviados = -1;
+    private long bytesRecebidos = -1;
+
+    BulkReport(Bulk.Modo modo, int requisicoes) {
+        this.modo = modo;
+        this.requisicoes = requisicoes;
+    }
+
+    /** Passa a resposta do item pela verificação dele e registra o resultado. */
+    synchronized void response(int indice, BulkItem item, int status, ValidatableResponse resposta) {
+        respondidas++;
+        porStatus.merge(status, 1L, Long::sum);
+        if (item.check == null) {
+            return;
+        }
+        try {
+            item.check.accept(resposta);
+        } catch (AssertionError | RuntimeException e) {
+            failure(indice, item, e);
+        }
+    }
+
+    synchronized void failure(int indice, BulkItem item, Throwable erro) {
+        reprovadas++;
+        if (falhas.size() < MAX_FALHAS) {
+            falhas.add("#" + indice + " " + item + ": " + String.valueOf(erro.getMessage()).trim());
+        }
+    }
+
+    void finish(long nanos, long nanosNaRede, long bytesEnviados, long bytesRecebidos) {
+        this.nanos = nanos;
+        this.nanosNaRede = nanosNaRede;
+        this.bytesEnviados = bytesEnviados;
+        this.bytesRecebidos = bytesRecebidos;
+    }
+
+    public Bulk.Modo mode() {
+        return modo;
+    }
+
+    public int requests() {
+        return requisicoes;
+    }
+
+    public synchronized int responded() {
+        return respondidas;
+    }
+
+    /** Itens sem resposta ou cuja verificação falhou. */
+    public synchronized int failed() {
+        return reprovadas;
+    }
+
+    public synchronized int passed() {
+        return requisicoes - reprovadas;
+    }
+
+    public synchronized Map<Integer, Long> statusCounts() {
+        return Collections.unmodifiableMap(new TreeMap<>(porStatus));
+    }
+
+    public synchronized List<String> failures() {
+        return Collections.unmodifiableList(new ArrayList<>(falhas));
+    }
+
+    public long elapsedNanos() {
+        return nanos;
+    }
+
+    public double throughputPerSecond() {
+        return nanos == 0 ? 0 : requisicoes * 1_000_000_000.0 / nanos;
+    }
+
+    /** Do primeiro envio até a última resposta, sem as verificações dos itens. */
+    public long wireNanos() {
+        return nanosNaRede;
+    }
+
+    public double wireThroughputPerSecond() {
+        return nanosNaRede == 0 ? 0 : requisicoes * 1_000_000_000.0 / nanosNaRede;
+    }
+
+    /** Bytes escritos na conexão, ou -1 no modo HTTP/2 (o cliente do JDK não informa). */
+    public long bytesOut() {
+        return bytesEnviados;
+    }
+
+    public long bytesIn() {
+        return bytesRecebidos;
+    }
+
+    /** Falha com todas as verificações reprovadas (até o limite guardado) numa única mensagem. */
+    public void assertAllPassed() {
+        List<String> lista = failures();
+        if (lista.isEmpty()) {
+            return;
+        }
+        StringBuilder mensagem = new StringBuilder(failed() + " de " + requisicoes + " requisições do lote falharam (" + this + "):");
+        for (String falha : lista) {
+            mensagem.append("\n  ").append(falha.replace("\n", "\n    "));
+        }
+        if (failed() > lista.size()) {
+            mensagem.append("\n  ... e mais ").append(failed() - lista.size());
+        }
+        throw new AssertionError(mensagem.toString());
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "%s: %d requisições em %.1f ms, %.0f req/s (na rede %.1f ms, %.0f req/s), status %s",
+                modo, requisicoes, nanos / 1_000_000.0, throughputPerSecond(), nanosNaRede / 1_000_000.0,
+                wireThroughputPerSecond(), statusCounts());
+    }
+}
@@ -0,0 +1,233 @@
+package br.com.bferreira.rest.bulk;
+
+import br.com.bferreira.rest.cassette.Recording;
+import io.restassured.http.Header;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Lote em HTTP/1.1 com pipelining numa única conexão: uma thread escreve as requisições
+ * uma atrás da outra, sem esperar resposta, até {@code janela} pendentes; a thread que
+ * chamou lê as respostas, que chegam na mesma ordem, e só depois da última roda as
+ * verificações, para que as assertivas não segurem a leitura nem a janela.
+ */
+final class PipelinedConnection {
+
+    private static final int TIMEOUT_MILLIS = 30_000;
+
+    private PipelinedConnection() {
+    }
+
+    static void run(URI base, Map<String, String> headers, List<BulkItem> itens, int janela, BulkReport relatorio) {
+        if (!"http".equals(base.getScheme())) {
+            throw new IllegalArgumentException("Pipelining só em http://: " + base);
+        }
+        String host = base.getHost();
+        int porta = base.getPort() < 0 ? 80 : base.getPort();
+        String prefixo = base.getRawPath() == null || "/".equals(base.getRawPath()) ? "" : base.getRawPath();
+        String hostHeader = base.getPort() < 0 ? host : host + ":" + porta;
+
+        long inicio = System.nanoTime();
+        long[] enviados = {0};
+        long recebidos = 0;
+        long nanosNaRede;
+        List<Recording> respostas = new ArrayList<>(itens.size());
+        IOException semResposta = null;
+        try (Socket socket = new Socket()) {
+            socket.setTcpNoDelay(true);
+            socket.setSoTimeout(TIMEOUT_MILLIS);
+            socket.connect(new InetSocketAddress(host, porta), TIMEOUT_MILLIS);
+            Semaphore vagas = new Semaphore(janela);
+            AtomicReference<IOException> erroEscrita = new AtomicReference<>();
+            OutputStream saida = new BufferedOutputStream(socket.getOutputStream(), 64 * 1024);
+            Thread escritor = new Thread(() -> {
+                try {
+                    for (BulkItem item : itens) {
+                        if (!vagas.tryAcquire()) {
+                            saida.flush();//janela cheia: o que está no buffer segue enquanto esperamos respostas
+                            vagas.acquire();
+                        }
+                        enviados[0] += escrever(saida, item, prefixo, hostHeader, headers);
+                    }
+                    saida.flush();
+                } catch (IOException e) {
+                    erroEscrita.set(e);
+                    fecharSemErro(socket);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, "bulk-pipeline");
+            escritor.setDaemon(true);
+            escritor.start();
+
+            Leitor leitor = new Leitor(new BufferedInputStream(socket.getInputStream(), 64 * 1024));
+            try {
+                while (respostas.size() < itens.size()) {
+                    respostas.add(leitor.ler("HEAD".equals(itens.get(respostas.size()).method)));
+                    vagas.release();
+                }
+            } catch (IOException e) {
+                semResposta = erroEscrita.get() != null ? erroEscrita.get() : e;
+            } finally {
+                escritor.interrupt();
+                joinSemInterromper(escritor);
+            }
+            nanosNaRede = System.nanoTime() - inicio;
+            recebidos = leitor.lidos;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Não foi possível conectar em " + base, e);
+        }
+        for (int i = 0; i < respostas.size(); i++) {
+            Recording resposta = respostas.get(i);
+            relatorio.response(i, itens.get(i), resposta.status(), resposta.toResponse().then());
+        }
+        for (int i = respostas.size(); i < itens.size(); i++) {
+            relatorio.failure(i, itens.get(i), new IOException("sem resposta: " + semResposta, semResposta));
+        }
+        relatorio.finish(System.nanoTime() - inicio, nanosNaRede, enviados[0], recebidos);
+    }
+
+    private static long escrever(OutputStream saida, BulkItem item, String prefixo, String host, Map<String, String> headers)
+            throws IOException {
+        StringBuilder cabecalho = new StringBuilder(128)
+                .append(item.method).append(' ').append(prefixo).append(item.path).append(" HTTP/1.1\r\n")
+                .append("Host: ").append(host).append("\r\n");
+        headers.forEach((nome, valor) -> cabecalho.append(nome).append(": ").append(valor).append("\r\n"));
+        if (item.contentType != null) {
+            cabecalho.append("Content-Type: ").append(item.contentType).append("\r\n");
+        }
+        int tamanho = item.body == null ? 0 : item.body.length;
+        if (tamanho > 0 || !"GET".equals(item.method) && !"HEAD".equals(item.method) && !"DELETE".equals(item.method)) {
+            cabecalho.append("Content-Length: ").append(tamanho).append("\r\n");
+        }
+        byte[] inicio = cabecalho.append("\r\n").toString().getBytes(StandardCharsets.UTF_8);
+        saida.write(inicio);
+        if (tamanho > 0) {
+            saida.write(item.body);
+        }
+        return inicio.length + tamanho;
+    }
+
+    private static void fecharSemErro(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+            // a leitura vai falhar e registrar os itens sem resposta
+        }
+    }
+
+    private static void joinSemInterromper(Thread thread) {
+        try {
+            thread.join(TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Lê respostas HTTP/1.1 em sequência (Content-Length ou chunked). */
+    private static final class Leitor {
+        private final InputStream entrada;
+        private long lidos;
+
+        private Leitor(InputStream entrada) {
+            this.entrada = entrada;
+        }
+
+        Recording ler(boolean semCorpo) throws IOException {
+            String statusLine = linha();
+            String[] partes = statusLine.split(" ", 3);
+            if (partes.length < 2 || !partes[0].startsWith("HTTP/")) {
+                throw new IOException("Linha de status inválida: " + statusLine);
+            }
+            int status = Integer.parseInt(partes[1]);
+            List<Header> headers = new ArrayList<>();
+            long tamanho = -1;
+            boolean chunked = false;
+            for (String linha = linha(); !linha.isEmpty(); linha = linha()) {
+                int doisPontos = linha.indexOf(':');
+                if (doisPontos <= 0) {
+                    continue;
+                }
+                String nome = linha.substring(0, doisPontos).trim();
+                String valor = linha.substring(doisPontos + 1).trim();
+                headers.add(new Header(nome, valor));
+                String minusculo = nome.toLowerCase(Locale.ROOT);
+                if ("content-length".equals(minusculo)) {
+                    tamanho = Long.parseLong(valor);
+                } else if ("transfer-encoding".equals(minusculo) && "chunked".equalsIgnoreCase(valor)) {
+                    chunked = true;
+                }
+            }
+            byte[] corpo;
+            if (semCorpo || status == 204 || status == 304 || status / 100 == 1) {
+                corpo = new byte[0];
+            } else if (chunked) {
+                corpo = chunked();
+            } else if (tamanho >= 0) {
+                corpo = bytes((int) tamanho);
+            } else {
+                throw new IOException("Resposta sem Content-Length nem chunked não cabe no pipelining");
+            }
+            return new Recording(status, statusLine, headers, corpo);
+        }
+
+        private byte[] chunked() throws IOException {
+            ByteArrayOutputStream corpo = new ByteArrayOutputStream();
+            while (true) {
+                String linha = linha();
+                int ponto = linha.indexOf(';');
+                int tamanho = Integer.parseInt((ponto < 0 ? linha : linha.substring(0, ponto)).trim(), 16);
+                if (tamanho == 0) {
+                    while (!linha().isEmpty()) {
+                        //trailers
+                    }
+                    return corpo.toByteArray();
+                }
+                corpo.write(bytes(tamanho));
+                linha();
+            }
+        }
+
+        private byte[] bytes(int tamanho) throws IOException {
+            byte[] dados = entrada.readNBytes(tamanho);
+            if (dados.length < tamanho) {
+                throw new EOFException("Conexão fechada no meio do corpo");
+            }
+            lidos += tamanho;
+            return dados;
+        }
+
+        private String linha() throws IOException {
+            ByteArrayOutputStream linha = new ByteArrayOutputStream(64);
+            int anterior = -1;
+            int atual;
+            while ((atual = entrada.read()) >= 0) {
+                lidos++;
+                if (anterior == '\r' && atual == '\n') {
+                    byte[] dados = linha.toByteArray();
+                    return new String(dados, 0, dados.length - 1, StandardCharsets.ISO_8859_1);
+                }
+                linha.write(atual);
+                anterior = atual;
+            }
+            throw new EOFException("Conexão fechada pelo servidor");
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package br.com.bferreira.rest.cache;
+
+import br.com.bferreira.rest.cassette.Recording;
+import io.restassured.http.Header;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/** Resposta guardada no cache, com os validadores e até quando vale sem revalidar. */
+final class CacheEntry {
+
+    final Recording resposta;
+    final String etag;
+    final String lastModified;
+    //System.nanoTime() até o qual a resposta é servida sem ir ao servidor (max-age); 0 = sempre revalida
+    final long frescaAte;
+    final long tamanho;
+
+    CacheEntry(Recording resposta, long agora) {
+        this(resposta, agora, false);
+    }
+
+    /** {@code revalidarSempre}: ignora o max-age (entrada lida do disco, sem saber quando foi guardada). */
+    CacheEntry(Recording resposta, long agora, boolean revalidarSempre) {
+        this.resposta = resposta;
+        this.etag = header(resposta.headers(), "ETag");
+        this.lastModified = header(resposta.headers(), "Last-Modified");
+        long maxAge = maxAge(header(resposta.headers(), "Cache-Control"));
+        this.frescaAte = maxAge > 0 && !revalidarSempre ? agora + maxAge * 1_000_000_000L : 0;
+        long bytes = resposta.body().length + 64;
+        for (Header h : resposta.headers()) {
+            bytes += 2L * (h.getName().length() + h.getValue().length());
+        }
+        this.tamanho = bytes;
+    }
+
+    boolean fresca(long agora) {
+        return frescaAte != 0 && agora - frescaAte < 0;
+    }
+
+    boolean temValidador() {
+        return etag != null || lastModified != null;
+    }
+
+    /** A mesma resposta com os headers do 304 no lugar dos guardados (menos os que descrevem o corpo). */
+    CacheEntry revalidada(List<Header> doNaoModificado, long agora) {
+        List<Header> headers = new ArrayList<>(resposta.headers());
+        for (Header novo : doNaoModificado) {
+            if (!descreveCorpo(novo.getName())) {
+                headers.removeIf(h -> h.getName().equalsIgnoreCase(novo.getName()));
+            }
+        }
+        for (Header novo : doNaoModificado) {
+            if (!descreveCorpo(novo.getName())) {
+                headers.add(novo);
+            }
+        }
+        return new CacheEntry(new Recording(resposta.status(), resposta.statusLine(), headers, resposta.body()), agora);
+    }
+
+    private static boolean descreveCorpo(String nome) {
+        return nome.equalsIgnoreCase("Content-Length") || nome.equalsIgnoreCase("Content-Type")
+                || nome.equalsIgnoreCase("Content-Encoding") || nome.equalsIgnoreCase("Transfer-Encoding");
+    }
+
+    static String header(List<Header> headers, String nome) {
+        for (Header header : headers) {
+            if (header.getName().equalsIgnoreCase(nome)) {
+                return header.getValue();
+            }
+        }
+        return null;
+    }
+
+    /** max-age em segundos, 0 se não houver ou se houver no-cache (revalida sempre). */
+    static long maxAge(String cacheControl) {
+        if (cacheControl == null) {
+            return 0;
+        }
+        long maxAge = 0;
+        for (String diretiva : cacheControl.toLowerCase(Locale.ROOT).split(",")) {
+            String valor = diretiva.trim();
+            if (valor.equals("no-cache")) {
+                return 0;
+            }
+            if (valor.startsWith("max-age=")) {
+                try {
+                    maxAge = Long.parseLong(valor.substring("max-age=".length()).replace("\"", ""));
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return Math.max(0, maxAge);
+    }
+}
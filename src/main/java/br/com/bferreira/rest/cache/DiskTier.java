@@ -0,0 +1,69 @@
+package br.com.bferreira.rest.cache;
+
+import br.com.bferreira.rest.cassette.Cassette;
+import br.com.bferreira.rest.cassette.Recording;
+
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+
+/**
+ * Segundo nível do cache, em disco: uma fita de uma gravação por chave, num arquivo com o
+ * SHA-256 da chave no nome. Sobrevive entre execuções; o que vem do disco é sempre
+ * revalidado antes de ser usado. Falhas de disco só fazem o cache perder a entrada.
+ */
+final class DiskTier {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Path pasta;
+
+    DiskTier(Path pasta) {
+        this.pasta = pasta;
+    }
+
+    Recording ler(String chave) {
+        Path arquivo = arquivo(chave);
+        if (!Files.isRegularFile(arquivo)) {
+            return null;
+        }
+        try {
+            return Cassette.open(arquivo).find(chave);
+        } catch (UncheckedIOException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    boolean gravar(String chave, Recording resposta) {
+        try {
+            Cassette.write(arquivo(chave), Collections.singletonMap(chave, resposta));
+            return true;
+        } catch (UncheckedIOException e) {
+            return false;
+        }
+    }
+
+    Path path() {
+        return pasta;
+    }
+
+    private Path arquivo(String chave) {
+        MessageDigest sha;
+        try {
+            sha = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        byte[] digest = sha.digest(chave.getBytes(StandardCharsets.UTF_8));
+        char[] nome = new char[40];
+        for (int i = 0; i < 20; i++) {
+            nome[2 * i] = HEX[(digest[i] >> 4) & 0xf];
+            nome[2 * i + 1] = HEX[digest[i] & 0xf];
+        }
+        return pasta.resolve(new String(nome) + ".cache");
+    }
+}
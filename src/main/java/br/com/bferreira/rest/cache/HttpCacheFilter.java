@@ -0,0 +1,238 @@
+package br.com.bferreira.rest.cache;
+
+import br.com.bferreira.rest.cassette.CassetteKey;
+import br.com.bferreira.rest.cassette.Recording;
+import io.restassured.RestAssured;
+import io.restassured.authentication.NoAuthScheme;
+import io.restassured.filter.FilterContext;
+import io.restassured.filter.OrderedFilter;
+import io.restassured.http.Header;
+import io.restassured.http.Headers;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache HTTP do lado do cliente para GETs repetidos (/users, /usersXML, /ola...). As
+ * respostas 200 com ETag ou Last-Modified ficam num LRU em memória limitado por bytes e,
+ * opcionalmente, em disco; na próxima leitura o filtro manda If-None-Match/If-Modified-Since
+ * e um 304 é respondido com o corpo guardado, sem transferi-lo de novo. Só um
+ * {@code Cache-Control: max-age} dispensa a ida ao servidor enquanto vale.
+ *
+ * <p>Ficam de fora: métodos que não são GET, requisições com autenticação, cookies ou
+ * validadores próprios, e respostas com {@code no-store} ou {@code Vary: *}. A chave é a da
+ * fita ({@link CassetteKey}) mais o Accept.</p>
+ *
+ * <p>Opcional, por propriedades de sistema: {@code http.cache.enabled} (false),
+ * {@code http.cache.maxBytes} (32 MB) e {@code http.cache.dir} (sem disco se vazio).</p>
+ */
+public final class HttpCacheFilter implements OrderedFilter {
+
+    private static HttpCacheFilter instalado;
+
+    private final long maximoBytes;
+    private final DiskTier disco;
+    private final LinkedHashMap<String, CacheEntry> memoria = new LinkedHashMap<>(64, 0.75f, true);
+    private long bytes;
+
+    private final LongAdder acertos = new LongAdder();
+    private final LongAdder revalidadas = new LongAdder();
+    private final LongAdder alteradas = new LongAdder();
+    private final LongAdder faltas = new LongAdder();
+    private final LongAdder guardadas = new LongAdder();
+    private final LongAdder despejadas = new LongAdder();
+    private final LongAdder lidasDoDisco = new LongAdder();
+    private final LongAdder diretas = new LongAdder();
+
+    HttpCacheFilter(long maximoBytes, Path pasta) {
+        this.maximoBytes = maximoBytes;
+        this.disco = pasta == null ? null : new DiskTier(pasta);
+    }
+
+    /** Cache com até {@code maximoBytes} em memória e, se {@code pasta} não for null, um segundo nível em disco. */
+    public static HttpCacheFilter create(long maximoBytes, Path pasta) {
+        return new HttpCacheFilter(maximoBytes, pasta);
+    }
+
+    public static HttpCacheFilter fromProperties() {
+        String pasta = System.getProperty("http.cache.dir", "").trim();
+        return create(Long.getLong("http.cache.maxBytes", 32L << 20), pasta.isEmpty() ? null : Paths.get(pasta));
+    }
+
+    /**
+     * Com {@code -Dhttp.cache.enabled=true}, instala o cache das propriedades de sistema nos
+     * filtros globais do RestAssured (uma vez por JVM). Devolve o cache instalado, ou null.
+     */
+    public static synchronized HttpCacheFilter install() {
+        if (instalado == null && Boolean.getBoolean("http.cache.enabled")) {
+            instalado = fromProperties();
+            RestAssured.filters(instalado);
+        }
+        return instalado;
+    }
+
+    @Override
+    public Response filter(FilterableRequestSpecification requisicao, FilterableResponseSpecification resposta, FilterContext contexto) {
+        if (!cacheavel(requisicao)) {
+            diretas.increment();
+            return contexto.next(requisicao, resposta);
+        }
+        String chave = chave(requisicao);
+        CacheEntry guardada = buscar(chave);
+        if (guardada != null && guardada.fresca(System.nanoTime())) {
+            acertos.increment();
+            return guardada.resposta.toResponse();
+        }
+        if (guardada != null) {
+            if (guardada.etag != null) {
+                requisicao.header("If-None-Match", guardada.etag);
+            }
+            if (guardada.lastModified != null) {
+                requisicao.header("If-Modified-Since", guardada.lastModified);
+            }
+        }
+        Response recebida = contexto.next(requisicao, resposta);
+        if (guardada != null && recebida.statusCode() == 304) {
+            revalidadas.increment();
+            List<Header> headers = new ArrayList<>();
+            recebida.getHeaders().forEach(headers::add);
+            CacheEntry revalidada = guardada.revalidada(headers, System.nanoTime());
+            guardar(chave, revalidada, false);
+            return revalidada.resposta.toResponse();
+        }
+        if (guardada != null) {
+            alteradas.increment();
+        } else {
+            faltas.increment();
+        }
+        if (recebida.statusCode() == 200 && armazenavel(recebida.getHeaders())) {
+            CacheEntry nova = new CacheEntry(Recording.of(recebida), System.nanoTime());
+            if (nova.temValidador() || nova.frescaAte != 0) {
+                guardar(chave, nova, true);
+                guardadas.increment();
+            }
+        } else if (guardada != null) {
+            remover(chave);
+        }
+        return recebida;
+    }
+
+    /** Antes da cota, das métricas, do log e da fita: eles só veem o que vai de fato para o servidor (e o 304). */
+    @Override
+    public int getOrder() {
+        return LOWEST_PRECEDENCE - 4;
+    }
+
+    /**
+     * Servidas da memória sem ir ao servidor (hits), revalidadas com 304, revalidações que
+     * trouxeram um corpo novo (modified), sem entrada (misses), respostas guardadas, despejadas
+     * do LRU, lidas do disco, requisições fora do cache (bypassed), entradas e bytes em memória.
+     */
+    public Map<String, Long> stats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("hits", acertos.sum());
+        stats.put("revalidated", revalidadas.sum());
+        stats.put("modified", alteradas.sum());
+        stats.put("misses", faltas.sum());
+        stats.put("stored", guardadas.sum());
+        stats.put("evictions", despejadas.sum());
+        stats.put("diskReads", lidasDoDisco.sum());
+        stats.put("bypassed", diretas.sum());
+        synchronized (memoria) {
+            stats.put("entries", (long) memoria.size());
+            stats.put("bytes", bytes);
+        }
+        return stats;
+    }
+
+    /** Esvazia a memória (o disco fica). */
+    public void clear() {
+        synchronized (memoria) {
+            memoria.clear();
+            bytes = 0;
+        }
+    }
+
+    private CacheEntry buscar(String chave) {
+        synchronized (memoria) {
+            CacheEntry guardada = memoria.get(chave);
+            if (guardada != null || disco == null) {
+                return guardada;
+            }
+        }
+        Recording doDisco = disco.ler(chave);
+        if (doDisco == null) {
+            return null;
+        }
+        lidasDoDisco.increment();
+        //frescor não vai para o disco: o que vem de lá é revalidado
+        CacheEntry guardada = new CacheEntry(doDisco, System.nanoTime(), true);
+        guardar(chave, guardada, false);
+        return guardada;
+    }
+
+    private void guardar(String chave, CacheEntry entrada, boolean novaResposta) {
+        if (novaResposta && disco != null) {
+            disco.gravar(chave, entrada.resposta);
+        }
+        synchronized (memoria) {
+            CacheEntry anterior = memoria.remove(chave);
+            if (anterior != null) {
+                bytes -= anterior.tamanho;
+            }
+            if (entrada.tamanho > maximoBytes) {
+                return;
+            }
+            memoria.put(chave, entrada);
+            bytes += entrada.tamanho;
+            Iterator<CacheEntry> maisAntigas = memoria.values().iterator();
+            while (bytes > maximoBytes && maisAntigas.hasNext()) {
+                bytes -= maisAntigas.next().tamanho;
+                maisAntigas.remove();
+                despejadas.increment();
+            }
+        }
+    }
+
+    private void remover(String chave) {
+        synchronized (memoria) {
+            CacheEntry anterior = memoria.remove(chave);
+            if (anterior != null) {
+                bytes -= anterior.tamanho;
+            }
+        }
+    }
+
+    private static boolean cacheavel(FilterableRequestSpecification requisicao) {
+        Headers headers = requisicao.getHeaders();
+        return "GET".equalsIgnoreCase(requisicao.getMethod())
+                && (requisicao.getAuthenticationScheme() == null || requisicao.getAuthenticationScheme() instanceof NoAuthScheme)
+                && !headers.hasHeaderWithName("Authorization")
+                && !headers.hasHeaderWithName("Cookie")
+                && !headers.hasHeaderWithName("If-None-Match")
+                && !headers.hasHeaderWithName("If-Modified-Since")
+                && !requisicao.getCookies().exist();
+    }
+
+    private static boolean armazenavel(Headers headers) {
+        String cacheControl = headers.getValue("Cache-Control");
+        String vary = headers.getValue("Vary");
+        return (cacheControl == null || !cacheControl.toLowerCase(Locale.ROOT).contains("no-store"))
+                && (vary == null || !vary.trim().equals("*"));
+    }
+
+    private static String chave(FilterableRequestSpecification requisicao) {
+        String accept = requisicao.getHeaders().getValue("Accept");
+        return CassetteKey.of(requisicao) + (accept == null ? "" : " " + accept);
+    }
+}
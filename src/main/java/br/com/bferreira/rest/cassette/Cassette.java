@@ -0,0 +1,209 @@
+package br.com.bferreira.rest.cassette;
+
+import io.restassured.http.Header;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fita de gravações num arquivo binário mapeado em memória. O arquivo tem um cabeçalho,
+ * as gravações em sequência e, no fim, uma tabela hash (endereçamento aberto) com o hash
+ * de 64 bits da chave e a posição da gravação. A busca vai direto à posição pela tabela,
+ * confere a chave e só então decodifica a resposta, sem ler o resto do arquivo. O
+ * mapeamento é só de leitura e é liberado pelo GC junto com a fita.
+ *
+ * <pre>
+ * cabeçalho: int mágico "FITA", int versão, int gravações, int posições da tabela, long início da tabela
+ * gravação:  str chave, int status, str linha de status, int headers, (str nome, str valor)*, int tamanho, corpo
+ * tabela:    (long hash, long posição da gravação; 0 = livre)*
+ * str = int tamanho + bytes UTF-8
+ * </pre>
+ */
+public final class Cassette {
+
+    private static final int MAGICO = 0x46495441;
+    private static final int VERSAO = 1;
+    private static final int CABECALHO = 24;
+
+    private final Path arquivo;
+    private final ByteBuffer mapa;
+    private final int quantidade;
+    private final int posicoes;
+    private final long inicioTabela;
+
+    private Cassette(Path arquivo, ByteBuffer mapa) {
+        this.arquivo = arquivo;
+        this.mapa = mapa;
+        if (mapa.capacity() < CABECALHO || mapa.getInt(0) != MAGICO) {
+            throw new IllegalArgumentException("Arquivo não é uma fita de gravações: " + arquivo);
+        }
+        if (mapa.getInt(4) != VERSAO) {
+            throw new IllegalArgumentException("Versão de fita não suportada (" + mapa.getInt(4) + "): " + arquivo);
+        }
+        this.quantidade = mapa.getInt(8);
+        this.posicoes = mapa.getInt(12);
+        this.inicioTabela = mapa.getLong(16);
+    }
+
+    /** Abre a fita só para leitura, mapeando o arquivo em memória. */
+    public static Cassette open(Path arquivo) {
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            return new Cassette(arquivo, canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size()));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Não foi possível abrir a fita " + arquivo, e);
+        }
+    }
+
+    /**
+     * Grava as gravações num arquivo novo (num temporário que depois substitui o destino,
+     * para quem estiver lendo a fita antiga não ver um arquivo pela metade).
+     */
+    public static void write(Path arquivo, Map<String, Recording> gravacoes) {
+        int posicoes = Integer.highestOneBit(Math.max(4, gravacoes.size() * 2) - 1) << 1;
+        long[] hashes = new long[posicoes];
+        long[] enderecos = new long[posicoes];
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream saida = new DataOutputStream(bytes)) {
+            saida.write(new byte[CABECALHO]);
+            for (Map.Entry<String, Recording> gravacao : gravacoes.entrySet()) {
+                byte[] chave = gravacao.getKey().getBytes(StandardCharsets.UTF_8);
+                long hash = hash(chave);
+                int posicao = (int) (hash & (posicoes - 1));
+                while (enderecos[posicao] != 0) {
+                    posicao = (posicao + 1) & (posicoes - 1);
+                }
+                hashes[posicao] = hash;
+                enderecos[posicao] = saida.size();
+                Recording resposta = gravacao.getValue();
+                escrever(saida, chave);
+                saida.writeInt(resposta.status());
+                escrever(saida, resposta.statusLine() == null ? new byte[0] : resposta.statusLine().getBytes(StandardCharsets.UTF_8));
+                saida.writeInt(resposta.headers().size());
+                for (Header header : resposta.headers()) {
+                    escrever(saida, header.getName().getBytes(StandardCharsets.UTF_8));
+                    escrever(saida, header.getValue().getBytes(StandardCharsets.UTF_8));
+                }
+                escrever(saida, resposta.body());
+            }
+            long inicioTabela = saida.size();
+            for (int i = 0; i < posicoes; i++) {
+                saida.writeLong(hashes[i]);
+                saida.writeLong(enderecos[i]);
+            }
+            saida.flush();
+            ByteBuffer conteudo = ByteBuffer.wrap(bytes.toByteArray());
+            conteudo.putInt(0, MAGICO).putInt(4, VERSAO).putInt(8, gravacoes.size()).putInt(12, posicoes).putLong(16, inicioTabela);
+
+            Path pasta = arquivo.toAbsolutePath().getParent();
+            Files.createDirectories(pasta);
+            Path temporario = Files.createTempFile(pasta, arquivo.getFileName().toString(), ".tmp");
+            Files.write(temporario, conteudo.array());
+            Files.move(temporario, arquivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Não foi possível gravar a fita " + arquivo, e);
+        }
+    }
+
+    /** Resposta gravada para a chave, ou null. */
+    public Recording find(String chave) {
+        byte[] procurada = chave.getBytes(StandardCharsets.UTF_8);
+        long hash = hash(procurada);
+        int posicao = (int) (hash & (posicoes - 1));
+        for (int tentativas = 0; tentativas < posicoes; tentativas++) {
+            long entrada = inicioTabela + 16L * posicao;
+            long endereco = mapa.getLong((int) entrada + 8);
+            if (endereco == 0) {
+                return null;
+            }
+            if (mapa.getLong((int) entrada) == hash && mesmaChave((int) endereco, procurada)) {
+                return ler(mapa.duplicate(), (int) endereco).getValue();
+            }
+            posicao = (posicao + 1) & (posicoes - 1);
+        }
+        return null;
+    }
+
+    /** Todas as gravações, na ordem do arquivo. */
+    public Map<String, Recording> recordings() {
+        Map<String, Recording> todas = new LinkedHashMap<>();
+        ByteBuffer leitor = mapa.duplicate();
+        int endereco = CABECALHO;
+        for (int i = 0; i < quantidade; i++) {
+            Map.Entry<String, Recording> gravacao = ler(leitor, endereco);
+            todas.put(gravacao.getKey(), gravacao.getValue());
+            endereco = leitor.position();
+        }
+        return todas;
+    }
+
+    public int size() {
+        return quantidade;
+    }
+
+    public Path path() {
+        return arquivo;
+    }
+
+    private boolean mesmaChave(int endereco, byte[] procurada) {
+        if (mapa.getInt(endereco) != procurada.length) {
+            return false;
+        }
+        for (int i = 0; i < procurada.length; i++) {
+            if (mapa.get(endereco + 4 + i) != procurada[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Map.Entry<String, Recording> ler(ByteBuffer leitor, int endereco) {
+        leitor.position(endereco);
+        String chave = texto(leitor);
+        int status = leitor.getInt();
+        String linhaStatus = texto(leitor);
+        int quantidadeHeaders = leitor.getInt();
+        List<Header> headers = new ArrayList<>(quantidadeHeaders);
+        for (int i = 0; i < quantidadeHeaders; i++) {
+            headers.add(new Header(texto(leitor), texto(leitor)));
+        }
+        byte[] corpo = new byte[leitor.getInt()];
+        leitor.get(corpo);
+        return new AbstractMap.SimpleImmutableEntry<>(chave,
+                new Recording(status, linhaStatus.isEmpty() ? null : linhaStatus, headers, corpo));
+    }
+
+    private static String texto(ByteBuffer leitor) {
+        byte[] bytes = new byte[leitor.getInt()];
+        leitor.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void escrever(DataOutputStream saida, byte[] bytes) throws IOException {
+        saida.writeInt(bytes.length);
+        saida.write(bytes);
+    }
+
+    /** FNV-1a de 64 bits. */
+    private static long hash(byte[] bytes) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : bytes) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,174 @@
+package br.com.bferreira.rest.cassette;
+
+import io.restassured.RestAssured;
+import io.restassured.filter.FilterContext;
+import io.restassured.filter.OrderedFilter;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+
+import java.io.Closeable;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * Grava e reproduz as respostas de serviços externos numa {@link Cassette}. No modo
+ * {@code replay} as requisições para hosts externos são respondidas pela fita, sem rede, e
+ * uma requisição sem gravação falha na hora; no modo {@code record} elas vão para a rede e
+ * as respostas são gravadas na fita quando o filtro é fechado (no fim da JVM, se foi
+ * instalado com {@link #install()}). Requisições para o próprio computador (o stand-in)
+ * passam direto nos dois modos.
+ *
+ * <p>Configurável por propriedades de sistema: {@code cassette.mode} ({@code replay}, o
+ * padrão; {@code record}; ou {@code off}) e {@code cassette.file} (padrão
+ * {@code src/test/resources/cassettes/external.cassette}). Sem o arquivo, o modo
+ * {@code replay} deixa tudo ir para a rede.</p>
+ *
+ * <p>Uma fita com nome {@code *.synthetic.cassette} foi montada com respostas escritas à mão,
+ * não gravadas das APIs ({@link #synthetic()}). Sem a fita real, o modo {@code replay} usa a
+ * sintética do repositório, {@code external.synthetic.cassette}, e avisa na instalação; os
+ * testes que validam o conteúdo das APIs devem se pular nesse caso.</p>
+ */
+public final class CassetteFilter implements OrderedFilter, Closeable {
+
+    public enum Modo {
+        REPLAY, RECORD, OFF
+    }
+
+    private static final String FITA = "src/test/resources/cassettes/external.cassette";
+    private static final String FITA_SINTETICA = "src/test/resources/cassettes/external.synthetic.cassette";
+    private static final String SINTETICA = ".synthetic.cassette";
+
+    private static CassetteFilter instalado;
+
+    private final Modo modo;
+    private final Path arquivo;
+    private final Predicate<String> gravavel;
+    private final Cassette fita;
+    private final Map<String, Recording> novas = Collections.synchronizedMap(new LinkedHashMap<>());
+    private final LongAdder reproduzidas = new LongAdder();
+    private final LongAdder gravadas = new LongAdder();
+    private final LongAdder faltas = new LongAdder();
+    private final LongAdder diretas = new LongAdder();
+
+    CassetteFilter(Modo modo, Path arquivo, Predicate<String> gravavel) {
+        this.modo = modo;
+        this.arquivo = arquivo;
+        this.gravavel = gravavel;
+        this.fita = modo == Modo.OFF || !Files.exists(arquivo) ? null : Cassette.open(arquivo);
+    }
+
+    /** Filtro para a fita do arquivo, gravando ou reproduzindo só as requisições para hosts externos. */
+    public static CassetteFilter create(Modo modo, Path arquivo) {
+        return new CassetteFilter(modo, arquivo, host -> !local(host));
+    }
+
+    /**
+     * Filtro no modo e com o arquivo das propriedades de sistema. Sem {@code cassette.file}, o
+     * modo {@code replay} cai na fita sintética quando a real não existe; o {@code record}
+     * sempre grava na real.
+     */
+    public static CassetteFilter fromProperties() {
+        Modo modo = Modo.valueOf(System.getProperty("cassette.mode", "replay").trim().toUpperCase(Locale.ROOT));
+        String padrao = modo == Modo.REPLAY && !Files.exists(Paths.get(FITA)) && Files.exists(Paths.get(FITA_SINTETICA))
+                ? FITA_SINTETICA : FITA;
+        return create(modo, Paths.get(System.getProperty("cassette.file", padrao)));
+    }
+
+    /**
+     * Instala o filtro das propriedades de sistema nos filtros globais do RestAssured (uma
+     * vez por JVM; as chamadas seguintes devolvem o mesmo filtro). No modo {@code record},
+     * a fita é gravada no fim da JVM.
+     */
+    public static synchronized CassetteFilter install() {
+        if (instalado == null) {
+            CassetteFilter filtro = fromProperties();
+            if (filtro.modo != Modo.OFF) {
+                RestAssured.filters(filtro);
+            }
+            if (filtro.synthetic()) {
+                System.err.println("AVISO: reproduzindo a fita sintética " + filtro.arquivo
+                        + " (respostas escritas à mão, não gravadas das APIs); grave a real com -Dcassette.mode=record");
+            }
+            if (filtro.modo == Modo.RECORD) {
+                Runtime.getRuntime().addShutdownHook(new Thread(filtro::close, "gravacao-fita"));
+            }
+            instalado = filtro;
+        }
+        return instalado;
+    }
+
+    @Override
+    public Response filter(FilterableRequestSpecification requisicao, FilterableResponseSpecification resposta, FilterContext contexto) {
+        if (modo == Modo.OFF || (modo == Modo.REPLAY && fita == null) || !gravavel.test(URI.create(requisicao.getURI()).getHost())) {
+            diretas.increment();
+            return contexto.next(requisicao, resposta);
+        }
+        String chave = CassetteKey.of(requisicao);
+        if (modo == Modo.RECORD) {
+            Response recebida = contexto.next(requisicao, resposta);
+            novas.put(chave, Recording.of(recebida));
+            gravadas.increment();
+            return recebida;
+        }
+        Recording gravacao = fita.find(chave);
+        if (gravacao == null) {
+            faltas.increment();
+            throw new IllegalStateException("Sem gravação na fita " + arquivo + " para '" + chave
+                    + "'; grave de novo com -Dcassette.mode=record");
+        }
+        reproduzidas.increment();
+        return gravacao.toResponse();
+    }
+
+    /** Por último na cadeia: os filtros de autenticação e de log veem a requisição e a resposta reproduzida. */
+    @Override
+    public int getOrder() {
+        return LOWEST_PRECEDENCE;
+    }
+
+    public Modo mode() {
+        return modo;
+    }
+
+    /** Se as respostas externas vêm de uma fita sintética ({@code *.synthetic.cassette}), não de uma gravação real. */
+    public boolean synthetic() {
+        return modo == Modo.REPLAY && fita != null && arquivo.getFileName().toString().endsWith(SINTETICA);
+    }
+
+    /** Respostas reproduzidas, gravadas, requisições sem gravação e as que foram direto para a rede. */
+    public Map<String, Long> stats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("replayed", reproduzidas.sum());
+        stats.put("recorded", gravadas.sum());
+        stats.put("missing", faltas.sum());
+        stats.put("passedThrough", diretas.sum());
+        return stats;
+    }
+
+    /** No modo {@code record}, grava a fita com as gravações antigas mais as novas (as novas substituem as de mesma chave). */
+    @Override
+    public synchronized void close() {
+        if (modo != Modo.RECORD || novas.isEmpty()) {
+            return;
+        }
+        Map<String, Recording> todas = fita == null ? new LinkedHashMap<>() : fita.recordings();
+        synchronized (novas) {
+            todas.putAll(novas);
+        }
+        Cassette.write(arquivo, todas);
+    }
+
+    private static boolean local(String host) {
+        return host == null || "localhost".equalsIgnoreCase(host) || host.startsWith("127.")
+                || "::1".equals(host) || "[::1]".equals(host);
+    }
+}
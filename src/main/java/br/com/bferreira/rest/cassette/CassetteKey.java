@@ -0,0 +1,81 @@
+package br.com.bferreira.rest.cassette;
+
+import io.restassured.specification.FilterableRequestSpecification;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Chave de uma gravação: método, URI sem porta padrão, query com os parâmetros em ordem
+ * alfabética e um hash do corpo e dos parâmetros de formulário. Headers (inclusive os de
+ * autenticação) ficam de fora, para um token renovado não invalidar a fita.
+ */
+public final class CassetteKey {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private CassetteKey() {
+    }
+
+    public static String of(FilterableRequestSpecification requisicao) {
+        return of(requisicao.getMethod(), requisicao.getURI(), requisicao.getFormParams(), requisicao.getBody());
+    }
+
+    public static String of(String metodo, String uri, Map<String, ?> formulario, Object corpo) {
+        URI endereco = URI.create(uri);
+        StringBuilder chave = new StringBuilder(metodo.toUpperCase(Locale.ROOT)).append(' ')
+                .append(endereco.getScheme()).append("://").append(endereco.getHost());
+        if (endereco.getPort() != -1 && endereco.getPort() != portaPadrao(endereco.getScheme())) {
+            chave.append(':').append(endereco.getPort());
+        }
+        chave.append(endereco.getRawPath() == null || endereco.getRawPath().isEmpty() ? "/" : endereco.getRawPath());
+        String query = endereco.getRawQuery();
+        if (query != null && !query.isEmpty()) {
+            List<String> parametros = new ArrayList<>(Arrays.asList(query.split("&")));
+            Collections.sort(parametros);
+            chave.append('?').append(String.join("&", parametros));
+        }
+        return chave.append(' ').append(hashCorpo(formulario, corpo)).toString();
+    }
+
+    private static String hashCorpo(Map<String, ?> formulario, Object corpo) {
+        byte[] bytes = corpo == null ? new byte[0]
+                : corpo instanceof byte[] ? (byte[]) corpo : String.valueOf(corpo).getBytes(StandardCharsets.UTF_8);
+        if (bytes.length == 0 && (formulario == null || formulario.isEmpty())) {
+            return "-";
+        }
+        MessageDigest sha;
+        try {
+            sha = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        sha.update(bytes);
+        if (formulario != null) {
+            for (Map.Entry<String, ?> parametro : new TreeMap<>(formulario).entrySet()) {
+                sha.update((byte) 0);
+                sha.update((parametro.getKey() + "=" + parametro.getValue()).getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        byte[] digest = sha.digest();
+        char[] texto = new char[32];
+        for (int i = 0; i < 16; i++) {
+            texto[2 * i] = HEX[(digest[i] >> 4) & 0xf];
+            texto[2 * i + 1] = HEX[digest[i] & 0xf];
+        }
+        return new String(texto);
+    }
+
+    private static int portaPadrao(String esquema) {
+        return "https".equalsIgnoreCase(esquema) ? 443 : 80;
+    }
+}
@@ -0,0 +1,71 @@
+package br.com.bferreira.rest.cassette;
+
+import io.restassured.builder.ResponseBuilder;
+import io.restassured.http.Header;
+import io.restassured.http.Headers;
+import io.restassured.internal.assertion.CookieMatcher;
+import io.restassured.response.Response;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/** Uma resposta gravada: status, headers na ordem em que chegaram e o corpo em bytes. */
+public final class Recording {
+
+    private final int status;
+    private final String statusLine;
+    private final List<Header> headers;
+    private final byte[] body;
+
+    public Recording(int status, String statusLine, List<Header> headers, byte[] body) {
+        this.status = status;
+        this.statusLine = statusLine;
+        this.headers = Collections.unmodifiableList(new ArrayList<>(headers));
+        this.body = body;
+    }
+
+    /** Copia uma resposta recebida (lê o corpo inteiro). */
+    public static Recording of(Response resposta) {
+        List<Header> headers = new ArrayList<>();
+        resposta.getHeaders().forEach(headers::add);
+        return new Recording(resposta.statusCode(), resposta.statusLine(), headers, resposta.asByteArray());
+    }
+
+    public int status() {
+        return status;
+    }
+
+    public String statusLine() {
+        return statusLine;
+    }
+
+    public List<Header> headers() {
+        return headers;
+    }
+
+    public byte[] body() {
+        return body;
+    }
+
+    /** Monta a resposta do RestAssured, com os cookies dos headers Set-Cookie. */
+    public Response toResponse() {
+        ResponseBuilder builder = new ResponseBuilder()
+                .setStatusCode(status)
+                .setStatusLine(statusLine)
+                .setHeaders(new Headers(headers))
+                .setBody(body);
+        List<String> setCookies = new ArrayList<>();
+        for (Header header : headers) {
+            if ("Content-Type".equalsIgnoreCase(header.getName())) {
+                builder.setContentType(header.getValue());
+            } else if ("Set-Cookie".equalsIgnoreCase(header.getName())) {
+                setCookies.add(header.getValue());
+            }
+        }
+        if (!setCookies.isEmpty()) {
+            builder.setCookies(CookieMatcher.getCookies(setCookies));
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,151 @@
+package br.com.bferreira.rest.compression;
+
+import io.restassured.RestAssured;
+import io.restassured.config.HttpClientConfig;
+import io.restassured.config.RestAssuredConfig;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpResponseInterceptor;
+import org.apache.http.client.entity.GzipCompressingEntity;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.impl.client.AbstractHttpClient;
+import org.apache.http.impl.client.RequestWrapper;
+import org.apache.http.protocol.ExecutionContext;
+import org.apache.http.protocol.HttpContext;
+
+import java.io.InputStream;
+import java.lang.reflect.Constructor;
+import java.util.Locale;
+
+/**
+ * Negociação de Content-Encoding com decodificação em streaming. O RestAssured já pede
+ * {@code gzip,deflate}, mas lê o corpo comprimido inteiro para um {@code byte[]} antes de
+ * descomprimir; aqui essa cópia do lado comprimido sai: o corpo é descomprimido à medida que é
+ * lido. O corpo decodificado continua sendo lido inteiro para um {@code byte[]}/String pelo
+ * caminho normal ({@code then().body(...)}, {@code asString()}); só quem consome o
+ * {@code asInputStream()}, como o {@link br.com.bferreira.rest.gpath.StreamingJsonAssert}, lê
+ * a resposta de fato em streaming. Os bytes na rede e os decodificados de cada resposta vão para o
+ * {@link br.com.bferreira.rest.metrics.RequestMetrics} (e para o evento JFR
+ * {@code br.com.bferreira.rest.BodyDecoded}):
+ *
+ * <pre>
+ * given().config(ContentCoding.create().compressRequests(1024).config())...
+ * </pre>
+ *
+ * O brotli ({@code br}) só é pedido quando há um decodificador em Java puro no classpath
+ * ({@code org.brotli:dec}). Com {@link #compressRequests(int)}, corpos de requisição a partir
+ * do tamanho indicado saem em gzip; só vale para servidores que aceitam isso (o stand-in
+ * aceita), por isso é desligado por padrão.
+ *
+ * <p>Os cabeçalhos da resposta ficam como o servidor mandou (o Content-Encoding continua
+ * visível para os testes); só o corpo é entregue já decodificado.</p>
+ */
+public final class ContentCoding implements HttpRequestInterceptor, HttpResponseInterceptor {
+
+    /** Construtor do {@code BrotliInputStream(InputStream)}, ou null sem o decodificador no classpath. */
+    static final Constructor<?> BROTLI = brotli();
+
+    private static final String ACEITAS = BROTLI == null ? "gzip, deflate" : "gzip, deflate, br";
+    private static boolean instalado;
+
+    private volatile int minimoRequisicao = -1;
+
+    private ContentCoding() {
+    }
+
+    public static ContentCoding create() {
+        return new ContentCoding();
+    }
+
+    /**
+     * Instala a negociação na configuração global do RestAssured (uma vez por JVM), sobre o
+     * cliente que já estiver lá. Desligada com {@code -Dhttp.compression.enabled=false};
+     * {@code -Dhttp.compression.requestMinBytes} liga a compressão dos corpos de requisição.
+     */
+    public static synchronized void install() {
+        if (!instalado && Boolean.parseBoolean(System.getProperty("http.compression.enabled", "true"))) {
+            RestAssured.config = create().compressRequests(Integer.getInteger("http.compression.requestMinBytes", -1))
+                    .applyTo(RestAssured.config());
+        }
+        instalado = true;
+    }
+
+    /** Corpos de requisição com {@code minBytes} ou mais saem em gzip; negativo desliga. */
+    public ContentCoding compressRequests(int minBytes) {
+        this.minimoRequisicao = minBytes;
+        return this;
+    }
+
+    /** A configuração global atual do RestAssured com a negociação no HttpClient. */
+    public RestAssuredConfig config() {
+        return applyTo(RestAssured.config());
+    }
+
+    /** {@code base} com a negociação no HttpClient; o cliente de {@code base} (ex.: o do pool) continua por baixo. */
+    public RestAssuredConfig applyTo(RestAssuredConfig base) {
+        HttpClientConfig original = base.getHttpClientConfig();
+        return base.httpClient(original.httpClientFactory(() -> {
+            AbstractHttpClient cliente = (AbstractHttpClient) original.httpClientInstance();
+            cliente.addRequestInterceptor(this, 0);//antes do RequestContent, que tira o Content-Length e o Content-Encoding da entidade
+            cliente.addResponseInterceptor(this);//depois do pool, antes do ContentEncoding do RestAssured
+            return cliente;
+        }));
+    }
+
+    @Override
+    public void process(HttpRequest requisicao, HttpContext contexto) {
+        if (!requisicao.containsHeader("Accept-Encoding")) {
+            requisicao.setHeader("Accept-Encoding", ACEITAS);
+        }
+        int minimo = minimoRequisicao;
+        if (minimo >= 0 && requisicao instanceof HttpEntityEnclosingRequest && !requisicao.containsHeader("Content-Encoding")) {
+            HttpEntityEnclosingRequest comCorpo = (HttpEntityEnclosingRequest) requisicao;
+            HttpEntity corpo = comCorpo.getEntity();
+            if (corpo != null && corpo.getContentEncoding() == null && corpo.getContentLength() >= minimo) {
+                comCorpo.setEntity(new GzipCompressingEntity(corpo));
+            }
+        }
+    }
+
+    @Override
+    public void process(HttpResponse resposta, HttpContext contexto) {
+        HttpEntity corpo = resposta.getEntity();
+        if (corpo == null || corpo instanceof DecodedEntity) {
+            return;//sem corpo, ou já decodificado por outra instância (a global e a de um config())
+        }
+        Header cabecalho = corpo.getContentEncoding();
+        String codificacao = cabecalho == null ? "identity" : cabecalho.getValue().trim().toLowerCase(Locale.ROOT);
+        if (codificacao.isEmpty()) {
+            codificacao = "identity";
+        }
+        if (!DecodedEntity.suportada(codificacao)) {
+            return;//várias codificações em sequência ou uma desconhecida: fica com o RestAssured
+        }
+        Object pedido = contexto.getAttribute(ExecutionContext.HTTP_REQUEST);
+        HttpRequest requisicao = pedido instanceof RequestWrapper ? ((RequestWrapper) pedido).getOriginal() : (HttpRequest) pedido;
+        String metodo = requisicao == null ? "GET" : requisicao.getRequestLine().getMethod();
+        resposta.setEntity(new DecodedEntity(corpo, codificacao, metodo, uri(requisicao, contexto)));
+    }
+
+    private static String uri(HttpRequest requisicao, HttpContext contexto) {
+        if (requisicao instanceof HttpUriRequest && ((HttpUriRequest) requisicao).getURI().isAbsolute()) {
+            return ((HttpUriRequest) requisicao).getURI().toString();
+        }
+        String caminho = requisicao == null ? "/" : requisicao.getRequestLine().getUri();
+        Object alvo = contexto.getAttribute(ExecutionContext.HTTP_TARGET_HOST);
+        return alvo instanceof HttpHost ? ((HttpHost) alvo).toURI() + caminho : caminho;
+    }
+
+    private static Constructor<?> brotli() {
+        try {
+            return Class.forName("org.brotli.dec.BrotliInputStream").getConstructor(InputStream.class);
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+}
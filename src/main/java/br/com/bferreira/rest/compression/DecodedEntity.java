@@ -0,0 +1,200 @@
+package br.com.bferreira.rest.compression;
+
+import br.com.bferreira.rest.metrics.RequestMetrics;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.entity.HttpEntityWrapper;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Corpo de resposta decodificado enquanto é lido: o parser recebe o stream do
+ * {@link GZIPInputStream} (ou do inflater) direto sobre o da conexão, sem o corpo comprimido
+ * ser copiado antes para um {@code byte[]}. Conta os bytes que vieram pela rede e os
+ * decodificados e manda os dois para o {@link RequestMetrics} uma vez, no fim do corpo ou no
+ * {@code close()}. Corpos sem Content-Encoding também passam por aqui, só para a contagem.
+ */
+final class DecodedEntity extends HttpEntityWrapper {
+
+    private static final int BUFFER = 8 * 1024;
+
+    private final String codificacao;
+    private final String metodo;
+    private final String uri;
+    private final AtomicBoolean reportado = new AtomicBoolean();
+
+    DecodedEntity(HttpEntity original, String codificacao, String metodo, String uri) {
+        super(original);
+        this.codificacao = codificacao;
+        this.metodo = metodo;
+        this.uri = uri;
+    }
+
+    /** Se {@link #decodificador} sabe ler a codificação (já em minúsculas). */
+    static boolean suportada(String codificacao) {
+        switch (codificacao) {
+            case "identity":
+            case "gzip":
+            case "x-gzip":
+            case "deflate":
+                return true;
+            case "br":
+                return ContentCoding.BROTLI != null;
+            default:
+                return false;
+        }
+    }
+
+    @Override
+    public InputStream getContent() throws IOException {
+        Contador naRede = new Contador(wrappedEntity.getContent());
+        return new Contador(decodificador(naRede), naRede);
+    }
+
+    @Override
+    public Header getContentEncoding() {
+        return null;//já decodificado: o ContentEncoding do RestAssured não deve decodificar de novo
+    }
+
+    @Override
+    public long getContentLength() {
+        return "identity".equals(codificacao) ? wrappedEntity.getContentLength() : -1;
+    }
+
+    @Override
+    public boolean isStreaming() {
+        return wrappedEntity.isStreaming();
+    }
+
+    @Override
+    public void writeTo(OutputStream saida) throws IOException {
+        try (InputStream entrada = getContent()) {
+            byte[] buffer = new byte[BUFFER];
+            int lidos;
+            while ((lidos = entrada.read(buffer)) != -1) {
+                saida.write(buffer, 0, lidos);
+            }
+        }
+    }
+
+    private InputStream decodificador(InputStream naRede) throws IOException {
+        switch (codificacao) {
+            case "gzip":
+            case "x-gzip":
+                return new GZIPInputStream(naRede, BUFFER);
+            case "deflate":
+                return inflater(naRede);
+            case "br":
+                try {
+                    return (InputStream) ContentCoding.BROTLI.newInstance(naRede);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+                } catch (ReflectiveOperationException e) {
+                    throw new IOException("Decodificador de brotli indisponível", e);
+                }
+            default:
+                return naRede;
+        }
+    }
+
+    /** "deflate" na prática vem com o envelope zlib (RFC 1950) ou cru; os dois primeiros bytes dizem qual. */
+    private static InputStream inflater(InputStream naRede) throws IOException {
+        PushbackInputStream entrada = new PushbackInputStream(naRede, 2);
+        byte[] inicio = new byte[2];
+        int lidos = 0;
+        int n;
+        while (lidos < 2 && (n = entrada.read(inicio, lidos, 2 - lidos)) != -1) {
+            lidos += n;
+        }
+        entrada.unread(inicio, 0, lidos);
+        boolean zlib = lidos == 2 && (inicio[0] & 0x0f) == 8 && ((inicio[0] & 0xff) << 8 | inicio[1] & 0xff) % 31 == 0;
+        Inflater inflater = new Inflater(!zlib);
+        return new InflaterInputStream(entrada, inflater, BUFFER) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    inflater.end();//o InflaterInputStream só libera a memória nativa do Inflater que ele mesmo criou
+                }
+            }
+        };
+    }
+
+    /**
+     * Conta os bytes que passam. O de fora (decodificado) aponta para o de dentro (na rede) e
+     * reporta os dois quando o corpo acaba ou é fechado (só a primeira leitura, se a entidade
+     * for repetível).
+     */
+    private final class Contador extends FilterInputStream {
+        private final Contador naRede;
+        private long bytes;
+
+        Contador(InputStream entrada) {
+            this(entrada, null);
+        }
+
+        Contador(InputStream entrada, Contador naRede) {
+            super(entrada);
+            this.naRede = naRede;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b == -1) {
+                fim();
+            } else {
+                bytes++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] destino, int inicio, int tamanho) throws IOException {
+            int lidos = super.read(destino, inicio, tamanho);
+            if (lidos == -1) {
+                fim();
+            } else {
+                bytes += lidos;
+            }
+            return lidos;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long pulados = super.skip(n);
+            bytes += pulados;
+            return pulados;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                fim();
+            }
+        }
+
+        private void fim() {
+            if (naRede != null && reportado.compareAndSet(false, true)) {
+                RequestMetrics.bodyDecoded(metodo, uri, codificacao, naRede.bytes, bytes);
+            }
+        }
+    }
+}
@@ -0,0 +1,452 @@
+package br.com.bferreira.rest.config;
+
+import br.com.bferreira.rest.metrics.RequestTimings;
+import io.restassured.RestAssured;
+import io.restassured.config.HttpClientConfig;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHost;
+import org.apache.http.conn.ClientConnectionManager;
+import org.apache.http.conn.ClientConnectionOperator;
+import org.apache.http.conn.ClientConnectionRequest;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.HttpInetSocketAddress;
+import org.apache.http.conn.ManagedClientConnection;
+import org.apache.http.conn.OperatedClientConnection;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.scheme.PlainSocketFactory;
+import org.apache.http.conn.scheme.Scheme;
+import org.apache.http.conn.scheme.SchemeLayeredSocketFactory;
+import org.apache.http.conn.scheme.SchemeRegistry;
+import org.apache.http.entity.BufferedHttpEntity;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.conn.DefaultClientConnectionOperator;
+import org.apache.http.impl.conn.PoolingClientConnectionManager;
+import org.apache.http.impl.conn.SchemeRegistryFactory;
+import org.apache.http.params.HttpParams;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HttpContext;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.UnknownHostException;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pool de conexões keep-alive compartilhado por todas as requisições do RestAssured.
+ * Por padrão o RestAssured cria um HttpClient novo a cada requisição e o descarta no fim,
+ * pagando conexão TCP (e handshake TLS) toda vez. Aqui cada requisição ainda ganha o seu
+ * HttpClient (o RestAssured altera os parâmetros do client, então compartilhar um só não é
+ * seguro em paralelo), mas todos usam o mesmo gerenciador de conexões, que sobrevive ao
+ * {@code shutdown()} que o RestAssured chama no fim de cada requisição.
+ *
+ * <p>Cada HttpClient vê uma cópia dos esquemas do pool: o RestAssured aplica
+ * {@code relaxedHTTPSValidation()}, {@code trustStore}, {@code keyStore} e o {@code SSLConfig}
+ * registrando um esquema https novo nesse registro, e no registro do pool isso valeria para
+ * todas as requisições seguintes da JVM. Uma requisição cujos esquemas foram trocados usa um
+ * gerenciador só dela, encerrado no fim da requisição, sem pool.</p>
+ *
+ * <p>O RestAssured só lê o corpo quando alguém pede por ele, e até lá a conexão fica
+ * emprestada. Para uma resposta não lida não prender a conexão, corpos com tamanho
+ * conhecido de até {@code http.pool.bufferBytes} (padrão 1MB) são lidos logo na chegada e a
+ * conexão volta para o pool; corpos maiores, sem Content-Length ou com Content-Encoding (que o
+ * {@link br.com.bferreira.rest.compression.ContentCoding} descomprime direto da rede, sem
+ * cópia) continuam em streaming e devolvem a conexão quando terminam de ser lidos.</p>
+ *
+ * <p>O gerenciador também informa ao {@link RequestTimings} o tempo de DNS, conexão, handshake
+ * TLS (só no esquema https padrão), servidor e download de cada requisição.</p>
+ *
+ * <p>Configurável por propriedades de sistema: {@code http.pool.maxPerRoute} (padrão 20),
+ * {@code http.pool.maxTotal} (padrão 100) e {@code http.pool.idleMillis} (padrão 30000,
+ * tempo ocioso até a conexão ser fechada; também é o keep-alive quando o servidor não
+ * informa um).</p>
+ */
+public final class ConnectionPool implements Closeable {
+
+    private static volatile ConnectionPool compartilhado;
+    private static boolean instalado;
+    private static final long LIMITE_BUFFER = Long.getLong("http.pool.bufferBytes", 1024 * 1024);
+
+    private final Gerenciador gerenciador;
+    private final long ociosoMillis;
+    private final ScheduledExecutorService limpeza;
+    private final LongAdder emprestimos = new LongAdder();
+    private final LongAdder reaproveitadas = new LongAdder();
+    private final LongAdder novas = new LongAdder();
+    private final LongAdder expiradas = new LongAdder();
+
+    private ConnectionPool(int maxPorRota, int maxTotal, long ociosoMillis) {
+        this.gerenciador = new Gerenciador();
+        this.gerenciador.setDefaultMaxPerRoute(maxPorRota);
+        this.gerenciador.setMaxTotal(maxTotal);
+        this.ociosoMillis = ociosoMillis;
+        this.limpeza = Executors.newSingleThreadScheduledExecutor(tarefa -> {
+            Thread thread = new Thread(tarefa, "pool-http-limpeza");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long periodo = Math.max(10, Math.min(ociosoMillis / 2, 5_000));
+        limpeza.scheduleWithFixedDelay(this::fecharOciosas, periodo, periodo, TimeUnit.MILLISECONDS);
+    }
+
+    public static ConnectionPool create(int maxPorRota, int maxTotal, long ociosoMillis) {
+        return new ConnectionPool(maxPorRota, maxTotal, ociosoMillis);
+    }
+
+    /** Pool da JVM, com a configuração das propriedades de sistema. */
+    public static ConnectionPool shared() {
+        ConnectionPool pool = compartilhado;
+        if (pool == null) {
+            synchronized (ConnectionPool.class) {
+                pool = compartilhado;
+                if (pool == null) {
+                    pool = create(Integer.getInteger("http.pool.maxPerRoute", 20),
+                            Integer.getInteger("http.pool.maxTotal", 100),
+                            Long.getLong("http.pool.idleMillis", 30_000L));
+                    compartilhado = pool;
+                }
+            }
+        }
+        return pool;
+    }
+
+    /**
+     * Instala o pool compartilhado na configuração global do RestAssured (uma vez por JVM;
+     * as chamadas seguintes não mudam nada).
+     */
+    public static synchronized ConnectionPool install() {
+        ConnectionPool pool = shared();
+        if (!instalado) {
+            RestAssured.config = RestAssured.config().httpClient(pool.httpClientConfig());
+            instalado = true;
+        }
+        return pool;
+    }
+
+    /** Configuração para usar o pool, globalmente ou num {@code given().config(...)}. */
+    public HttpClientConfig httpClientConfig() {
+        return HttpClientConfig.httpClientConfig().httpClientFactory(new Fabrica(this));
+    }
+
+    /** Conexões emprestadas, reaproveitadas, abertas, fechadas por ociosidade e o estado atual do pool. */
+    public Map<String, Long> stats() {
+        PoolStats total = gerenciador.getTotalStats();
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("leases", emprestimos.sum());
+        stats.put("reused", reaproveitadas.sum());
+        stats.put("created", novas.sum());
+        stats.put("evicted", expiradas.sum());
+        stats.put("leased", (long) total.getLeased());
+        stats.put("available", (long) total.getAvailable());
+        stats.put("pending", (long) total.getPending());
+        return stats;
+    }
+
+    public long reused() {
+        return reaproveitadas.sum();
+    }
+
+    public long created() {
+        return novas.sum();
+    }
+
+    /** Fecha conexões ociosas há mais de {@code http.pool.idleMillis} e as que o servidor já expirou. */
+    public void fecharOciosas() {
+        int antes = gerenciador.getTotalStats().getAvailable();
+        gerenciador.closeExpiredConnections();
+        gerenciador.closeIdleConnections(ociosoMillis, TimeUnit.MILLISECONDS);
+        int depois = gerenciador.getTotalStats().getAvailable();
+        if (depois < antes) {
+            expiradas.add(antes - depois);
+        }
+    }
+
+    @Override
+    public void close() {
+        limpeza.shutdownNow();
+        gerenciador.encerrar();
+    }
+
+    /** Ignora o shutdown() que o RestAssured chama ao fim de cada requisição e conta reaproveitamentos. */
+    private final class Gerenciador extends PoolingClientConnectionManager {
+
+        Gerenciador() {
+            super(esquemas());
+        }
+
+        @Override
+        protected ClientConnectionOperator createConnectionOperator(SchemeRegistry esquemas) {
+            return new OperadorMedido(esquemas);
+        }
+
+        @Override
+        public ClientConnectionRequest requestConnection(HttpRoute rota, Object estado) {
+            ClientConnectionRequest pedido = super.requestConnection(rota, estado);
+            return new ClientConnectionRequest() {
+                @Override
+                public ManagedClientConnection getConnection(long timeout, TimeUnit unidade)
+                        throws InterruptedException, ConnectionPoolTimeoutException {
+                    ManagedClientConnection conexao = pedido.getConnection(timeout, unidade);
+                    emprestimos.increment();
+                    if (conexao.isOpen()) {
+                        reaproveitadas.increment();
+                    } else {
+                        novas.increment();
+                    }
+                    return conexao;
+                }
+
+                @Override
+                public void abortRequest() {
+                    pedido.abortRequest();
+                }
+            };
+        }
+
+        @Override
+        public void shutdown() {
+            //o pool vive mais que cada HttpClient; só o ConnectionPool.close() encerra de verdade
+        }
+
+        void encerrar() {
+            super.shutdown();
+        }
+    }
+
+    /** Esquemas do gerenciador compartilhado, para os testes conferirem que nenhuma requisição os alterou. */
+    SchemeRegistry schemeRegistry() {
+        return gerenciador.getSchemeRegistry();
+    }
+
+    /**
+     * O gerenciador compartilhado visto por um HttpClient, com uma cópia dos esquemas. Enquanto a
+     * cópia tiver os mesmos esquemas do pool, as conexões vêm do pool; se a requisição trocou algum,
+     * vêm de um gerenciador próprio sobre a cópia.
+     */
+    private static final class Visao implements ClientConnectionManager {
+
+        private final Gerenciador compartilhado;
+        private final SchemeRegistry esquemas = new SchemeRegistry();
+        private final Set<ManagedClientConnection> proprias = Collections.newSetFromMap(new IdentityHashMap<>());
+        private PoolingClientConnectionManager proprio;
+
+        Visao(Gerenciador compartilhado) {
+            this.compartilhado = compartilhado;
+            SchemeRegistry original = compartilhado.getSchemeRegistry();
+            for (String nome : original.getSchemeNames()) {
+                esquemas.register(original.getScheme(nome));
+            }
+        }
+
+        @Override
+        public SchemeRegistry getSchemeRegistry() {
+            return esquemas;
+        }
+
+        @Override
+        public ClientConnectionRequest requestConnection(HttpRoute rota, Object estado) {
+            if (!alterada()) {
+                return compartilhado.requestConnection(rota, estado);
+            }
+            ClientConnectionRequest pedido = proprio().requestConnection(rota, estado);
+            return new ClientConnectionRequest() {
+                @Override
+                public ManagedClientConnection getConnection(long timeout, TimeUnit unidade)
+                        throws InterruptedException, ConnectionPoolTimeoutException {
+                    ManagedClientConnection conexao = pedido.getConnection(timeout, unidade);
+                    synchronized (proprias) {
+                        proprias.add(conexao);
+                    }
+                    return conexao;
+                }
+
+                @Override
+                public void abortRequest() {
+                    pedido.abortRequest();
+                }
+            };
+        }
+
+        @Override
+        public void releaseConnection(ManagedClientConnection conexao, long duracao, TimeUnit unidade) {
+            boolean propria;
+            synchronized (proprias) {
+                propria = proprias.remove(conexao);
+            }
+            if (propria) {
+                proprio.releaseConnection(conexao, duracao, unidade);
+            } else {
+                compartilhado.releaseConnection(conexao, duracao, unidade);
+            }
+        }
+
+        @Override
+        public void closeExpiredConnections() {
+            compartilhado.closeExpiredConnections();
+        }
+
+        @Override
+        public void closeIdleConnections(long tempo, TimeUnit unidade) {
+            compartilhado.closeIdleConnections(tempo, unidade);
+        }
+
+        @Override
+        public synchronized void shutdown() {
+            if (proprio != null) {
+                proprio.shutdown();
+            }
+        }
+
+        private boolean alterada() {
+            SchemeRegistry original = compartilhado.getSchemeRegistry();
+            List<String> nomes = esquemas.getSchemeNames();
+            if (nomes.size() != original.getSchemeNames().size()) {
+                return true;
+            }
+            for (String nome : nomes) {
+                if (esquemas.get(nome) != original.get(nome)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private synchronized PoolingClientConnectionManager proprio() {
+            if (proprio == null) {
+                proprio = new PoolingClientConnectionManager(esquemas) {
+                    @Override
+                    protected ClientConnectionOperator createConnectionOperator(SchemeRegistry registro) {
+                        return new OperadorMedido(registro);
+                    }
+                };
+            }
+            return proprio;
+        }
+    }
+
+    /** HttpClient de uma requisição, sobre uma {@link Visao} do gerenciador compartilhado. */
+    private static final class Cliente extends DefaultHttpClient {
+
+        Cliente(ConnectionPool pool) {
+            super(new Visao(pool.gerenciador));
+            long ocioso = pool.ociosoMillis;
+            setKeepAliveStrategy((resposta, contexto) -> {
+                long servidor = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(resposta, contexto);
+                return servidor > 0 ? Math.min(servidor, ocioso) : ocioso;
+            });
+            addRequestInterceptor((requisicao, contexto) -> RequestTimings.enviando(contexto));
+            addResponseInterceptor((resposta, contexto) -> {
+                RequestTimings.cabecalhosRecebidos();
+                HttpEntity corpo = resposta.getEntity();
+                if (corpo != null && corpo.isStreaming() && corpo.getContentEncoding() == null
+                        && corpo.getContentLength() >= 0 && corpo.getContentLength() <= LIMITE_BUFFER) {
+                    resposta.setEntity(new BufferedHttpEntity(corpo));//lido até o fim: a conexão já pode voltar ao pool
+                    RequestTimings.corpoLido(0);
+                } else {
+                    RequestTimings.corpoLido(corpo == null || !corpo.isStreaming() ? 0 : corpo.getContentLength());
+                }
+            });
+        }
+    }
+
+    /** Esquemas padrão, com o https medindo o handshake TLS à parte da conexão TCP. */
+    private static SchemeRegistry esquemas() {
+        SchemeRegistry esquemas = SchemeRegistryFactory.createDefault();
+        SchemeLayeredSocketFactory tls = (SchemeLayeredSocketFactory) esquemas.getScheme("https").getSchemeSocketFactory();
+        esquemas.register(new Scheme("https", 443, new TlsMedido(tls)));
+        return esquemas;
+    }
+
+    /** Mede a resolução de nomes e a abertura de cada conexão nova para o {@link RequestTimings}. */
+    private static final class OperadorMedido extends DefaultClientConnectionOperator {
+
+        OperadorMedido(SchemeRegistry esquemas) {
+            super(esquemas);
+        }
+
+        @Override
+        public void openConnection(OperatedClientConnection conexao, HttpHost destino, InetAddress local,
+                                   HttpContext contexto, HttpParams parametros) throws IOException {
+            long inicio = System.nanoTime();
+            try {
+                super.openConnection(conexao, destino, local, contexto, parametros);
+            } finally {
+                RequestTimings.conexao(System.nanoTime() - inicio);
+            }
+        }
+
+        @Override
+        protected InetAddress[] resolveHostname(String host) throws UnknownHostException {
+            long inicio = System.nanoTime();
+            try {
+                return super.resolveHostname(host);
+            } finally {
+                RequestTimings.resolucao(System.nanoTime() - inicio);
+            }
+        }
+    }
+
+    /** Conecta o TCP e faz o handshake TLS em dois passos, para medir o handshake sozinho. */
+    private static final class TlsMedido implements SchemeLayeredSocketFactory {
+
+        private final SchemeLayeredSocketFactory tls;
+
+        TlsMedido(SchemeLayeredSocketFactory tls) {
+            this.tls = tls;
+        }
+
+        @Override
+        public Socket createSocket(HttpParams parametros) {
+            return new Socket();
+        }
+
+        @Override
+        public Socket connectSocket(Socket socket, InetSocketAddress remoto, InetSocketAddress local, HttpParams parametros)
+                throws IOException {
+            Socket tcp = PlainSocketFactory.getSocketFactory().connectSocket(socket, remoto, local, parametros);
+            String host = remoto instanceof HttpInetSocketAddress
+                    ? ((HttpInetSocketAddress) remoto).getHttpHost().getHostName() : remoto.getHostName();
+            long inicio = System.nanoTime();
+            try {
+                return tls.createLayeredSocket(tcp, host, remoto.getPort(), parametros);
+            } finally {
+                RequestTimings.handshake(System.nanoTime() - inicio);
+            }
+        }
+
+        @Override
+        public Socket createLayeredSocket(Socket socket, String host, int porta, HttpParams parametros) throws IOException {
+            return tls.createLayeredSocket(socket, host, porta, parametros);
+        }
+
+        @Override
+        public boolean isSecure(Socket socket) {
+            return tls.isSecure(socket);
+        }
+    }
+
+    private static final class Fabrica implements HttpClientConfig.HttpClientFactory {
+        private final ConnectionPool pool;
+
+        Fabrica(ConnectionPool pool) {
+            this.pool = pool;
+        }
+
+        @Override
+        public Cliente createHttpClient() {
+            return new Cliente(pool);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package br.com.bferreira.rest.config;
+
+import io.restassured.RestAssured;
+import io.restassured.specification.RequestSpecification;
+import io.restassured.specification.ResponseSpecification;
+
+/**
+ * Configuração do RestAssured confinada à thread, no lugar dos estáticos
+ * {@code RestAssured.requestSpecification}/{@code RestAssured.responseSpecification}.
+ * Cada classe de teste monta o seu contexto a partir dos specs do
+ * RequestSpecBuilder/ResponseSpecBuilder e o {@code RestContextRule} (dos testes) o associa à thread
+ * que executa cada método, o que permite rodar classes e métodos em paralelo sem
+ * que uma classe veja os specs da outra.
+ */
+public final class RestContext {
+
+    private static final ThreadLocal<RestContext> ATUAL = new ThreadLocal<>();
+
+    private final RequestSpecification requestSpecification;
+    private final ResponseSpecification responseSpecification;
+
+    private RestContext(RequestSpecification requestSpecification, ResponseSpecification responseSpecification) {
+        this.requestSpecification = requestSpecification;
+        this.responseSpecification = responseSpecification;
+    }
+
+    public static RestContext of(RequestSpecification requestSpecification, ResponseSpecification responseSpecification) {
+        return new RestContext(requestSpecification, responseSpecification);
+    }
+
+    /** Associa o contexto à thread atual, devolvendo o que estava associado antes (ou null). */
+    public static RestContext bind(RestContext contexto) {
+        RestContext anterior = ATUAL.get();
+        if (contexto == null) {
+            ATUAL.remove();
+        } else {
+            ATUAL.set(contexto);
+        }
+        return anterior;
+    }
+
+    public static RestContext current() {
+        return ATUAL.get();
+    }
+
+    /**
+     * Equivalente ao {@code RestAssured.given()}, já com os specs do contexto da thread
+     * aplicados. Sem contexto associado, é exatamente o {@code RestAssured.given()}.
+     */
+    public static RequestSpecification given() {
+        RestContext contexto = ATUAL.get();
+        return contexto == null ? RestAssured.given() : contexto.newRequest();
+    }
+
+    public RequestSpecification newRequest() {
+        RequestSpecification requisicao = RestAssured.given();
+        if (requestSpecification != null) {
+            requisicao.spec(requestSpecification);
+        }
+        if (responseSpecification != null) {
+            requisicao.response().spec(responseSpecification);//validada automaticamente quando a resposta chega
+        }
+        return requisicao;
+    }
+
+    public RequestSpecification requestSpecification() {
+        return requestSpecification;
+    }
+
+    public ResponseSpecification responseSpecification() {
+        return responseSpecification;
+    }
+}
@@ -0,0 +1,211 @@
+package br.com.bferreira.rest.gpath;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.util.Objects;
+
+/**
+ * Operadores com a promoção numérica do Groovy: inteiros continuam inteiros (Integer,
+ * depois Long, depois BigInteger), BigDecimal com BigDecimal/inteiro continua BigDecimal
+ * e qualquer Float/Double leva o resultado para Double. Nós XML valem pelo texto.
+ */
+final class Arithmetic {
+
+    private Arithmetic() {
+    }
+
+    static Object binary(String op, Object esquerda, Object direita) {
+        switch (op) {
+            case "==":
+                return equal(esquerda, direita);
+            case "!=":
+                return !equal(esquerda, direita);
+            case "<":
+                return compare(esquerda, direita) < 0;
+            case "<=":
+                return compare(esquerda, direita) <= 0;
+            case ">":
+                return compare(esquerda, direita) > 0;
+            case ">=":
+                return compare(esquerda, direita) >= 0;
+            case "+":
+                return plus(esquerda, direita);
+            default:
+                return numeric(op, numero(esquerda), numero(direita));
+        }
+    }
+
+    static boolean equal(Object esquerda, Object direita) {
+        //um nó XML comparado com número vale pelo texto convertido (it.age == 25); já "25" == 25 é falso no Groovy
+        boolean algumNo = isNo(esquerda) || isNo(direita);
+        esquerda = simples(esquerda);
+        direita = simples(direita);
+        if (esquerda == null || direita == null) {
+            return esquerda == direita;
+        }
+        if (esquerda instanceof Number && direita instanceof Number) {
+            return compareNumbers((Number) esquerda, (Number) direita) == 0;
+        }
+        if (algumNo && esquerda instanceof Number && direita instanceof String) {
+            return equalNumeroTexto((Number) esquerda, (String) direita);
+        }
+        if (algumNo && esquerda instanceof String && direita instanceof Number) {
+            return equalNumeroTexto((Number) direita, (String) esquerda);
+        }
+        return Objects.equals(esquerda, direita);
+    }
+
+    static int compare(Object esquerda, Object direita) {
+        esquerda = simples(esquerda);
+        direita = simples(direita);
+        if (esquerda == null || direita == null) {
+            if (esquerda == direita) {
+                return 0;
+            }
+            return esquerda == null ? -1 : 1;//como no Groovy, null é menor que qualquer valor
+        }
+        if (esquerda instanceof Number || direita instanceof Number) {
+            return compareNumbers(numero(esquerda), numero(direita));
+        }
+        if (esquerda instanceof String && direita instanceof String) {
+            return ((String) esquerda).compareTo((String) direita);
+        }
+        if (esquerda instanceof Comparable && esquerda.getClass().isInstance(direita)) {
+            @SuppressWarnings("unchecked")
+            Comparable<Object> comparavel = (Comparable<Object>) esquerda;
+            return comparavel.compareTo(direita);
+        }
+        throw new UnsupportedPathException("Comparação entre " + esquerda.getClass().getSimpleName()
+                + " e " + direita.getClass().getSimpleName());
+    }
+
+    static Object plus(Object esquerda, Object direita) {
+        esquerda = simples(esquerda);
+        direita = simples(direita);
+        if (esquerda instanceof String) {
+            return esquerda + String.valueOf(direita);
+        }
+        if (esquerda instanceof Number && direita instanceof Number) {
+            return numeric("+", (Number) esquerda, (Number) direita);
+        }
+        throw new UnsupportedPathException("Soma de " + esquerda + " com " + direita);
+    }
+
+    static Object negate(Object valor) {
+        return numeric("-", 0, numero(valor));
+    }
+
+    static Number numeric(String op, Number a, Number b) {
+        if (isFlutuante(a) || isFlutuante(b)) {
+            double x = a.doubleValue();
+            double y = b.doubleValue();
+            switch (op) {
+                case "+": return x + y;
+                case "-": return x - y;
+                case "*": return x * y;
+                case "/": return x / y;
+                default: return x % y;
+            }
+        }
+        //no Groovy, a divisão de inteiros dá BigDecimal
+        if (a instanceof BigDecimal || b instanceof BigDecimal || "/".equals(op)) {
+            BigDecimal x = decimal(a);
+            BigDecimal y = decimal(b);
+            switch (op) {
+                case "+": return x.add(y);
+                case "-": return x.subtract(y);
+                case "*": return x.multiply(y);
+                case "/": return x.divide(y, MathContext.DECIMAL64).stripTrailingZeros();
+                default: return x.remainder(y);
+            }
+        }
+        BigInteger x = inteiro(a);
+        BigInteger y = inteiro(b);
+        BigInteger resultado;
+        switch (op) {
+            case "+": resultado = x.add(y); break;
+            case "-": resultado = x.subtract(y); break;
+            case "*": resultado = x.multiply(y); break;
+            case "/": resultado = x.divide(y); break;
+            default: resultado = x.remainder(y); break;
+        }
+        boolean algumLong = a instanceof Long || b instanceof Long;
+        boolean algumBig = a instanceof BigInteger || b instanceof BigInteger;
+        if (algumBig) {
+            return resultado;
+        }
+        //sem BigInteger o Groovy faz a conta em int ou long, com overflow
+        return algumLong ? (Number) resultado.longValue() : (Number) resultado.intValue();
+    }
+
+    static int compareNumbers(Number a, Number b) {
+        if (isFlutuante(a) || isFlutuante(b)) {
+            return Double.compare(a.doubleValue(), b.doubleValue());
+        }
+        return decimal(a).compareTo(decimal(b));
+    }
+
+    /** Converte para número: nós XML e strings são lidos pelo texto. */
+    static Number numero(Object valor) {
+        valor = simples(valor);
+        if (valor instanceof Number) {
+            return (Number) valor;
+        }
+        if (valor instanceof String) {
+            try {
+                return JsonTree.number(((String) valor).trim());
+            } catch (NumberFormatException e) {
+                throw new UnsupportedPathException("Texto não numérico: " + valor);
+            }
+        }
+        throw new UnsupportedPathException("Valor não numérico: " + valor);
+    }
+
+    /** Nós XML viram o seu texto; o resto fica como está. */
+    static Object simples(Object valor) {
+        if (valor instanceof Nodes) {
+            return ((Nodes) valor).text();
+        }
+        if (valor instanceof XmlNode) {
+            return ((XmlNode) valor).text();
+        }
+        if (valor instanceof Character) {
+            return valor.toString();
+        }
+        return valor;
+    }
+
+    private static boolean equalNumeroTexto(Number numero, String texto) {
+        try {
+            return compareNumbers(numero, JsonTree.number(texto.trim())) == 0;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private static boolean isNo(Object valor) {
+        return valor instanceof Nodes || valor instanceof XmlNode;
+    }
+
+    private static boolean isFlutuante(Number n) {
+        return n instanceof Double || n instanceof Float;
+    }
+
+    private static BigDecimal decimal(Number n) {
+        if (n instanceof BigDecimal) {
+            return (BigDecimal) n;
+        }
+        if (n instanceof BigInteger) {
+            return new BigDecimal((BigInteger) n);
+        }
+        if (isFlutuante(n)) {
+            return BigDecimal.valueOf(n.doubleValue());
+        }
+        return BigDecimal.valueOf(n.longValue());
+    }
+
+    private static BigInteger inteiro(Number n) {
+        return n instanceof BigInteger ? (BigInteger) n : BigInteger.valueOf(n.longValue());
+    }
+}
@@ -0,0 +1,166 @@
+package br.com.bferreira.rest.gpath;
+
+import groovy.lang.Binding;
+import groovy.lang.GroovyShell;
+import groovy.lang.Script;
+import groovy.xml.slurpersupport.GPathResult;
+import org.codehaus.groovy.runtime.InvokerHelper;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Expressão GPath compilada uma única vez e reaproveitável entre respostas e threads.
+ * Quando a expressão cabe no caminho rápido ela é interpretada direto sobre a árvore;
+ * senão (ou se a avaliação sair do subconjunto) a classe do script Groovy é gerada uma
+ * vez só e instanciada a cada avaliação, sem passar de novo pelo parser do Groovy.
+ */
+public final class CompiledPath {
+
+    private final String expression;
+    private final Expr fast;
+    private volatile Class<? extends Script> script;
+
+    CompiledPath(String expression, Expr fast) {
+        this.expression = expression;
+        this.fast = fast;
+    }
+
+    public String expression() {
+        return expression;
+    }
+
+    /** Indica se a expressão é atendida sem o Groovy. */
+    public boolean isFast() {
+        return fast != null;
+    }
+
+    public Object evaluate(String body) {
+        return evaluate(ParsedBody.cached(body));
+    }
+
+    public Object evaluate(ParsedBody body) {
+        if (fast != null) {
+            try {
+                Object resultado = Evaluator.eval(fast, body.tree(), null);
+                return body.isXml() ? comoXmlPath(resultado) : resultado;
+            } catch (UnsupportedPathException e) {
+                GPath.contarFallback();
+            }
+        }
+        Object resultado = groovy(body.isXml() ? body.slurped() : body.tree());
+        return body.isXml() ? comoXmlPath(resultado) : resultado;
+    }
+
+    /**
+     * Avalia reaproveitando as projeções já calculadas por outras expressões sobre o mesmo
+     * corpo ({@code age} de {@code age.findAll{...}} e de {@code age.collect{...}}); ver
+     * {@link Evaluator#evalShared}.
+     */
+    Object evaluate(ParsedBody body, Map<String, Object> compartilhados) {
+        if (fast != null) {
+            try {
+                Object resultado = Evaluator.evalShared(fast, body.tree(), compartilhados);
+                return body.isXml() ? comoXmlPath(resultado) : resultado;
+            } catch (UnsupportedPathException e) {
+                GPath.contarFallback();
+            }
+        }
+        return evaluate(body);
+    }
+
+    /**
+     * Avalia sobre uma árvore JSON já montada (Map/List/valores simples), como um item lido em
+     * streaming. Campo ausente no caminho vale null, sem cair para o Groovy.
+     */
+    Object evaluateTree(Object tree) {
+        if (fast != null) {
+            try {
+                return Evaluator.evalItem(fast, tree);
+            } catch (UnsupportedPathException e) {
+                GPath.contarFallback();
+            }
+        }
+        return groovy(tree);
+    }
+
+    private Object groovy(Object raiz) {
+        Binding binding = new Binding();
+        binding.setVariable("root", raiz);
+        return InvokerHelper.createScript(script(), binding).run();
+    }
+
+    private Class<? extends Script> script() {
+        Class<? extends Script> classe = script;
+        if (classe == null) {
+            synchronized (this) {
+                classe = script;
+                if (classe == null) {
+                    classe = new GroovyShell(CompiledPath.class.getClassLoader()).parse(textoGroovy()).getClass();
+                    script = classe;
+                    GPath.contarScriptGerado();
+                }
+            }
+        }
+        return classe;
+    }
+
+    private String textoGroovy() {
+        String texto = expression.trim();
+        if (texto.isEmpty() || "$".equals(texto)) {
+            return "root";
+        }
+        if (texto.startsWith("$")) {
+            return "root" + texto.substring(1);
+        }
+        return texto.startsWith("[") ? "root" + texto : "root." + texto;
+    }
+
+    /**
+     * Converte o resultado para os tipos que o XmlPath do RestAssured devolve: nós viram
+     * texto, e uma lista com um único item vira o próprio item.
+     */
+    static Object comoXmlPath(Object resultado) {
+        if (resultado instanceof Nodes) {
+            Nodes nodes = (Nodes) resultado;
+            if (nodes.size() == 1) {
+                return nodes.get(0).text();
+            }
+            List<Object> textos = new ArrayList<>(nodes.size());
+            for (XmlNode node : nodes) {
+                textos.add(node.text());
+            }
+            return textos;
+        }
+        if (resultado instanceof GPathResult) {
+            GPathResult gpath = (GPathResult) resultado;
+            if (gpath.size() == 1) {
+                return gpath.text();
+            }
+            List<Object> textos = new ArrayList<>(gpath.size());
+            for (Object node : gpath) {
+                textos.add(node instanceof GPathResult ? ((GPathResult) node).text() : String.valueOf(node));
+            }
+            return textos;
+        }
+        if (resultado instanceof XmlNode) {
+            return ((XmlNode) resultado).text();
+        }
+        if (resultado instanceof Collection) {
+            Collection<?> colecao = (Collection<?>) resultado;
+            List<Object> convertidos = new ArrayList<>(colecao.size());
+            for (Object item : colecao) {
+                convertidos.add(comoXmlPath(item));
+            }
+            return convertidos.size() == 1 ? convertidos.get(0) : convertidos;
+        }
+        return resultado;
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+}
@@ -0,0 +1,316 @@
+package br.com.bferreira.rest.gpath;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Interpreta uma {@link Expr} sobre a árvore do JSON (Map/List) ou do XML ({@link XmlNode}),
+ * reproduzindo a semântica do Groovy/GPath para o subconjunto suportado. Casos fora
+ * desse subconjunto lançam {@link UnsupportedPathException}.
+ */
+final class Evaluator {
+
+    private Evaluator() {
+    }
+
+    static Object eval(Expr expr, Object root, Object it) {
+        if (expr instanceof Expr.Root) {
+            return root;
+        }
+        if (expr instanceof Expr.It) {
+            return it;
+        }
+        if (expr instanceof Expr.Literal) {
+            return ((Expr.Literal) expr).value;
+        }
+        if (expr instanceof Expr.Property) {
+            Expr.Property propriedade = (Expr.Property) expr;
+            return property(eval(propriedade.target, root, it), propriedade.name);
+        }
+        if (expr instanceof Expr.Attribute) {
+            Expr.Attribute atributo = (Expr.Attribute) expr;
+            return attribute(eval(atributo.target, root, it), atributo.name);
+        }
+        if (expr instanceof Expr.Index) {
+            Expr.Index indice = (Expr.Index) expr;
+            return index(eval(indice.target, root, it), eval(indice.index, root, it));
+        }
+        if (expr instanceof Expr.Call) {
+            Expr.Call chamada = (Expr.Call) expr;
+            Object alvo = eval(chamada.target, root, it);
+            if (chamada.closure != null) {
+                return closure(alvo, chamada.name, chamada.closure, root);
+            }
+            List<Object> argumentos = new ArrayList<>(chamada.args.size());
+            for (Expr argumento : chamada.args) {
+                argumentos.add(eval(argumento, root, it));
+            }
+            return Methods.invoke(alvo, chamada.name, argumentos);
+        }
+        if (expr instanceof Expr.Unary) {
+            Expr.Unary unaria = (Expr.Unary) expr;
+            Object valor = eval(unaria.operand, root, it);
+            return "!".equals(unaria.op) ? !truthy(valor) : Arithmetic.negate(valor);
+        }
+        Expr.Binary binaria = (Expr.Binary) expr;
+        if ("&&".equals(binaria.op)) {
+            return truthy(eval(binaria.left, root, it)) && truthy(eval(binaria.right, root, it));
+        }
+        if ("||".equals(binaria.op)) {
+            return truthy(eval(binaria.left, root, it)) || truthy(eval(binaria.right, root, it));
+        }
+        return Arithmetic.binary(binaria.op, eval(binaria.left, root, it), eval(binaria.right, root, it));
+    }
+
+    /**
+     * Como {@link #eval}, mas navegar por null (item sem o campo, ex.: {@code filhos.name} num
+     * usuário sem filhos) dá null em vez de sair do subconjunto, como o {@code ?.} do Groovy.
+     */
+    static Object evalItem(Expr expr, Object item) {
+        if (expr instanceof Expr.Property) {
+            Expr.Property propriedade = (Expr.Property) expr;
+            Object alvo = evalItem(propriedade.target, item);
+            return alvo == null ? null : property(alvo, propriedade.name);
+        }
+        if (expr instanceof Expr.Index) {
+            Expr.Index indice = (Expr.Index) expr;
+            Object alvo = evalItem(indice.target, item);
+            return alvo == null ? null : index(alvo, eval(indice.index, item, null));
+        }
+        return eval(expr, item, null);
+    }
+
+    /**
+     * Avalia o caminho guardando o resultado de cada passo fora das closures em
+     * {@code compartilhados}, pela forma canônica da subexpressão. Expressões avaliadas
+     * sobre o mesmo corpo e o mesmo mapa calculam cada projeção comum uma vez só. Os
+     * valores guardados não são alterados por nenhum passo do interpretador.
+     */
+    static Object evalShared(Expr expr, Object root, Map<String, Object> compartilhados) {
+        if (expr instanceof Expr.Root || expr instanceof Expr.Literal) {
+            return eval(expr, root, null);
+        }
+        String chave = expr.toString();
+        if (compartilhados.containsKey(chave)) {
+            return compartilhados.get(chave);
+        }
+        Object valor;
+        if (expr instanceof Expr.Property) {
+            Expr.Property propriedade = (Expr.Property) expr;
+            valor = property(evalShared(propriedade.target, root, compartilhados), propriedade.name);
+        } else if (expr instanceof Expr.Attribute) {
+            Expr.Attribute atributo = (Expr.Attribute) expr;
+            valor = attribute(evalShared(atributo.target, root, compartilhados), atributo.name);
+        } else if (expr instanceof Expr.Index) {
+            Expr.Index indice = (Expr.Index) expr;
+            valor = index(evalShared(indice.target, root, compartilhados), evalShared(indice.index, root, compartilhados));
+        } else if (expr instanceof Expr.Call) {
+            Expr.Call chamada = (Expr.Call) expr;
+            Object alvo = evalShared(chamada.target, root, compartilhados);
+            if (chamada.closure != null) {
+                valor = closure(alvo, chamada.name, chamada.closure, root);
+            } else {
+                List<Object> argumentos = new ArrayList<>(chamada.args.size());
+                for (Expr argumento : chamada.args) {
+                    argumentos.add(evalShared(argumento, root, compartilhados));
+                }
+                valor = Methods.invoke(alvo, chamada.name, argumentos);
+            }
+        } else {
+            valor = eval(expr, root, null);
+        }
+        compartilhados.put(chave, valor);
+        return valor;
+    }
+
+    static Object property(Object alvo, String nome) {
+        if (alvo instanceof Nodes) {
+            Nodes nodes = (Nodes) alvo;
+            return "size".equals(nome) ? (Object) nodes.size() : nodes.children(nome);
+        }
+        if (alvo instanceof XmlNode) {
+            return Nodes.of((XmlNode) alvo).children(nome);
+        }
+        if (alvo instanceof Map) {
+            return ((Map<?, ?>) alvo).get(nome);
+        }
+        if (alvo instanceof List) {
+            List<?> lista = (List<?>) alvo;
+            if ("size".equals(nome)) {
+                return lista.size();
+            }
+            //como no GPath, a propriedade de uma lista é a lista das propriedades de cada item (itens null são pulados)
+            List<Object> valores = new ArrayList<>(lista.size());
+            for (Object item : lista) {
+                if (item != null) {
+                    valores.add(property(item, nome));
+                }
+            }
+            return valores;
+        }
+        if (alvo == null) {
+            throw new UnsupportedPathException("Propriedade '" + nome + "' em null");
+        }
+        throw new UnsupportedPathException("Propriedade '" + nome + "' em " + alvo.getClass().getSimpleName());
+    }
+
+    static Object attribute(Object alvo, String nome) {
+        if (alvo instanceof XmlNode) {
+            return ((XmlNode) alvo).attribute(nome);
+        }
+        if (alvo instanceof Nodes) {
+            Nodes nodes = (Nodes) alvo;
+            if (nodes.size() == 1) {
+                return nodes.get(0).attribute(nome);
+            }
+            List<Object> valores = new ArrayList<>(nodes.size());
+            for (XmlNode node : nodes) {
+                String valor = node.attribute(nome);
+                if (valor != null) {
+                    valores.add(valor);
+                }
+            }
+            return valores;
+        }
+        throw new UnsupportedPathException("Atributo '@" + nome + "' fora de XML");
+    }
+
+    static Object index(Object alvo, Object indice) {
+        if (!(indice instanceof Integer)) {
+            throw new UnsupportedPathException("Índice não inteiro: " + indice);
+        }
+        int i = (Integer) indice;
+        if (alvo instanceof Nodes) {
+            Nodes nodes = (Nodes) alvo;
+            int real = i < 0 ? nodes.size() + i : i;
+            return real >= 0 && real < nodes.size() ? Nodes.of(nodes.get(real)) : new Nodes(new ArrayList<>());
+        }
+        if (alvo instanceof List) {
+            List<?> lista = (List<?>) alvo;
+            int real = i < 0 ? lista.size() + i : i;
+            return real >= 0 && real < lista.size() ? lista.get(real) : null;
+        }
+        if (alvo instanceof CharSequence) {
+            CharSequence texto = (CharSequence) alvo;
+            int real = i < 0 ? texto.length() + i : i;
+            return String.valueOf(texto.charAt(real));
+        }
+        if (alvo == null) {
+            return null;
+        }
+        throw new UnsupportedPathException("Índice em " + alvo.getClass().getSimpleName());
+    }
+
+    private static Object closure(Object alvo, String metodo, Expr corpo, Object root) {
+        Iterable<?> itens = iteravel(alvo);
+        switch (metodo) {
+            case "find":
+                for (Object item : itens) {
+                    if (truthy(eval(corpo, root, item))) {
+                        return alvo instanceof Nodes ? Nodes.of((XmlNode) item) : item;
+                    }
+                }
+                return null;
+            case "findAll":
+                List<Object> filtrados = new ArrayList<>();
+                List<XmlNode> nodesFiltrados = new ArrayList<>();
+                for (Object item : itens) {
+                    if (truthy(eval(corpo, root, item))) {
+                        if (alvo instanceof Nodes) {
+                            nodesFiltrados.add((XmlNode) item);
+                        } else {
+                            filtrados.add(item);
+                        }
+                    }
+                }
+                return alvo instanceof Nodes ? new Nodes(nodesFiltrados) : filtrados;
+            case "collect":
+                List<Object> coletados = new ArrayList<>();
+                for (Object item : itens) {
+                    coletados.add(eval(corpo, root, item));
+                }
+                return coletados;
+            case "any":
+                for (Object item : itens) {
+                    if (truthy(eval(corpo, root, item))) {
+                        return true;
+                    }
+                }
+                return false;
+            case "every":
+                for (Object item : itens) {
+                    if (!truthy(eval(corpo, root, item))) {
+                        return false;
+                    }
+                }
+                return true;
+            case "count":
+                int total = 0;
+                for (Object item : itens) {
+                    if (truthy(eval(corpo, root, item))) {
+                        total++;
+                    }
+                }
+                return total;
+            default:
+                throw new UnsupportedPathException("Método com closure não suportado: " + metodo);
+        }
+    }
+
+    private static Iterable<?> iteravel(Object alvo) {
+        if (alvo instanceof Collection) {
+            return (Collection<?>) alvo;
+        }
+        if (alvo instanceof Map) {
+            throw new UnsupportedPathException("Closure sobre Map");
+        }
+        if (alvo instanceof XmlNode) {
+            return Nodes.of((XmlNode) alvo);
+        }
+        if (alvo == null) {
+            throw new UnsupportedPathException("Closure sobre null");
+        }
+        List<Object> um = new ArrayList<>(1);
+        um.add(alvo);
+        return um;
+    }
+
+    /** Verdade do Groovy: null, 0, "", coleções vazias e false são falsos. */
+    static boolean truthy(Object valor) {
+        if (valor == null) {
+            return false;
+        }
+        if (valor instanceof Boolean) {
+            return (Boolean) valor;
+        }
+        if (valor instanceof Nodes) {
+            return !((Nodes) valor).isEmpty();
+        }
+        if (valor instanceof Collection) {
+            return !((Collection<?>) valor).isEmpty();
+        }
+        if (valor instanceof Map) {
+            return !((Map<?, ?>) valor).isEmpty();
+        }
+        if (valor instanceof CharSequence) {
+            return ((CharSequence) valor).length() > 0;
+        }
+        if (valor instanceof BigDecimal) {
+            return ((BigDecimal) valor).signum() != 0;
+        }
+        if (valor instanceof BigInteger) {
+            return ((BigInteger) valor).signum() != 0;
+        }
+        if (valor instanceof Number) {
+            return ((Number) valor).doubleValue() != 0;
+        }
+        if (valor instanceof Object[]) {
+            return ((Object[]) valor).length > 0;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,137 @@
+package br.com.bferreira.rest.gpath;
+
+import java.util.List;
+
+/**
+ * Árvore de uma expressão GPath já compilada. A mesma árvore serve para o caminho
+ * ({@code findAll{it.age <= 25}.name}) e para o corpo das closures ({@code it.age <= 25}).
+ */
+abstract class Expr {
+
+    /** Raiz do documento (ou o {@code $}). */
+    static final class Root extends Expr {
+        @Override
+        public String toString() {
+            return "$";
+        }
+    }
+
+    /** O {@code it} de dentro de uma closure. */
+    static final class It extends Expr {
+        @Override
+        public String toString() {
+            return "it";
+        }
+    }
+
+    static final class Literal extends Expr {
+        final Object value;
+
+        Literal(Object value) {
+            this.value = value;
+        }
+
+        @Override
+        public String toString() {
+            return value instanceof String ? "'" + value + "'" : String.valueOf(value);
+        }
+    }
+
+    static final class Property extends Expr {
+        final Expr target;
+        final String name;
+
+        Property(Expr target, String name) {
+            this.target = target;
+            this.name = name;
+        }
+
+        @Override
+        public String toString() {
+            return target + "." + name;
+        }
+    }
+
+    /** Atributo de XML, {@code @id}. */
+    static final class Attribute extends Expr {
+        final Expr target;
+        final String name;
+
+        Attribute(Expr target, String name) {
+            this.target = target;
+            this.name = name;
+        }
+
+        @Override
+        public String toString() {
+            return target + ".@" + name;
+        }
+    }
+
+    static final class Index extends Expr {
+        final Expr target;
+        final Expr index;
+
+        Index(Expr target, Expr index) {
+            this.target = target;
+            this.index = index;
+        }
+
+        @Override
+        public String toString() {
+            return target + "[" + index + "]";
+        }
+    }
+
+    /** Chamada de método, com argumentos entre parênteses ou com uma closure ({@code findAll{...}}). */
+    static final class Call extends Expr {
+        final Expr target;
+        final String name;
+        final List<Expr> args;
+        final Expr closure;
+
+        Call(Expr target, String name, List<Expr> args, Expr closure) {
+            this.target = target;
+            this.name = name;
+            this.args = args;
+            this.closure = closure;
+        }
+
+        @Override
+        public String toString() {
+            return target + "." + name + (closure == null ? args.toString() : "{" + closure + "}");
+        }
+    }
+
+    static final class Binary extends Expr {
+        final String op;
+        final Expr left;
+        final Expr right;
+
+        Binary(String op, Expr left, Expr right) {
+            this.op = op;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public String toString() {
+            return "(" + left + " " + op + " " + right + ")";
+        }
+    }
+
+    static final class Unary extends Expr {
+        final String op;
+        final Expr operand;
+
+        Unary(String op, Expr operand) {
+            this.op = op;
+            this.operand = operand;
+        }
+
+        @Override
+        public String toString() {
+            return op + operand;
+        }
+    }
+}
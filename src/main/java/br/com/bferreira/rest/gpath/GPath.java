@@ -0,0 +1,80 @@
+package br.com.bferreira.rest.gpath;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Ponto de entrada do motor de GPath compilado. As expressões ficam num cache LRU
+ * limitado (propriedade de sistema {@code gpath.cache.size}, padrão 256), então a mesma
+ * string de path só é analisada, e no máximo gera uma classe Groovy, uma vez por JVM.
+ *
+ * <pre>
+ * .body(GPathMatchers.gpath("age.findAll{it &lt;= 25}.size()", is(2)))
+ * Object valor = GPath.compile("salary.findAll{it != null}.sum()").evaluate(response.asString());
+ * </pre>
+ */
+public final class GPath {
+
+    private static final int TAMANHO_CACHE = Integer.getInteger("gpath.cache.size", 256);
+
+    private static final Map<String, CompiledPath> CACHE = Collections.synchronizedMap(
+            new LinkedHashMap<String, CompiledPath>(64, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, CompiledPath> maisAntiga) {
+                    return size() > TAMANHO_CACHE;
+                }
+            });
+
+    private static final LongAdder ACERTOS = new LongAdder();
+    private static final LongAdder COMPILACOES = new LongAdder();
+    private static final LongAdder SCRIPTS_GERADOS = new LongAdder();
+    private static final LongAdder FALLBACKS = new LongAdder();
+
+    private GPath() {
+    }
+
+    public static CompiledPath compile(String expression) {
+        CompiledPath compilada = CACHE.get(expression);
+        if (compilada != null) {
+            ACERTOS.increment();
+            return compilada;
+        }
+        compilada = new CompiledPath(expression, caminhoRapido(expression));
+        COMPILACOES.increment();
+        CompiledPath corrida = CACHE.putIfAbsent(expression, compilada);
+        return corrida == null ? compilada : corrida;
+    }
+
+    public static Object evaluate(String expression, String body) {
+        return compile(expression).evaluate(body);
+    }
+
+    /** Acertos, compilações, classes Groovy geradas e avaliações que caíram para o Groovy. */
+    public static Map<String, Long> stats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("cacheHits", ACERTOS.sum());
+        stats.put("compilations", COMPILACOES.sum());
+        stats.put("groovyScripts", SCRIPTS_GERADOS.sum());
+        stats.put("runtimeFallbacks", FALLBACKS.sum());
+        stats.put("cached", (long) CACHE.size());
+        return stats;
+    }
+
+    static void contarScriptGerado() {
+        SCRIPTS_GERADOS.increment();
+    }
+
+    static void contarFallback() {
+        FALLBACKS.increment();
+    }
+
+    private static Expr caminhoRapido(String expression) {
+        try {
+            return PathParser.parse(expression);
+        } catch (UnsupportedPathException e) {
+            return null;
+        }
+    }
+}
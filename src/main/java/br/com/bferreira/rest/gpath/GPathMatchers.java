@@ -0,0 +1,52 @@
+package br.com.bferreira.rest.gpath;
+
+import org.hamcrest.BaseMatcher;
+import org.hamcrest.Description;
+import org.hamcrest.Matcher;
+
+/**
+ * Matchers para usar no {@code body(Matcher)} do RestAssured avaliando o path pelo
+ * {@link GPath} compilado em vez do JsonPath/XmlPath (que reinterpretam o Groovy a cada
+ * assertiva). Todas as assertivas de uma resposta reaproveitam o mesmo parse do corpo.
+ */
+public final class GPathMatchers {
+
+    private GPathMatchers() {
+    }
+
+    public static Matcher<Object> gpath(String path, Matcher<?> matcher) {
+        return new GPathMatcher(GPath.compile(path), matcher);
+    }
+
+    private static final class GPathMatcher extends BaseMatcher<Object> {
+
+        private final CompiledPath path;
+        private final Matcher<?> matcher;
+
+        private GPathMatcher(CompiledPath path, Matcher<?> matcher) {
+            this.path = path;
+            this.matcher = matcher;
+        }
+
+        @Override
+        public boolean matches(Object item) {
+            return item instanceof String && matcher.matches(path.evaluate((String) item));
+        }
+
+        @Override
+        public void describeTo(Description description) {
+            description.appendText("GPath ").appendValue(path.expression()).appendText(" ").appendDescriptionOf(matcher);
+        }
+
+        @Override
+        public void describeMismatch(Object item, Description description) {
+            if (!(item instanceof String)) {
+                description.appendText("corpo não é texto: ").appendValue(item);
+                return;
+            }
+            Object valor = path.evaluate((String) item);
+            description.appendText("GPath ").appendValue(path.expression()).appendText(" ");
+            matcher.describeMismatch(valor, description);
+        }
+    }
+}
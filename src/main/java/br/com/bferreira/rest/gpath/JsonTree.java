@@ -0,0 +1,94 @@
+package br.com.bferreira.rest.gpath;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Converte JSON em Map/List/valores simples com o {@link JsonReader} do Gson, usando os
+ * mesmos tipos numéricos do JsonPath do RestAssured (FLOAT_AND_DOUBLE): inteiros viram
+ * Integer/Long/BigInteger e decimais viram Float quando cabem, senão Double.
+ */
+public final class JsonTree {
+
+    private JsonTree() {
+    }
+
+    public static Object parse(String json) {
+        return parse(new StringReader(json));
+    }
+
+    public static Object parse(Reader json) {
+        try (JsonReader leitor = new JsonReader(json)) {
+            leitor.setLenient(true);
+            Object valor = ler(leitor);
+            if (leitor.peek() != JsonToken.END_DOCUMENT) {
+                throw new IllegalArgumentException("JSON com conteúdo após o fim do documento");
+            }
+            return valor;
+        } catch (IOException e) {
+            throw new IllegalArgumentException("JSON inválido", e);
+        }
+    }
+
+    /** Lê o próximo valor do leitor (um objeto, uma lista ou um valor simples) inteiro. */
+    static Object ler(JsonReader leitor) throws IOException {
+        switch (leitor.peek()) {
+            case BEGIN_OBJECT:
+                Map<String, Object> objeto = new LinkedHashMap<>();
+                leitor.beginObject();
+                while (leitor.hasNext()) {
+                    String nome = leitor.nextName();
+                    objeto.put(nome, ler(leitor));
+                }
+                leitor.endObject();
+                return objeto;
+            case BEGIN_ARRAY:
+                List<Object> lista = new ArrayList<>();
+                leitor.beginArray();
+                while (leitor.hasNext()) {
+                    lista.add(ler(leitor));
+                }
+                leitor.endArray();
+                return lista;
+            case STRING:
+                return leitor.nextString();
+            case NUMBER:
+                return number(leitor.nextString());
+            case BOOLEAN:
+                return leitor.nextBoolean();
+            case NULL:
+                leitor.nextNull();
+                return null;
+            default:
+                throw new IllegalArgumentException("Token inesperado: " + leitor.peek());
+        }
+    }
+
+    /** Mesmo critério do JsonPath do RestAssured para o tipo do número. */
+    public static Number number(String literal) {
+        boolean decimal = literal.indexOf('.') >= 0 || literal.indexOf('e') >= 0 || literal.indexOf('E') >= 0;
+        if (!decimal) {
+            BigInteger inteiro = new BigInteger(literal);
+            if (inteiro.bitLength() < 32) {
+                return inteiro.intValue();
+            }
+            return inteiro.bitLength() < 64 ? (Number) inteiro.longValue() : inteiro;
+        }
+        BigDecimal valor = new BigDecimal(literal);
+        float comoFloat = valor.floatValue();
+        if (!Float.isInfinite(comoFloat) && (comoFloat != 0f || valor.signum() == 0)) {
+            return comoFloat;
+        }
+        return valor.doubleValue();
+    }
+}
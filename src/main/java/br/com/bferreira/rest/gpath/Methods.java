@@ -0,0 +1,229 @@
+package br.com.bferreira.rest.gpath;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Métodos sem closure aceitos no caminho rápido: os agregados de coleção do Groovy
+ * (size, sum, min, max, toArray...) e os métodos de String/Number mais usados nas
+ * closures dos testes (contains, startsWith, toUpperCase, toInteger...).
+ */
+final class Methods {
+
+    private static final Set<String> AGREGADOS_DE_NOS = new HashSet<>(Arrays.asList(
+            "size", "isEmpty", "contains", "first", "last", "toArray", "join", "sum", "min", "max", "flatten"));
+
+    private Methods() {
+    }
+
+    static Object invoke(Object alvo, String nome, List<Object> args) {
+        if (alvo instanceof Collection) {
+            return colecao((Collection<?>) alvo, nome, args);
+        }
+        if (alvo instanceof Map && "size".equals(nome) && args.isEmpty()) {
+            return ((Map<?, ?>) alvo).size();
+        }
+        Object valor = Arithmetic.simples(alvo);
+        if (valor instanceof String) {
+            return texto((String) valor, nome, args);
+        }
+        if (valor instanceof Number) {
+            return numero((Number) valor, nome, args);
+        }
+        if (valor != null && "toString".equals(nome) && args.isEmpty()) {
+            return valor.toString();
+        }
+        throw naoSuportado(valor, nome);
+    }
+
+    private static Object colecao(Collection<?> colecao, String nome, List<Object> args) {
+        if (colecao instanceof Nodes && !AGREGADOS_DE_NOS.contains(nome)) {
+            //no GPath, size(), sum() etc. agem sobre os nós e o resto (toString, toInteger...) sobre o texto
+            return invoke(((Nodes) colecao).text(), nome, args);
+        }
+        switch (nome + "/" + args.size()) {
+            case "size/0":
+                return colecao.size();
+            case "isEmpty/0":
+                return colecao.isEmpty();
+            case "contains/1":
+                for (Object item : colecao) {
+                    if (Arithmetic.equal(item, args.get(0))) {
+                        return true;
+                    }
+                }
+                return false;
+            case "first/0":
+                return colecao.isEmpty() ? null : item(colecao, 0);
+            case "last/0":
+                return colecao.isEmpty() ? null : item(colecao, colecao.size() - 1);
+            case "toArray/0":
+                Object[] array = new Object[colecao.size()];
+                int i = 0;
+                for (Object item : colecao) {
+                    array[i++] = valor(item);
+                }
+                return array;
+            case "join/1":
+                StringBuilder juntos = new StringBuilder();
+                for (Object item : colecao) {
+                    if (juntos.length() > 0) {
+                        juntos.append(args.get(0));
+                    }
+                    juntos.append(valor(item));
+                }
+                return juntos.toString();
+            case "sum/0":
+                Object soma = null;
+                for (Object item : colecao) {
+                    if (item == null) {
+                        throw new UnsupportedPathException("sum() com null");
+                    }
+                    soma = soma == null ? valor(item) : Arithmetic.plus(soma, item);
+                }
+                return soma;
+            case "min/0":
+            case "max/0":
+                boolean min = nome.startsWith("min");
+                Object escolhido = null;
+                for (Object item : colecao) {
+                    Object atual = valor(item);
+                    if (atual == null) {
+                        continue;//como no Groovy, nulls são ignorados por min() e max()
+                    }
+                    int comparacao = escolhido == null ? 0 : Arithmetic.compare(atual, escolhido);
+                    if (escolhido == null || (min ? comparacao < 0 : comparacao > 0)) {
+                        escolhido = atual;
+                    }
+                }
+                return escolhido;
+            case "flatten/0":
+                List<Object> plana = new ArrayList<>();
+                achatar(colecao, plana);
+                return plana;
+            case "toString/0":
+                return colecao.toString();
+            default:
+                throw naoSuportado(colecao, nome);
+        }
+    }
+
+    private static Object texto(String texto, String nome, List<Object> args) {
+        switch (nome + "/" + args.size()) {
+            case "length/0":
+            case "size/0":
+                return texto.length();
+            case "toString/0":
+                return texto;
+            case "toUpperCase/0":
+                return texto.toUpperCase();
+            case "toLowerCase/0":
+                return texto.toLowerCase();
+            case "trim/0":
+                return texto.trim();
+            case "isEmpty/0":
+                return texto.isEmpty();
+            case "contains/1":
+                return texto.contains(String.valueOf(Arithmetic.simples(args.get(0))));
+            case "startsWith/1":
+                return texto.startsWith(String.valueOf(Arithmetic.simples(args.get(0))));
+            case "endsWith/1":
+                return texto.endsWith(String.valueOf(Arithmetic.simples(args.get(0))));
+            case "equals/1":
+                return texto.equals(Arithmetic.simples(args.get(0)));
+            case "equalsIgnoreCase/1":
+                return texto.equalsIgnoreCase(String.valueOf(Arithmetic.simples(args.get(0))));
+            case "indexOf/1":
+                return texto.indexOf(String.valueOf(Arithmetic.simples(args.get(0))));
+            case "substring/1":
+                return texto.substring(Arithmetic.numero(args.get(0)).intValue());
+            case "substring/2":
+                return texto.substring(Arithmetic.numero(args.get(0)).intValue(), Arithmetic.numero(args.get(1)).intValue());
+            case "replace/2":
+                return texto.replace(String.valueOf(args.get(0)), String.valueOf(args.get(1)));
+            case "toInteger/0":
+                return Integer.valueOf(texto.trim());
+            case "toLong/0":
+                return Long.valueOf(texto.trim());
+            case "toDouble/0":
+                return Double.valueOf(texto.trim());
+            case "toFloat/0":
+                return Float.valueOf(texto.trim());
+            case "toBigDecimal/0":
+                return new BigDecimal(texto.trim());
+            case "isNumber/0":
+                try {
+                    new BigDecimal(texto.trim());
+                    return true;
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+            default:
+                throw naoSuportado(texto, nome);
+        }
+    }
+
+    private static Object numero(Number numero, String nome, List<Object> args) {
+        switch (nome + "/" + args.size()) {
+            case "toInteger/0":
+            case "intValue/0":
+                return numero.intValue();
+            case "toLong/0":
+            case "longValue/0":
+                return numero.longValue();
+            case "toDouble/0":
+            case "doubleValue/0":
+                return numero.doubleValue();
+            case "toFloat/0":
+            case "floatValue/0":
+                return numero.floatValue();
+            case "toBigDecimal/0":
+                return new BigDecimal(numero.toString());
+            case "toString/0":
+                return numero.toString();
+            case "abs/0":
+                return Arithmetic.compareNumbers(numero, 0) < 0 ? Arithmetic.negate(numero) : numero;
+            default:
+                throw naoSuportado(numero, nome);
+        }
+    }
+
+    private static Object item(Collection<?> colecao, int indice) {
+        if (colecao instanceof List) {
+            return valor(((List<?>) colecao).get(indice));
+        }
+        int i = 0;
+        for (Object item : colecao) {
+            if (i++ == indice) {
+                return valor(item);
+            }
+        }
+        return null;
+    }
+
+    private static void achatar(Collection<?> colecao, List<Object> destino) {
+        for (Object item : colecao) {
+            if (item instanceof Collection) {
+                achatar((Collection<?>) item, destino);
+            } else {
+                destino.add(item);
+            }
+        }
+    }
+
+    /** Itens de um conjunto de nós XML viram texto; o resto fica como está. */
+    private static Object valor(Object item) {
+        return item instanceof XmlNode ? ((XmlNode) item).text() : item;
+    }
+
+    private static UnsupportedPathException naoSuportado(Object alvo, String nome) {
+        return new UnsupportedPathException("Método '" + nome + "' não suportado em "
+                + (alvo == null ? "null" : alvo.getClass().getSimpleName()));
+    }
+}
@@ -0,0 +1,58 @@
+package br.com.bferreira.rest.gpath;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Conjunto de elementos XML resultante de uma navegação, no papel do NodeChildren do
+ * GPath: navegar num conjunto junta os filhos de todos os elementos numa lista só.
+ */
+final class Nodes extends AbstractList<XmlNode> {
+
+    private final List<XmlNode> nodes;
+
+    Nodes(List<XmlNode> nodes) {
+        this.nodes = nodes;
+    }
+
+    static Nodes of(XmlNode node) {
+        List<XmlNode> um = new ArrayList<>(1);
+        um.add(node);
+        return new Nodes(um);
+    }
+
+    Nodes children(String nome) {
+        List<XmlNode> filhos = new ArrayList<>();
+        for (XmlNode node : nodes) {
+            node.children(nome, filhos);
+        }
+        return new Nodes(filhos);
+    }
+
+    String text() {
+        if (nodes.size() == 1) {
+            return nodes.get(0).text();
+        }
+        StringBuilder texto = new StringBuilder();
+        for (XmlNode node : nodes) {
+            texto.append(node.text());
+        }
+        return texto.toString();
+    }
+
+    @Override
+    public XmlNode get(int index) {
+        return nodes.get(index);
+    }
+
+    @Override
+    public int size() {
+        return nodes.size();
+    }
+
+    @Override
+    public String toString() {
+        return text();
+    }
+}
@@ -0,0 +1,122 @@
+package br.com.bferreira.rest.gpath;
+
+import groovy.xml.XmlSlurper;
+import groovy.xml.slurpersupport.GPathResult;
+import org.w3c.dom.Document;
+import org.xml.sax.InputSource;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.StringReader;
+
+/**
+ * Corpo de uma resposta com o parse feito uma única vez e sob demanda: a árvore do
+ * caminho rápido (Map/List para JSON, {@link XmlNode} para XML) e, só se alguma
+ * expressão precisar do Groovy, o GPathResult do XmlSlurper; para XPath, o DOM.
+ * Não é thread-safe: cada thread tem o seu (ver {@link #cached(String)}).
+ */
+public final class ParsedBody {
+
+    private static final ThreadLocal<ParsedBody> ULTIMO = new ThreadLocal<>();
+    private static final ThreadLocal<long[]> DOCUMENTOS = ThreadLocal.withInitial(() -> new long[1]);
+    private static final ThreadLocal<DocumentBuilderFactory> FABRICA_DOM = ThreadLocal.withInitial(ParsedBody::fabricaDom);
+
+    private final String body;
+    private final boolean xml;
+    private Object tree;
+    private GPathResult slurped;
+    private Document document;
+
+    private ParsedBody(String body) {
+        this.body = body;
+        this.xml = comecaCom(body, '<');
+    }
+
+    public static ParsedBody of(String body) {
+        return new ParsedBody(body);
+    }
+
+    /**
+     * Reaproveita o último corpo analisado nesta thread quando o conteúdo é o mesmo. O
+     * RestAssured entrega uma String nova a cada {@code body(matcher)} da mesma resposta,
+     * então comparar o conteúdo evita refazer o parse em cada assertiva.
+     */
+    public static ParsedBody cached(String body) {
+        ParsedBody ultimo = ULTIMO.get();
+        if (ultimo != null && (ultimo.body == body || ultimo.body.equals(body))) {
+            return ultimo;
+        }
+        ParsedBody novo = new ParsedBody(body);
+        ULTIMO.set(novo);
+        return novo;
+    }
+
+    public String body() {
+        return body;
+    }
+
+    public boolean isXml() {
+        return xml;
+    }
+
+    /** Árvore do caminho rápido. Para XML, é o nó documento (ver {@link XmlNode#parseDocument}). */
+    public Object tree() {
+        if (tree == null) {
+            tree = xml ? XmlNode.parseDocument(body) : JsonTree.parse(body);
+        }
+        return tree;
+    }
+
+    /** DOM do corpo, montado uma vez e compartilhado por todos os matchers de XPath da resposta. */
+    public Document document() {
+        if (document == null) {
+            try {
+                document = FABRICA_DOM.get().newDocumentBuilder().parse(new InputSource(new StringReader(body)));
+                DOCUMENTOS.get()[0]++;
+            } catch (Exception e) {
+                throw new IllegalArgumentException("XML inválido", e);
+            }
+        }
+        return document;
+    }
+
+    /** DOMs montados nesta thread até agora (por thread, porque os testes rodam em paralelo). */
+    public static long documentsParsed() {
+        return DOCUMENTOS.get()[0];
+    }
+
+    GPathResult slurped() {
+        if (slurped == null) {
+            try {
+                XmlSlurper slurper = new XmlSlurper();
+                slurper.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+                slurped = slurper.parseText(body);
+            } catch (Exception e) {
+                throw new IllegalArgumentException("XML inválido", e);
+            }
+        }
+        return slurped;
+    }
+
+    private static DocumentBuilderFactory fabricaDom() {
+        try {
+            DocumentBuilderFactory fabrica = DocumentBuilderFactory.newInstance();
+            fabrica.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            //DOM expandido na hora do parse: as avaliações de XPath não pagam a expansão tardia dos nós
+            fabrica.setFeature("http://apache.org/xml/features/dom/defer-node-expansion", false);
+            return fabrica;
+        } catch (ParserConfigurationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static boolean comecaCom(String texto, char c) {
+        for (int i = 0; i < texto.length(); i++) {
+            char atual = texto.charAt(i);
+            if (!Character.isWhitespace(atual) && atual != '\uFEFF') {
+                return atual == c;
+            }
+        }
+        return false;
+    }
+}
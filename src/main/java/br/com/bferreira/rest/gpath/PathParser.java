@@ -0,0 +1,315 @@
+package br.com.bferreira.rest.gpath;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Parser descendente recursivo do subconjunto de GPath usado nos testes: navegação,
+ * {@code @atributo}, índices (inclusive negativos), chamadas de método e closures com
+ * {@code it}, literais, aritmética, comparações e {@code && || !}.
+ * Qualquer outra coisa gera {@link UnsupportedPathException}.
+ */
+final class PathParser {
+
+    private final String texto;
+    private int pos;
+
+    private PathParser(String texto) {
+        this.texto = texto;
+    }
+
+    static Expr parse(String path) {
+        PathParser parser = new PathParser(path);
+        Expr expr = parser.caminho();
+        parser.espacos();
+        if (parser.pos != parser.texto.length()) {
+            throw parser.naoSuportado();
+        }
+        return expr;
+    }
+
+    private Expr caminho() {
+        espacos();
+        Expr raiz = new Expr.Root();
+        if (fim()) {
+            return raiz;
+        }
+        Expr expr;
+        if (aceitar("$")) {
+            expr = raiz;
+        } else {
+            expr = membro(raiz);
+        }
+        return posfixo(expr);
+    }
+
+    /** Corpo de uma closure: {@code it.age <= 25 && it.age > 20}. */
+    private Expr expressao() {
+        Expr esquerda = and();
+        while (aceitar("||")) {
+            esquerda = new Expr.Binary("||", esquerda, and());
+        }
+        return esquerda;
+    }
+
+    private Expr and() {
+        Expr esquerda = igualdade();
+        while (aceitar("&&")) {
+            esquerda = new Expr.Binary("&&", esquerda, igualdade());
+        }
+        return esquerda;
+    }
+
+    private Expr igualdade() {
+        Expr esquerda = relacional();
+        while (true) {
+            if (aceitar("==")) {
+                esquerda = new Expr.Binary("==", esquerda, relacional());
+            } else if (aceitar("!=")) {
+                esquerda = new Expr.Binary("!=", esquerda, relacional());
+            } else {
+                return esquerda;
+            }
+        }
+    }
+
+    private Expr relacional() {
+        Expr esquerda = aditiva();
+        while (true) {
+            if (aceitar("<=")) {
+                esquerda = new Expr.Binary("<=", esquerda, aditiva());
+            } else if (aceitar(">=")) {
+                esquerda = new Expr.Binary(">=", esquerda, aditiva());
+            } else if (aceitar("<")) {
+                esquerda = new Expr.Binary("<", esquerda, aditiva());
+            } else if (aceitar(">")) {
+                esquerda = new Expr.Binary(">", esquerda, aditiva());
+            } else {
+                return esquerda;
+            }
+        }
+    }
+
+    private Expr aditiva() {
+        Expr esquerda = multiplicativa();
+        while (true) {
+            if (aceitar("+")) {
+                esquerda = new Expr.Binary("+", esquerda, multiplicativa());
+            } else if (olhar('-') && !olhar("->")) {
+                pos++;
+                esquerda = new Expr.Binary("-", esquerda, multiplicativa());
+            } else {
+                return esquerda;
+            }
+        }
+    }
+
+    private Expr multiplicativa() {
+        Expr esquerda = unaria();
+        while (true) {
+            if (aceitar("*")) {
+                esquerda = new Expr.Binary("*", esquerda, unaria());
+            } else if (aceitar("/")) {
+                esquerda = new Expr.Binary("/", esquerda, unaria());
+            } else if (aceitar("%")) {
+                esquerda = new Expr.Binary("%", esquerda, unaria());
+            } else {
+                return esquerda;
+            }
+        }
+    }
+
+    private Expr unaria() {
+        if (aceitar("!")) {
+            return new Expr.Unary("!", unaria());
+        }
+        if (aceitar("-")) {
+            return new Expr.Unary("-", unaria());
+        }
+        return posfixo(primaria());
+    }
+
+    private Expr primaria() {
+        espacos();
+        if (fim()) {
+            throw naoSuportado();
+        }
+        char c = texto.charAt(pos);
+        if (c == '(') {
+            pos++;
+            Expr dentro = expressao();
+            esperar(")");
+            return dentro;
+        }
+        if (c == '\'' || c == '"') {
+            return new Expr.Literal(string());
+        }
+        if (Character.isDigit(c)) {
+            return new Expr.Literal(numero());
+        }
+        String nome = identificador();
+        switch (nome) {
+            case "it":
+                return new Expr.It();
+            case "null":
+                return new Expr.Literal(null);
+            case "true":
+                return new Expr.Literal(Boolean.TRUE);
+            case "false":
+                return new Expr.Literal(Boolean.FALSE);
+            default:
+                //variáveis soltas, parâmetros nomeados (x -> ...) etc. ficam para o Groovy
+                throw naoSuportado();
+        }
+    }
+
+    private Expr posfixo(Expr alvo) {
+        while (true) {
+            espacos();
+            if (aceitar("[")) {
+                Expr indice = expressao();
+                esperar("]");
+                alvo = new Expr.Index(alvo, indice);
+            } else if (olhar('.') && !olhar("..")) {
+                pos++;
+                alvo = membro(alvo);
+            } else {
+                return alvo;
+            }
+        }
+    }
+
+    private Expr membro(Expr alvo) {
+        espacos();
+        if (aceitar("@")) {
+            return new Expr.Attribute(alvo, identificador());
+        }
+        String nome = olhar('\'') || olhar('"') ? string() : identificador();
+        espacos();
+        if (aceitar("(")) {
+            List<Expr> argumentos = new ArrayList<>();
+            espacos();
+            if (!aceitar(")")) {
+                do {
+                    argumentos.add(expressao());
+                } while (aceitar(","));
+                esperar(")");
+            }
+            espacos();
+            if (olhar('{')) {
+                throw naoSuportado();
+            }
+            return new Expr.Call(alvo, nome, argumentos, null);
+        }
+        if (aceitar("{")) {
+            espacos();
+            if (texto.indexOf("->", pos) >= 0 && texto.indexOf("->", pos) < texto.indexOf('}', pos)) {
+                throw naoSuportado();
+            }
+            Expr corpo = expressao();
+            esperar("}");
+            return new Expr.Call(alvo, nome, Collections.<Expr>emptyList(), corpo);
+        }
+        return new Expr.Property(alvo, nome);
+    }
+
+    private String identificador() {
+        espacos();
+        int inicio = pos;
+        while (!fim() && (Character.isLetterOrDigit(texto.charAt(pos)) || texto.charAt(pos) == '_')) {
+            pos++;
+        }
+        if (inicio == pos || Character.isDigit(texto.charAt(inicio))) {
+            throw naoSuportado();
+        }
+        return texto.substring(inicio, pos);
+    }
+
+    private String string() {
+        char aspas = texto.charAt(pos++);
+        StringBuilder valor = new StringBuilder();
+        while (!fim() && texto.charAt(pos) != aspas) {
+            char c = texto.charAt(pos++);
+            if (c == '\\' && !fim()) {
+                valor.append(texto.charAt(pos++));
+            } else if (c == '$' && aspas == '"') {
+                throw naoSuportado();//GString com interpolação
+            } else {
+                valor.append(c);
+            }
+        }
+        esperar(String.valueOf(aspas));
+        return valor.toString();
+    }
+
+    private Number numero() {
+        int inicio = pos;
+        while (!fim() && Character.isDigit(texto.charAt(pos))) {
+            pos++;
+        }
+        boolean decimal = false;
+        if (pos + 1 < texto.length() && texto.charAt(pos) == '.' && Character.isDigit(texto.charAt(pos + 1))) {
+            decimal = true;
+            pos++;
+            while (!fim() && Character.isDigit(texto.charAt(pos))) {
+                pos++;
+            }
+        }
+        String literal = texto.substring(inicio, pos);
+        if (!fim() && "dDfFlLgG".indexOf(texto.charAt(pos)) >= 0) {
+            char sufixo = Character.toLowerCase(texto.charAt(pos++));
+            switch (sufixo) {
+                case 'd': return Double.valueOf(literal);
+                case 'f': return Float.valueOf(literal);
+                case 'l': return Long.valueOf(literal);
+                default: return new BigDecimal(literal);
+            }
+        }
+        if (decimal) {
+            return new BigDecimal(literal);//no Groovy, 1.5 é BigDecimal
+        }
+        long valor = Long.parseLong(literal);
+        return valor <= Integer.MAX_VALUE ? (Number) (int) valor : (Number) valor;
+    }
+
+    private void espacos() {
+        while (!fim() && Character.isWhitespace(texto.charAt(pos))) {
+            pos++;
+        }
+    }
+
+    private boolean aceitar(String simbolo) {
+        espacos();
+        if (texto.startsWith(simbolo, pos)) {
+            pos += simbolo.length();
+            return true;
+        }
+        return false;
+    }
+
+    private void esperar(String simbolo) {
+        if (!aceitar(simbolo)) {
+            throw naoSuportado();
+        }
+    }
+
+    private boolean olhar(char c) {
+        espacos();
+        return !fim() && texto.charAt(pos) == c;
+    }
+
+    private boolean olhar(String simbolo) {
+        espacos();
+        return texto.startsWith(simbolo, pos);
+    }
+
+    private boolean fim() {
+        return pos >= texto.length();
+    }
+
+    private UnsupportedPathException naoSuportado() {
+        return new UnsupportedPathException("Fora do caminho rápido na posição " + pos + ": " + texto);
+    }
+}
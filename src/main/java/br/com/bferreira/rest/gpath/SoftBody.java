@@ -0,0 +1,141 @@
+package br.com.bferreira.rest.gpath;
+
+import org.hamcrest.BaseMatcher;
+import org.hamcrest.Description;
+import org.hamcrest.Matcher;
+import org.hamcrest.StringDescription;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Várias verificações de path sobre o corpo avaliadas juntas, num único {@code body(...)}:
+ * o corpo é analisado uma vez, as projeções comuns ({@code age} em {@code age.findAll{...}} e
+ * {@code age.collect{...}}) são calculadas uma vez para todas, e uma verificação que falha
+ * não interrompe as outras; a mensagem traz todas as falhas de uma vez.
+ *
+ * <pre>
+ * .then()
+ *     .body(soft()
+ *         .body("$", hasSize(3))
+ *         .body("age.findAll{it &lt;= 25}.size()", is(2))
+ *         .body("find{it.age &lt;= 25}.name", is("Maria Joaquina")))
+ * </pre>
+ *
+ * Expressões fora do caminho rápido do {@link GPath} caem para o Groovy, sem compartilhar
+ * projeções. Não é thread-safe enquanto está sendo montado; depois pode ser reaproveitado
+ * (num spec, por exemplo) entre respostas e threads.
+ */
+public final class SoftBody extends BaseMatcher<Object> {
+
+    private final List<CompiledPath> paths = new ArrayList<>();
+    private final List<Matcher<?>> matchers = new ArrayList<>();
+    private final ThreadLocal<Resultado> ultimo = new ThreadLocal<>();
+
+    private SoftBody() {
+    }
+
+    public static SoftBody soft() {
+        return new SoftBody();
+    }
+
+    /** Acrescenta uma verificação; o path segue a sintaxe do {@code body(path, matcher)} do RestAssured. */
+    public SoftBody body(String path, Matcher<?> matcher) {
+        paths.add(GPath.compile(path));
+        matchers.add(matcher);
+        return this;
+    }
+
+    public int size() {
+        return paths.size();
+    }
+
+    @Override
+    public boolean matches(Object item) {
+        return item instanceof String && avaliar((String) item).falhas.isEmpty();
+    }
+
+    /** Avalia todas as verificações sobre o corpo e devolve a descrição de cada uma que falhou (vazia se todas passaram). */
+    public List<String> failures(String body) {
+        return Collections.unmodifiableList(avaliar(body).falhas);
+    }
+
+    /**
+     * O {@code body(Matcher)} do RestAssured mostra só o {@code describeTo} e o corpo, sem o
+     * {@code describeMismatch}; por isso as falhas da última avaliação na thread vão aqui.
+     */
+    @Override
+    public void describeTo(Description description) {
+        description.appendText("corpo atendendo às " + paths.size() + " verificações");
+        Resultado anterior = ultimo.get();
+        if (anterior != null && !anterior.falhas.isEmpty()) {
+            description.appendText(", mas ");
+            listar(anterior.falhas, description);
+        }
+    }
+
+    @Override
+    public void describeMismatch(Object item, Description description) {
+        if (!(item instanceof String)) {
+            description.appendText("corpo não é texto: ").appendValue(item);
+            return;
+        }
+        listar(avaliar((String) item).falhas, description);
+    }
+
+    private void listar(List<String> falhas, Description description) {
+        description.appendText(falhas.size() + " de " + paths.size() + " verificações falharam:");
+        for (String falha : falhas) {
+            description.appendText("\n  ").appendText(falha);
+        }
+    }
+
+    //o RestAssured chama matches e depois describeTo (ou describeMismatch) com o mesmo corpo: não reavalia
+    private Resultado avaliar(String body) {
+        Resultado anterior = ultimo.get();
+        if (anterior != null && (anterior.body == body || anterior.body.equals(body))) {
+            return anterior;
+        }
+        ParsedBody corpo = ParsedBody.cached(body);
+        Map<String, Object> compartilhados = new HashMap<>();
+        List<String> falhas = new ArrayList<>();
+        for (int i = 0; i < paths.size(); i++) {
+            CompiledPath path = paths.get(i);
+            Matcher<?> matcher = matchers.get(i);
+            Object valor;
+            try {
+                valor = path.evaluate(corpo, compartilhados);
+            } catch (RuntimeException e) {
+                falhas.add(cabecalho(i, path) + "não pôde ser avaliado: " + e);
+                continue;
+            }
+            if (!matcher.matches(valor)) {
+                Description esperado = new StringDescription();
+                matcher.describeTo(esperado);
+                Description obtido = new StringDescription();
+                matcher.describeMismatch(valor, obtido);
+                falhas.add(cabecalho(i, path) + "esperado " + esperado + ", mas " + obtido);
+            }
+        }
+        Resultado resultado = new Resultado(body, falhas);
+        ultimo.set(resultado);
+        return resultado;
+    }
+
+    private static String cabecalho(int indice, CompiledPath path) {
+        return "[" + (indice + 1) + "] \"" + path.expression() + "\": ";
+    }
+
+    private static final class Resultado {
+        private final String body;
+        private final List<String> falhas;
+
+        private Resultado(String body, List<String> falhas) {
+            this.body = body;
+            this.falhas = falhas;
+        }
+    }
+}
@@ -0,0 +1,322 @@
+package br.com.bferreira.rest.gpath;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import io.restassured.response.Response;
+import org.hamcrest.Matcher;
+import org.hamcrest.StringDescription;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+import static org.hamcrest.Matchers.equalTo;
+
+/**
+ * Validação em streaming de respostas cuja raiz é uma lista, com o {@link JsonReader} do
+ * Gson: os itens são lidos um de cada vez, cada assertiva olha o item e ele é descartado.
+ * A memória fica limitada ao maior item mais os acumuladores (contagem, soma, mínimo,
+ * máximo, itens esperados ainda não vistos), qualquer que seja o tamanho da lista.
+ *
+ * <pre>
+ * StreamingJsonAssert.rootArray()
+ *     .size(is(3))
+ *     .hasItems("name", "João da Silva", "Maria Joaquina")
+ *     .count("age", lessThanOrEqualTo(25), is(2))
+ *     .sum("salary", closeTo(3734.5678, 0.001))
+ *     .validate(given().get("/users"));
+ * </pre>
+ * Os paths de cada assertiva são relativos ao item e aceitam o mesmo subconjunto do {@link GPath}.
+ * Todas as falhas são reunidas num único AssertionError no final da leitura.
+ */
+public final class StreamingJsonAssert {
+
+    private final List<Check> checks = new ArrayList<>();
+    private Matcher<? super Integer> tamanho;
+
+    private StreamingJsonAssert() {
+    }
+
+    public static StreamingJsonAssert rootArray() {
+        return new StreamingJsonAssert();
+    }
+
+    public StreamingJsonAssert size(Matcher<? super Integer> matcher) {
+        this.tamanho = matcher;
+        return this;
+    }
+
+    /** Todos os itens precisam atender o matcher. */
+    public StreamingJsonAssert every(String path, Matcher<?> matcher) {
+        checks.add(new Every(path, matcher));
+        return this;
+    }
+
+    /** Quantidade de itens cujo valor atende o {@code filtro}. */
+    public StreamingJsonAssert count(String path, Matcher<?> filtro, Matcher<? super Integer> matcher) {
+        checks.add(new Count(path, filtro, matcher));
+        return this;
+    }
+
+    /** Soma dos valores não nulos, com a promoção numérica do Groovy (como o {@code sum()} do GPath). */
+    public StreamingJsonAssert sum(String path, Matcher<?> matcher) {
+        checks.add(new Aggregate("sum", path, matcher));
+        return this;
+    }
+
+    public StreamingJsonAssert min(String path, Matcher<?> matcher) {
+        checks.add(new Aggregate("min", path, matcher));
+        return this;
+    }
+
+    public StreamingJsonAssert max(String path, Matcher<?> matcher) {
+        checks.add(new Aggregate("max", path, matcher));
+        return this;
+    }
+
+    public StreamingJsonAssert hasItem(String path, Object item) {
+        return hasItems(path, item);
+    }
+
+    /** Cada valor esperado (ou matcher) precisa aparecer em algum item, em qualquer ordem. */
+    public StreamingJsonAssert hasItems(String path, Object... itens) {
+        checks.add(new HasItems(path, itens));
+        return this;
+    }
+
+    /** Os valores, na ordem, precisam ser exatamente estes (como o {@code contains} do Hamcrest). */
+    public StreamingJsonAssert contains(String path, Object... itens) {
+        checks.add(new Contains(path, itens));
+        return this;
+    }
+
+    public int validate(Response response) {
+        return validate(response.asInputStream());
+    }
+
+    /** Lê a lista inteira numa única passada e devolve a quantidade de itens. */
+    public int validate(InputStream json) {
+        return validate(new InputStreamReader(json, StandardCharsets.UTF_8));
+    }
+
+    public int validate(Reader json) {
+        int indice = 0;
+        try (JsonReader leitor = new JsonReader(json)) {
+            leitor.setLenient(true);
+            if (leitor.peek() != JsonToken.BEGIN_ARRAY) {
+                throw new AssertionError("Esperava uma lista na raiz do JSON, mas veio " + leitor.peek());
+            }
+            leitor.beginArray();
+            while (leitor.hasNext()) {
+                Object item = JsonTree.ler(leitor);
+                for (Check check : checks) {
+                    check.accept(indice, item);
+                }
+                indice++;
+            }
+            leitor.endArray();
+        } catch (IOException e) {
+            throw new IllegalArgumentException("JSON inválido", e);
+        }
+
+        List<String> falhas = new ArrayList<>();
+        if (tamanho != null && !tamanho.matches(indice)) {
+            falhas.add("Tamanho da lista: esperado " + StringDescription.toString(tamanho) + ", mas foi " + indice);
+        }
+        for (Check check : checks) {
+            check.finish(indice, falhas);
+        }
+        if (!falhas.isEmpty()) {
+            throw new AssertionError(falhas.size() + " falha(s) na validação em streaming:\n" + String.join("\n", falhas));
+        }
+        return indice;
+    }
+
+    private abstract static class Check {
+        final String path;
+        private final CompiledPath compilado;
+
+        Check(String path) {
+            this.path = path;
+            this.compilado = GPath.compile(path);
+        }
+
+        /** Item sem o campo (ex.: {@code filhos.name} num usuário sem filhos) vale null. */
+        Object valor(Object item) {
+            return compilado.evaluateTree(item);
+        }
+
+        abstract void accept(int indice, Object item);
+
+        abstract void finish(int tamanho, List<String> falhas);
+    }
+
+    private static final class Every extends Check {
+        private final Matcher<?> matcher;
+        private int falhas;
+        private String primeira;
+
+        Every(String path, Matcher<?> matcher) {
+            super(path);
+            this.matcher = matcher;
+        }
+
+        @Override
+        void accept(int indice, Object item) {
+            Object valor = valor(item);
+            if (!matcher.matches(valor)) {
+                if (falhas++ == 0) {
+                    primeira = "[" + indice + "] = " + valor;
+                }
+            }
+        }
+
+        @Override
+        void finish(int tamanho, List<String> erros) {
+            if (falhas > 0) {
+                erros.add("Todos os \"" + path + "\": esperado " + StringDescription.toString(matcher)
+                        + ", mas " + falhas + " item(ns) falharam, o primeiro " + primeira);
+            }
+        }
+    }
+
+    private static final class Count extends Check {
+        private final Matcher<?> filtro;
+        private final Matcher<? super Integer> matcher;
+        private int total;
+
+        Count(String path, Matcher<?> filtro, Matcher<? super Integer> matcher) {
+            super(path);
+            this.filtro = filtro;
+            this.matcher = matcher;
+        }
+
+        @Override
+        void accept(int indice, Object item) {
+            if (filtro.matches(valor(item))) {
+                total++;
+            }
+        }
+
+        @Override
+        void finish(int tamanho, List<String> erros) {
+            if (!matcher.matches(total)) {
+                erros.add("Quantidade de \"" + path + "\" " + StringDescription.toString(filtro) + ": esperado "
+                        + StringDescription.toString(matcher) + ", mas foi " + total);
+            }
+        }
+    }
+
+    private static final class Aggregate extends Check {
+        private final String funcao;
+        private final Matcher<?> matcher;
+        private Object acumulado;
+
+        Aggregate(String funcao, String path, Matcher<?> matcher) {
+            super(path);
+            this.funcao = funcao;
+            this.matcher = matcher;
+        }
+
+        @Override
+        void accept(int indice, Object item) {
+            Object valor = valor(item);
+            if (valor == null) {
+                return;
+            }
+            if (acumulado == null) {
+                acumulado = valor;
+            } else if ("sum".equals(funcao)) {
+                acumulado = Arithmetic.plus(acumulado, valor);
+            } else {
+                int comparacao = Arithmetic.compare(valor, acumulado);
+                if ("min".equals(funcao) ? comparacao < 0 : comparacao > 0) {
+                    acumulado = valor;
+                }
+            }
+        }
+
+        @Override
+        void finish(int tamanho, List<String> erros) {
+            if (!matcher.matches(acumulado)) {
+                erros.add(funcao + "(\"" + path + "\"): esperado " + StringDescription.toString(matcher)
+                        + ", mas foi " + acumulado);
+            }
+        }
+    }
+
+    private static final class HasItems extends Check {
+        private final Set<Matcher<?>> faltando = new LinkedHashSet<>();
+
+        HasItems(String path, Object[] itens) {
+            super(path);
+            for (Object item : itens) {
+                faltando.add(item instanceof Matcher ? (Matcher<?>) item : equalTo(item));
+            }
+        }
+
+        @Override
+        void accept(int indice, Object item) {
+            if (!faltando.isEmpty()) {
+                Object valor = valor(item);
+                faltando.removeIf(esperado -> esperado.matches(valor));
+            }
+        }
+
+        @Override
+        void finish(int tamanho, List<String> erros) {
+            if (!faltando.isEmpty()) {
+                List<String> descricoes = new ArrayList<>();
+                for (Matcher<?> esperado : faltando) {
+                    descricoes.add(StringDescription.toString(esperado));
+                }
+                erros.add("\"" + path + "\" sem os itens " + descricoes);
+            }
+        }
+    }
+
+    private static final class Contains extends Check {
+        private final List<Object> esperados;
+        private String falha;
+
+        Contains(String path, Object[] itens) {
+            super(path);
+            this.esperados = Arrays.asList(itens);
+        }
+
+        @Override
+        void accept(int indice, Object item) {
+            if (falha != null) {
+                return;
+            }
+            Object valor = valor(item);
+            if (indice >= esperados.size()) {
+                falha = "item a mais na posição " + indice + ": " + valor;
+                return;
+            }
+            Object esperado = esperados.get(indice);
+            boolean ok = esperado instanceof Matcher ? ((Matcher<?>) esperado).matches(valor) : Objects.equals(esperado, valor);
+            if (!ok) {
+                falha = "na posição " + indice + " esperado " + esperado + ", mas foi " + valor;
+            }
+        }
+
+        @Override
+        void finish(int tamanho, List<String> erros) {
+            if (falha == null && tamanho < esperados.size()) {
+                falha = "faltou o item " + esperados.get(tamanho) + " na posição " + tamanho;
+            }
+            if (falha != null) {
+                erros.add("\"" + path + "\" contains " + esperados + ": " + falha);
+            }
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package br.com.bferreira.rest.gpath;
+
+import io.restassured.response.Response;
+import org.hamcrest.Matcher;
+import org.hamcrest.StringDescription;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Validação em streaming de XML com StAX: todas as assertivas são avaliadas numa única
+ * leitura do corpo, montando só um registro de cada vez (o elemento no fim do prefixo do
+ * path, como o {@code user} de {@code users.user.findAll{...}.size()}). Elementos fora dos
+ * prefixos são pulados sem serem montados, e a leitura para assim que todas as
+ * assertivas já têm resultado (ex.: {@code find{}}).
+ *
+ * <pre>
+ * StreamingXmlAssert.document()
+ *     .body("users.user.size()", is(3))
+ *     .body("users.user.findAll{it.age.toInteger() &lt;= 25}.size()", is(2))
+ *     .body("users.user.@id", hasItems("1", "2", "3"))
+ *     .validate(given().get("/usersXML"));
+ * </pre>
+ * Aceita o subconjunto do {@link GPath} que pode ser espalhado por registro: elementos,
+ * {@code @atributos}, {@code findAll{}}, {@code collect{}} e, no fim, {@code size},
+ * {@code count{}}, {@code sum()}, {@code min()}, {@code max()}, {@code any{}}, {@code every{}},
+ * {@code find{}} ou um índice. Outros paths lançam IllegalArgumentException já no {@code body}.
+ */
+public final class StreamingXmlAssert {
+
+    private final Map<StreamingXmlPath, Matcher<?>> assertivas = new LinkedHashMap<>();
+
+    private StreamingXmlAssert() {
+    }
+
+    public static StreamingXmlAssert document() {
+        return new StreamingXmlAssert();
+    }
+
+    public StreamingXmlAssert body(String path, Matcher<?> matcher) {
+        assertivas.put(new StreamingXmlPath(path), matcher);
+        return this;
+    }
+
+    public Throughput validate(Response response) {
+        try (InputStream corpo = response.asInputStream()) {
+            return validate(corpo);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** Lê o XML uma vez, confere todas as assertivas e devolve a vazão da leitura. */
+    public Throughput validate(InputStream xml) {
+        ContadorDeBytes contador = new ContadorDeBytes(xml);
+        long inicio = System.nanoTime();
+        try {
+            ler(XmlNode.leitor(contador));
+        } catch (XMLStreamException e) {
+            throw new IllegalArgumentException("XML inválido", e);
+        }
+        Throughput vazao = new Throughput(contador.lidos, System.nanoTime() - inicio);
+
+        List<String> falhas = new ArrayList<>();
+        for (Map.Entry<StreamingXmlPath, Matcher<?>> assertiva : assertivas.entrySet()) {
+            Object valor = assertiva.getKey().resultado();
+            if (!assertiva.getValue().matches(valor)) {
+                falhas.add("\"" + assertiva.getKey().expression() + "\": esperado "
+                        + StringDescription.toString(assertiva.getValue()) + ", mas foi " + valor);
+            }
+        }
+        if (!falhas.isEmpty()) {
+            throw new AssertionError(falhas.size() + " falha(s) na validação em streaming:\n" + String.join("\n", falhas));
+        }
+        return vazao;
+    }
+
+    private void ler(XMLStreamReader leitor) throws XMLStreamException {
+        List<String> caminho = new ArrayList<>();
+        try {
+            while (leitor.hasNext() && !todasConcluidas()) {
+                int evento = leitor.next();
+                if (evento == XMLStreamReader.END_ELEMENT) {
+                    caminho.remove(caminho.size() - 1);
+                    continue;
+                }
+                if (evento != XMLStreamReader.START_ELEMENT) {
+                    continue;
+                }
+                caminho.add(leitor.getLocalName());
+                boolean relevante = false;
+                boolean registro = false;
+                for (StreamingXmlPath path : assertivas.keySet()) {
+                    if (!path.concluido() && comecaCom(path.prefixo(), caminho)) {
+                        relevante = true;
+                        registro |= path.prefixo().size() == caminho.size();
+                    }
+                }
+                if (registro) {
+                    entregar(XmlNode.ler(leitor), caminho);
+                    caminho.remove(caminho.size() - 1);
+                } else if (!relevante) {
+                    pular(leitor);
+                    caminho.remove(caminho.size() - 1);
+                }
+            }
+        } finally {
+            leitor.close();
+        }
+    }
+
+    /** Entrega o registro a cada path cujo prefixo passa por ele (os mais longos recebem os descendentes). */
+    private void entregar(XmlNode registro, List<String> caminho) {
+        for (StreamingXmlPath path : assertivas.keySet()) {
+            if (path.concluido() || !comecaCom(path.prefixo(), caminho)) {
+                continue;
+            }
+            Nodes nodes = Nodes.of(registro);
+            for (String nome : path.prefixo().subList(caminho.size(), path.prefixo().size())) {
+                nodes = nodes.children(nome);
+            }
+            for (XmlNode node : nodes) {
+                path.aceitar(node);
+            }
+        }
+    }
+
+    private boolean todasConcluidas() {
+        for (StreamingXmlPath path : assertivas.keySet()) {
+            if (!path.concluido()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean comecaCom(List<String> prefixo, List<String> caminho) {
+        return prefixo.size() >= caminho.size() && prefixo.subList(0, caminho.size()).equals(caminho);
+    }
+
+    /** Avança até o fim do elemento atual sem montar nada. */
+    private static void pular(XMLStreamReader leitor) throws XMLStreamException {
+        int profundidade = 1;
+        while (profundidade > 0) {
+            int evento = leitor.next();
+            if (evento == XMLStreamReader.START_ELEMENT) {
+                profundidade++;
+            } else if (evento == XMLStreamReader.END_ELEMENT) {
+                profundidade--;
+            }
+        }
+    }
+
+    /** Bytes lidos e tempo da leitura em streaming. */
+    public static final class Throughput {
+        private final long bytes;
+        private final long nanos;
+
+        Throughput(long bytes, long nanos) {
+            this.bytes = bytes;
+            this.nanos = nanos;
+        }
+
+        public long bytes() {
+            return bytes;
+        }
+
+        public long nanos() {
+            return nanos;
+        }
+
+        public double megabytesPerSecond() {
+            return nanos == 0 ? 0 : (bytes / (1024.0 * 1024.0)) / (nanos / 1e9);
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%.2f MB em %.1f ms (%.1f MB/s)",
+                    bytes / (1024.0 * 1024.0), nanos / 1e6, megabytesPerSecond());
+        }
+    }
+
+    private static final class ContadorDeBytes extends FilterInputStream {
+        private long lidos;
+
+        ContadorDeBytes(InputStream entrada) {
+            super(entrada);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int lido = super.read();
+            if (lido >= 0) {
+                lidos++;
+            }
+            return lido;
+        }
+
+        @Override
+        public int read(byte[] destino, int inicio, int tamanho) throws IOException {
+            int quantidade = super.read(destino, inicio, tamanho);
+            if (quantidade > 0) {
+                lidos += quantidade;
+            }
+            return quantidade;
+        }
+    }
+}
@@ -0,0 +1,324 @@
+package br.com.bferreira.rest.gpath;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Uma expressão GPath decomposta para ser avaliada em streaming sobre XML:
+ * <ul>
+ *   <li>o prefixo de elementos a partir da raiz ({@code users.user}) define os registros,
+ *   montados um de cada vez e descartados depois de avaliados;</li>
+ *   <li>as etapas por item ({@code .name}, {@code .@id}, {@code findAll{}}, {@code collect{}})
+ *   são aplicadas a cada registro, como o GPath faz ao espalhar sobre o conjunto;</li>
+ *   <li>a etapa final ({@code size()}, {@code count{}}, {@code sum()}, {@code min()}, {@code max()},
+ *   {@code any{}}, {@code every{}}, {@code find{}}, {@code [i]}) acumula sem guardar os itens.</li>
+ * </ul>
+ * Sem etapa final o resultado é a lista dos itens, então só ela cresce com o documento. O
+ * que vier depois da etapa final é avaliado pelo {@link Evaluator} sobre o valor acumulado.
+ */
+final class StreamingXmlPath {
+
+    private final String expression;
+    private final List<String> prefixo = new ArrayList<>();
+    private final List<Expr> etapas = new ArrayList<>();
+    private final Expr terminal;
+    private final List<Expr> resto = new ArrayList<>();
+
+    private final List<Object> itens = new ArrayList<>();
+    private final Deque<Object> ultimos = new ArrayDeque<>();
+    private Object acumulado;
+    private int quantidade;
+    private boolean concluido;
+
+    StreamingXmlPath(String expression) {
+        this.expression = expression;
+        Deque<Expr> cadeia = new ArrayDeque<>();
+        try {
+            Expr atual = PathParser.parse(expression);
+            while (!(atual instanceof Expr.Root)) {
+                cadeia.push(atual);
+                atual = alvo(atual);
+            }
+        } catch (UnsupportedPathException e) {
+            throw naoSuportado(e.getMessage());
+        }
+        while (!cadeia.isEmpty() && cadeia.peek() instanceof Expr.Property && !"size".equals(((Expr.Property) cadeia.peek()).name)) {
+            prefixo.add(((Expr.Property) cadeia.pop()).name);
+        }
+        if (prefixo.isEmpty()) {
+            throw naoSuportado("o path precisa começar por elementos (ex.: users.user)");
+        }
+        while (!cadeia.isEmpty() && porItem(cadeia.peek())) {
+            etapas.add(cadeia.pop());
+        }
+        terminal = cadeia.isEmpty() ? null : cadeia.pop();
+        if (terminal != null && !isTerminal(terminal)) {
+            throw naoSuportado(terminal.toString());
+        }
+        for (Expr etapa : cadeia) {
+            resto.add(sobreIt(etapa));
+        }
+    }
+
+    String expression() {
+        return expression;
+    }
+
+    List<String> prefixo() {
+        return prefixo;
+    }
+
+    boolean concluido() {
+        return concluido;
+    }
+
+    /** Recebe um registro (elemento do fim do prefixo) em ordem de documento. */
+    void aceitar(XmlNode registro) {
+        emitir(registro, 0);
+    }
+
+    private void emitir(Object item, int etapa) {
+        if (concluido) {
+            return;
+        }
+        if (etapa == etapas.size()) {
+            acumular(item);
+            return;
+        }
+        Expr atual = etapas.get(etapa);
+        if (atual instanceof Expr.Call) {
+            Expr.Call chamada = (Expr.Call) atual;
+            if ("findAll".equals(chamada.name)) {
+                if (Evaluator.truthy(Evaluator.eval(chamada.closure, null, item))) {
+                    emitir(item, etapa + 1);
+                }
+            } else {
+                emitir(Evaluator.eval(chamada.closure, null, item), etapa + 1);
+            }
+            return;
+        }
+        Object valor = atual instanceof Expr.Property
+                ? Evaluator.property(item, ((Expr.Property) atual).name)
+                : Evaluator.attribute(item, ((Expr.Attribute) atual).name);
+        if (valor instanceof Nodes) {
+            for (XmlNode node : (Nodes) valor) {
+                emitir(node, etapa + 1);
+            }
+        } else if (valor != null) {
+            emitir(valor, etapa + 1);
+        }
+    }
+
+    private void acumular(Object item) {
+        if (terminal == null) {
+            itens.add(item);
+            return;
+        }
+        String nome = nome(terminal);
+        if (terminal instanceof Expr.Index) {
+            int indice = indice(terminal);
+            if (indice >= 0) {
+                if (quantidade++ == indice) {
+                    selecionar(item);
+                }
+            } else {
+                ultimos.addLast(item);
+                if (ultimos.size() > -indice) {
+                    ultimos.removeFirst();
+                }
+            }
+            return;
+        }
+        Expr closure = terminal instanceof Expr.Call ? ((Expr.Call) terminal).closure : null;
+        switch (nome) {
+            case "size":
+                quantidade++;
+                break;
+            case "count":
+                if (Evaluator.truthy(Evaluator.eval(closure, null, item))) {
+                    quantidade++;
+                }
+                break;
+            case "find":
+                if (Evaluator.truthy(Evaluator.eval(closure, null, item))) {
+                    selecionar(item);
+                }
+                break;
+            case "any":
+                if (Evaluator.truthy(Evaluator.eval(closure, null, item))) {
+                    acumulado = true;
+                    concluido = true;
+                }
+                break;
+            case "every":
+                if (!Evaluator.truthy(Evaluator.eval(closure, null, item))) {
+                    acumulado = false;
+                    concluido = true;
+                }
+                break;
+            case "isEmpty":
+                acumulado = false;
+                concluido = true;
+                break;
+            case "first":
+                selecionar(item);
+                break;
+            case "last":
+                acumulado = item;
+                quantidade++;
+                break;
+            default:
+                //sum, min e max: o agregado do caminho rápido aplicado ao acumulado e ao item novo
+                List<Object> par = quantidade++ == 0 ? Collections.singletonList(item) : Arrays.asList(acumulado, item);
+                acumulado = Methods.invoke(par, nome, Collections.emptyList());
+                break;
+        }
+    }
+
+    private void selecionar(Object item) {
+        acumulado = item instanceof XmlNode && !"first".equals(nome(terminal)) ? Nodes.of((XmlNode) item) : item;
+        quantidade = 1;
+        concluido = true;
+    }
+
+    /** Valor final, nos mesmos tipos do {@link CompiledPath} para XML. */
+    Object resultado() {
+        Object valor;
+        if (terminal == null) {
+            valor = todosXml(itens) ? new Nodes(comoNodes(itens)) : itens;
+        } else if (terminal instanceof Expr.Index && indice(terminal) < 0) {
+            int indice = indice(terminal);
+            Object item = ultimos.size() == -indice ? ultimos.peekFirst() : null;
+            valor = item instanceof XmlNode ? Nodes.of((XmlNode) item) : item;
+        } else {
+            switch (nome(terminal)) {
+                case "size":
+                case "count":
+                    valor = quantidade;
+                    break;
+                case "any":
+                    valor = acumulado != null;
+                    break;
+                case "every":
+                    valor = acumulado == null;
+                    break;
+                case "isEmpty":
+                    valor = acumulado == null;
+                    break;
+                default:
+                    valor = acumulado;
+                    break;
+            }
+        }
+        for (Expr etapa : resto) {
+            valor = Evaluator.eval(etapa, null, valor);
+        }
+        return CompiledPath.comoXmlPath(valor);
+    }
+
+    private static boolean porItem(Expr expr) {
+        if (expr instanceof Expr.Property) {
+            return !"size".equals(((Expr.Property) expr).name);
+        }
+        if (expr instanceof Expr.Attribute) {
+            return true;
+        }
+        return expr instanceof Expr.Call && ((Expr.Call) expr).closure != null
+                && ("findAll".equals(((Expr.Call) expr).name) || "collect".equals(((Expr.Call) expr).name));
+    }
+
+    private static boolean isTerminal(Expr expr) {
+        if (expr instanceof Expr.Index) {
+            return indice(expr) != null;
+        }
+        if (expr instanceof Expr.Property) {
+            return true;//size
+        }
+        if (!(expr instanceof Expr.Call)) {
+            return false;
+        }
+        Expr.Call chamada = (Expr.Call) expr;
+        if (chamada.closure != null) {
+            return Arrays.asList("find", "count", "any", "every").contains(chamada.name);
+        }
+        return chamada.args.isEmpty() && Arrays.asList("size", "sum", "min", "max", "isEmpty", "first", "last").contains(chamada.name);
+    }
+
+    /** Índice literal ({@code [1]}, {@code [-1]}) ou null. */
+    private static Integer indice(Expr expr) {
+        Expr indice = ((Expr.Index) expr).index;
+        boolean negativo = indice instanceof Expr.Unary && "-".equals(((Expr.Unary) indice).op);
+        if (negativo) {
+            indice = ((Expr.Unary) indice).operand;
+        }
+        if (!(indice instanceof Expr.Literal) || !(((Expr.Literal) indice).value instanceof Integer)) {
+            return null;
+        }
+        int valor = (Integer) ((Expr.Literal) indice).value;
+        return negativo ? -valor : valor;
+    }
+
+    private static String nome(Expr expr) {
+        if (expr instanceof Expr.Call) {
+            return ((Expr.Call) expr).name;
+        }
+        return expr instanceof Expr.Property ? ((Expr.Property) expr).name : "";
+    }
+
+    private static Expr alvo(Expr expr) {
+        if (expr instanceof Expr.Property) {
+            return ((Expr.Property) expr).target;
+        }
+        if (expr instanceof Expr.Attribute) {
+            return ((Expr.Attribute) expr).target;
+        }
+        if (expr instanceof Expr.Index) {
+            return ((Expr.Index) expr).target;
+        }
+        if (expr instanceof Expr.Call) {
+            return ((Expr.Call) expr).target;
+        }
+        throw new UnsupportedPathException(expr.toString());
+    }
+
+    /** O mesmo passo da cadeia, reescrito para agir sobre o {@code it}. */
+    private static Expr sobreIt(Expr expr) {
+        Expr it = new Expr.It();
+        if (expr instanceof Expr.Property) {
+            return new Expr.Property(it, ((Expr.Property) expr).name);
+        }
+        if (expr instanceof Expr.Attribute) {
+            return new Expr.Attribute(it, ((Expr.Attribute) expr).name);
+        }
+        if (expr instanceof Expr.Index) {
+            return new Expr.Index(it, ((Expr.Index) expr).index);
+        }
+        Expr.Call chamada = (Expr.Call) expr;
+        return new Expr.Call(it, chamada.name, chamada.args, chamada.closure);
+    }
+
+    private static boolean todosXml(List<Object> itens) {
+        for (Object item : itens) {
+            if (!(item instanceof XmlNode)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static List<XmlNode> comoNodes(List<Object> itens) {
+        List<XmlNode> nodes = new ArrayList<>(itens.size());
+        for (Object item : itens) {
+            nodes.add((XmlNode) item);
+        }
+        return nodes;
+    }
+
+    private IllegalArgumentException naoSuportado(String detalhe) {
+        return new IllegalArgumentException("Path não suportado em streaming: " + expression + " (" + detalhe + ")");
+    }
+}
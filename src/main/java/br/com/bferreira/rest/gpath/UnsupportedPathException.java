@@ -0,0 +1,12 @@
+package br.com.bferreira.rest.gpath;
+
+/**
+ * Lançada quando a expressão (ou o valor encontrado durante a avaliação) sai do
+ * subconjunto que o caminho rápido entende. Quem chama cai para o Groovy.
+ */
+class UnsupportedPathException extends RuntimeException {
+
+    UnsupportedPathException(String message) {
+        super(message, null, false, false);
+    }
+}
@@ -0,0 +1,162 @@
+package br.com.bferreira.rest.gpath;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Elemento XML enxuto para o caminho rápido, montado com StAX numa única passada.
+ * Guarda nome, atributos e o conteúdo (textos e filhos) na ordem do documento.
+ */
+public final class XmlNode {
+
+    private static final XMLInputFactory FABRICA = criarFabrica();
+
+    private final String name;
+    private final Map<String, String> attributes;
+    private final List<Object> content = new ArrayList<>(4);
+
+    XmlNode(String name, Map<String, String> attributes) {
+        this.name = name;
+        this.attributes = attributes;
+    }
+
+    /**
+     * Faz o parse do documento e devolve um nó "documento" sem nome cujo único filho é o
+     * elemento raiz, para que {@code users.user} comece casando o próprio {@code users}.
+     */
+    public static XmlNode parseDocument(String xml) {
+        try {
+            XMLStreamReader leitor = leitor(new StringReader(xml));
+            XmlNode documento = new XmlNode("", Collections.<String, String>emptyMap());
+            while (leitor.hasNext()) {
+                if (leitor.next() == XMLStreamReader.START_ELEMENT) {
+                    documento.content.add(ler(leitor));
+                }
+            }
+            leitor.close();
+            return documento;
+        } catch (XMLStreamException e) {
+            throw new IllegalArgumentException("XML inválido", e);
+        }
+    }
+
+    static XMLStreamReader leitor(Reader xml) throws XMLStreamException {
+        return FABRICA.createXMLStreamReader(xml);
+    }
+
+    static XMLStreamReader leitor(InputStream xml) throws XMLStreamException {
+        return FABRICA.createXMLStreamReader(xml);
+    }
+
+    /**
+     * Monta o elemento em que o leitor está posicionado ({@code START_ELEMENT}) com todos os
+     * descendentes, deixando o leitor no {@code END_ELEMENT} correspondente.
+     */
+    static XmlNode ler(XMLStreamReader leitor) throws XMLStreamException {
+        Deque<XmlNode> pilha = new ArrayDeque<>();
+        XmlNode raiz = null;
+        while (true) {
+            switch (leitor.getEventType()) {
+                case XMLStreamReader.START_ELEMENT:
+                    Map<String, String> atributos = leitor.getAttributeCount() == 0
+                            ? Collections.<String, String>emptyMap() : new LinkedHashMap<>();
+                    for (int i = 0; i < leitor.getAttributeCount(); i++) {
+                        atributos.put(leitor.getAttributeLocalName(i), leitor.getAttributeValue(i));
+                    }
+                    XmlNode filho = new XmlNode(leitor.getLocalName(), atributos);
+                    if (raiz == null) {
+                        raiz = filho;
+                    } else {
+                        pilha.peek().content.add(filho);
+                    }
+                    pilha.push(filho);
+                    break;
+                case XMLStreamReader.END_ELEMENT:
+                    pilha.pop();
+                    break;
+                case XMLStreamReader.CHARACTERS:
+                case XMLStreamReader.CDATA:
+                    if (!leitor.isWhiteSpace()) {
+                        pilha.peek().content.add(leitor.getText());
+                    }
+                    break;
+                default:
+                    break;
+            }
+            if (pilha.isEmpty()) {
+                return raiz;
+            }
+            leitor.next();
+        }
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public String attribute(String nome) {
+        return attributes.get(nome);
+    }
+
+    public List<XmlNode> children() {
+        List<XmlNode> filhos = new ArrayList<>(content.size());
+        for (Object item : content) {
+            if (item instanceof XmlNode) {
+                filhos.add((XmlNode) item);
+            }
+        }
+        return filhos;
+    }
+
+    void children(String nome, List<XmlNode> destino) {
+        for (Object item : content) {
+            if (item instanceof XmlNode && ((XmlNode) item).name.equals(nome)) {
+                destino.add((XmlNode) item);
+            }
+        }
+    }
+
+    /** Texto do nó e de todos os descendentes, como o {@code text()} do GPath. */
+    public String text() {
+        if (content.size() == 1 && content.get(0) instanceof String) {
+            return (String) content.get(0);
+        }
+        StringBuilder texto = new StringBuilder();
+        appendText(texto);
+        return texto.toString();
+    }
+
+    private void appendText(StringBuilder destino) {
+        for (Object item : content) {
+            if (item instanceof XmlNode) {
+                ((XmlNode) item).appendText(destino);
+            } else {
+                destino.append(item);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return text();
+    }
+
+    private static XMLInputFactory criarFabrica() {
+        XMLInputFactory fabrica = XMLInputFactory.newFactory();
+        fabrica.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        fabrica.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        fabrica.setProperty(XMLInputFactory.IS_COALESCING, true);
+        return fabrica;
+    }
+}
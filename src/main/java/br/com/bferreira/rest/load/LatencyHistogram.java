@@ -0,0 +1,85 @@
+package br.com.bferreira.rest.load;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma de latências em microssegundos, no estilo do HdrHistogram: exato até 2048µs
+ * e, acima disso, 1024 faixas por potência de 2 (erro relativo abaixo de 0,1%). Tamanho
+ * fixo, sem alocação no registro e seguro para várias threads gravarem ao mesmo tempo.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_FAIXAS = 1024;
+    private static final int EXPOENTE_MAXIMO = 30;//~12 dias em µs
+
+    private final AtomicLongArray contagens = new AtomicLongArray(SUB_FAIXAS * (EXPOENTE_MAXIMO + 2));
+    private final LongAdder total = new LongAdder();
+    private final LongAdder soma = new LongAdder();
+    private final LongAccumulator maximo = new LongAccumulator(Math::max, 0);
+    private final LongAccumulator minimo = new LongAccumulator(Math::min, Long.MAX_VALUE);
+
+    public void record(long nanos) {
+        long micros = Math.max(0, TimeUnit.NANOSECONDS.toMicros(nanos));
+        contagens.incrementAndGet(indice(micros));
+        total.increment();
+        soma.add(micros);
+        maximo.accumulate(micros);
+        minimo.accumulate(micros);
+    }
+
+    public long count() {
+        return total.sum();
+    }
+
+    public long maxMicros() {
+        return maximo.get();
+    }
+
+    public long minMicros() {
+        return count() == 0 ? 0 : minimo.get();
+    }
+
+    public double meanMicros() {
+        long n = count();
+        return n == 0 ? 0 : (double) soma.sum() / n;
+    }
+
+    /** Latência (µs) abaixo da qual ficam {@code percentil}% das amostras. */
+    public long percentileMicros(double percentil) {
+        long n = count();
+        if (n == 0) {
+            return 0;
+        }
+        long alvo = Math.max(1, (long) Math.ceil(percentil / 100.0 * n - 1e-9));//tolerância para 99.9% de 1000 dar 999
+        long acumulado = 0;
+        for (int i = 0; i < contagens.length(); i++) {
+            acumulado += contagens.get(i);
+            if (acumulado >= alvo) {
+                return Math.min(valor(i), maxMicros());
+            }
+        }
+        return maxMicros();
+    }
+
+    static int indice(long micros) {
+        if (micros < 2 * SUB_FAIXAS) {
+            return (int) micros;
+        }
+        int expoente = Math.min(EXPOENTE_MAXIMO, 63 - Long.numberOfLeadingZeros(micros) - 10);
+        long subFaixa = Math.min(2 * SUB_FAIXAS - 1, micros >>> expoente);
+        return SUB_FAIXAS * expoente + (int) subFaixa;
+    }
+
+    /** Meio da faixa do índice. */
+    static long valor(int indice) {
+        if (indice < 2 * SUB_FAIXAS) {
+            return indice;
+        }
+        int expoente = indice / SUB_FAIXAS - 1;
+        long subFaixa = indice - (long) SUB_FAIXAS * expoente;
+        return (subFaixa << expoente) + ((1L << expoente) >> 1);
+    }
+}
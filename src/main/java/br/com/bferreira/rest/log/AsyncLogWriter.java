@@ -0,0 +1,87 @@
+package br.com.bferreira.rest.log;
+
+import java.io.PrintStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Formata e escreve as trocas numa thread própria. A thread do teste só enfileira a
+ * referência; com a fila cheia a troca é descartada (e contada) em vez de bloquear o teste.
+ */
+final class AsyncLogWriter {
+
+    private final BlockingQueue<Exchange> fila;
+    private final Supplier<PrintStream> saida;
+    private final LongAdder escritas = new LongAdder();
+    private final LongAdder descartadas = new LongAdder();
+    private int pendentes;
+
+    AsyncLogWriter(int capacidade, Supplier<PrintStream> saida) {
+        this.fila = new ArrayBlockingQueue<>(capacidade);
+        this.saida = saida;
+        Thread thread = new Thread(this::escrever, "log-assincrono");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    void offer(Exchange troca) {
+        synchronized (this) {
+            pendentes++;
+        }
+        if (!fila.offer(troca)) {
+            descartadas.increment();
+            concluir();
+        }
+    }
+
+    /** Espera as trocas enfileiradas serem escritas (ou o tempo acabar); devolve se terminou. */
+    synchronized boolean flush(long timeoutMillis) throws InterruptedException {
+        long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while (pendentes > 0) {
+            long restante = TimeUnit.NANOSECONDS.toMillis(limite - System.nanoTime());
+            if (restante <= 0) {
+                return false;
+            }
+            wait(restante);
+        }
+        return true;
+    }
+
+    long written() {
+        return escritas.sum();
+    }
+
+    long dropped() {
+        return descartadas.sum();
+    }
+
+    private synchronized void concluir() {
+        pendentes--;
+        notifyAll();
+    }
+
+    private void escrever() {
+        while (true) {
+            Exchange troca;
+            try {
+                troca = fila.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            try {
+                PrintStream destino = saida.get();
+                synchronized (destino) {
+                    troca.print(destino, "requisição em " + troca.thread());
+                }
+                escritas.increment();
+            } catch (RuntimeException e) {
+                descartadas.increment();
+            } finally {
+                concluir();
+            }
+        }
+    }
+}
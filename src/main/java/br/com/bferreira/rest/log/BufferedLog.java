@@ -0,0 +1,142 @@
+package br.com.bferreira.rest.log;
+
+import io.restassured.RestAssured;
+import io.restassured.filter.Filter;
+
+import java.io.PrintStream;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Log de requisições que só formata quando precisa. O {@code log().all()} do RestAssured
+ * monta e imprime o texto de cada requisição e resposta na hora, na thread do teste; aqui o
+ * filtro guarda só as referências num buffer circular da thread, e o texto é montado
+ * quando um teste falha ({@code FailureLogRule}) ou, no modo assíncrono, numa thread à parte.
+ *
+ * <p>Configurável por propriedades de sistema: {@code log.mode} ({@code failure}, o padrão;
+ * {@code async}, que escreve tudo em segundo plano; ou {@code off}), {@code log.buffer.size}
+ * (trocas guardadas por thread, padrão 16) e {@code log.async.queue} (tamanho da fila do
+ * modo assíncrono, padrão 1024).</p>
+ */
+public final class BufferedLog {
+
+    /** Quando o texto das trocas é montado. */
+    public enum Modo {
+        /** Só quando o teste falha. */
+        FAILURE,
+        /** Sempre, numa thread em segundo plano. */
+        ASYNC,
+        /** Nunca; o filtro não guarda nada. */
+        OFF
+    }
+
+    private static final int CAPACIDADE = Integer.getInteger("log.buffer.size", 16);
+    private static final ThreadLocal<RequestRing> BUFFER = ThreadLocal.withInitial(() -> new RequestRing(CAPACIDADE));
+
+    private static final LongAdder CAPTURADAS = new LongAdder();
+    private static final LongAdder IMPRESSAS = new LongAdder();
+    private static volatile AsyncLogWriter escritor;
+    private static boolean instalado;
+
+    private BufferedLog() {
+    }
+
+    /** Modo da propriedade {@code log.mode}. */
+    public static Modo mode() {
+        return Modo.valueOf(System.getProperty("log.mode", "failure").trim().toUpperCase(Locale.ROOT));
+    }
+
+    /** Filtro no modo da propriedade {@code log.mode}, para um {@code given().filter(...)} ou um spec. */
+    public static Filter filter() {
+        return filter(mode());
+    }
+
+    public static Filter filter(Modo modo) {
+        return new BufferedLogFilter(modo);
+    }
+
+    /**
+     * Instala o filtro nos filtros globais do RestAssured (uma vez por JVM; as chamadas
+     * seguintes não mudam nada).
+     */
+    public static synchronized void install() {
+        if (!instalado) {
+            RestAssured.filters(filter());
+            instalado = true;
+        }
+    }
+
+    /** Imprime as trocas guardadas na thread atual, da mais antiga para a mais recente, e limpa o buffer. */
+    public static void dump(PrintStream saida) {
+        RequestRing buffer = BUFFER.get();
+        List<Exchange> trocas = buffer.snapshot();
+        if (trocas.isEmpty()) {
+            return;
+        }
+        synchronized (saida) {
+            if (buffer.discarded() > 0) {
+                saida.println("---- " + buffer.discarded() + " requisição(ões) mais antiga(s) fora do buffer ----");
+            }
+            for (int i = 0; i < trocas.size(); i++) {
+                trocas.get(i).print(saida, "requisição " + (i + 1) + " de " + trocas.size());
+            }
+            saida.flush();
+        }
+        IMPRESSAS.add(trocas.size());
+        buffer.clear();
+    }
+
+    /** Descarta as trocas guardadas na thread atual. */
+    public static void clear() {
+        BUFFER.get().clear();
+    }
+
+    /** Quantidade de trocas guardadas na thread atual. */
+    public static int buffered() {
+        return BUFFER.get().size();
+    }
+
+    /** Espera o escritor assíncrono esvaziar a fila; devolve se esvaziou dentro do tempo. */
+    public static boolean flush(long timeoutMillis) throws InterruptedException {
+        AsyncLogWriter atual = escritor;
+        return atual == null || atual.flush(timeoutMillis);
+    }
+
+    /** Trocas capturadas, impressas por falha, escritas e descartadas pelo escritor assíncrono. */
+    public static Map<String, Long> stats() {
+        AsyncLogWriter atual = escritor;
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("captured", CAPTURADAS.sum());
+        stats.put("dumped", IMPRESSAS.sum());
+        stats.put("asyncWritten", atual == null ? 0L : atual.written());
+        stats.put("asyncDropped", atual == null ? 0L : atual.dropped());
+        return stats;
+    }
+
+    static void registrar(Modo modo, Exchange troca) {
+        CAPTURADAS.increment();
+        if (modo == Modo.ASYNC) {
+            escritor().offer(troca);
+        } else {
+            BUFFER.get().add(troca);
+        }
+    }
+
+    private static AsyncLogWriter escritor() {
+        AsyncLogWriter atual = escritor;
+        if (atual == null) {
+            synchronized (BufferedLog.class) {
+                atual = escritor;
+                if (atual == null) {
+                    atual = new AsyncLogWriter(Integer.getInteger("log.async.queue", 1024),
+                            () -> RestAssured.config().getLogConfig().defaultStream());
+                    escritor = atual;
+                }
+            }
+        }
+        return atual;
+    }
+}
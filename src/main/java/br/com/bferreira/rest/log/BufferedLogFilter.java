@@ -0,0 +1,45 @@
+package br.com.bferreira.rest.log;
+
+import io.restassured.filter.FilterContext;
+import io.restassured.filter.OrderedFilter;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+
+/**
+ * Filtro que guarda a requisição e a resposta por referência, no lugar do
+ * {@code log().all()}. Roda por último entre os filtros, para registrar os headers que
+ * os outros filtros (autenticação, por exemplo) acrescentaram. Com o filtro global e o de
+ * um spec na mesma requisição, só o primeiro de cada modo guarda a troca.
+ */
+public final class BufferedLogFilter implements OrderedFilter {
+
+    private final BufferedLog.Modo modo;
+
+    BufferedLogFilter(BufferedLog.Modo modo) {
+        this.modo = modo;
+    }
+
+    @Override
+    public Response filter(FilterableRequestSpecification requisicao, FilterableResponseSpecification resposta, FilterContext contexto) {
+        String marca = "bufferedLog." + modo;
+        if (modo == BufferedLog.Modo.OFF || contexto.hasValue(marca)) {
+            return contexto.next(requisicao, resposta);
+        }
+        contexto.setValue(marca, Boolean.TRUE);
+        long inicio = System.nanoTime();
+        try {
+            Response recebida = contexto.next(requisicao, resposta);
+            BufferedLog.registrar(modo, new Exchange(requisicao, recebida, null, inicio, System.nanoTime() - inicio));
+            return recebida;
+        } catch (Throwable e) {//inclusive exceções checadas que o Groovy lança sem declarar (UnknownHostException)
+            BufferedLog.registrar(modo, new Exchange(requisicao, null, e, inicio, System.nanoTime() - inicio));
+            throw e;
+        }
+    }
+
+    @Override
+    public int getOrder() {
+        return LOWEST_PRECEDENCE - 1;
+    }
+}
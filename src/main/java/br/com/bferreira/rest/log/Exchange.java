@@ -0,0 +1,55 @@
+package br.com.bferreira.rest.log;
+
+import io.restassured.RestAssured;
+import io.restassured.filter.log.LogDetail;
+import io.restassured.internal.print.RequestPrinter;
+import io.restassured.internal.print.ResponsePrinter;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+
+import java.io.PrintStream;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Uma requisição e a sua resposta (ou o erro que impediu a resposta) guardadas por
+ * referência, sem formatar nada. O texto só é montado em {@link #print}, com as mesmas
+ * rotinas do {@code log().all()} do RestAssured.
+ */
+final class Exchange {
+
+    private final FilterableRequestSpecification requisicao;
+    private final Response resposta;
+    private final Throwable erro;
+    private final long inicioNanos;
+    private final long duracaoNanos;
+    private final String thread;
+
+    Exchange(FilterableRequestSpecification requisicao, Response resposta, Throwable erro, long inicioNanos, long duracaoNanos) {
+        this.requisicao = requisicao;
+        this.resposta = resposta;
+        this.erro = erro;
+        this.inicioNanos = inicioNanos;
+        this.duracaoNanos = duracaoNanos;
+        this.thread = Thread.currentThread().getName();
+    }
+
+    /** Nome da thread que fez a requisição. */
+    String thread() {
+        return thread;
+    }
+
+    void print(PrintStream saida, String titulo) {
+        Set<String> ocultos = RestAssured.config().getLogConfig().blacklistedHeaders();
+        saida.println("---- " + titulo + " (" + TimeUnit.NANOSECONDS.toMillis(duracaoNanos) + " ms, há "
+                + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicioNanos) + " ms) ----");
+        RequestPrinter.print(requisicao, requisicao.getMethod(), requisicao.getURI(), LogDetail.ALL, ocultos, saida, true);
+        if (resposta != null) {
+            saida.println();
+            ResponsePrinter.print(resposta, resposta, saida, LogDetail.ALL, true, ocultos);
+        } else {
+            saida.println("Sem resposta: " + erro);
+        }
+        saida.println();
+    }
+}
@@ -0,0 +1,57 @@
+package br.com.bferreira.rest.log;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Buffer circular de uma thread: guarda as últimas {@code capacidade} trocas e descarta
+ * as mais antigas. Só é acessado pela thread dona, então não precisa de sincronização.
+ */
+final class RequestRing {
+
+    private final Exchange[] itens;
+    private int proximo;
+    private int ocupados;
+    private long descartados;
+
+    RequestRing(int capacidade) {
+        this.itens = new Exchange[Math.max(1, capacidade)];
+    }
+
+    void add(Exchange troca) {
+        if (ocupados == itens.length) {
+            descartados++;
+        } else {
+            ocupados++;
+        }
+        itens[proximo] = troca;
+        proximo = (proximo + 1) % itens.length;
+    }
+
+    /** Trocas guardadas, da mais antiga para a mais recente. */
+    List<Exchange> snapshot() {
+        List<Exchange> lista = new ArrayList<>(ocupados);
+        int inicio = (proximo - ocupados + itens.length) % itens.length;
+        for (int i = 0; i < ocupados; i++) {
+            lista.add(itens[(inicio + i) % itens.length]);
+        }
+        return lista;
+    }
+
+    /** Trocas que não couberam no buffer desde a última limpeza. */
+    long discarded() {
+        return descartados;
+    }
+
+    int size() {
+        return ocupados;
+    }
+
+    void clear() {
+        Arrays.fill(itens, null);
+        proximo = 0;
+        ocupados = 0;
+        descartados = 0;
+    }
+}
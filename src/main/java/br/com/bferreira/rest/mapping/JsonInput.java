@@ -0,0 +1,510 @@
+package br.com.bferreira.rest.mapping;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Leitor de JSON em streaming direto sobre os bytes UTF-8 do corpo, usado pelos mappers
+ * gerados. Os nomes dos campos são comparados com os bytes já codificados
+ * ({@link #nextField(byte[][])}), sem criar uma String por chave; números são lidos dos
+ * dígitos, sem texto intermediário, no caso comum. Como no Gson, null vira null nos wrappers
+ * e o valor padrão nos primitivos, e números em string ({@code "172"}) são aceitos.
+ *
+ * <p>JSON malformado gera IllegalStateException com a posição do erro.</p>
+ */
+public final class JsonInput {
+
+    /** Leitura de um valor, para as listas. */
+    @FunctionalInterface
+    public interface Reader<T> {
+        T read(JsonInput in);
+    }
+
+    //potências de 10 exatas em double: m * 10^e é exato para m < 2^53 e |e| <= 22
+    private static final double[] POTENCIAS = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+    private final byte[] buf;
+    private final int fim;
+    private int pos;
+    //acabou de ler um valor (ou fechar um objeto/array): o próximo item do container precisa de vírgula
+    private boolean depoisDeValor;
+
+    public JsonInput(byte[] json) {
+        this(json, 0, json.length);
+    }
+
+    public JsonInput(byte[] json, int inicio, int tamanho) {
+        this.buf = json;
+        this.pos = inicio;
+        this.fim = inicio + tamanho;
+    }
+
+    /** Nomes de campos codificados em UTF-8, para o {@link #nextField(byte[][])}. */
+    public static byte[][] names(String... nomes) {
+        byte[][] codificados = new byte[nomes.length][];
+        for (int i = 0; i < nomes.length; i++) {
+            codificados[i] = nomes[i].getBytes(StandardCharsets.UTF_8);
+        }
+        return codificados;
+    }
+
+    public void beginObject() {
+        esperar('{');
+        depoisDeValor = false;
+    }
+
+    public void endObject() {
+        esperar('}');
+        depoisDeValor = true;
+    }
+
+    public void beginArray() {
+        esperar('[');
+        depoisDeValor = false;
+    }
+
+    public void endArray() {
+        esperar(']');
+        depoisDeValor = true;
+    }
+
+    /** Há mais um campo no objeto (ou item no array); consome a vírgula. */
+    public boolean hasNext() {
+        byte c = proximo();
+        if (c == '}' || c == ']') {
+            return false;
+        }
+        if (depoisDeValor) {
+            if (c != ',') {
+                throw erro("esperado ',' ou fim do objeto/array");
+            }
+            pos++;
+            proximo();
+            depoisDeValor = false;
+        }
+        return true;
+    }
+
+    /** Lê o nome do próximo campo e o ':'; devolve o índice dele em {@code nomes}, ou -1 se não está lá. */
+    public int nextField(byte[][] nomes) {
+        esperar('"');
+        int inicio = pos;
+        boolean escapado = false;
+        while (pos < fim && buf[pos] != '"') {
+            if (buf[pos] == '\\') {
+                escapado = true;
+                pos++;
+            }
+            pos++;
+        }
+        if (pos >= fim) {
+            throw erro("nome de campo sem fim");
+        }
+        int tamanho = pos - inicio;
+        pos++;
+        int indice = -1;
+        if (escapado) {
+            byte[] nome = texto(inicio, tamanho).getBytes(StandardCharsets.UTF_8);
+            indice = indice(nomes, nome, 0, nome.length);
+        } else {
+            indice = indice(nomes, buf, inicio, tamanho);
+        }
+        esperar(':');
+        depoisDeValor = false;
+        return indice;
+    }
+
+    private static int indice(byte[][] nomes, byte[] bytes, int inicio, int tamanho) {
+        for (int i = 0; i < nomes.length; i++) {
+            byte[] nome = nomes[i];
+            if (nome.length == tamanho && iguais(nome, bytes, inicio)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean iguais(byte[] nome, byte[] bytes, int inicio) {
+        for (int i = 0; i < nome.length; i++) {
+            if (nome[i] != bytes[inicio + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Consome um null, se for o próximo valor. */
+    public boolean isNull() {
+        if (proximo() == 'n') {
+            literal("null");
+            depoisDeValor = true;
+            return true;
+        }
+        return false;
+    }
+
+    public String nextString() {
+        if (isNull()) {
+            return null;
+        }
+        if (buf[pos] != '"') {
+            //número ou booleano lido como texto, como no Gson
+            int inicio = pos;
+            pularLiteral();
+            depoisDeValor = true;
+            return new String(buf, inicio, pos - inicio, StandardCharsets.ISO_8859_1);
+        }
+        pos++;
+        int inicio = pos;
+        boolean simples = true;
+        while (pos < fim && buf[pos] != '"') {
+            byte c = buf[pos];
+            if (c == '\\') {
+                simples = false;
+                pos++;
+            } else if (c < 0) {
+                simples = false;
+            }
+            pos++;
+        }
+        if (pos >= fim) {
+            throw erro("texto sem fim");
+        }
+        int tamanho = pos - inicio;
+        pos++;
+        depoisDeValor = true;
+        return simples ? new String(buf, inicio, tamanho, StandardCharsets.ISO_8859_1) : texto(inicio, tamanho);
+    }
+
+    //trecho entre aspas com escapes e/ou UTF-8 multibyte
+    private String texto(int inicio, int tamanho) {
+        StringBuilder texto = new StringBuilder(tamanho);
+        int i = inicio;
+        int limite = inicio + tamanho;
+        while (i < limite) {
+            int corrido = i;
+            while (i < limite && buf[i] != '\\') {
+                i++;
+            }
+            if (i > corrido) {
+                texto.append(new String(buf, corrido, i - corrido, StandardCharsets.UTF_8));
+            }
+            if (i >= limite) {
+                break;
+            }
+            byte escape = buf[i + 1];
+            i += 2;
+            switch (escape) {
+                case 'b':
+                    texto.append('\b');
+                    break;
+                case 'f':
+                    texto.append('\f');
+                    break;
+                case 'n':
+                    texto.append('\n');
+                    break;
+                case 'r':
+                    texto.append('\r');
+                    break;
+                case 't':
+                    texto.append('\t');
+                    break;
+                case 'u':
+                    if (i + 4 > limite) {
+                        throw erro("escape \\u incompleto");
+                    }
+                    texto.append((char) Integer.parseInt(new String(buf, i, 4, StandardCharsets.ISO_8859_1), 16));
+                    i += 4;
+                    break;
+                default:
+                    texto.append((char) escape);
+            }
+        }
+        return texto.toString();
+    }
+
+    public Integer nextIntegerOrNull() {
+        return isNull() ? null : nextInt();
+    }
+
+    public Long nextLongOrNull() {
+        return isNull() ? null : nextLong();
+    }
+
+    public Short nextShortOrNull() {
+        return isNull() ? null : nextShort();
+    }
+
+    public Double nextDoubleOrNull() {
+        return isNull() ? null : nextDouble();
+    }
+
+    public Float nextFloatOrNull() {
+        return isNull() ? null : nextFloat();
+    }
+
+    public Boolean nextBooleanOrNull() {
+        return isNull() ? null : nextBoolean();
+    }
+
+    public BigDecimal nextBigDecimal() {
+        return isNull() ? null : new BigDecimal(nextString());
+    }
+
+    public int nextInt() {
+        long valor = nextLong();
+        if ((int) valor != valor) {
+            throw erro("número fora do intervalo de int: " + valor);
+        }
+        return (int) valor;
+    }
+
+    public short nextShort() {
+        long valor = nextLong();
+        if ((short) valor != valor) {
+            throw erro("número fora do intervalo de short: " + valor);
+        }
+        return (short) valor;
+    }
+
+    public float nextFloat() {
+        return (float) nextDouble();
+    }
+
+    public long nextLong() {
+        if (isNull()) {
+            return 0L;
+        }
+        boolean aspas = abrirAspas();
+        int inicio = pos;
+        boolean negativo = pos < fim && buf[pos] == '-';
+        if (negativo) {
+            pos++;
+        }
+        long valor = 0;
+        int digitos = 0;
+        while (pos < fim && buf[pos] >= '0' && buf[pos] <= '9') {
+            valor = valor * 10 + (buf[pos++] - '0');
+            digitos++;
+        }
+        if (digitos == 0 || digitos > 18 || pos < fim && (buf[pos] == '.' || buf[pos] == 'e' || buf[pos] == 'E')) {
+            //fração, expoente ou mais dígitos que cabem sem estouro: pelo BigDecimal, exigindo valor inteiro
+            pos = inicio;
+            pularLiteral();
+            try {
+                valor = new BigDecimal(new String(buf, inicio, pos - inicio, StandardCharsets.ISO_8859_1)).longValueExact();
+            } catch (ArithmeticException | NumberFormatException e) {
+                throw erro("esperado um número inteiro");
+            }
+        } else if (negativo) {
+            valor = -valor;
+        }
+        fecharAspas(aspas);
+        return valor;
+    }
+
+    public double nextDouble() {
+        if (isNull()) {
+            return 0d;
+        }
+        boolean aspas = abrirAspas();
+        int inicio = pos;
+        boolean negativo = pos < fim && buf[pos] == '-';
+        if (negativo) {
+            pos++;
+        }
+        long mantissa = 0;
+        int digitos = 0;
+        int expoente = 0;
+        while (pos < fim && buf[pos] >= '0' && buf[pos] <= '9') {
+            mantissa = mantissa * 10 + (buf[pos++] - '0');
+            digitos++;
+        }
+        if (pos < fim && buf[pos] == '.') {
+            pos++;
+            while (pos < fim && buf[pos] >= '0' && buf[pos] <= '9') {
+                mantissa = mantissa * 10 + (buf[pos++] - '0');
+                digitos++;
+                expoente--;
+            }
+        }
+        double valor;
+        boolean comExpoente = pos < fim && (buf[pos] == 'e' || buf[pos] == 'E');
+        if (digitos > 0 && digitos <= 15 && !comExpoente && expoente >= -22) {
+            //caminho rápido exato (mantissa < 2^53, potência de 10 exata)
+            valor = expoente == 0 ? mantissa : mantissa / POTENCIAS[-expoente];
+            if (negativo) {
+                valor = -valor;
+            }
+        } else {
+            pos = inicio;
+            pularLiteral();
+            try {
+                valor = Double.parseDouble(new String(buf, inicio, pos - inicio, StandardCharsets.ISO_8859_1));
+            } catch (NumberFormatException e) {
+                throw erro("esperado um número");
+            }
+        }
+        fecharAspas(aspas);
+        return valor;
+    }
+
+    public boolean nextBoolean() {
+        if (isNull()) {
+            return false;
+        }
+        boolean aspas = abrirAspas();
+        boolean valor;
+        if (pos < fim && buf[pos] == 't') {
+            literal("true");
+            valor = true;
+        } else {
+            literal("false");
+            valor = false;
+        }
+        fecharAspas(aspas);
+        return valor;
+    }
+
+    /** Lê um array com um valor por item (null vira null). */
+    public <T> List<T> nextList(Reader<T> item) {
+        if (isNull()) {
+            return null;
+        }
+        List<T> itens = new ArrayList<>();
+        beginArray();
+        while (hasNext()) {
+            itens.add(item.read(this));
+        }
+        endArray();
+        return itens;
+    }
+
+    /** Pula o próximo valor inteiro, com o que houver dentro dele. */
+    public void skipValue() {
+        byte c = proximo();
+        if (c == '"') {
+            pularTexto();
+        } else if (c == '{' || c == '[') {
+            int profundidade = 0;
+            do {
+                c = buf[pos];
+                if (c == '"') {
+                    pularTexto();
+                    continue;
+                }
+                if (c == '{' || c == '[') {
+                    profundidade++;
+                } else if (c == '}' || c == ']') {
+                    profundidade--;
+                }
+                pos++;
+            } while (profundidade > 0 && pos < fim);
+            if (profundidade > 0) {
+                throw erro("objeto/array sem fim");
+            }
+        } else {
+            pularLiteral();
+        }
+        depoisDeValor = true;
+    }
+
+    /** Confere que só sobrou espaço em branco depois do valor lido. */
+    public void end() {
+        pularEspacos();
+        if (pos < fim) {
+            throw erro("conteúdo depois do fim do JSON");
+        }
+    }
+
+    private void pularTexto() {
+        pos++;
+        while (pos < fim && buf[pos] != '"') {
+            pos += buf[pos] == '\\' ? 2 : 1;
+        }
+        if (pos >= fim) {
+            throw erro("texto sem fim");
+        }
+        pos++;
+    }
+
+    private void pularLiteral() {
+        int inicio = pos;
+        while (pos < fim) {
+            byte c = buf[pos];
+            if (c == ',' || c == '}' || c == ']' || c == '"' || c == ' ' || c == '\n' || c == '\r' || c == '\t') {
+                break;
+            }
+            pos++;
+        }
+        if (pos == inicio) {
+            throw erro("esperado um valor");
+        }
+    }
+
+    private boolean abrirAspas() {
+        proximo();
+        if (buf[pos] == '"') {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    private void fecharAspas(boolean aspas) {
+        if (aspas) {
+            if (pos >= fim || buf[pos] != '"') {
+                throw erro("esperado '\"'");
+            }
+            pos++;
+        }
+        depoisDeValor = true;
+    }
+
+    private void literal(String esperado) {
+        int tamanho = esperado.length();
+        if (pos + tamanho > fim) {
+            throw erro("esperado " + esperado);
+        }
+        for (int i = 0; i < tamanho; i++) {
+            if (buf[pos + i] != esperado.charAt(i)) {
+                throw erro("esperado " + esperado);
+            }
+        }
+        pos += tamanho;
+    }
+
+    private void esperar(char c) {
+        if (proximo() != c) {
+            throw erro("esperado '" + c + "'");
+        }
+        pos++;
+    }
+
+    private byte proximo() {
+        pularEspacos();
+        if (pos >= fim) {
+            throw erro("fim inesperado do JSON");
+        }
+        return buf[pos];
+    }
+
+    private void pularEspacos() {
+        while (pos < fim) {
+            byte c = buf[pos];
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+                return;
+            }
+            pos++;
+        }
+    }
+
+    private IllegalStateException erro(String mensagem) {
+        return new IllegalStateException("JSON inválido na posição " + pos + ": " + mensagem);
+    }
+}
@@ -0,0 +1,21 @@
+package br.com.bferreira.rest.mapping;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Gera, na compilação, um {@link JsonMapper} {@code <Classe>Mapper} no mesmo pacote, que lê
+ * o JSON em streaming direto para a classe, sem árvore intermediária e sem reflexão. A
+ * classe precisa de um construtor sem argumentos não privado; cada campo não estático, não
+ * final e não transient é preenchido direto (se não for privado) ou pelo setter {@code setCampo}.
+ *
+ * <p>Tipos suportados nos campos: primitivos e wrappers numéricos/booleanos, String,
+ * BigDecimal, outras classes com {@code @JsonMapped} e List/Collection desses tipos. A
+ * chave no JSON é o nome do campo; chaves desconhecidas são puladas.</p>
+ */
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface JsonMapped {
+}
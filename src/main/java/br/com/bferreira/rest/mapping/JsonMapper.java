@@ -0,0 +1,17 @@
+package br.com.bferreira.rest.mapping;
+
+import java.util.List;
+
+/** Leitor de JSON para um tipo, gerado pelo processador de {@link JsonMapped}. */
+public interface JsonMapper<T> {
+
+    Class<T> type();
+
+    /** Lê o próximo valor (um objeto, ou null). */
+    T read(JsonInput in);
+
+    /** Lê o próximo valor como um array de objetos (null vira null). */
+    default List<T> readList(JsonInput in) {
+        return in.nextList(this::read);
+    }
+}
@@ -0,0 +1,132 @@
+package br.com.bferreira.rest.mapping;
+
+import io.restassured.RestAssured;
+import io.restassured.config.ObjectMapperConfig;
+import io.restassured.config.RestAssuredConfig;
+import io.restassured.internal.mapping.ObjectMapping;
+import io.restassured.mapper.ObjectMapper;
+import io.restassured.mapper.ObjectMapperDeserializationContext;
+import io.restassured.mapper.ObjectMapperSerializationContext;
+import io.restassured.response.ResponseBodyExtractionOptions;
+
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+
+/**
+ * Registro dos mappers gerados para as classes com {@link JsonMapped}, carregados uma vez
+ * pelo {@link ServiceLoader}. Lê o corpo da resposta direto dos bytes, pelo {@link JsonInput},
+ * sem passar pela String do corpo, pelo JsonPath nem pelo Gson reflexivo:
+ *
+ * <pre>
+ * User user = Mappers.as(get("/users/1"), User.class);
+ * List&lt;User&gt; users = Mappers.asList(get("/users"), User.class);
+ * User mesmo = get("/users/1").as(User.class, Mappers.objectMapper());
+ * </pre>
+ */
+public final class Mappers {
+
+    private static final Map<Class<?>, JsonMapper<?>> MAPPERS = carregar();
+    private static final ObjectMapper OBJECT_MAPPER = new GeneratedObjectMapper();
+
+    private Mappers() {
+    }
+
+    private static Map<Class<?>, JsonMapper<?>> carregar() {
+        Map<Class<?>, JsonMapper<?>> mappers = new HashMap<>();
+        for (JsonMapper<?> mapper : ServiceLoader.load(JsonMapper.class, Mappers.class.getClassLoader())) {
+            mappers.put(mapper.type(), mapper);
+        }
+        return Collections.unmodifiableMap(mappers);
+    }
+
+    /** Mapper gerado para a classe; IllegalArgumentException se ela não tem {@link JsonMapped}. */
+    @SuppressWarnings("unchecked")
+    public static <T> JsonMapper<T> forType(Class<T> tipo) {
+        JsonMapper<T> mapper = (JsonMapper<T>) MAPPERS.get(tipo);
+        if (mapper == null) {
+            throw new IllegalArgumentException("Sem mapper gerado para " + tipo.getName() + " (falta @JsonMapped?)");
+        }
+        return mapper;
+    }
+
+    public static boolean supports(Class<?> tipo) {
+        return MAPPERS.containsKey(tipo);
+    }
+
+    public static Collection<Class<?>> types() {
+        return MAPPERS.keySet();
+    }
+
+    public static <T> T as(ResponseBodyExtractionOptions corpo, Class<T> tipo) {
+        return read(corpo.asByteArray(), tipo);
+    }
+
+    public static <T> List<T> asList(ResponseBodyExtractionOptions corpo, Class<T> tipo) {
+        return readList(corpo.asByteArray(), tipo);
+    }
+
+    public static <T> T read(byte[] json, Class<T> tipo) {
+        JsonInput in = new JsonInput(json);
+        T valor = forType(tipo).read(in);
+        in.end();
+        return valor;
+    }
+
+    public static <T> List<T> readList(byte[] json, Class<T> tipo) {
+        JsonInput in = new JsonInput(json);
+        List<T> valores = forType(tipo).readList(in);
+        in.end();
+        return valores;
+    }
+
+    /**
+     * ObjectMapper do RestAssured para {@code as(User.class, ...)} e
+     * {@code as(new TypeRef<List<User>>(){}.getType(), ...)}. Os mappers gerados só leem;
+     * a serialização vai para o mapper que o RestAssured usaria sem ele.
+     */
+    public static ObjectMapper objectMapper() {
+        return OBJECT_MAPPER;
+    }
+
+    private static final class GeneratedObjectMapper implements ObjectMapper {
+
+        @Override
+        public Object deserialize(ObjectMapperDeserializationContext contexto) {
+            Type tipo = contexto.getType();
+            byte[] corpo = contexto.getDataToDeserialize().asByteArray();
+            if (tipo instanceof Class) {
+                return read(corpo, (Class<?>) tipo);
+            }
+            if (tipo instanceof ParameterizedType) {
+                ParameterizedType parametrizado = (ParameterizedType) tipo;
+                Type[] argumentos = parametrizado.getActualTypeArguments();
+                if (parametrizado.getRawType() instanceof Class
+                        && ((Class<?>) parametrizado.getRawType()).isAssignableFrom(List.class)
+                        && argumentos.length == 1 && argumentos[0] instanceof Class) {
+                    return readList(corpo, (Class<?>) argumentos[0]);
+                }
+            }
+            throw new IllegalArgumentException("Tipo não suportado pelos mappers gerados: " + tipo.getTypeName());
+        }
+
+        @Override
+        public Object serialize(ObjectMapperSerializationContext contexto) {
+            RestAssuredConfig config = RestAssured.config();
+            ObjectMapperConfig mappers = config.getObjectMapperConfig();
+            if (mappers.hasDefaultObjectMapper() && mappers.defaultObjectMapper() == this) {
+                //registrado como padrão: volta para a escolha pelo classpath, senão seria recursivo
+                mappers = ObjectMapperConfig.objectMapperConfig()
+                        .gsonObjectMapperFactory(mappers.gsonObjectMapperFactory())
+                        .jackson2ObjectMapperFactory(mappers.jackson2ObjectMapperFactory());
+            }
+            return ObjectMapping.serialize(contexto.getObjectToSerialize(), contexto.getContentType(), contexto.getCharset(),
+                    null, mappers, config.getEncoderConfig());
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package br.com.bferreira.rest.mapping.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Gera o {@code <Classe>Mapper} de cada classe com {@code @JsonMapped} e, no fim, o arquivo
+ * de serviço que o {@code Mappers} lê, somando as entradas que já estavam nele (numa compilação
+ * incremental só as classes alteradas passam pelo processador). O código gerado é um switch sobre o índice do campo
+ * que o {@code JsonInput} acha comparando bytes; erros de tipo saem como erro de compilação.
+ */
+@SupportedAnnotationTypes(JsonMapperProcessor.ANOTACAO)
+public final class JsonMapperProcessor extends AbstractProcessor {
+
+    static final String ANOTACAO = "br.com.bferreira.rest.mapping.JsonMapped";
+    private static final String SERVICO = "META-INF/services/br.com.bferreira.rest.mapping.JsonMapper";
+    private static final String ENTRADA = "br.com.bferreira.rest.mapping.JsonInput";
+    private static final String LEITURA_MAPEADA = ".INSTANCE.read(in)";
+
+    private final Set<String> gerados = new TreeSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> anotacoes, RoundEnvironment rodada) {
+        if (rodada.processingOver()) {
+            escreverServico();
+            return false;
+        }
+        TypeElement anotacao = processingEnv.getElementUtils().getTypeElement(ANOTACAO);
+        if (anotacao == null) {
+            return false;
+        }
+        for (Element elemento : rodada.getElementsAnnotatedWith(anotacao)) {
+            if (elemento.getKind() != ElementKind.CLASS) {
+                erro(elemento, "@JsonMapped só vale para classes");
+                continue;
+            }
+            gerar((TypeElement) elemento);
+        }
+        return true;
+    }
+
+    private void gerar(TypeElement classe) {
+        if (!construtorVisivel(classe)) {
+            erro(classe, "@JsonMapped precisa de um construtor sem argumentos não privado");
+            return;
+        }
+        String pacote = processingEnv.getElementUtils().getPackageOf(classe).getQualifiedName().toString();
+        String tipo = classe.getQualifiedName().toString();
+        String nome = nomeDoMapper(classe);
+        StringBuilder casos = new StringBuilder();
+        StringBuilder nomes = new StringBuilder();
+        List<VariableElement> campos = campos(classe);
+        for (int i = 0; i < campos.size(); i++) {
+            VariableElement campo = campos.get(i);
+            String atribuicao = atribuicao(classe, campo);
+            if (atribuicao == null) {
+                return;
+            }
+            nomes.append(i == 0 ? "" : ", ").append('"').append(campo.getSimpleName()).append('"');
+            casos.append("                case ").append(i).append(":\n")
+                    .append("                    ").append(atribuicao).append('\n')
+                    .append("                    break;\n");
+        }
+        String fonte = (pacote.isEmpty() ? "" : "package " + pacote + ";\n\n")
+                + "// gerado pelo JsonMapperProcessor a partir de " + tipo + "; não edite\n"
+                + "public final class " + nome + " implements br.com.bferreira.rest.mapping.JsonMapper<" + tipo + "> {\n\n"
+                + "    public static final " + nome + " INSTANCE = new " + nome + "();\n\n"
+                + "    private static final byte[][] CAMPOS = " + ENTRADA + ".names(" + nomes + ");\n\n"
+                + "    @Override\n"
+                + "    public Class<" + tipo + "> type() {\n"
+                + "        return " + tipo + ".class;\n"
+                + "    }\n\n"
+                + "    @Override\n"
+                + "    public " + tipo + " read(" + ENTRADA + " in) {\n"
+                + "        if (in.isNull()) {\n"
+                + "            return null;\n"
+                + "        }\n"
+                + "        " + tipo + " valor = new " + tipo + "();\n"
+                + "        in.beginObject();\n"
+                + "        while (in.hasNext()) {\n"
+                + "            switch (in.nextField(CAMPOS)) {\n"
+                + casos
+                + "                default:\n"
+                + "                    in.skipValue();\n"
+                + "            }\n"
+                + "        }\n"
+                + "        in.endObject();\n"
+                + "        return valor;\n"
+                + "    }\n"
+                + "}\n";
+        String qualificado = pacote.isEmpty() ? nome : pacote + "." + nome;
+        try (Writer saida = processingEnv.getFiler().createSourceFile(qualificado, classe).openWriter()) {
+            saida.write(fonte);
+        } catch (IOException e) {
+            erro(classe, "não foi possível gerar " + qualificado + ": " + e);
+            return;
+        }
+        gerados.add(qualificado);
+    }
+
+    private List<VariableElement> campos(TypeElement classe) {
+        List<VariableElement> campos = new ArrayList<>();
+        for (VariableElement campo : ElementFilter.fieldsIn(classe.getEnclosedElements())) {
+            Set<Modifier> modificadores = campo.getModifiers();
+            if (!modificadores.contains(Modifier.STATIC) && !modificadores.contains(Modifier.TRANSIENT)
+                    && !modificadores.contains(Modifier.FINAL)) {
+                campos.add(campo);
+            }
+        }
+        return campos;
+    }
+
+    //direto no campo quando dá; senão pelo setter
+    private String atribuicao(TypeElement classe, VariableElement campo) {
+        String leitura = leitura(campo.asType());
+        if (leitura == null) {
+            erro(campo, "tipo não suportado pelo @JsonMapped: " + campo.asType());
+            return null;
+        }
+        Set<Modifier> modificadores = campo.getModifiers();
+        if (!modificadores.contains(Modifier.PRIVATE)) {
+            return "valor." + campo.getSimpleName() + " = " + leitura + ";";
+        }
+        String nome = campo.getSimpleName().toString();
+        String setter = "set" + Character.toUpperCase(nome.charAt(0)) + nome.substring(1);
+        for (ExecutableElement metodo : ElementFilter.methodsIn(classe.getEnclosedElements())) {
+            if (metodo.getSimpleName().contentEquals(setter) && metodo.getParameters().size() == 1
+                    && !metodo.getModifiers().contains(Modifier.PRIVATE)
+                    && !metodo.getModifiers().contains(Modifier.STATIC)
+                    && processingEnv.getTypeUtils().isSameType(metodo.getParameters().get(0).asType(), campo.asType())) {
+                return "valor." + setter + "(" + leitura + ");";
+            }
+        }
+        erro(campo, "campo privado sem " + setter + "(" + campo.asType() + ") visível");
+        return null;
+    }
+
+    private String leitura(TypeMirror tipo) {
+        switch (tipo.getKind()) {
+            case INT:
+                return "in.nextInt()";
+            case LONG:
+                return "in.nextLong()";
+            case SHORT:
+                return "in.nextShort()";
+            case DOUBLE:
+                return "in.nextDouble()";
+            case FLOAT:
+                return "in.nextFloat()";
+            case BOOLEAN:
+                return "in.nextBoolean()";
+            case DECLARED:
+                return leituraDeclarada((DeclaredType) tipo);
+            default:
+                return null;
+        }
+    }
+
+    private String leituraDeclarada(DeclaredType tipo) {
+        TypeElement elemento = (TypeElement) tipo.asElement();
+        switch (elemento.getQualifiedName().toString()) {
+            case "java.lang.String":
+                return "in.nextString()";
+            case "java.lang.Integer":
+                return "in.nextIntegerOrNull()";
+            case "java.lang.Long":
+                return "in.nextLongOrNull()";
+            case "java.lang.Short":
+                return "in.nextShortOrNull()";
+            case "java.lang.Double":
+                return "in.nextDoubleOrNull()";
+            case "java.lang.Float":
+                return "in.nextFloatOrNull()";
+            case "java.lang.Boolean":
+                return "in.nextBooleanOrNull()";
+            case "java.math.BigDecimal":
+                return "in.nextBigDecimal()";
+            case "java.util.List":
+            case "java.util.Collection":
+                return leituraDeLista(tipo);
+            default:
+                if (elemento.getAnnotationMirrors().stream().anyMatch(a ->
+                        ((TypeElement) a.getAnnotationType().asElement()).getQualifiedName().contentEquals(ANOTACAO))) {
+                    PackageElement pacote = processingEnv.getElementUtils().getPackageOf(elemento);
+                    String prefixo = pacote.isUnnamed() ? "" : pacote.getQualifiedName() + ".";
+                    return prefixo + nomeDoMapper(elemento) + LEITURA_MAPEADA;
+                }
+                return null;
+        }
+    }
+
+    //listas de objetos com @JsonMapped usam o readList do mapper; as de valores simples, o nextList do JsonInput
+    private String leituraDeLista(DeclaredType tipo) {
+        if (tipo.getTypeArguments().size() != 1 || tipo.getTypeArguments().get(0).getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+        String leituraDoItem = leituraDeclarada((DeclaredType) tipo.getTypeArguments().get(0));
+        if (leituraDoItem == null || leituraDoItem.startsWith("in.nextList(")) {
+            return null;
+        }
+        if (leituraDoItem.endsWith(LEITURA_MAPEADA)) {
+            return leituraDoItem.substring(0, leituraDoItem.length() - LEITURA_MAPEADA.length()) + ".INSTANCE.readList(in)";
+        }
+        String metodo = leituraDoItem.substring("in.".length(), leituraDoItem.length() - "()".length());
+        return "in.nextList(" + ENTRADA + "::" + metodo + ")";
+    }
+
+    private static String nomeDoMapper(TypeElement classe) {
+        StringBuilder nome = new StringBuilder(classe.getSimpleName());
+        for (Element externo = classe.getEnclosingElement(); externo instanceof TypeElement; externo = externo.getEnclosingElement()) {
+            nome.insert(0, externo.getSimpleName() + "_");
+        }
+        return nome.append("Mapper").toString();
+    }
+
+    private static boolean construtorVisivel(TypeElement classe) {
+        if (classe.getModifiers().contains(Modifier.ABSTRACT)
+                || classe.getNestingKind().isNested() && !classe.getModifiers().contains(Modifier.STATIC)) {
+            return false;
+        }
+        for (ExecutableElement construtor : ElementFilter.constructorsIn(classe.getEnclosedElements())) {
+            if (construtor.getParameters().isEmpty() && !construtor.getModifiers().contains(Modifier.PRIVATE)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void escreverServico() {
+        if (gerados.isEmpty()) {
+            return;
+        }
+        Set<String> mappers = new TreeSet<>(gerados);
+        try {
+            FileObject existente = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", SERVICO);
+            try (BufferedReader entrada = new BufferedReader(existente.openReader(true))) {
+                for (String linha; (linha = entrada.readLine()) != null; ) {
+                    if (!linha.trim().isEmpty()) {
+                        mappers.add(linha.trim());
+                    }
+                }
+            }
+        } catch (IOException e) {
+            //primeira compilação: ainda não há arquivo de serviço
+        }
+        try {
+            FileObject arquivo = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", SERVICO);
+            try (Writer saida = arquivo.openWriter()) {
+                for (String mapper : mappers) {
+                    saida.write(mapper);
+                    saida.write('\n');
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "não foi possível escrever " + SERVICO + ": " + e);
+        }
+    }
+
+    private void erro(Element elemento, String mensagem) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, mensagem, elemento);
+    }
+}
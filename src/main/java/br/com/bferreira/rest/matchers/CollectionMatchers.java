@@ -0,0 +1,229 @@
+package br.com.bferreira.rest.matchers;
+
+import org.hamcrest.BaseMatcher;
+import org.hamcrest.Description;
+import org.hamcrest.Matcher;
+import org.hamcrest.Matchers;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Substitutos do {@code hasItem}, {@code hasItems}, {@code contains} e
+ * {@code containsInAnyOrder} do Hamcrest para listas grandes. Os do Hamcrest comparam cada
+ * valor esperado com a lista inteira através de um {@code IsEqual} (n·m comparações); estes
+ * indexam a lista (ou, no {@code containsInAnyOrder}, os esperados) uma vez por verificação
+ * num {@link HashSet}, ou num {@link LongMultiset} quando todos os esperados são
+ * {@link Integer} ou {@link Long} (ids, idades), e consultam o índice. A igualdade é a mesma do Hamcrest ({@code equals}, sem converter tipos numéricos)
+ * e a descrição e as mensagens de falha vêm do próprio matcher do Hamcrest. Basta trocar o
+ * import estático:
+ *
+ * <pre>
+ * import static br.com.bferreira.rest.matchers.CollectionMatchers.*;
+ *
+ * .body("id", hasItems(idsEsperados.toArray()))
+ * </pre>
+ *
+ * Esperados que são arrays (comparados elemento a elemento pelo Hamcrest) ficam com o
+ * matcher original.
+ */
+public final class CollectionMatchers {
+
+    private CollectionMatchers() {
+    }
+
+    /** Como o {@link Matchers#hasItem(Object)}: uma passada com {@code equals}, sem índice. */
+    public static <T> Matcher<Iterable<? super T>> hasItem(T item) {
+        Matcher<Iterable<? super T>> original = Matchers.hasItem(item);
+        return temArray(item) ? original : new Indexado<>(original, Modo.ALGUM, new Object[]{item});
+    }
+
+    /** Como o {@link Matchers#hasItems(Object[])}. */
+    @SafeVarargs
+    public static <T> Matcher<Iterable<T>> hasItems(T... items) {
+        Matcher<Iterable<T>> original = Matchers.hasItems(items);
+        return temArray(items) ? original : new Indexado<>(original, Modo.TODOS, items.clone());
+    }
+
+    /** Como o {@link Matchers#contains(Object[])}: mesmos itens, na mesma ordem. */
+    @SafeVarargs
+    public static <E> Matcher<Iterable<? extends E>> contains(E... items) {
+        Matcher<Iterable<? extends E>> original = Matchers.contains(items);
+        //sem itens, o do Hamcrest recusa a verificação com IllegalArgumentException
+        return items.length == 0 || temArray(items) ? original : new Indexado<>(original, Modo.EM_ORDEM, items.clone());
+    }
+
+    /** Como o {@link Matchers#containsInAnyOrder(Object[])}: mesmos itens, repetições inclusive, em qualquer ordem. */
+    @SafeVarargs
+    public static <T> Matcher<Iterable<? extends T>> containsInAnyOrder(T... items) {
+        Matcher<Iterable<? extends T>> original = Matchers.containsInAnyOrder(items);
+        return temArray(items) ? original : new Indexado<>(original, Modo.QUALQUER_ORDEM, items.clone());
+    }
+
+    private static boolean temArray(Object... itens) {
+        for (Object item : itens) {
+            if (item != null && item.getClass().isArray()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private enum Modo { ALGUM, TODOS, EM_ORDEM, QUALQUER_ORDEM }
+
+    private static final class Indexado<T> extends BaseMatcher<T> {
+
+        private final Matcher<T> original;
+        private final Modo modo;
+        private final Object[] esperados;
+        /** {@link Integer} ou {@link Long} quando todos os esperados são desse tipo; senão null. */
+        private final Class<?> numerico;
+
+        private Indexado(Matcher<T> original, Modo modo, Object[] esperados) {
+            this.original = original;
+            this.modo = modo;
+            this.esperados = esperados;
+            this.numerico = numerico(esperados);
+        }
+
+        @Override
+        public boolean matches(Object item) {
+            if (!(item instanceof Iterable)) {
+                return false;
+            }
+            Iterable<?> lista = (Iterable<?>) item;
+            switch (modo) {
+                case ALGUM:
+                    return algum(lista, esperados[0]);
+                case EM_ORDEM:
+                    return emOrdem(lista);
+                case TODOS:
+                    return esperados.length == 1 ? algum(lista, esperados[0]) : todos(lista);
+                default:
+                    return qualquerOrdem(lista);
+            }
+        }
+
+        @Override
+        public void describeTo(Description description) {
+            original.describeTo(description);
+        }
+
+        @Override
+        public void describeMismatch(Object item, Description description) {
+            original.describeMismatch(item, description);
+        }
+
+        private static boolean algum(Iterable<?> lista, Object esperado) {
+            for (Object elemento : lista) {
+                if (igual(elemento, esperado)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean emOrdem(Iterable<?> lista) {
+            Iterator<?> elementos = lista.iterator();
+            for (Object esperado : esperados) {
+                if (!elementos.hasNext() || !igual(elementos.next(), esperado)) {
+                    return false;
+                }
+            }
+            return !elementos.hasNext();
+        }
+
+        private boolean todos(Iterable<?> lista) {
+            if (esperados.length == 0) {
+                return true;
+            }
+            if (numerico != null) {
+                LongMultiset indice = new LongMultiset(tamanho(lista));
+                for (Object elemento : lista) {
+                    if (elemento != null && elemento.getClass() == numerico) {
+                        indice.add(((Number) elemento).longValue());
+                    }
+                }
+                for (Object esperado : esperados) {
+                    if (!indice.contains(((Number) esperado).longValue())) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+            Set<Object> indice = new HashSet<>(Math.max(16, tamanho(lista) * 4 / 3 + 1));
+            for (Object elemento : lista) {
+                indice.add(elemento);
+            }
+            for (Object esperado : esperados) {
+                if (!indice.contains(esperado)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean qualquerOrdem(Iterable<?> lista) {
+            if (lista instanceof Collection && ((Collection<?>) lista).size() != esperados.length) {
+                return false;
+            }
+            //os esperados são poucos perto da lista: o índice é deles, e a lista passa uma vez por ele
+            int encontrados = 0;
+            if (numerico != null) {
+                LongMultiset indice = new LongMultiset(esperados.length);
+                for (Object esperado : esperados) {
+                    indice.add(((Number) esperado).longValue());
+                }
+                for (Object elemento : lista) {
+                    if (elemento == null || elemento.getClass() != numerico || !indice.remove(((Number) elemento).longValue())) {
+                        return false;
+                    }
+                    encontrados++;
+                }
+                return encontrados == esperados.length;
+            }
+            Map<Object, int[]> indice = new HashMap<>(Math.max(16, esperados.length * 4 / 3 + 1));
+            for (Object esperado : esperados) {
+                indice.computeIfAbsent(esperado, chave -> new int[1])[0]++;
+            }
+            for (Object elemento : lista) {
+                int[] restantes = indice.get(elemento);
+                if (restantes == null || restantes[0] == 0) {
+                    return false;
+                }
+                restantes[0]--;
+                encontrados++;
+            }
+            return encontrados == esperados.length;
+        }
+
+        /** A igualdade do {@code IsEqual} para valores que não são arrays. */
+        private static boolean igual(Object atual, Object esperado) {
+            return atual == null ? esperado == null : atual.equals(esperado);
+        }
+
+        private static int tamanho(Iterable<?> lista) {
+            return lista instanceof Collection ? ((Collection<?>) lista).size() : 16;
+        }
+
+        private static Class<?> numerico(Object[] esperados) {
+            if (esperados.length == 0 || esperados[0] == null) {
+                return null;
+            }
+            Class<?> tipo = esperados[0].getClass();
+            if (tipo != Integer.class && tipo != Long.class) {
+                return null;
+            }
+            for (Object esperado : esperados) {
+                if (esperado == null || esperado.getClass() != tipo) {
+                    return null;
+                }
+            }
+            return tipo;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package br.com.bferreira.rest.matchers;
+
+/**
+ * Contagem de valores {@code long} em endereçamento aberto, sem caixas nem nós de
+ * {@link java.util.HashMap}: ids e idades de uma lista de 10^5 elementos cabem em dois arrays.
+ * Uma posição com 0 está livre; ocupada, guarda a quantidade + 1, para a remoção não abrir
+ * buracos no meio das sondagens.
+ */
+final class LongMultiset {
+
+    private long[] chaves;
+    private int[] quantidades;
+    private int ocupadas;
+
+    LongMultiset(int esperado) {
+        int capacidade = Integer.highestOneBit(Math.max(8, esperado) * 2 - 1) << 1;
+        chaves = new long[capacidade];
+        quantidades = new int[capacidade];
+    }
+
+    void add(long chave) {
+        int posicao = posicao(chave);
+        if (quantidades[posicao] == 0) {
+            chaves[posicao] = chave;
+            quantidades[posicao] = 1;
+            if (++ocupadas * 2 > chaves.length) {
+                crescer();
+                posicao = posicao(chave);
+            }
+        }
+        quantidades[posicao]++;
+    }
+
+    boolean contains(long chave) {
+        return quantidades[posicao(chave)] != 0;
+    }
+
+    /** Tira uma ocorrência; false se não havia nenhuma. */
+    boolean remove(long chave) {
+        int posicao = posicao(chave);
+        if (quantidades[posicao] <= 1) {
+            return false;
+        }
+        quantidades[posicao]--;
+        return true;
+    }
+
+    /** Posição da chave, ou a livre onde ela entraria. */
+    private int posicao(long chave) {
+        int mascara = chaves.length - 1;
+        long h = chave * 0x9E3779B97F4A7C15L;
+        int posicao = (int) (h ^ h >>> 32) & mascara;
+        while (quantidades[posicao] != 0 && chaves[posicao] != chave) {
+            posicao = posicao + 1 & mascara;
+        }
+        return posicao;
+    }
+
+    private void crescer() {
+        long[] antigasChaves = chaves;
+        int[] antigasQuantidades = quantidades;
+        chaves = new long[antigasChaves.length * 2];
+        quantidades = new int[antigasChaves.length * 2];
+        for (int i = 0; i < antigasChaves.length; i++) {
+            if (antigasQuantidades[i] != 0) {
+                int posicao = posicao(antigasChaves[i]);
+                chaves[posicao] = antigasChaves[i];
+                quantidades[posicao] = antigasQuantidades[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package br.com.bferreira.rest.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Uma chamada de validação sobre a resposta ({@code body}, {@code statusCode}...). A
+ * primeira validação de corpo inclui o parse do documento pelo RestAssured.
+ */
+@Name("br.com.bferreira.rest.Assertion")
+@Label("Response Assertion")
+@Category({"REST Assured", "Validation"})
+@Description("Validação de uma resposta do RestAssured, com o parse do corpo quando é a primeira")
+class AssertionEvent extends Event {
+
+    @Label("Test Class")
+    String testClass;
+
+    @Label("Test Method")
+    String testMethod;
+
+    @Label("Endpoint")
+    String endpoint;
+
+    @Label("Assertion")
+    String assertion;
+
+    @Label("Passed")
+    boolean passed;
+}
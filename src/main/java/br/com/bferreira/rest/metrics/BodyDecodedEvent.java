@@ -0,0 +1,36 @@
+package br.com.bferreira.rest.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** Corpo de uma resposta lido até o fim: bytes que vieram pela rede contra os entregues ao parser. */
+@Name("br.com.bferreira.rest.BodyDecoded")
+@Label("Response Body Decoded")
+@Category({"REST Assured", "HTTP"})
+@Description("Corpo de resposta lido, com o Content-Encoding e os bytes na rede e decodificados")
+class BodyDecodedEvent extends Event {
+
+    @Label("Test Class")
+    String testClass;
+
+    @Label("Test Method")
+    String testMethod;
+
+    @Label("Endpoint")
+    String endpoint;
+
+    @Label("Content Encoding")
+    String encoding;
+
+    @Label("Wire Bytes")
+    @DataAmount
+    long wireBytes;
+
+    @Label("Decoded Bytes")
+    @DataAmount
+    long decodedBytes;
+}
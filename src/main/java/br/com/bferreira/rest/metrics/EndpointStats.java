@@ -0,0 +1,109 @@
+package br.com.bferreira.rest.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/** Somatórios de um endpoint (método, host e path com ids trocados por {@code {id}}). */
+final class EndpointStats {
+
+    final LongAdder requisicoes = new LongAdder();
+    final LongAdder erros = new LongAdder();
+    final LongAdder semRede = new LongAdder();
+    final LongAdder total = new LongAdder();
+    final LongAccumulator maximo = new LongAccumulator(Math::max, 0);
+    final LongAdder dns = new LongAdder();
+    final LongAdder conexao = new LongAdder();
+    final LongAdder tls = new LongAdder();
+    final LongAdder servidor = new LongAdder();
+    final LongAdder download = new LongAdder();
+    final LongAdder bytesEnviados = new LongAdder();
+    final LongAdder bytesRecebidos = new LongAdder();
+    final LongAdder validacoes = new LongAdder();
+    final LongAdder falhas = new LongAdder();
+    final LongAdder validacao = new LongAdder();
+    final LongAdder corpos = new LongAdder();
+    final LongAdder corposComprimidos = new LongAdder();
+    final LongAdder corpoNaRede = new LongAdder();
+    final LongAdder corpoDecodificado = new LongAdder();
+    final LongAdder[] politicas = new LongAdder[PolicyEvent.values().length];
+
+    EndpointStats() {
+        for (int i = 0; i < politicas.length; i++) {
+            politicas[i] = new LongAdder();
+        }
+    }
+
+    void requisicao(int status, long nanos, RequestTimings fases) {
+        requisicoes.increment();
+        if (status >= 400 || status == 0) {
+            erros.increment();
+        }
+        total.add(nanos);
+        maximo.accumulate(nanos);
+        dns.add(fases.dnsNanos());
+        conexao.add(fases.connectNanos());
+        tls.add(fases.tlsNanos());
+        servidor.add(fases.serverNanos());
+        download.add(fases.downloadNanos());
+        if (fases.bytesOut() < 0) {
+            semRede.increment();
+        } else {
+            bytesEnviados.add(fases.bytesOut());
+            bytesRecebidos.add(Math.max(0, fases.bytesIn()));
+        }
+    }
+
+    void validacao(long nanos, boolean passou) {
+        validacoes.increment();
+        validacao.add(nanos);
+        if (!passou) {
+            falhas.increment();
+        }
+    }
+
+    void corpo(boolean comprimido, long bytesNaRede, long bytesDecodificados) {
+        corpos.increment();
+        if (comprimido) {
+            corposComprimidos.increment();
+        }
+        corpoNaRede.add(bytesNaRede);
+        corpoDecodificado.add(bytesDecodificados);
+    }
+
+    void registrarPolitica(PolicyEvent evento) {
+        politicas[evento.ordinal()].increment();
+    }
+
+    long politica(PolicyEvent evento) {
+        return politicas[evento.ordinal()].sum();
+    }
+
+    Map<String, Long> snapshot() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("requests", requisicoes.sum());
+        stats.put("errors", erros.sum());
+        stats.put("offline", semRede.sum());
+        stats.put("totalNanos", total.sum());
+        stats.put("maxNanos", maximo.get());
+        stats.put("dnsNanos", dns.sum());
+        stats.put("connectNanos", conexao.sum());
+        stats.put("tlsNanos", tls.sum());
+        stats.put("serverNanos", servidor.sum());
+        stats.put("downloadNanos", download.sum());
+        stats.put("validationNanos", validacao.sum());
+        stats.put("assertions", validacoes.sum());
+        stats.put("assertionFailures", falhas.sum());
+        stats.put("bytesOut", bytesEnviados.sum());
+        stats.put("bytesIn", bytesRecebidos.sum());
+        stats.put("bodies", corpos.sum());
+        stats.put("compressedBodies", corposComprimidos.sum());
+        stats.put("bodyWireBytes", corpoNaRede.sum());
+        stats.put("bodyDecodedBytes", corpoDecodificado.sum());
+        for (PolicyEvent evento : PolicyEvent.values()) {
+            stats.put(evento.key(), politica(evento));
+        }
+        return stats;
+    }
+}
@@ -0,0 +1,64 @@
+package br.com.bferreira.rest.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/** Uma requisição do RestAssured, com o tempo de cada fase; a duração do evento é a da requisição inteira. */
+@Name("br.com.bferreira.rest.HttpExchange")
+@Label("HTTP Exchange")
+@Category({"REST Assured", "HTTP"})
+@Description("Requisição feita por um teste, com DNS, conexão, TLS, servidor e download")
+class HttpExchangeEvent extends Event {
+
+    @Label("Test Class")
+    String testClass;
+
+    @Label("Test Method")
+    String testMethod;
+
+    @Label("Endpoint")
+    String endpoint;
+
+    @Label("Status")
+    int status;
+
+    @Label("Reused Connection")
+    boolean reused;
+
+    @Label("Replayed")
+    @Description("Resposta servida sem rede (fita de gravações ou filtro)")
+    boolean offline;
+
+    @Label("DNS")
+    @Timespan(Timespan.NANOSECONDS)
+    long dns;
+
+    @Label("Connect")
+    @Timespan(Timespan.NANOSECONDS)
+    long connect;
+
+    @Label("TLS")
+    @Timespan(Timespan.NANOSECONDS)
+    long tls;
+
+    @Label("Server")
+    @Timespan(Timespan.NANOSECONDS)
+    long server;
+
+    @Label("Download")
+    @Timespan(Timespan.NANOSECONDS)
+    long download;
+
+    @Label("Bytes Out")
+    @DataAmount
+    long bytesOut;
+
+    @Label("Bytes In")
+    @DataAmount
+    long bytesIn;
+}
@@ -0,0 +1,28 @@
+package br.com.bferreira.rest.metrics;
+
+/** O que uma política de resiliência fez numa requisição; contado por endpoint no {@link RequestMetrics}. */
+public enum PolicyEvent {
+    /** Nova tentativa depois de uma falha ou de um status retentável. */
+    RETRY("retries"),
+    /** Tentativas esgotadas: a última falha foi devolvida ao teste. */
+    RETRIES_EXHAUSTED("retriesExhausted"),
+    CONNECT_TIMEOUT("connectTimeouts"),
+    READ_TIMEOUT("readTimeouts"),
+    /** Prazo total da requisição (todas as tentativas) esgotado. */
+    TOTAL_TIMEOUT("totalTimeouts"),
+    /** Segunda requisição enviada porque a primeira passou do atraso de hedge. */
+    HEDGE("hedges"),
+    /** A segunda requisição respondeu antes da primeira. */
+    HEDGE_WIN("hedgeWins");
+
+    private final String chave;
+
+    PolicyEvent(String chave) {
+        this.chave = chave;
+    }
+
+    /** Nome no {@link RequestMetrics#stats()}. */
+    public String key() {
+        return chave;
+    }
+}
@@ -0,0 +1,176 @@
+package br.com.bferreira.rest.metrics;
+
+import io.restassured.RestAssured;
+import io.restassured.filter.Filter;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tempo de cada fase das requisições dos testes (DNS, conexão, TLS, servidor, download e
+ * validação do {@code then()}), com bytes enviados e recebidos. Cada requisição vira um evento
+ * JFR {@code br.com.bferreira.rest.HttpExchange} e cada validação um
+ * {@code br.com.bferreira.rest.Assertion}, com a classe e o método do teste; o
+ * {@link #summary()} soma tudo por endpoint para o fim da suíte. Corpos lidos pelo
+ * {@link br.com.bferreira.rest.compression.ContentCoding} viram um
+ * {@code br.com.bferreira.rest.BodyDecoded}, com os bytes na rede e os decodificados.
+ *
+ * <p>As fases de rede vêm dos ganchos do {@link br.com.bferreira.rest.config.ConnectionPool};
+ * sem ele só o total e a validação são medidos. A leitura do corpo (parse do JSON/XML) entra
+ * na primeira validação que usa o corpo.</p>
+ */
+public final class RequestMetrics {
+
+    private static final Map<String, EndpointStats> ENDPOINTS = new ConcurrentHashMap<>();
+    private static final ThreadLocal<String[]> TESTE = ThreadLocal.withInitial(() -> new String[]{"", ""});
+    private static boolean instalado;
+
+    private RequestMetrics() {
+    }
+
+    /** Filtro para um {@code given().filter(...)} ou um spec. */
+    public static Filter filter() {
+        return new RequestMetricsFilter();
+    }
+
+    /** Instala o filtro nos filtros globais do RestAssured (uma vez por JVM). */
+    public static synchronized void install() {
+        if (!instalado) {
+            RestAssured.filters(filter());
+            instalado = true;
+        }
+    }
+
+    /** Teste que está rodando na thread; vai nos eventos JFR. {@code null} limpa. */
+    public static void currentTest(String classe, String metodo) {
+        if (classe == null) {
+            TESTE.remove();
+        } else {
+            TESTE.set(new String[]{classe, metodo == null ? "" : metodo});
+        }
+    }
+
+    /** Conta o que uma política de resiliência fez numa requisição ao endpoint de {@code uri}. */
+    public static void policyTriggered(String metodo, String uri, PolicyEvent evento) {
+        endpoint(normalizar(metodo, uri)).registrarPolitica(evento);
+    }
+
+    /**
+     * Corpo de resposta lido até o fim (ou fechado antes): {@code bytesNaRede} do corpo como veio
+     * pela conexão, com o Content-Encoding {@code codificacao}, e {@code bytesDecodificados} como
+     * chegou ao parser.
+     */
+    public static void bodyDecoded(String metodo, String uri, String codificacao, long bytesNaRede, long bytesDecodificados) {
+        String endpoint = normalizar(metodo, uri);
+        endpoint(endpoint).corpo(!"identity".equals(codificacao), bytesNaRede, bytesDecodificados);
+        BodyDecodedEvent evento = new BodyDecodedEvent();
+        if (evento.shouldCommit()) {
+            String[] teste = TESTE.get();
+            evento.testClass = teste[0];
+            evento.testMethod = teste[1];
+            evento.endpoint = endpoint;
+            evento.encoding = codificacao;
+            evento.wireBytes = bytesNaRede;
+            evento.decodedBytes = bytesDecodificados;
+            evento.commit();
+        }
+    }
+
+    /** Chave do endpoint de {@code uri} nos somatórios ({@code "GET localhost:8080/users/{id}"}). */
+    public static String endpointKey(String metodo, String uri) {
+        return normalizar(metodo, uri);
+    }
+
+    /** Somatórios por endpoint ({@code "GET localhost:8080/users/{id}"}). */
+    public static Map<String, Map<String, Long>> stats() {
+        Map<String, Map<String, Long>> stats = new LinkedHashMap<>();
+        ENDPOINTS.forEach((endpoint, somas) -> stats.put(endpoint, somas.snapshot()));
+        return stats;
+    }
+
+    /** Tabela por endpoint, do maior tempo total para o menor; médias em milissegundos. */
+    public static String summary() {
+        List<Map.Entry<String, EndpointStats>> linhas = new ArrayList<>(ENDPOINTS.entrySet());
+        linhas.sort(Comparator.comparingLong((Map.Entry<String, EndpointStats> linha) -> linha.getValue().total.sum()).reversed());
+        StringBuilder texto = new StringBuilder();
+        texto.append(String.format(Locale.ROOT, "%-48s %6s %5s %9s %9s %7s %7s %7s %8s %8s %9s %7s %10s %10s %15s %6s %7s %6s%n",
+                "endpoint", "req", "erro", "total ms", "max ms", "dns", "conexão", "tls", "servidor", "download",
+                "validação", "falhas", "bytes out", "bytes in", "corpo rede/dec", "retry", "timeout", "hedge"));
+        for (Map.Entry<String, EndpointStats> linha : linhas) {
+            EndpointStats s = linha.getValue();
+            long n = Math.max(1, s.requisicoes.sum());
+            texto.append(String.format(Locale.ROOT, "%-48s %6d %5d %9.1f %9.1f %7.2f %7.2f %7.2f %8.2f %8.2f %9.2f %7d %10d %10d %15s %6d %7d %6s%n",
+                    linha.getKey(), s.requisicoes.sum(), s.erros.sum(), ms(s.total.sum()), ms(s.maximo.get()),
+                    ms(s.dns.sum()) / n, ms(s.conexao.sum()) / n, ms(s.tls.sum()) / n, ms(s.servidor.sum()) / n,
+                    ms(s.download.sum()) / n, ms(s.validacao.sum()) / n, s.falhas.sum(),
+                    s.bytesEnviados.sum(), s.bytesRecebidos.sum(), s.corpoNaRede.sum() + "/" + s.corpoDecodificado.sum(),
+                    s.politica(PolicyEvent.RETRY),
+                    s.politica(PolicyEvent.CONNECT_TIMEOUT) + s.politica(PolicyEvent.READ_TIMEOUT) + s.politica(PolicyEvent.TOTAL_TIMEOUT),
+                    s.politica(PolicyEvent.HEDGE_WIN) + "/" + s.politica(PolicyEvent.HEDGE)));
+        }
+        return texto.toString();
+    }
+
+    /** Zera os somatórios. */
+    public static void reset() {
+        ENDPOINTS.clear();
+    }
+
+    static EndpointStats endpoint(String endpoint) {
+        return ENDPOINTS.computeIfAbsent(endpoint, chave -> new EndpointStats());
+    }
+
+    static String[] teste() {
+        return TESTE.get();
+    }
+
+    /** Método, host:porta e path com os segmentos numéricos trocados por {@code {id}}, para agrupar {@code /users/1} e {@code /users/2}. */
+    static String normalizar(String metodo, String uri) {
+        URI endereco;
+        try {
+            endereco = URI.create(uri);
+        } catch (IllegalArgumentException e) {
+            return metodo + " " + uri;
+        }
+        StringBuilder texto = new StringBuilder(metodo).append(' ');
+        if (endereco.getHost() != null) {
+            texto.append(endereco.getHost());
+            if (endereco.getPort() >= 0) {
+                texto.append(':').append(endereco.getPort());
+            }
+        }
+        String path = endereco.getRawPath();
+        if (path == null || path.isEmpty()) {
+            return texto.append('/').toString();
+        }
+        for (String segmento : path.split("/", -1)) {
+            if (segmento.isEmpty()) {
+                continue;
+            }
+            texto.append('/').append(numerico(segmento) ? "{id}" : segmento);
+        }
+        if (path.endsWith("/")) {
+            texto.append('/');
+        }
+        return texto.toString();
+    }
+
+    private static boolean numerico(String segmento) {
+        for (int i = 0; i < segmento.length(); i++) {
+            if (!Character.isDigit(segmento.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static double ms(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
@@ -0,0 +1,59 @@
+package br.com.bferreira.rest.metrics;
+
+import io.restassured.filter.FilterContext;
+import io.restassured.filter.OrderedFilter;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+
+/**
+ * Mede a requisição inteira (da fila de filtros para baixo) e as fases preenchidas pelo pool
+ * de conexões. Roda antes do log e da fita de gravações, para que as respostas da fita
+ * também sejam contadas (como {@code offline}).
+ */
+class RequestMetricsFilter implements OrderedFilter {
+
+    @Override
+    public Response filter(FilterableRequestSpecification requisicao, FilterableResponseSpecification resposta, FilterContext contexto) {
+        String endpoint = RequestMetrics.normalizar(requisicao.getMethod(), requisicao.getURI());
+        EndpointStats stats = RequestMetrics.endpoint(endpoint);
+        String[] teste = RequestMetrics.teste();
+        HttpExchangeEvent evento = new HttpExchangeEvent();
+        RequestTimings anterior = RequestTimings.iniciar();
+        RequestTimings fases = RequestTimings.atual();
+        int status = 0;
+        evento.begin();
+        long inicio = System.nanoTime();
+        try {
+            Response recebida = contexto.next(requisicao, resposta);
+            status = recebida.getStatusCode();
+            return TimedResponse.wrap(recebida, endpoint, stats, teste);
+        } finally {
+            long duracao = System.nanoTime() - inicio;
+            evento.end();
+            RequestTimings.encerrar(anterior);
+            stats.requisicao(status, duracao, fases);
+            if (evento.shouldCommit()) {
+                evento.testClass = teste[0];
+                evento.testMethod = teste[1];
+                evento.endpoint = endpoint;
+                evento.status = status;
+                evento.offline = fases.bytesOut() < 0;
+                evento.reused = !evento.offline && fases.reusedConnection();
+                evento.dns = fases.dnsNanos();
+                evento.connect = fases.connectNanos();
+                evento.tls = fases.tlsNanos();
+                evento.server = fases.serverNanos();
+                evento.download = fases.downloadNanos();
+                evento.bytesOut = Math.max(0, fases.bytesOut());
+                evento.bytesIn = Math.max(0, fases.bytesIn());
+                evento.commit();
+            }
+        }
+    }
+
+    @Override
+    public int getOrder() {
+        return LOWEST_PRECEDENCE - 2;
+    }
+}
@@ -0,0 +1,156 @@
+package br.com.bferreira.rest.metrics;
+
+import org.apache.http.HttpConnection;
+import org.apache.http.HttpConnectionMetrics;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpCoreContext;
+
+/**
+ * Fases da requisição em andamento na thread, preenchidas pelos ganchos do
+ * {@link br.com.bferreira.rest.config.ConnectionPool} (DNS, conexão, TLS, envio, cabeçalhos
+ * e corpo da resposta). Fora de uma requisição medida os ganchos não fazem nada. Tempos
+ * em nanossegundos; bytes contados na conexão, com headers. Redirecionamentos e desafios de
+ * autenticação somam as idas ao servidor.
+ */
+public final class RequestTimings {
+
+    private static final ThreadLocal<RequestTimings> ATUAL = new ThreadLocal<>();
+
+    private long dns;
+    private long aberturaConexao;
+    private long tls;
+    private long servidor;
+    private long download;
+    private long bytesEnviados = -1;
+    private long bytesRecebidos = -1;
+
+    private long enviadoEm;
+    private long cabecalhosEm;
+    private HttpConnectionMetrics metricas;
+    private long enviadosAntes;
+    private long recebidosAntes;
+
+    RequestTimings() {
+    }
+
+    /** Começa a medir uma requisição na thread; devolve a medição que estava em andamento (requisição feita dentro de outra). */
+    static RequestTimings iniciar() {
+        RequestTimings anterior = ATUAL.get();
+        ATUAL.set(new RequestTimings());
+        return anterior;
+    }
+
+    static RequestTimings atual() {
+        return ATUAL.get();
+    }
+
+    static void encerrar(RequestTimings anterior) {
+        if (anterior == null) {
+            ATUAL.remove();
+        } else {
+            ATUAL.set(anterior);
+        }
+    }
+
+    /** Tempo de resolução do nome do host. */
+    public static void resolucao(long nanos) {
+        RequestTimings medicao = ATUAL.get();
+        if (medicao != null) {
+            medicao.dns += nanos;
+        }
+    }
+
+    /** Tempo total de abertura da conexão (DNS, TCP e TLS). */
+    public static void conexao(long nanos) {
+        RequestTimings medicao = ATUAL.get();
+        if (medicao != null) {
+            medicao.aberturaConexao += nanos;
+        }
+    }
+
+    /** Tempo do handshake TLS. */
+    public static void handshake(long nanos) {
+        RequestTimings medicao = ATUAL.get();
+        if (medicao != null) {
+            medicao.tls += nanos;
+        }
+    }
+
+    /** A requisição está para ser escrita na conexão (já aberta ou reaproveitada). */
+    public static void enviando(HttpContext contexto) {
+        RequestTimings medicao = ATUAL.get();
+        if (medicao == null) {
+            return;
+        }
+        medicao.enviadoEm = System.nanoTime();
+        Object conexao = contexto.getAttribute(HttpCoreContext.HTTP_CONNECTION);
+        if (conexao instanceof HttpConnection) {
+            medicao.metricas = ((HttpConnection) conexao).getMetrics();
+            medicao.enviadosAntes = medicao.metricas.getSentBytesCount();
+            medicao.recebidosAntes = medicao.metricas.getReceivedBytesCount();
+        }
+    }
+
+    /** Linha de status e headers da resposta lidos: fim do tempo de servidor. */
+    public static void cabecalhosRecebidos() {
+        RequestTimings medicao = ATUAL.get();
+        if (medicao != null && medicao.enviadoEm != 0) {
+            medicao.cabecalhosEm = System.nanoTime();
+            medicao.servidor += medicao.cabecalhosEm - medicao.enviadoEm;
+            if (medicao.metricas != null) {
+                medicao.bytesEnviados = Math.max(0, medicao.bytesEnviados) + medicao.metricas.getSentBytesCount() - medicao.enviadosAntes;
+            }
+        }
+    }
+
+    /**
+     * Corpo da resposta lido (ou deixado para ler em streaming); {@code naoLidos} são os bytes
+     * do corpo que ainda vão passar pela conexão depois daqui.
+     */
+    public static void corpoLido(long naoLidos) {
+        RequestTimings medicao = ATUAL.get();
+        if (medicao != null && medicao.cabecalhosEm != 0) {
+            medicao.download += System.nanoTime() - medicao.cabecalhosEm;
+            if (medicao.metricas != null) {
+                medicao.bytesRecebidos = Math.max(0, medicao.bytesRecebidos)
+                        + medicao.metricas.getReceivedBytesCount() - medicao.recebidosAntes + Math.max(0, naoLidos);
+            }
+        }
+    }
+
+    public long dnsNanos() {
+        return dns;
+    }
+
+    /** Conexão TCP, sem DNS e sem TLS; 0 quando a conexão foi reaproveitada do pool. */
+    public long connectNanos() {
+        return Math.max(0, aberturaConexao - dns - tls);
+    }
+
+    public long tlsNanos() {
+        return tls;
+    }
+
+    /** Do envio da requisição até a chegada dos headers da resposta. */
+    public long serverNanos() {
+        return servidor;
+    }
+
+    public long downloadNanos() {
+        return download;
+    }
+
+    public boolean reusedConnection() {
+        return aberturaConexao == 0;
+    }
+
+    /** Bytes escritos na conexão, ou -1 se a requisição não foi para a rede. */
+    public long bytesOut() {
+        return bytesEnviados;
+    }
+
+    /** Bytes lidos da conexão, ou -1 se a requisição não foi para a rede. */
+    public long bytesIn() {
+        return bytesRecebidos;
+    }
+}
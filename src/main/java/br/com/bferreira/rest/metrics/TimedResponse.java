@@ -0,0 +1,104 @@
+package br.com.bferreira.rest.metrics;
+
+import io.restassured.response.Response;
+import io.restassured.response.ValidatableResponse;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+/**
+ * Embrulha a resposta devolvida ao teste para medir o {@code then()}: cada chamada de
+ * validação encadeada ({@code body}, {@code statusCode}...) vira um {@link AssertionEvent}
+ * e entra no tempo de validação do endpoint. O resto delega direto para a resposta.
+ */
+final class TimedResponse {
+
+    private TimedResponse() {
+    }
+
+    static Response wrap(Response resposta, String endpoint, EndpointStats stats, String[] teste) {
+        return (Response) Proxy.newProxyInstance(TimedResponse.class.getClassLoader(), new Class<?>[]{Response.class},
+                (proxy, metodo, argumentos) -> {
+                    if ("then".equals(metodo.getName()) && metodo.getParameterCount() == 0) {
+                        ValidatableResponse validacao = resposta.then();
+                        return medida(validacao, endpoint, stats, teste);
+                    }
+                    return invocar(resposta, metodo, argumentos);
+                });
+    }
+
+    private static ValidatableResponse medida(ValidatableResponse validacao, String endpoint, EndpointStats stats, String[] teste) {
+        ValidatableResponse[] proxy = new ValidatableResponse[1];
+        InvocationHandler medidor = (self, metodo, argumentos) -> {
+            if (!validacao(metodo)) {
+                Object resultado = invocar(validacao, metodo, argumentos);
+                return resultado == validacao ? proxy[0] : resultado;
+            }
+            AssertionEvent evento = new AssertionEvent();
+            evento.begin();
+            long inicio = System.nanoTime();
+            boolean passou = false;
+            try {
+                Object resultado = invocar(validacao, metodo, argumentos);
+                passou = true;
+                return resultado == validacao ? proxy[0] : resultado;
+            } finally {
+                stats.validacao(System.nanoTime() - inicio, passou);
+                evento.end();
+                if (evento.shouldCommit()) {
+                    evento.testClass = teste[0];
+                    evento.testMethod = teste[1];
+                    evento.endpoint = endpoint;
+                    evento.assertion = descricao(metodo, argumentos);
+                    evento.passed = passou;
+                    evento.commit();
+                }
+            }
+        };
+        proxy[0] = (ValidatableResponse) Proxy.newProxyInstance(TimedResponse.class.getClassLoader(),
+                new Class<?>[]{ValidatableResponse.class}, medidor);
+        return proxy[0];
+    }
+
+    //and(), assertThat(), log(), extract() etc. não validam nada
+    private static boolean validacao(Method metodo) {
+        switch (metodo.getName()) {
+            case "and":
+            case "assertThat":
+            case "using":
+            case "log":
+            case "extract":
+            case "rootPath":
+            case "root":
+            case "noRootPath":
+            case "noRoot":
+            case "appendRootPath":
+            case "appendRoot":
+            case "detachRootPath":
+            case "detachRoot":
+            case "toString":
+            case "hashCode":
+            case "equals":
+                return false;
+            default:
+                return true;
+        }
+    }
+
+    private static String descricao(Method metodo, Object[] argumentos) {
+        if (argumentos != null && argumentos.length > 0 && argumentos[0] instanceof String) {
+            return metodo.getName() + "(\"" + argumentos[0] + "\")";
+        }
+        return metodo.getName();
+    }
+
+    private static Object invocar(Object alvo, Method metodo, Object[] argumentos) throws Throwable {
+        try {
+            return metodo.invoke(alvo, argumentos);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
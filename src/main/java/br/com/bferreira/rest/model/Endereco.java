@@ -0,0 +1,31 @@
+package br.com.bferreira.rest.model;
+
+import br.com.bferreira.rest.mapping.JsonMapped;
+
+@JsonMapped
+public class Endereco {
+
+    private String rua;
+    private Integer numero;
+
+    public String getRua() {
+        return rua;
+    }
+
+    public void setRua(String rua) {
+        this.rua = rua;
+    }
+
+    public Integer getNumero() {
+        return numero;
+    }
+
+    public void setNumero(Integer numero) {
+        this.numero = numero;
+    }
+
+    @Override
+    public String toString() {
+        return "Endereco{rua=" + rua + ", numero=" + numero + "}";
+    }
+}
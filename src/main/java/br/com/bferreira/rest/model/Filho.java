@@ -0,0 +1,22 @@
+package br.com.bferreira.rest.model;
+
+import br.com.bferreira.rest.mapping.JsonMapped;
+
+@JsonMapped
+public class Filho {
+
+    private String name;
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    @Override
+    public String toString() {
+        return "Filho{name=" + name + "}";
+    }
+}
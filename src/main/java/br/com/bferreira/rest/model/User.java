@@ -0,0 +1,71 @@
+package br.com.bferreira.rest.model;
+
+import br.com.bferreira.rest.mapping.JsonMapped;
+
+import java.util.List;
+
+/** Usuário do /users; lido sem reflexão pelo {@code UserMapper} gerado. */
+@JsonMapped
+public class User {
+
+    private Integer id;
+    private String name;
+    private Integer age;
+    private Double salary;
+    private Endereco endereco;
+    private List<Filho> filhos;
+
+    public Integer getId() {
+        return id;
+    }
+
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Integer getAge() {
+        return age;
+    }
+
+    public void setAge(Integer age) {
+        this.age = age;
+    }
+
+    public Double getSalary() {
+        return salary;
+    }
+
+    public void setSalary(Double salary) {
+        this.salary = salary;
+    }
+
+    public Endereco getEndereco() {
+        return endereco;
+    }
+
+    public void setEndereco(Endereco endereco) {
+        this.endereco = endereco;
+    }
+
+    public List<Filho> getFilhos() {
+        return filhos;
+    }
+
+    public void setFilhos(List<Filho> filhos) {
+        this.filhos = filhos;
+    }
+
+    @Override
+    public String toString() {
+        return "User{id=" + id + ", name=" + name + ", age=" + age + ", salary=" + salary
+                + ", endereco=" + endereco + ", filhos=" + filhos + "}";
+    }
+}
@@ -0,0 +1,220 @@
+package br.com.bferreira.rest.ratelimit;
+
+import io.restassured.filter.FilterContext;
+import io.restassured.filter.OrderedFilter;
+import io.restassured.http.Header;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Limite de requisições por host ou por credencial, para APIs com cota (a do openweathermap
+ * é por {@code appid} e por minuto). Acima da cota as requisições não falham: esperam a vez
+ * e saem espaçadas, de modo que a vazão chega ao máximo permitido sem 429:
+ *
+ * <pre>
+ * RateLimiter cota = RateLimiter.create()
+ *         .perQueryParam("appid", 60, Duration.ofMinutes(1))
+ *         .perHost("swapi.dev", 10, Duration.ofSeconds(1));
+ *
+ * given().filter(cota)...
+ * </pre>
+ *
+ * Para a cota valer entre todos os testes, use uma instância só por API. A espera acontece
+ * num filtro, uma vez por requisição do teste: depois do cache HTTP (acertos não gastam cota),
+ * antes das métricas (a fila não conta como latência) e antes do HttpClient, então a requisição
+ * não segura conexão do pool enquanto espera, e as retentativas e o hedge de uma
+ * {@link br.com.bferreira.rest.resilience.ResiliencePolicy} nem veem a espera nem gastam outra
+ * ficha. Respostas da fita de gravações passam pela cota como as de verdade. Cada host ou valor
+ * de credencial tem o seu {@link TokenBucket}, sem lock; threads só disputam o mesmo CAS quando
+ * dividem a mesma cota. Uma requisição em mais de uma cota (host e credencial, por exemplo)
+ * reserva o mesmo instante de saída em todas elas.
+ *
+ * <p>As esperas são contadas por cota em {@link #stats()}. A cota é da JVM: partes da suíte em
+ * JVMs separadas precisam dividir o limite entre si.</p>
+ */
+public final class RateLimiter implements OrderedFilter {
+
+    private final List<Regra> regras = new CopyOnWriteArrayList<>();
+    private final Map<String, TokenBucket> baldes = new ConcurrentHashMap<>();
+
+    private RateLimiter() {
+    }
+
+    public static RateLimiter create() {
+        return new RateLimiter();
+    }
+
+    /** Até {@code permissoes} requisições por {@code periodo} ao host. */
+    public RateLimiter perHost(String host, int permissoes, Duration periodo) {
+        return regra(new Regra(Tipo.HOST, host.toLowerCase(Locale.ROOT), permissoes, periodo));
+    }
+
+    /** Até {@code permissoes} requisições por {@code periodo} para cada valor do parâmetro de query (ex.: a chave da API). */
+    public RateLimiter perQueryParam(String nome, int permissoes, Duration periodo) {
+        return regra(new Regra(Tipo.QUERY, nome, permissoes, periodo));
+    }
+
+    /** Até {@code permissoes} requisições por {@code periodo} para cada valor do cabeçalho (ex.: Authorization). */
+    public RateLimiter perHeader(String nome, int permissoes, Duration periodo) {
+        return regra(new Regra(Tipo.HEADER, nome, permissoes, periodo));
+    }
+
+    /**
+     * Por cota ({@code "host swapi.dev"}, {@code "appid 2bfc…"}): fichas reservadas, quantas
+     * esperaram, a espera somada e a maior, em nanos.
+     */
+    public Map<String, Map<String, Long>> stats() {
+        Map<String, Map<String, Long>> stats = new TreeMap<>();
+        baldes.forEach((chave, balde) -> {
+            Map<String, Long> linha = new TreeMap<>();
+            linha.put("acquired", balde.acquired());
+            linha.put("delayed", balde.delayed());
+            linha.put("waitNanos", balde.waitNanos());
+            linha.put("maxWaitNanos", balde.maxWaitNanos());
+            stats.put(chave, linha);
+        });
+        return stats;
+    }
+
+    @Override
+    public Response filter(FilterableRequestSpecification requisicao, FilterableResponseSpecification resposta, FilterContext contexto) {
+        long agora = System.nanoTime();
+        List<TokenBucket> cotas = new ArrayList<>(regras.size());
+        for (Regra regra : regras) {
+            String valor = regra.valor(requisicao);
+            if (valor != null) {
+                String chave = regra.chave(valor);
+                cotas.add(baldes.computeIfAbsent(chave, k -> regra.balde(agora)));
+            }
+        }
+        esperar(reservar(cotas, agora));
+        return contexto.next(requisicao, resposta);
+    }
+
+    /**
+     * Reserva uma ficha em cada cota para o mesmo instante de saída e devolve esse instante.
+     * Reservar cada cota no seu próximo horário e sair no mais tardio deixaria as outras com a
+     * ficha seguinte livre antes da saída, numa rajada de 2.
+     */
+    static long reservar(List<TokenBucket> cotas, long agora) {
+        while (true) {
+            long envio = agora;
+            for (TokenBucket balde : cotas) {
+                long proximo = balde.proximoEnvio(agora);
+                envio = proximo - envio > 0 ? proximo : envio;
+            }
+            if (reservarTodas(cotas, envio)) {
+                for (TokenBucket balde : cotas) {
+                    balde.contar(envio - agora);
+                }
+                return envio;
+            }
+        }
+    }
+
+    //se outra thread ocupou uma cota além do envio, as fichas já reservadas nas anteriores ficam sem uso: numa
+    //disputa a cota perde uma ficha, mas nunca passa do limite; a próxima volta calcula o envio de novo
+    private static boolean reservarTodas(List<TokenBucket> cotas, long envio) {
+        for (TokenBucket balde : cotas) {
+            if (!balde.reservarEm(envio)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Logo depois do cache HTTP e antes das métricas, do log e da fita. */
+    @Override
+    public int getOrder() {
+        return LOWEST_PRECEDENCE - 3;
+    }
+
+    private RateLimiter regra(Regra regra) {
+        regras.add(regra);
+        return this;
+    }
+
+    private static void esperar(long ate) {
+        long falta;
+        while ((falta = ate - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(falta);
+            if (Thread.interrupted()) {
+                Thread.currentThread().interrupt();
+                throw new UncheckedIOException(new InterruptedIOException("Interrompido esperando a cota"));
+            }
+        }
+    }
+
+    private enum Tipo { HOST, QUERY, HEADER }
+
+    private static final class Regra {
+        private final Tipo tipo;
+        private final String nome;
+        private final int permissoes;
+        private final long periodoNanos;
+
+        private Regra(Tipo tipo, String nome, int permissoes, Duration periodo) {
+            this.tipo = tipo;
+            this.nome = nome;
+            this.permissoes = permissoes;
+            this.periodoNanos = periodo.toNanos();
+            balde(0);//valida a cota já no cadastro
+        }
+
+        private TokenBucket balde(long agora) {
+            //rajada de 1: nunca mais que a cota em qualquer janela do período, inclusive nas janelas fixas do servidor
+            return new TokenBucket(permissoes, periodoNanos, 1, agora);
+        }
+
+        /** Host, valor do parâmetro ou do cabeçalho desta requisição, ou null se a regra não se aplica. */
+        private String valor(FilterableRequestSpecification requisicao) {
+            switch (tipo) {
+                case HOST:
+                    String host = URI.create(requisicao.getURI()).getHost();
+                    return host != null && host.equalsIgnoreCase(nome) ? nome : null;
+                case QUERY:
+                    return parametro(requisicao.getURI(), nome);
+                default:
+                    Header cabecalho = requisicao.getHeaders().get(nome);
+                    return cabecalho == null ? null : cabecalho.getValue();
+            }
+        }
+
+        private String chave(String valor) {
+            if (tipo == Tipo.HOST) {
+                return "host " + valor;
+            }
+            //credenciais não aparecem inteiras nas estatísticas
+            return nome + " " + (valor.length() <= 4 ? "…" : valor.substring(0, 4) + "…" + Integer.toHexString(valor.hashCode()));
+        }
+
+        private static String parametro(String uri, String nome) {
+            int interrogacao = uri.indexOf('?');
+            if (interrogacao < 0) {
+                return null;
+            }
+            for (String par : uri.substring(interrogacao + 1).split("&")) {
+                int igual = par.indexOf('=');
+                String chave = igual < 0 ? par : par.substring(0, igual);
+                if (chave.equals(nome)) {
+                    return igual < 0 ? "" : par.substring(igual + 1);
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package br.com.bferreira.rest.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Balde de fichas sem lock, na forma do GCRA: em vez de contar fichas, guarda o instante em
+ * que a próxima fica livre e cada reserva avança esse instante com um CAS. Quem chega com o
+ * balde vazio não é recusado: recebe o quanto esperar, na ordem das reservas, e as
+ * requisições saem espaçadas de {@code periodo / permissoes}.
+ */
+final class TokenBucket {
+
+    private final long intervaloNanos;
+    private final long toleranciaNanos;
+    private final AtomicLong proximaLivre;
+
+    private final LongAdder reservas = new LongAdder();
+    private final LongAdder atrasadas = new LongAdder();
+    private final LongAdder esperaTotal = new LongAdder();
+    private final LongAccumulator esperaMaxima = new LongAccumulator(Math::max, 0);
+
+    /** {@code rajada} fichas logo de saída e, depois, uma a cada {@code periodoNanos / permissoes}. */
+    TokenBucket(int permissoes, long periodoNanos, int rajada, long agora) {
+        if (permissoes < 1 || periodoNanos < 1 || rajada < 1) {
+            throw new IllegalArgumentException("Cota inválida: " + permissoes + " por " + periodoNanos + "ns, rajada " + rajada);
+        }
+        this.intervaloNanos = Math.max(1, periodoNanos / permissoes);
+        this.toleranciaNanos = (rajada - 1) * intervaloNanos;
+        this.proximaLivre = new AtomicLong(agora);
+    }
+
+    /** Reserva uma ficha e devolve quantos nanos esperar por ela a partir de {@code agora}. */
+    long reservar(long agora) {
+        while (true) {
+            long envio = proximoEnvio(agora);
+            if (reservarEm(envio)) {
+                contar(envio - agora);
+                return envio - agora;
+            }
+        }
+    }
+
+    /** Primeiro instante, a partir de {@code agora}, em que uma requisição poderia sair; não reserva nada. */
+    long proximoEnvio(long agora) {
+        long envio = proximaLivre.get() - toleranciaNanos;
+        return envio - agora > 0 ? envio : agora;//max tolerante ao estouro do nanoTime
+    }
+
+    /**
+     * Reserva a ficha de uma requisição que sai em {@code envio}, como se tivesse chegado nesse
+     * instante; false, sem reservar, se outras reservas já ocuparam o balde além dele. Não entra
+     * nas estatísticas: quem reserva chama {@link #contar(long)} quando a requisição vai sair.
+     */
+    boolean reservarEm(long envio) {
+        while (true) {
+            long livre = proximaLivre.get();
+            if (livre - toleranciaNanos - envio > 0) {
+                return false;
+            }
+            long inicio = livre - envio > 0 ? livre : envio;
+            if (proximaLivre.compareAndSet(livre, inicio + intervaloNanos)) {
+                return true;
+            }
+        }
+    }
+
+    void contar(long espera) {
+        reservas.increment();
+        if (espera > 0) {
+            atrasadas.increment();
+            esperaTotal.add(espera);
+            esperaMaxima.accumulate(espera);
+        }
+    }
+
+    long acquired() {
+        return reservas.sum();
+    }
+
+    long delayed() {
+        return atrasadas.sum();
+    }
+
+    long waitNanos() {
+        return esperaTotal.sum();
+    }
+
+    long maxWaitNanos() {
+        return esperaMaxima.get();
+    }
+}
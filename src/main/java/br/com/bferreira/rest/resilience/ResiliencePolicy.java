@@ -0,0 +1,212 @@
+package br.com.bferreira.rest.resilience;
+
+import br.com.bferreira.rest.load.LatencyHistogram;
+import io.restassured.RestAssured;
+import io.restassured.builder.RequestSpecBuilder;
+import io.restassured.config.HttpClientConfig;
+import io.restassured.config.RestAssuredConfig;
+import io.restassured.specification.RequestSpecification;
+import org.apache.http.client.HttpClient;
+import org.apache.http.impl.client.AbstractHttpClient;
+import org.apache.http.params.CoreConnectionPNames;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Timeouts, retentativas e hedging para uma requisição ou um spec, para APIs externas com
+ * cauda longa de latência:
+ *
+ * <pre>
+ * ResiliencePolicy politica = ResiliencePolicy.policy()
+ *         .connectTimeout(Duration.ofSeconds(2))
+ *         .readTimeout(Duration.ofSeconds(5))
+ *         .totalTimeout(Duration.ofSeconds(10))
+ *         .retries(2)                                        // GET, HEAD, OPTIONS, PUT e DELETE
+ *         .hedgeAtPercentile(0.95, Duration.ofMillis(500));  // GET, HEAD e OPTIONS
+ *
+ * given().config(politica.config())...                                         // numa requisição
+ * new RequestSpecBuilder().addRequestSpecification(politica.spec())...         // num spec
+ * </pre>
+ *
+ * <ul>
+ *   <li>Timeouts: de conexão e de leitura (entre dois pacotes) por tentativa, e um prazo total
+ *   para todas as tentativas juntas, que aborta a que estiver em andamento.</li>
+ *   <li>Retentativas: só em métodos idempotentes com corpo repetível, depois de falha de
+ *   rede ou de um status retentável (por padrão 429, 502, 503 e 504), com espera exponencial
+ *   e jitter completo (um valor aleatório até {@code base * 2^n}, limitado pelo máximo). Um
+ *   {@code Retry-After} em segundos alonga a espera até o máximo do backoff. Sem tempo no prazo total, a última
+ *   resposta ou falha volta ao teste.</li>
+ *   <li>Hedging: só em métodos seguros; se a resposta não chegou no atraso (fixo ou o
+ *   percentil das latências do endpoint), uma segunda requisição sai em paralelo e vale a
+ *   que responder primeiro; a outra é abortada.</li>
+ * </ul>
+ *
+ * O que cada política fez vai para os contadores do endpoint no
+ * {@link br.com.bferreira.rest.metrics.RequestMetrics}. As requisições continuam passando
+ * pelos filtros uma vez só; as tentativas acontecem no HttpClient, usando o pool de conexões
+ * da configuração global quando houver um.
+ */
+public final class ResiliencePolicy {
+
+    private static final int AMOSTRAS_PARA_PERCENTIL = 20;
+
+    private long conexaoMillis;
+    private long leituraMillis;
+    private long totalNanos;
+    private int retentativas;
+    private long esperaBaseNanos = Duration.ofMillis(100).toNanos();
+    private long esperaMaximaNanos = Duration.ofSeconds(2).toNanos();
+    private Set<Integer> statusRetentaveis = new TreeSet<>(Arrays.asList(429, 502, 503, 504));
+    private long hedgeNanos = -1;
+    private double percentil;
+
+    private ResiliencePolicy() {
+    }
+
+    /** Política vazia: sem timeouts além dos do HttpClient, sem retentativas e sem hedging. */
+    public static ResiliencePolicy policy() {
+        return new ResiliencePolicy();
+    }
+
+    public ResiliencePolicy connectTimeout(Duration timeout) {
+        this.conexaoMillis = timeout.toMillis();
+        return this;
+    }
+
+    public ResiliencePolicy readTimeout(Duration timeout) {
+        this.leituraMillis = timeout.toMillis();
+        return this;
+    }
+
+    public ResiliencePolicy totalTimeout(Duration timeout) {
+        this.totalNanos = timeout.toNanos();
+        return this;
+    }
+
+    /** Quantas vezes repetir, além da primeira tentativa. */
+    public ResiliencePolicy retries(int vezes) {
+        this.retentativas = vezes;
+        return this;
+    }
+
+    public ResiliencePolicy backoff(Duration base, Duration maximo) {
+        this.esperaBaseNanos = base.toNanos();
+        this.esperaMaximaNanos = maximo.toNanos();
+        return this;
+    }
+
+    /** Status que contam como falha passageira (substitui os padrão). */
+    public ResiliencePolicy retryOn(int... status) {
+        this.statusRetentaveis = new TreeSet<>();
+        for (int codigo : status) {
+            statusRetentaveis.add(codigo);
+        }
+        return this;
+    }
+
+    /** Segunda requisição se a primeira não responder no atraso fixo. */
+    public ResiliencePolicy hedgeAfter(Duration atraso) {
+        this.hedgeNanos = atraso.toNanos();
+        this.percentil = 0;
+        return this;
+    }
+
+    /**
+     * Segunda requisição se a primeira passar do percentil (ex.: 0.95) das latências já vistas
+     * no endpoint; até haver amostras suficientes, usa o atraso {@code inicial}.
+     */
+    public ResiliencePolicy hedgeAtPercentile(double percentil, Duration inicial) {
+        if (percentil <= 0 || percentil >= 1) {
+            throw new IllegalArgumentException("Percentil deve estar entre 0 e 1: " + percentil);
+        }
+        this.hedgeNanos = inicial.toNanos();
+        this.percentil = percentil;
+        return this;
+    }
+
+    /** A configuração global atual do RestAssured com esta política no HttpClient. */
+    public RestAssuredConfig config() {
+        return applyTo(RestAssured.config());
+    }
+
+    /** {@code base} com esta política no HttpClient; o cliente de {@code base} (ex.: o do pool) continua por baixo. */
+    public RestAssuredConfig applyTo(RestAssuredConfig base) {
+        HttpClientConfig cliente = base.getHttpClientConfig();
+        if (conexaoMillis > 0) {
+            cliente = cliente.setParam(CoreConnectionPNames.CONNECTION_TIMEOUT, (int) conexaoMillis);
+        }
+        if (leituraMillis > 0) {
+            cliente = cliente.setParam(CoreConnectionPNames.SO_TIMEOUT, (int) leituraMillis);
+        }
+        HttpClientConfig original = base.getHttpClientConfig();
+        return base.httpClient(cliente.httpClientFactory(() -> ResilientHttpClient.over(criar(original), this)));
+    }
+
+    /** Spec só com a configuração, para um {@code RequestSpecBuilder.addRequestSpecification} ou {@code given().spec(...)}. */
+    public RequestSpecification spec() {
+        return new RequestSpecBuilder().setConfig(config()).build();
+    }
+
+    private static AbstractHttpClient criar(HttpClientConfig original) {
+        HttpClient cliente = original.httpClientInstance();
+        //uma política aplicada sobre outra: vale a de fora, sobre o cliente original
+        return cliente instanceof ResilientHttpClient ? ((ResilientHttpClient) cliente).base() : (AbstractHttpClient) cliente;
+    }
+
+    boolean idempotente(String metodo) {
+        switch (metodo) {
+            case "GET":
+            case "HEAD":
+            case "OPTIONS":
+            case "PUT":
+            case "DELETE":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    boolean seguro(String metodo) {
+        return "GET".equals(metodo) || "HEAD".equals(metodo) || "OPTIONS".equals(metodo);
+    }
+
+    int retentativas() {
+        return retentativas;
+    }
+
+    long totalNanos() {
+        return totalNanos;
+    }
+
+    boolean retentavel(int status) {
+        return statusRetentaveis.contains(status);
+    }
+
+    /**
+     * Espera antes da tentativa {@code n + 1}: jitter completo sobre o exponencial, ou o que o
+     * servidor pediu no {@code Retry-After}, se for mais (até o máximo do backoff).
+     */
+    long esperaNanos(int tentativa, long pedidaPeloServidor) {
+        long teto = esperaBaseNanos << Math.min(tentativa, 30);
+        if (teto <= 0 || teto > esperaMaximaNanos) {
+            teto = esperaMaximaNanos;
+        }
+        long sorteada = teto <= 0 ? 0 : ThreadLocalRandom.current().nextLong(teto + 1);
+        return Math.max(sorteada, Math.min(pedidaPeloServidor, esperaMaximaNanos));
+    }
+
+    /** Atraso do hedge para o endpoint, ou -1 sem hedging. */
+    long hedgeNanos(LatencyHistogram latencias) {
+        if (hedgeNanos < 0) {
+            return -1;
+        }
+        if (percentil == 0 || latencias.count() < AMOSTRAS_PARA_PERCENTIL) {
+            return hedgeNanos;
+        }
+        return latencias.percentileMicros(percentil * 100) * 1000;
+    }
+}
@@ -0,0 +1,408 @@
+package br.com.bferreira.rest.resilience;
+
+import br.com.bferreira.rest.load.LatencyHistogram;
+import br.com.bferreira.rest.metrics.PolicyEvent;
+import br.com.bferreira.rest.metrics.RequestMetrics;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpEntityEnclosingRequestBase;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.conn.ClientConnectionManager;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.impl.client.AbstractHttpClient;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.conn.BasicClientConnectionManager;
+import org.apache.http.impl.conn.PoolingClientConnectionManager;
+import org.apache.http.protocol.BasicHttpContext;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.util.EntityUtils;
+
+import javax.net.ssl.SSLException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * HttpClient de uma requisição com a {@link ResiliencePolicy}: cada tentativa (e o hedge) é
+ * uma cópia da requisição original executada pelo HttpClient comum, sobre o gerenciador de
+ * conexões e os interceptadores do cliente de base. A tentativa principal roda na thread do
+ * teste, então o {@link br.com.bferreira.rest.metrics.RequestTimings} continua medindo as fases.
+ */
+final class ResilientHttpClient extends DefaultHttpClient {
+
+    private static final ScheduledExecutorService RELOGIO = Executors.newSingleThreadScheduledExecutor(tarefa -> {
+        Thread thread = new Thread(tarefa, "resiliencia-relogio");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final AtomicInteger NUMERO_HEDGE = new AtomicInteger();
+    private static final ExecutorService HEDGES = Executors.newCachedThreadPool(tarefa -> {
+        Thread thread = new Thread(tarefa, "resiliencia-hedge-" + NUMERO_HEDGE.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+    /** Latências por endpoint, para o hedge no percentil. */
+    private static final Map<String, LatencyHistogram> LATENCIAS = new ConcurrentHashMap<>();
+
+    private final AbstractHttpClient base;
+    private final ResiliencePolicy politica;
+
+    private ResilientHttpClient(AbstractHttpClient base, ClientConnectionManager conexoes, ResiliencePolicy politica) {
+        super(conexoes);
+        this.base = base;
+        this.politica = politica;
+        clearRequestInterceptors();
+        for (int i = 0; i < base.getRequestInterceptorCount(); i++) {
+            addRequestInterceptor(base.getRequestInterceptor(i));
+        }
+        clearResponseInterceptors();
+        for (int i = 0; i < base.getResponseInterceptorCount(); i++) {
+            addResponseInterceptor(base.getResponseInterceptor(i));
+        }
+        setKeepAliveStrategy(base.getConnectionKeepAliveStrategy());
+    }
+
+    static ResilientHttpClient over(AbstractHttpClient base, ResiliencePolicy politica) {
+        ClientConnectionManager conexoes = base.getConnectionManager();
+        if (conexoes instanceof BasicClientConnectionManager) {
+            //o gerenciador padrão tem uma conexão só: o hedge precisa de uma segunda
+            conexoes = new PoolingClientConnectionManager(conexoes.getSchemeRegistry());
+            base.getConnectionManager().shutdown();
+        }
+        return new ResilientHttpClient(base, conexoes, politica);
+    }
+
+    AbstractHttpClient base() {
+        return base;
+    }
+
+    @Override
+    public CloseableHttpResponse execute(HttpUriRequest requisicao, HttpContext contexto) throws IOException {
+        HttpRequestBase original = requisicao instanceof HttpRequestBase ? (HttpRequestBase) requisicao : null;
+        if (original == null || !repetivel(original)) {
+            return super.execute(requisicao, contexto);//corpo que só pode ser lido uma vez: uma tentativa só
+        }
+        String metodo = original.getMethod();
+        String uri = original.getURI().toString();
+        int retentativas = politica.idempotente(metodo) ? politica.retentativas() : 0;
+        Prazo prazo = new Prazo(politica.totalNanos());
+        try {
+            for (int tentativa = 0; ; tentativa++) {
+                CloseableHttpResponse resposta;
+                try {
+                    resposta = tentar(original, contexto, prazo, metodo, uri);
+                } catch (IOException e) {
+                    if (prazo.esgotado) {
+                        contar(metodo, uri, PolicyEvent.TOTAL_TIMEOUT);
+                        SocketTimeoutException timeout = new SocketTimeoutException(
+                                "Prazo total de " + TimeUnit.NANOSECONDS.toMillis(politica.totalNanos()) + "ms esgotado");
+                        timeout.initCause(e);
+                        throw timeout;
+                    }
+                    if (e instanceof ConnectTimeoutException) {
+                        contar(metodo, uri, PolicyEvent.CONNECT_TIMEOUT);
+                    } else if (e instanceof SocketTimeoutException) {
+                        contar(metodo, uri, PolicyEvent.READ_TIMEOUT);
+                    }
+                    if (!retentavel(e) || tentativa >= retentativas) {
+                        if (retentativas > 0 && tentativa >= retentativas) {
+                            contar(metodo, uri, PolicyEvent.RETRIES_EXHAUSTED);
+                        }
+                        throw e;
+                    }
+                    long espera = politica.esperaNanos(tentativa, 0);
+                    if (!prazo.cabe(espera)) {
+                        throw e;
+                    }
+                    esperar(espera);
+                    contar(metodo, uri, PolicyEvent.RETRY);
+                    continue;
+                }
+                int status = resposta.getStatusLine().getStatusCode();
+                if (!politica.retentavel(status)) {
+                    return resposta;
+                }
+                long espera = politica.esperaNanos(tentativa, retryAfter(resposta));
+                if (tentativa >= retentativas || !prazo.cabe(espera)) {
+                    if (retentativas > 0) {
+                        contar(metodo, uri, PolicyEvent.RETRIES_EXHAUSTED);
+                    }
+                    return resposta;
+                }
+                descartar(resposta);
+                esperar(espera);
+                contar(metodo, uri, PolicyEvent.RETRY);
+            }
+        } finally {
+            prazo.encerrar();
+        }
+    }
+
+    /** Uma tentativa: a requisição na thread do teste e, se ela demorar, o hedge em paralelo. */
+    private CloseableHttpResponse tentar(HttpRequestBase original, HttpContext contexto, Prazo prazo,
+                                         String metodo, String uri) throws IOException {
+        Corrida corrida = new Corrida(copia(original));
+        prazo.acompanhar(corrida);
+        LatencyHistogram latencias = politica.seguro(metodo)
+                ? LATENCIAS.computeIfAbsent(RequestMetrics.endpointKey(metodo, uri), chave -> new LatencyHistogram()) : null;
+        long atraso = latencias == null ? -1 : politica.hedgeNanos(latencias);
+        if (atraso >= 0) {
+            corrida.agendamento = RELOGIO.schedule(
+                    () -> HEDGES.execute(() -> hedge(corrida, original, contexto, prazo, metodo, uri)), atraso, TimeUnit.NANOSECONDS);
+        }
+        long inicio = System.nanoTime();
+        CloseableHttpResponse resposta = null;
+        IOException falha = null;
+        try {
+            resposta = super.execute(corrida.primaria, contexto);
+        } catch (IOException e) {
+            falha = e;
+        }
+        CloseableHttpResponse vencedora = corrida.primariaTerminou(resposta, falha);
+        if (latencias != null) {
+            latencias.record(System.nanoTime() - inicio);
+        }
+        return vencedora;
+    }
+
+    private void hedge(Corrida corrida, HttpRequestBase original, HttpContext contexto, Prazo prazo, String metodo, String uri) {
+        HttpRequestBase copia;
+        synchronized (corrida) {
+            if (corrida.decidida || prazo.esgotado) {
+                return;
+            }
+            copia = copia(original);
+            corrida.hedge = copia;
+        }
+        contar(metodo, uri, PolicyEvent.HEDGE);
+        CloseableHttpResponse resposta = null;
+        try {
+            resposta = super.execute(copia, contexto == null ? new BasicHttpContext() : new BasicHttpContext(contexto));
+        } catch (IOException | RuntimeException e) {
+            // a principal segue; se ela também falhar, a falha dela é que volta ao teste
+        }
+        if (corrida.hedgeTerminou(resposta)) {
+            contar(metodo, uri, PolicyEvent.HEDGE_WIN);
+        } else if (resposta != null) {
+            descartar(resposta);
+        }
+    }
+
+    /**
+     * Requisição nova com o método, URI, cabeçalhos, configuração e corpo da original. Não
+     * usa o {@code clone()}, que compartilha com a original o estado de aborto: abortar o
+     * perdedor abortaria também o vencedor.
+     */
+    private static HttpRequestBase copia(HttpRequestBase original) {
+        HttpRequestBase copia;
+        if (original instanceof HttpEntityEnclosingRequest) {
+            CopiaComCorpo comCorpo = new CopiaComCorpo(original.getMethod());
+            comCorpo.setEntity(((HttpEntityEnclosingRequest) original).getEntity());
+            copia = comCorpo;
+        } else {
+            copia = new Copia(original.getMethod());
+        }
+        copia.setURI(original.getURI());
+        copia.setProtocolVersion(original.getProtocolVersion());
+        copia.setHeaders(original.getAllHeaders());
+        copia.setParams(original.getParams());
+        copia.setConfig(original.getConfig());
+        return copia;
+    }
+
+    private static boolean repetivel(HttpRequestBase requisicao) {
+        if (!(requisicao instanceof HttpEntityEnclosingRequest)) {
+            return true;
+        }
+        HttpEntity corpo = ((HttpEntityEnclosingRequest) requisicao).getEntity();
+        return corpo == null || corpo.isRepeatable();
+    }
+
+    /** Falhas de rede passageiras; nome que não resolve e erro de TLS não melhoram repetindo. */
+    private static boolean retentavel(IOException e) {
+        return !(e instanceof UnknownHostException) && !(e instanceof SSLException);
+    }
+
+    private static long retryAfter(CloseableHttpResponse resposta) {
+        Header cabecalho = resposta.getFirstHeader("Retry-After");
+        if (cabecalho == null) {
+            return 0;
+        }
+        try {
+            return TimeUnit.SECONDS.toNanos(Long.parseLong(cabecalho.getValue().trim()));
+        } catch (NumberFormatException e) {
+            return 0;//data HTTP: fica o backoff
+        }
+    }
+
+    private static void esperar(long nanos) throws InterruptedIOException {
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrompido esperando a próxima tentativa");
+        }
+    }
+
+    /** Lê o que faltar do corpo, para a conexão voltar ao pool, e libera a resposta descartada. */
+    private static void descartar(CloseableHttpResponse resposta) {
+        try {
+            EntityUtils.consumeQuietly(resposta.getEntity());
+            resposta.close();
+        } catch (IOException e) {
+            // a conexão é fechada pelo gerenciador
+        }
+    }
+
+    private static void contar(String metodo, String uri, PolicyEvent evento) {
+        RequestMetrics.policyTriggered(metodo, uri, evento);
+    }
+
+    private static final class Copia extends HttpRequestBase {
+        private final String metodo;
+
+        Copia(String metodo) {
+            this.metodo = metodo;
+        }
+
+        @Override
+        public String getMethod() {
+            return metodo;
+        }
+    }
+
+    private static final class CopiaComCorpo extends HttpEntityEnclosingRequestBase {
+        private final String metodo;
+
+        CopiaComCorpo(String metodo) {
+            this.metodo = metodo;
+        }
+
+        @Override
+        public String getMethod() {
+            return metodo;
+        }
+    }
+
+    /** Prazo total de todas as tentativas: quando vence, aborta a tentativa em andamento. */
+    private static final class Prazo {
+        private final long fim;
+        private final ScheduledFuture<?> alarme;
+        private Corrida atual;
+        volatile boolean esgotado;
+
+        Prazo(long totalNanos) {
+            this.fim = totalNanos > 0 ? System.nanoTime() + totalNanos : 0;
+            this.alarme = totalNanos > 0 ? RELOGIO.schedule(this::esgotar, totalNanos, TimeUnit.NANOSECONDS) : null;
+        }
+
+        synchronized void acompanhar(Corrida corrida) {
+            atual = corrida;
+            if (esgotado) {
+                corrida.abortar();
+            }
+        }
+
+        private synchronized void esgotar() {
+            esgotado = true;
+            if (atual != null) {
+                atual.abortar();
+            }
+        }
+
+        boolean cabe(long espera) {
+            return fim == 0 || System.nanoTime() + espera < fim;
+        }
+
+        void encerrar() {
+            if (alarme != null) {
+                alarme.cancel(false);
+            }
+        }
+    }
+
+    /** Requisição principal contra o hedge: vale a primeira resposta, a outra é abortada. */
+    private static final class Corrida {
+        final HttpRequestBase primaria;
+        HttpRequestBase hedge;
+        ScheduledFuture<?> agendamento;
+        boolean decidida;
+        boolean hedgeTerminado;
+        CloseableHttpResponse respostaHedge;
+
+        Corrida(HttpRequestBase primaria) {
+            this.primaria = primaria;
+        }
+
+        synchronized void abortar() {
+            primaria.abort();
+            if (hedge != null) {
+                hedge.abort();
+            }
+        }
+
+        /** Devolve a resposta vencedora; sem nenhuma, relança a falha da principal. */
+        CloseableHttpResponse primariaTerminou(CloseableHttpResponse resposta, IOException falha) throws IOException {
+            HttpRequestBase perdedor = null;
+            try {
+                synchronized (this) {
+                    if (agendamento != null) {
+                        agendamento.cancel(false);
+                    }
+                    if (!decidida && resposta == null) {
+                        //a principal falhou: se o hedge já saiu, a chance é dele
+                        while (hedge != null && !hedgeTerminado) {
+                            wait();
+                        }
+                    }
+                    if (respostaHedge == null) {
+                        decidida = true;
+                        perdedor = hedge;
+                        if (resposta == null) {
+                            throw falha;
+                        }
+                        return resposta;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrompido esperando o hedge");
+            } finally {
+                if (perdedor != null) {
+                    perdedor.abort();
+                }
+            }
+            if (resposta != null) {
+                descartar(resposta);
+            }
+            return respostaHedge;
+        }
+
+        /** {@code true} se o hedge venceu e a principal foi abortada. */
+        boolean hedgeTerminou(CloseableHttpResponse resposta) {
+            synchronized (this) {
+                hedgeTerminado = true;
+                notifyAll();
+                if (decidida || resposta == null) {
+                    return false;
+                }
+                decidida = true;
+                respostaHedge = resposta;
+            }
+            primaria.abort();
+            return true;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package br.com.bferreira.rest.xpath;
+
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache de expressões XPath compiladas. Um {@link XPathExpression} não pode ser avaliado
+ * por duas threads ao mesmo tempo, então cada thread tem o seu próprio LRU limitado
+ * (propriedade de sistema {@code xpath.cache.size}, padrão 256): não há trava na
+ * avaliação e cada expressão é compilada no máximo uma vez por thread.
+ */
+public final class XPathCache {
+
+    private static final int TAMANHO_CACHE = Integer.getInteger("xpath.cache.size", 256);
+
+    private static final ThreadLocal<XPath> XPATH = ThreadLocal.withInitial(() -> XPathFactory.newInstance().newXPath());
+    private static final ThreadLocal<Map<String, XPathExpression>> CACHE = ThreadLocal.withInitial(() ->
+            new LinkedHashMap<String, XPathExpression>(64, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, XPathExpression> maisAntiga) {
+                    return size() > TAMANHO_CACHE;
+                }
+            });
+
+    private static final LongAdder ACERTOS = new LongAdder();
+    private static final LongAdder COMPILACOES = new LongAdder();
+
+    private XPathCache() {
+    }
+
+    public static XPathExpression compile(String expressao) {
+        Map<String, XPathExpression> cache = CACHE.get();
+        XPathExpression compilada = cache.get(expressao);
+        if (compilada != null) {
+            ACERTOS.increment();
+            return compilada;
+        }
+        try {
+            compilada = XPATH.get().compile(expressao);
+        } catch (XPathExpressionException e) {
+            throw new IllegalArgumentException("XPath inválido: " + expressao, e);
+        }
+        COMPILACOES.increment();
+        cache.put(expressao, compilada);
+        return compilada;
+    }
+
+    public static long hits() {
+        return ACERTOS.sum();
+    }
+
+    public static long compilations() {
+        return COMPILACOES.sum();
+    }
+}
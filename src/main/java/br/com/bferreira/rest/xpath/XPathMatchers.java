@@ -0,0 +1,86 @@
+package br.com.bferreira.rest.xpath;
+
+import br.com.bferreira.rest.gpath.ParsedBody;
+import org.hamcrest.BaseMatcher;
+import org.hamcrest.Description;
+import org.hamcrest.Matcher;
+import org.w3c.dom.Node;
+
+import javax.xml.namespace.QName;
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
+
+/**
+ * Substitutos do {@code Matchers.hasXPath} para o {@code body(...)} do RestAssured. O do
+ * Hamcrest faz o RestAssured montar um DOM novo e compilar o XPath a cada matcher; estes
+ * recebem o corpo como texto, reaproveitam o DOM da resposta ({@link ParsedBody#document()})
+ * e avaliam expressões já compiladas ({@link XPathCache}). A descrição difere da do Hamcrest
+ * só na caixa de "xpath", para o RestAssured não os tratar como matchers de XPath (que
+ * recebem um DOM montado por ele a cada assertiva). Basta o import estático
+ * {@code import static br.com.bferreira.rest.xpath.XPathMatchers.hasXPath;}.
+ */
+public final class XPathMatchers {
+
+    private XPathMatchers() {
+    }
+
+    /** O XPath precisa encontrar algum nó. */
+    public static Matcher<Object> hasXPath(String xpath) {
+        return new XPathMatcher(xpath, null);
+    }
+
+    /** O valor do XPath, como texto, precisa atender o matcher. */
+    public static Matcher<Object> hasXPath(String xpath, Matcher<String> valueMatcher) {
+        return new XPathMatcher(xpath, valueMatcher);
+    }
+
+    private static final class XPathMatcher extends BaseMatcher<Object> {
+
+        private final String xpath;
+        private final Matcher<String> valueMatcher;
+        private final QName tipo;
+
+        private XPathMatcher(String xpath, Matcher<String> valueMatcher) {
+            this.xpath = xpath;
+            this.valueMatcher = valueMatcher;
+            this.tipo = valueMatcher == null ? XPathConstants.NODE : XPathConstants.STRING;
+            XPathCache.compile(xpath);//valida a expressão já na montagem, como o Hamcrest
+        }
+
+        @Override
+        public boolean matches(Object item) {
+            Object valor = avaliar(item);
+            return valueMatcher == null ? valor != null : valueMatcher.matches(valor);
+        }
+
+        @Override
+        public void describeTo(Description description) {
+            //"xpath" minúsculo: com "XPath" na descrição o body() do RestAssured monta um DOM próprio e passa um Node
+            description.appendText("an XML document with xpath ").appendText(xpath);
+            if (valueMatcher != null) {
+                description.appendText(" ").appendDescriptionOf(valueMatcher);
+            }
+        }
+
+        @Override
+        public void describeMismatch(Object item, Description description) {
+            Object valor = avaliar(item);
+            if (valor == null) {
+                description.appendText("xpath returned no results.");
+            } else if (valueMatcher != null) {
+                valueMatcher.describeMismatch(valor, description);
+            }
+        }
+
+        private Object avaliar(Object item) {
+            try {
+                Object contexto = item instanceof Node ? item : ParsedBody.cached(String.valueOf(item)).document();
+                XPathExpression expressao = XPathCache.compile(xpath);
+                return expressao.evaluate(contexto, tipo);
+            } catch (XPathExpressionException e) {
+                return null;
+            }
+        }
+    }
+}
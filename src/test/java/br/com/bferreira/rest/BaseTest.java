@@ -0,0 +1,21 @@
+package br.com.bferreira.rest;
+
+import br.com.bferreira.rest.log.FailureLogRule;
+import br.com.bferreira.rest.metrics.RequestMetricsRule;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+
+//Specs específicos de uma classe ficam num RestContext, nunca nos estáticos do RestAssured, pois as classes rodam em paralelo
+public abstract class BaseTest {
+
+    @Rule //imprime as requests e responses do teste (no formato do log().all()) só quando ele falha
+    public final FailureLogRule logDeFalha = new FailureLogRule();
+
+    @Rule //classe e método do teste nos eventos JFR de cada requisição
+    public final RequestMetricsRule metricas = new RequestMetricsRule();
+
+    @BeforeClass //No surefire o GlobalSetup já instalou tudo antes do primeiro teste; aqui só vale para uma classe rodada sozinha
+    public static void subirStandIn() {
+        GlobalSetup.install();//stand-in do restapi.wcaquino.me no baseURI (com a porta), pool, compressão, log, métricas, cache e fita
+    }
+}
@@ -0,0 +1,44 @@
+package br.com.bferreira.rest;
+
+import br.com.bferreira.rest.cache.HttpCacheFilter;
+import br.com.bferreira.rest.cassette.CassetteFilter;
+import br.com.bferreira.rest.compression.ContentCoding;
+import br.com.bferreira.rest.config.ConnectionPool;
+import br.com.bferreira.rest.log.BufferedLog;
+import br.com.bferreira.rest.metrics.RequestMetrics;
+import br.com.bferreira.rest.standin.StandInServer;
+import org.junit.runner.Description;
+import org.junit.runner.notification.RunListener;
+
+/**
+ * Instala, uma vez por JVM, o que os testes compartilham pelos estáticos do RestAssured: o
+ * stand-in no {@code baseURI} e os filtros e a configuração globais. Registrado como listener
+ * do surefire no pom, roda antes do primeiro teste, já que com as classes em paralelo nenhuma
+ * delas pode mexer em {@code RestAssured.filters}/{@code config} enquanto outra faz requisições.
+ * O {@link BaseTest} também chama {@link #install()} para quem roda uma classe fora do surefire
+ * (IDE, daemon), onde não há outra classe rodando ao mesmo tempo.
+ */
+@RunListener.ThreadSafe
+public class GlobalSetup extends RunListener {
+
+    private static boolean instalado;
+
+    @Override
+    public void testRunStarted(Description description) {
+        install();
+    }
+
+    public static synchronized void install() {
+        if (instalado) {
+            return;
+        }
+        StandInServer.install();
+        ConnectionPool.install();//conexões keep-alive compartilhadas por todas as classes
+        ContentCoding.install();//respostas em gzip/deflate descomprimidas em streaming, com bytes na rede x decodificados por endpoint
+        BufferedLog.install();//guarda requests e responses num buffer por thread em vez de formatar tudo com log().all()
+        RequestMetrics.install();//tempo de cada fase das requisições, somado por endpoint no fim da suíte
+        HttpCacheFilter.install();//com -Dhttp.cache.enabled=true, GETs repetidos revalidados com ETag/Last-Modified e respondidos do cache
+        CassetteFilter.install();//APIs externas (swapi, openweathermap, barrigarest, seubarriga) respondidas pela fita gravada, sem rede
+        instalado = true;
+    }
+}
@@ -12,13 +12,13 @@ import org.junit.Test;
 import java.util.Arrays;
 import java.util.List;
 
-public class OlaMundoTest {
+public class OlaMundoTest extends BaseTest {
 
     @Test
     public void testOlaMundo() {
         //Mostra como instanciar e atribuir uma response, e depois validar essa response
         //usando asserts do Junit e a ValidatableResponse
-        Response response = RestAssured.request(Method.GET, "http://restapi.wcaquino.me/ola");
+        Response response = RestAssured.request(Method.GET, "/ola");
         Assert.assertTrue(response.getBody().asString().equals("Ola Mundo!"));
         Assert.assertTrue(response.getStatusCode() == 200);
         Assert.assertTrue("Status Code Divergente!",response.getStatusCode() == 200);
@@ -31,15 +31,15 @@ public class OlaMundoTest {
     @Test
     public void devoConhecerOutrasFormasDeTrabalharComRestAssured() {
         //Como diminuir a validação e formatar para Given, when e then. Dado, quando e então.
-        Response response = RestAssured.request(Method.GET, "http://restapi.wcaquino.me/ola");
+        Response response = RestAssured.request(Method.GET, "/ola");
         ValidatableResponse validation = response.then();
         validation.statusCode(200);
 
-        RestAssured.get("http://restapi.wcaquino.me/ola").then().statusCode(200);
+        RestAssured.get("/ola").then().statusCode(200);
         RestAssured
                 .given() //Pré-condições
                 .when() //Ação
-                    .get("http://restapi.wcaquino.me/ola")
+                    .get("/ola")
                 .then() //Assertivas
                     .statusCode(200);
     }
@@ -70,7 +70,7 @@ public class OlaMundoTest {
         RestAssured
                 .given() //Pré-condições
                 .when() //Ação
-                    .get("http://restapi.wcaquino.me/ola")
+                    .get("/ola")
                 .then() //Assertivas
                     .statusCode(200)
                     .body(Matchers.is("Ola Mundo!"))//Valida o body inteiro
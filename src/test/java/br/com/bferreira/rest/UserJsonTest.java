@@ -1,25 +1,32 @@
 package br.com.bferreira.rest;
 
+import br.com.bferreira.rest.async.AsyncRest;
+import br.com.bferreira.rest.mapping.Mappers;
+import br.com.bferreira.rest.model.User;
 import io.restassured.RestAssured;
 import io.restassured.http.Method;
 import io.restassured.path.json.JsonPath;
 import io.restassured.response.Response;
+import io.restassured.response.ValidatableResponse;
 import org.hamcrest.Matchers;
 import org.junit.Assert;
 import org.junit.Test;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
+import static br.com.bferreira.rest.gpath.SoftBody.soft;
 import static io.restassured.RestAssured.given;
 
-public class UserJsonTest {
+public class UserJsonTest extends BaseTest {
 
     @Test
     public void deveVerificarPrimeiroNivel() {
         given()
         .when()
-            .get("https://restapi.wcaquino.me/users/1")
+            .get("/users/1")
         .then()
             .statusCode(200)
             .body("id", Matchers.is(1))
@@ -29,7 +36,7 @@ public class UserJsonTest {
 
     @Test
     public void deveVerificarPrimeiroNivelOutrasFormas() {
-        Response response = RestAssured.request(Method.GET, "https://restapi.wcaquino.me/users/1");
+        Response response = RestAssured.request(Method.GET, "/users/1");
 
         //Path
         Assert.assertEquals(Integer.valueOf(1), response.path("id"));
@@ -48,7 +55,7 @@ public class UserJsonTest {
     public void deveVerificarSegundoNivel() {
         given()
         .when()
-            .get("https://restapi.wcaquino.me/users/2")
+            .get("/users/2")
         .then()
             .statusCode(200)
             .body("name", Matchers.containsString("Joaquina"))
@@ -59,7 +66,7 @@ public class UserJsonTest {
     public void deveVerificarLista() {
         given()
         .when()
-            .get("https://restapi.wcaquino.me/users/3")
+            .get("/users/3")
         .then()
             .statusCode(200)
             .body("name", Matchers.containsString("Ana"))
@@ -74,17 +81,29 @@ public class UserJsonTest {
     public void deveRetornarUsuarioInexistente() {
         given()
         .when()
-            .get("https://restapi.wcaquino.me/users/4")
+            .get("/users/4")
         .then()
             .statusCode(404)
             .body("error", Matchers.is("Usuário inexistente"));
     }
 
+    @Test
+    public void deveVerificarUsuariosEmParalelo() {
+        List<CompletableFuture<ValidatableResponse>> verificacoes = new ArrayList<>();
+        for (int id : Arrays.asList(1, 2, 3)) {//as requisições saem juntas; cada then() valida quando a sua resposta chega
+            verificacoes.add(AsyncRest.given().when().get("/users/{id}", id)
+                .thenApply(resposta -> resposta.statusCode(200).body("id", Matchers.is(id))));
+        }
+        verificacoes.add(AsyncRest.given().when().get("/users/4")
+            .thenApply(resposta -> resposta.statusCode(404).body("error", Matchers.is("Usuário inexistente"))));
+        AsyncRest.awaitAll(verificacoes);//lança a primeira falha, com as demais como suprimidas
+    }
+
     @Test
     public void deveVerificarListaNaRaiz() {
         given()
         .when()
-            .get("https://restapi.wcaquino.me/users")
+            .get("/users")
         .then()
             .statusCode(200)
             .body("$", Matchers.hasSize(3))//Verifica na raiz do Json, que é uma lista
@@ -98,12 +117,12 @@ public class UserJsonTest {
     public void devoFazerVerificacoesAvancadas() {
         given()
         .when()
-            .get("https://restapi.wcaquino.me/users")
+            .get("/users")
         .then()
             .statusCode(200)
             .body("$", Matchers.hasSize(3))
-            .body("age.findAll{it <= 25}.size", Matchers.is(2))//it referencia os objetos que estão no nivel da busca
-            .body("age.findAll{it <= 25 && it > 20}.size", Matchers.is(1))//é possível usar funções na string de expected do assert Equals
+            .body("age.findAll{it <= 25}.size()", Matchers.is(2))//it referencia os objetos que estão no nivel da busca
+            .body("age.findAll{it <= 25 && it > 20}.size()", Matchers.is(1))//é possível usar funções na string de expected do assert Equals
             .body("findAll{it.age <= 25 && it.age > 20}.name", Matchers.hasItem("Maria Joaquina"))//Obtem lista de names menores ou igual que 25 anos e maiores que 20
             .body("findAll{it.age <= 25}[0].name", Matchers.is("Maria Joaquina"))//obtem o nome no primeiro index da lista conforme condição
             .body("findAll{it.age <= 25}[-1].name", Matchers.is("Ana Júlia"))//obtem o ultimo nome da lista conforme condição [-1]
@@ -120,12 +139,39 @@ public class UserJsonTest {
             .body("salary.findAll{it != null}.sum()", Matchers.allOf(Matchers.greaterThan(3000d), Matchers.lessThan(5000d)));//soma todos os atributos salário do Json filtrando os que não são null
     }
 
+    @Test
+    public void devoFazerVerificacoesAvancadasEmLote() {
+        given()
+        .when()
+            .get("/users")
+        .then()
+            .statusCode(200)
+            .body(soft()//as mesmas verificações num único body(): um parse, projeções como "age" e "name" calculadas uma vez e todas as falhas na mesma mensagem
+                .body("$", Matchers.hasSize(3))
+                .body("age.findAll{it <= 25}.size()", Matchers.is(2))
+                .body("age.findAll{it <= 25 && it > 20}.size()", Matchers.is(1))
+                .body("findAll{it.age <= 25 && it.age > 20}.name", Matchers.hasItem("Maria Joaquina"))
+                .body("findAll{it.age <= 25}[0].name", Matchers.is("Maria Joaquina"))
+                .body("findAll{it.age <= 25}[-1].name", Matchers.is("Ana Júlia"))
+                .body("find{it.age <= 25}.name", Matchers.is("Maria Joaquina"))
+                .body("findAll{it.name.contains('n')}.name", Matchers.hasItems("Maria Joaquina", "Ana Júlia"))
+                .body("findAll{it.name.length() > 10}.name", Matchers.hasItems("João da Silva","Maria Joaquina"))
+                .body("name.collect{it.toUpperCase()}", Matchers.hasItem("MARIA JOAQUINA"))
+                .body("name.findAll{it.startsWith('Maria')}.collect{it.toUpperCase()}", Matchers.hasItem("MARIA JOAQUINA"))
+                .body("name.findAll{it.startsWith('Maria')}.collect{it.toUpperCase()}.toArray()", Matchers.allOf(Matchers.arrayContaining("MARIA JOAQUINA"), Matchers.arrayWithSize(1)))
+                .body("age.collect{it * 2}", Matchers.hasItems(60, 50, 40))
+                .body("id.max()", Matchers.is(3))
+                .body("salary.min()", Matchers.is(1234.5678f))
+                .body("salary.findAll{it != null}.sum()", Matchers.is(Matchers.closeTo(3734.5678f, 0.001)))
+                .body("salary.findAll{it != null}.sum()", Matchers.allOf(Matchers.greaterThan(3000d), Matchers.lessThan(5000d))));
+    }
+
     @Test
     public void devoUnirJsonPathComJava() {
         ArrayList<String> names = //Passa uma lista que contem o valor do atributo name que inicia com 'Maria' para um ArrayList
             given()
             .when()
-                .get("https://restapi.wcaquino.me/users")
+                .get("/users")
             .then()
                 .statusCode(200)
                 .extract().path("name.findAll{it.startsWith('Maria')}");
@@ -133,4 +179,22 @@ public class UserJsonTest {
         Assert.assertTrue(names.get(0).equalsIgnoreCase("mArIa JoAqUiNa"));//Faz a assertiva independente do case dos caracteres da string
         Assert.assertEquals(names.get(0).toUpperCase(), "maria joaquina".toUpperCase());
     }
+
+    @Test
+    public void devoExtrairUsuariosTipados() {
+        List<User> users = Mappers.asList( //Lê a lista direto dos bytes da resposta, pelo mapper gerado para User
+            given()
+            .when()
+                .get("/users")
+            .then()
+                .statusCode(200)
+                .extract(), User.class);
+        Assert.assertEquals(3, users.size());
+        Assert.assertEquals("Rua dos bobos", users.get(1).getEndereco().getRua());
+        Assert.assertEquals("Luizinho", users.get(2).getFilhos().get(1).getName());
+        Assert.assertNull(users.get(2).getSalary());
+
+        User user = given().when().get("/users/1").as(User.class, Mappers.objectMapper());
+        Assert.assertEquals(1234.5678, user.getSalary(), 0.00001);
+    }
 }
@@ -1,41 +1,48 @@
 package br.com.bferreira.rest;
 
-import io.restassured.RestAssured;
+import br.com.bferreira.rest.config.RestContext;
+import br.com.bferreira.rest.config.RestContextRule;
 import io.restassured.builder.RequestSpecBuilder;
 import io.restassured.builder.ResponseSpecBuilder;
-import io.restassured.filter.log.LogDetail;
 import java.util.List;
 import io.restassured.specification.RequestSpecification;
 import io.restassured.specification.ResponseSpecification;
 import org.junit.Assert;
 import org.junit.BeforeClass;
+import org.junit.Rule;
 import org.junit.Test;
 
 import java.util.ArrayList;
 
-import static io.restassured.RestAssured.given;
+import static br.com.bferreira.rest.config.RestContext.given;
+import static br.com.bferreira.rest.xpath.XPathMatchers.hasXPath;//DOM da resposta montado uma vez e XPath compilado em cache, no lugar do hasXPath do Hamcrest
 import static org.hamcrest.Matchers.*;
 
-public class UserXMLTest {
+public class UserXMLTest extends BaseTest {
 
     private static RequestSpecification reqSpec;
     private static ResponseSpecification resSpec;
+    private static RestContext contexto;
+
+    @Rule //associa o contexto da classe à thread que roda cada teste, permitindo a execução em paralelo
+    public final RestContextRule regraContexto = new RestContextRule(() -> contexto);
 
     @BeforeClass //Será setada as configurações do método antes de serem rodados os testes da classe
     public static void setup() {
-        RestAssured.baseURI = "https://restapi.wcaquino.me";
+        //o baseURI e a porta já apontam para o stand-in (ver BaseTest)
 //        RestAssured.port = 443;
 //        RestAssured.basePath = "/v2";
         RequestSpecBuilder reqBuilder = new RequestSpecBuilder(); // especificações para requests, usada quando é necessário usar em todos os cenários de teste
-        reqBuilder.log(LogDetail.ALL); //É gerado um log de toda a request construída
+        //sem reqBuilder.log(LogDetail.ALL): as requests e responses ficam no buffer do BufferedLog e só são impressas se o teste falhar (ver BaseTest)
         reqSpec = reqBuilder.build();
 
         ResponseSpecBuilder resBuilder = new ResponseSpecBuilder();
         resBuilder.expectStatusCode(200); //é esperado um status code 200 vindo da response
         resSpec = resBuilder.build();
 
-        RestAssured.requestSpecification = reqSpec;//adiciona o RequestSpecification a uma variável do RestAssured fazendo com que todos os testes herdem essas configurações
-        RestAssured.responseSpecification = resSpec;//adiciona o ResponseSpecification a uma variável do RestAssured fazendo com que todos os testes herdem essas configurações
+        //em vez de atribuir RestAssured.requestSpecification/responseSpecification (estáticos globais, visíveis para todas as classes),
+        //os specs ficam num contexto da classe e todos os testes daqui herdam essas configurações pelo given() do RestContext
+        contexto = RestContext.of(reqSpec, resSpec);
     }
 
     @Test
@@ -0,0 +1,132 @@
+package br.com.bferreira.rest.async;
+
+import br.com.bferreira.rest.config.RestContext;
+import br.com.bferreira.rest.standin.StandInResponse;
+import br.com.bferreira.rest.standin.StandInServer;
+import io.restassured.builder.RequestSpecBuilder;
+import io.restassured.http.ContentType;
+import io.restassured.response.ValidatableResponse;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.hamcrest.Matchers.*;
+
+public class AsyncRestTest {
+
+    @BeforeClass
+    public static void setup() {
+        StandInServer.install();
+    }
+
+    @Test
+    public void deveVerificarVariosRecursosDeUmaVez() {
+        List<CompletableFuture<ValidatableResponse>> verificacoes = new ArrayList<>();
+        for (int id : List.of(1, 2, 3)) {
+            verificacoes.add(AsyncRest.given().when().get("/users/{id}", id)
+                    .thenApply(resposta -> resposta.statusCode(200).body("id", is(id))));
+        }
+        verificacoes.add(AsyncRest.given().pathParam("id", 4).get("/users/{id}")
+                .thenApply(resposta -> resposta.statusCode(404).body("error", is("Usuário inexistente"))));
+        verificacoes.add(AsyncRest.given().contentType(ContentType.JSON).body(Collections.singletonMap("name", "Jose"))
+                .post("/users").thenApply(resposta -> resposta.statusCode(201).body("name", is("Jose"))));
+
+        Assert.assertEquals(5, AsyncRest.awaitAll(verificacoes).size());
+    }
+
+    @Test
+    public void deveJuntarAsFalhasDeTodasAsVerificacoes() {
+        List<CompletableFuture<ValidatableResponse>> verificacoes = new ArrayList<>();
+        for (int id : List.of(1, 2, 3)) {
+            verificacoes.add(AsyncRest.given().get("/users/{id}", id).thenApply(resposta -> resposta.body("age", greaterThan(25))));
+        }
+        try {
+            AsyncRest.awaitAll(verificacoes);
+            Assert.fail("Maria (25) e Ana (20) não têm mais de 25 anos");
+        } catch (AssertionError e) {
+            Assert.assertEquals(1, e.getSuppressed().length);
+        }
+    }
+
+    @Test
+    public void deveLimitarAsRequisicoesEmAndamento() {
+        StandInServer servidor = StandInServer.start(requisicao -> StandInResponse.json(200, "{\"path\":\"" + requisicao.path() + "\"}"));
+        try (AsyncClient cliente = AsyncClient.create(2)) {
+            List<CompletableFuture<ValidatableResponse>> verificacoes = new ArrayList<>();
+            for (int i = 0; i < 30; i++) {
+                String path = "/itens/" + i;
+                verificacoes.add(cliente.given().queryParam("q", "a b").get(servidor.url(path))
+                        .thenApply(resposta -> resposta.body("path", is(path))));
+            }
+            AsyncRest.awaitAll(verificacoes);
+            Map<String, Long> stats = cliente.stats();
+            Assert.assertEquals(30L, (long) stats.get("completed"));
+            Assert.assertTrue(stats.toString(), stats.get("peakInFlight") <= 2);
+            Assert.assertTrue(stats.toString(), stats.get("queued") > 0);
+            Assert.assertEquals(0L, (long) stats.get("inFlight"));
+        } finally {
+            servidor.close();
+        }
+    }
+
+    @Test
+    public void deveEnviarOsCookiesNumHeaderSo() {
+        StandInServer servidor = StandInServer.start(requisicao -> StandInResponse.json(200, "{\"cookie\":\"" + requisicao.header("cookie") + "\"}"));
+        try (AsyncClient cliente = AsyncClient.create(1)) {
+            ValidatableResponse resposta = AsyncRest.awaitAll(List.of(cliente.given()
+                    .cookie("connect.sid", "s%3Aabc").cookie("tema", "escuro").header("Cookie", "idioma=pt")
+                    .get(servidor.url("/cookies")))).get(0);
+            resposta.body("cookie", is("connect.sid=s%3Aabc; tema=escuro; idioma=pt"));
+        } finally {
+            servidor.close();
+        }
+    }
+
+    @Test
+    public void deveUsarOBaseUriDoContextoDaThread() {
+        StandInServer servidor = StandInServer.start(requisicao -> StandInResponse.json(200, "{\"path\":\"" + requisicao.path() + "\"}"));
+        RestContext anterior = RestContext.bind(RestContext.of(new RequestSpecBuilder()
+                .setBaseUri(servidor.baseUri()).setPort(servidor.port()).setBasePath("/v2").build(), null));
+        try (AsyncClient cliente = AsyncClient.create(1)) {
+            AsyncRest.awaitAll(List.of(cliente.given().get("/users/{id}", 1)
+                    .thenApply(resposta -> resposta.body("path", is("/v2/users/1")))));
+        } finally {
+            RestContext.bind(anterior);
+            servidor.close();
+        }
+    }
+
+    @Test
+    public void deveDrenarAFilaSemEmpilharChamadas() {
+        InFlightLimiter limitador = new InFlightLimiter(1);
+        CompletableFuture<String> primeira = new CompletableFuture<>();
+        limitador.submit(() -> primeira);
+        List<CompletableFuture<String>> imediatas = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            imediatas.add(limitador.submit(() -> CompletableFuture.completedFuture("ok")));
+        }
+
+        primeira.complete("ok");//antes, cada resposta imediata disparava a próxima mais fundo na pilha
+
+        Assert.assertTrue(imediatas.stream().allMatch(CompletableFuture::isDone));
+        Assert.assertEquals(0, limitador.inFlight());
+        Assert.assertEquals(1L, limitador.peak());
+    }
+
+    @Test
+    public void deveFalharSemServidor() {
+        try (AsyncClient cliente = AsyncClient.create(4)) {
+            CompletableFuture<ValidatableResponse> futuro = cliente.given().get("http://127.0.0.1:9/users");
+            AsyncRest.awaitAll(List.of(futuro));
+            Assert.fail("não há servidor na porta 9");
+        } catch (AsyncRequestException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().startsWith("Falha em GET http://127.0.0.1:9/users"));
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package br.com.bferreira.rest.auth;
+
+import br.com.bferreira.rest.standin.StandInResponse;
+import br.com.bferreira.rest.standin.StandInServer;
+import io.restassured.filter.Filter;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.is;
+
+public class CredentialCacheTest {
+
+    private static final AtomicInteger SIGNINS = new AtomicInteger();
+    private static final AtomicInteger LOGARS = new AtomicInteger();
+    private static StandInServer barriga;
+
+    //imita o barrigarest (/signin + /contas com JWT) e o seubarriga (/logar + /contas com cookie)
+    @BeforeClass
+    public static void subirBarriga() {
+        barriga = StandInServer.start(requisicao -> {
+            switch (requisicao.path()) {
+                case "/signin":
+                    SIGNINS.incrementAndGet();
+                    return StandInResponse.json(200, "{\"token\":\"" + jwt(System.currentTimeMillis() / 1000 + 3600) + "\"}");
+                case "/logar":
+                    LOGARS.incrementAndGet();
+                    return StandInResponse.text(200, "ok").header("Set-Cookie", "connect.sid=s%3Aabc; Max-Age=3600; Path=/; HttpOnly");
+                case "/contas":
+                    boolean comJwt = String.valueOf(requisicao.header("authorization")).startsWith("JWT ey");
+                    boolean comCookie = String.valueOf(requisicao.header("cookie")).contains("connect.sid=s%3Aabc");
+                    return comJwt || comCookie
+                            ? StandInResponse.json(200, "[{\"nome\":\"Conta mesmo nome\"}]")
+                            : StandInResponse.json(401, "{\"error\":\"Unauthorized\"}");
+                default:
+                    return StandInResponse.empty(404);
+            }
+        });
+    }
+
+    @AfterClass
+    public static void derrubarBarriga() {
+        barriga.close();
+    }
+
+    @Test
+    public void deveLerAExpiracaoDoJwt() {
+        Credential credencial = Credential.jwt(jwt(2_000_000_000L), 0);
+        Assert.assertEquals(2_000_000_000_000L, credencial.expiresAtMillis());
+        Assert.assertEquals(1_000L + Credential.TTL_PADRAO_MILLIS, Credential.jwt("nao-e-jwt", 1_000).expiresAtMillis());
+    }
+
+    @Test
+    public void deveRenovarAntesDeExpirar() {
+        AtomicLong relogio = new AtomicLong(0);
+        CredentialCache cache = new CredentialCache(30_000, relogio::get);
+        AtomicInteger logins = new AtomicInteger();
+        CredentialCache.Login login = () -> Credential.jwt(jwt(relogio.get() / 1000 + 100 + logins.incrementAndGet()), relogio.get());
+
+        Credential primeira = cache.get("usuario", login);
+        relogio.set(60_000);
+        Assert.assertSame(primeira, cache.get("usuario", login));
+        relogio.set(75_000);//a 26s de expirar, dentro da margem de 30s
+        Assert.assertNotSame(primeira, cache.get("usuario", login));
+        Assert.assertEquals(2, logins.get());
+    }
+
+    @Test
+    public void deveFazerUmLoginSoComVariasThreads() throws Exception {
+        CredentialCache cache = new CredentialCache(30_000, System::currentTimeMillis);
+        AtomicInteger logins = new AtomicInteger();
+        CountDownLatch largada = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        CredentialCache.Login lento = () -> {
+            logins.incrementAndGet();
+            try {
+                liberar.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return Credential.jwt(jwt(System.currentTimeMillis() / 1000 + 3600), System.currentTimeMillis());
+        };
+
+        ExecutorService threads = Executors.newFixedThreadPool(8);
+        List<Future<Credential>> resultados = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            resultados.add(threads.submit(() -> {
+                largada.await();
+                return cache.get("usuario", lento);
+            }));
+        }
+        largada.countDown();
+        //sem credencial nenhuma, as outras sete só podem esperar o login em andamento
+        while (cache.stats().get("waits") < 7) {
+            Thread.yield();
+        }
+        liberar.countDown();
+        Credential primeira = resultados.get(0).get();
+        for (Future<Credential> resultado : resultados) {
+            Assert.assertSame(primeira, resultado.get());
+        }
+        threads.shutdown();
+
+        Assert.assertEquals(1, logins.get());
+        Assert.assertEquals(Long.valueOf(7), cache.stats().get("waits"));
+    }
+
+    @Test
+    public void deveReaproveitarLoginQueTerminouAntesDeDisputarARenovacao() {
+        AtomicInteger logins = new AtomicInteger();
+        CredentialCache.Login login = () -> Credential.jwt(jwt(3600 + logins.incrementAndGet()), 0);
+        AtomicBoolean outraRequisicao = new AtomicBoolean(true);
+        AtomicReference<CredentialCache> cache = new AtomicReference<>();
+        //entre ler a credencial (ainda nenhuma) e disputar o login, outra requisição loga do começo ao fim
+        cache.set(new CredentialCache(30_000, () -> {
+            if (outraRequisicao.getAndSet(false)) {
+                cache.get().get("usuario", login);
+            }
+            return 0L;
+        }));
+
+        Credential credencial = cache.get().get("usuario", login);
+
+        Assert.assertEquals(1, logins.get());
+        Assert.assertSame(credencial, cache.get().get("usuario", login));
+    }
+
+    @Test
+    public void deveAnexarOTokenSemLogarDeNovo() {
+        CredentialCache cache = new CredentialCache(30_000, System::currentTimeMillis);
+        Filter auth = AuthFilters.jwt(cache, barriga.url("/signin"), "bruno_graves@bol.com.br", "admin");
+        int antes = SIGNINS.get();
+
+        for (int i = 0; i < 5; i++) {
+            given().filter(auth).get(barriga.url("/contas")).then().statusCode(200).body("nome[0]", is("Conta mesmo nome"));
+        }
+
+        Assert.assertEquals(antes + 1, SIGNINS.get());
+    }
+
+    @Test
+    public void deveAnexarOCookieDeSessao() {
+        CredentialCache cache = new CredentialCache(30_000, System::currentTimeMillis);
+        Filter auth = AuthFilters.sessionCookie(cache, barriga.url("/logar"), "bruno_graves@bol.com.br", "admin", "connect.sid");
+        int antes = LOGARS.get();
+
+        for (int i = 0; i < 3; i++) {
+            given().filter(auth).get(barriga.url("/contas")).then().statusCode(200);
+        }
+
+        Assert.assertEquals(antes + 1, LOGARS.get());
+    }
+
+    private static String jwt(long exp) {
+        Base64.Encoder base64 = Base64.getUrlEncoder().withoutPadding();
+        return base64.encodeToString("{\"alg\":\"HS256\",\"typ\":\"JWT\"}".getBytes(StandardCharsets.UTF_8)) + "."
+                + base64.encodeToString(("{\"id\":1,\"exp\":" + exp + "}").getBytes(StandardCharsets.UTF_8)) + ".assinatura";
+    }
+}
@@ -0,0 +1,131 @@
+package br.com.bferreira.rest.body;
+
+import br.com.bferreira.rest.standin.StandInServer;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParser;
+import io.restassured.http.ContentType;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.*;
+
+public class BodyTemplateTest {
+
+    private static final BodyTemplate USUARIO_JSON = BodyTemplate.json("{\"name\": \"${name}\",\"age\":${age}}");
+    private static final BodyTemplate USUARIO_XML = BodyTemplate.xml("<user><name>${name}</name><age>${age}</age></user>");
+
+    @BeforeClass
+    public static void setup() {
+        StandInServer.install();
+    }
+
+    @Test
+    public void deveEnviarOsCorposPreenchidos() {
+        given()
+            .contentType(ContentType.JSON)
+            .body(USUARIO_JSON.with().value("José Alfredo").value(50).bytes())
+        .when()
+            .post("/users")
+        .then()
+            .statusCode(201)
+            .body("name", is("José Alfredo"))
+            .body("age", is(50));
+
+        given()
+            .contentType(ContentType.XML)
+            .body(USUARIO_XML.render("Maria & Alberta <3", 21))
+        .when()
+            .post("/usersXML")
+        .then()
+            .statusCode(201)
+            .body("user.name", is("Maria & Alberta <3"))
+            .body("user.age", is("21"));
+    }
+
+    @Test
+    public void deveEscaparComoOGson() {
+        BodyTemplate template = BodyTemplate.json("{\"texto\":\"${texto}\",\"solto\":${solto},\"numero\":${numero},\"nulo\":${nulo},\"ok\":${ok}}");
+        String texto = "aspas \" barra \\ quebra\nTAB\t\u0001 ação 😀";
+        Map<String, Object> esperado = new LinkedHashMap<>();
+        esperado.put("texto", texto);
+        esperado.put("solto", "São Paulo");
+        esperado.put("numero", Long.MIN_VALUE);
+        esperado.put("nulo", null);
+        esperado.put("ok", true);
+
+        byte[] corpo = template.with().value(texto).value("São Paulo").value(Long.MIN_VALUE).value((Object) null).value(true).bytes();
+
+        Gson gson = new GsonBuilder().serializeNulls().create();
+        Assert.assertEquals(gson.toJsonTree(esperado), JsonParser.parseString(new String(corpo, StandardCharsets.UTF_8)));
+        Assert.assertEquals("{\"name\": \"Ana\",\"age\":-7}", new String(USUARIO_JSON.render("Ana", -7), StandardCharsets.UTF_8));
+        Assert.assertEquals("<user><name>O&apos;Neil &quot;Jr&quot;</name><age>1.5</age></user>",
+                new String(USUARIO_XML.render("O'Neil \"Jr\"", 1.5), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void deveValidarAQuantidadeDeCampos() {
+        Assert.assertEquals(Arrays.asList("name", "age"), USUARIO_JSON.fields());
+        try {
+            USUARIO_JSON.with().value("Ana").bytes();
+            Assert.fail("falta o age");
+        } catch (IllegalStateException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().startsWith("Falta preencher [age]"));
+        }
+        try {
+            USUARIO_JSON.render("Ana", 1, 2);
+            Assert.fail("campo a mais");
+        } catch (IllegalStateException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().startsWith("O template tem 2 campo(s)"));
+        }
+        BodyWriter escritor = USUARIO_JSON.with().value("Ana").value(20);
+        Assert.assertEquals(escritor.length(), escritor.length());//fechar de novo não repete o último trecho
+        Assert.assertEquals("{\"name\": \"Ana\",\"age\":20}", new String(escritor.array(), 0, escritor.length(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void deveRecusarValoresSemRepresentacaoNoCampo() {
+        try {
+            USUARIO_JSON.with().value((Object) null);
+            Assert.fail("null entre aspas viraria a string vazia");
+        } catch (IllegalArgumentException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().startsWith("null no campo entre aspas name"));
+        }
+        for (Object invalido : Arrays.asList(Double.NaN, Double.POSITIVE_INFINITY, Float.NEGATIVE_INFINITY)) {
+            try {
+                USUARIO_JSON.with().value("Ana").value(invalido);
+                Assert.fail(invalido + " não existe em JSON");
+            } catch (IllegalArgumentException e) {
+                Assert.assertTrue(e.getMessage(), e.getMessage().endsWith("não é um número JSON válido (campo age)"));
+            }
+        }
+        Assert.assertEquals("{\"name\": \"Ana\",\"age\":null}", new String(USUARIO_JSON.render("Ana", null), StandardCharsets.UTF_8));
+        Assert.assertEquals("{\"name\": \"Ana\",\"age\":1.5}", new String(USUARIO_JSON.render("Ana", 1.5), StandardCharsets.UTF_8));
+        Assert.assertEquals("<user><name></name><age>2</age></user>", new String(USUARIO_XML.render(null, 2), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void naoDeveAlocarAoPreencherNoBuffer() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long id = Thread.currentThread().getId();
+        long total = 0;
+        for (int i = 0; i < 20_000; i++) {//aquecimento: o buffer cresce e o JIT compila
+            total += USUARIO_JSON.with().value("José Alfredo").value(i).length();
+        }
+        long antes = threads.getThreadAllocatedBytes(id);
+        for (int i = 0; i < 100_000; i++) {
+            total += USUARIO_JSON.with().value("José Alfredo").value(i).length();
+        }
+        long alocados = threads.getThreadAllocatedBytes(id) - antes;
+        Assert.assertTrue(total > 0);
+        Assert.assertTrue("alocou " + alocados + " bytes em 100000 corpos", alocados < 100_000);
+    }
+}
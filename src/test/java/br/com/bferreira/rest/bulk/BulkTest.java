@@ -0,0 +1,99 @@
+package br.com.bferreira.rest.bulk;
+
+import br.com.bferreira.rest.standin.StandInResponse;
+import br.com.bferreira.rest.standin.StandInServer;
+import br.com.bferreira.rest.standin.WcaquinoApi;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.*;
+
+public class BulkTest {
+
+    @BeforeClass
+    public static void setup() {
+        StandInServer.install();
+    }
+
+    @Test
+    public void deveCriarUsuariosNumaConexaoComPipelining() {
+        Bulk lote = Bulk.toBaseUri().window(16);
+        for (int i = 0; i < 200; i++) {
+            String nome = "Usuário " + i;
+            lote.post("/users", "{\"name\":\"" + nome + "\",\"age\":" + (18 + i % 50) + "}",
+                    resposta -> resposta.statusCode(201).body("name", is(nome)));
+        }
+        BulkReport relatorio = lote.run();
+
+        relatorio.assertAllPassed();
+        Assert.assertEquals(200, relatorio.responded());
+        Assert.assertEquals(Collections.singletonMap(201, 200L), relatorio.statusCounts());
+        Assert.assertTrue(relatorio.bytesOut() > 200 * 30);
+        Assert.assertTrue(relatorio.bytesIn() > 200 * 30);
+        Assert.assertTrue(relatorio.toString(), relatorio.wireNanos() > 0 && relatorio.wireNanos() <= relatorio.elapsedNanos());
+        Assert.assertTrue(relatorio.toString(), relatorio.wireThroughputPerSecond() >= relatorio.throughputPerSecond());
+    }
+
+    @Test
+    public void deveJuntarAsFalhasDeTodosOsItens() {
+        BulkReport relatorio = Bulk.toBaseUri()
+                .post("/users", Collections.singletonMap("name", "Ana"), resposta -> resposta.statusCode(201))
+                .post("/users", Collections.singletonMap("age", 20), resposta -> resposta.statusCode(201))
+                .put("/users/1", Collections.singletonMap("name", "Usuario alterado"), resposta -> resposta.body("name", is("Outro")))
+                .delete("/users/1", resposta -> resposta.statusCode(204))
+                .delete("/users/1000", null)
+                .run();
+
+        Assert.assertEquals(5, relatorio.responded());
+        Assert.assertEquals(2, relatorio.failed());
+        Assert.assertTrue(relatorio.failures().get(0), relatorio.failures().get(0).startsWith("#1 POST /users: "));
+        Assert.assertTrue(relatorio.failures().get(1), relatorio.failures().get(1).startsWith("#2 PUT /users/1: "));
+        try {
+            relatorio.assertAllPassed();
+            Assert.fail("dois itens falharam");
+        } catch (AssertionError e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().startsWith("2 de 5 requisições do lote falharam"));
+        }
+    }
+
+    @Test
+    public void deveResponderNaOrdemMesmoComCorposGrandes() {
+        StandInServer servidor = StandInServer.start(requisicao -> {
+            int tamanho = Integer.parseInt(requisicao.path().substring(1));
+            return StandInResponse.json(200, "{\"tamanho\":" + tamanho + ",\"dados\":\"" + "x".repeat(tamanho) + "\"}");
+        });
+        try {
+            Bulk lote = Bulk.to(servidor.url("")).window(3);
+            for (int tamanho : new int[]{0, 100_000, 5, 300_000, 1, 70_000}) {
+                lote.request("GET", "/" + tamanho, null, null, resposta -> resposta.body("tamanho", is(tamanho)));
+            }
+            lote.run().assertAllPassed();
+        } finally {
+            servidor.close();
+        }
+    }
+
+    @Test
+    public void deveMultiplexarNumaConexaoHttp2() {
+        try (StandInServer servidor = StandInServer.start(new WcaquinoApi())) {
+            Bulk lote = Bulk.to(servidor.url("")).mode(Bulk.Modo.HTTP2).window(8);
+            for (int i = 0; i < 50; i++) {
+                String nome = "Nome " + i;
+                lote.put("/users/" + (i % 3 + 1), Collections.singletonMap("name", nome),
+                        resposta -> resposta.statusCode(200).body("name", is(nome)));
+            }
+            BulkReport relatorio = lote.run();
+
+            relatorio.assertAllPassed();
+            Map<Integer, Long> status = relatorio.statusCounts();
+            Assert.assertEquals(Long.valueOf(50), status.get(200));
+            Assert.assertEquals(-1, relatorio.bytesOut());
+            //com até 8 em andamento, HTTP/1.1 precisaria de várias conexões
+            Assert.assertEquals(1, servidor.connectionsAccepted());
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package br.com.bferreira.rest.cache;
+
+import br.com.bferreira.rest.standin.StandInResponse;
+import br.com.bferreira.rest.standin.StandInServer;
+import br.com.bferreira.rest.standin.WcaquinoApi;
+import io.restassured.specification.RequestSpecification;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.hasItems;
+import static org.hamcrest.Matchers.is;
+
+public class HttpCacheTest {
+
+    @Rule
+    public final TemporaryFolder pasta = new TemporaryFolder();
+
+    //sem os filtros globais, que podem incluir o cache da suíte (-Dhttp.cache.enabled=true)
+    private static RequestSpecification semGlobais(HttpCacheFilter cache) {
+        return given().noFilters().filter(cache);
+    }
+
+    @Test
+    public void deveRevalidarEResponderO304ComOCorpoGuardado() {
+        WcaquinoApi api = new WcaquinoApi();
+        List<Integer> status = new CopyOnWriteArrayList<>();
+        try (StandInServer servidor = StandInServer.start(requisicao -> {
+            StandInResponse resposta = api.handle(requisicao);
+            status.add(resposta.status());
+            return resposta;
+        })) {
+            HttpCacheFilter cache = HttpCacheFilter.create(1 << 20, null);
+            for (int i = 0; i < 3; i++) {
+                semGlobais(cache).get(servidor.url("/users"))
+                        .then().statusCode(200).body("name", hasItems("João da Silva", "Ana Júlia"));
+                semGlobais(cache).get(servidor.url("/usersXML"))
+                        .then().statusCode(200).body("users.user[1].name", is("Maria Joaquina"));
+            }
+            Assert.assertEquals("[200, 200, 304, 304, 304, 304]", status.toString());
+            Map<String, Long> stats = cache.stats();
+            Assert.assertEquals(2L, (long) stats.get("misses"));
+            Assert.assertEquals(2L, (long) stats.get("stored"));
+            Assert.assertEquals(4L, (long) stats.get("revalidated"));
+            Assert.assertEquals(0L, (long) stats.get("hits"));
+            Assert.assertEquals(2L, (long) stats.get("entries"));
+        }
+    }
+
+    @Test
+    public void deveRespeitarMaxAgeETrocarOCorpoQuandoMuda() {
+        AtomicInteger versao = new AtomicInteger(1);
+        AtomicInteger chamadas = new AtomicInteger();
+        try (StandInServer servidor = StandInServer.start(requisicao -> {
+            chamadas.incrementAndGet();
+            String etag = "\"v" + versao.get() + "\"";
+            if ("/fixo".equals(requisicao.path())) {
+                return StandInResponse.text(200, "fixo").header("ETag", "\"f\"").header("Cache-Control", "max-age=60");
+            }
+            if (etag.equals(requisicao.header("if-none-match"))) {
+                return StandInResponse.empty(304).header("ETag", etag);
+            }
+            return StandInResponse.text(200, "versão " + versao.get()).header("ETag", etag);
+        })) {
+            HttpCacheFilter cache = HttpCacheFilter.create(1 << 20, null);
+            for (int i = 0; i < 5; i++) {
+                Assert.assertEquals("fixo", semGlobais(cache).get(servidor.url("/fixo")).asString());
+            }
+            Assert.assertEquals(1, chamadas.get());
+            Assert.assertEquals(4L, (long) cache.stats().get("hits"));
+
+            Assert.assertEquals("versão 1", semGlobais(cache).get(servidor.url("/muda")).asString());
+            Assert.assertEquals("versão 1", semGlobais(cache).get(servidor.url("/muda")).asString());
+            versao.set(2);
+            Assert.assertEquals("versão 2", semGlobais(cache).get(servidor.url("/muda")).asString());
+            Assert.assertEquals("versão 2", semGlobais(cache).get(servidor.url("/muda")).asString());
+            Assert.assertEquals(1L, (long) cache.stats().get("modified"));
+            Assert.assertEquals(2L, (long) cache.stats().get("revalidated"));
+
+            semGlobais(cache).body("x").post(servidor.url("/muda"));
+            semGlobais(cache).auth().preemptive().basic("admin", "senha").get(servidor.url("/muda"));
+            Assert.assertEquals(2L, (long) cache.stats().get("bypassed"));
+        }
+    }
+
+    @Test
+    public void deveDespejarOMenosUsadoEGuardarEmDiscoEntreExecucoes() throws Exception {
+        try (StandInServer servidor = StandInServer.start(new WcaquinoApi())) {
+            //cabe uma resposta do /users/{id} por vez
+            HttpCacheFilter cache = HttpCacheFilter.create(600, pasta.getRoot().toPath());
+            for (int id = 1; id <= 3; id++) {
+                semGlobais(cache).get(servidor.url("/users/" + id)).then().statusCode(200);
+            }
+            Map<String, Long> stats = cache.stats();
+            Assert.assertEquals(1L, (long) stats.get("entries"));
+            Assert.assertEquals(2L, (long) stats.get("evictions"));
+
+            //a próxima execução começa com a memória vazia e revalida o que está no disco
+            HttpCacheFilter outraExecucao = HttpCacheFilter.create(1 << 20, pasta.getRoot().toPath());
+            semGlobais(outraExecucao).get(servidor.url("/users/2")).then().statusCode(200).body("endereco.rua", is("Rua dos bobos"));
+            Assert.assertEquals(1L, (long) outraExecucao.stats().get("diskReads"));
+            Assert.assertEquals(1L, (long) outraExecucao.stats().get("revalidated"));
+            Assert.assertEquals(0L, (long) outraExecucao.stats().get("misses"));
+        }
+    }
+}
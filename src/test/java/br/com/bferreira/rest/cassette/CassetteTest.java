@@ -0,0 +1,138 @@
+package br.com.bferreira.rest.cassette;
+
+import br.com.bferreira.rest.standin.StandInResponse;
+import br.com.bferreira.rest.standin.StandInServer;
+import io.restassured.http.ContentType;
+import io.restassured.http.Cookie;
+import io.restassured.http.Header;
+import io.restassured.response.Response;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.is;
+
+public class CassetteTest {
+
+    @Rule
+    public final TemporaryFolder pasta = new TemporaryFolder();
+
+    @Test
+    public void deveReproduzirOQueFoiGravadoSemIrParaARede() throws Exception {
+        Path arquivo = pasta.getRoot().toPath().resolve("api.cassette");
+        AtomicInteger chamadas = new AtomicInteger();
+        StandInServer servidor = StandInServer.start(requisicao -> {
+            chamadas.incrementAndGet();
+            switch (requisicao.path()) {
+                case "/users":
+                    return StandInResponse.json(200, "{\"metodo\":\"" + requisicao.method() + "\",\"corpo\":" + requisicao.bodyAsString().length() + "}");
+                case "/logar":
+                    return StandInResponse.text(200, "ok").header("Set-Cookie", "connect.sid=s%3Aabc; Max-Age=3600; Path=/");
+                default:
+                    return StandInResponse.empty(404);
+            }
+        });
+        CassetteFilter gravador = new CassetteFilter(CassetteFilter.Modo.RECORD, arquivo, host -> true);
+        try {
+            given().filter(gravador).queryParam("b", "2").queryParam("a", "1").get(servidor.url("/users")).then().statusCode(200);
+            given().filter(gravador).contentType(ContentType.JSON).body("{\"name\":\"Ana\"}").post(servidor.url("/users"))
+                    .then().statusCode(200).body("corpo", is(14));
+            given().filter(gravador).formParam("email", "a@b.c").formParam("senha", "x").post(servidor.url("/logar")).then().statusCode(200);
+            gravador.close();
+        } finally {
+            servidor.close();
+        }
+        Assert.assertEquals(3, chamadas.get());
+        Assert.assertEquals(3L, (long) gravador.stats().get("recorded"));
+
+        CassetteFilter fita = new CassetteFilter(CassetteFilter.Modo.REPLAY, arquivo, host -> true);
+        given().filter(fita).queryParam("a", "1").queryParam("b", "2").get(servidor.url("/users"))
+                .then().statusCode(200).contentType(ContentType.JSON).body("metodo", is("GET"));
+        given().filter(fita).contentType(ContentType.JSON).body("{\"name\":\"Ana\"}").post(servidor.url("/users"))
+                .then().statusCode(200).body("metodo", is("POST"));
+        Response login = given().filter(fita).formParam("senha", "x").formParam("email", "a@b.c").post(servidor.url("/logar"));
+        Cookie cookie = login.getDetailedCookie("connect.sid");
+        Assert.assertEquals("s%3Aabc", cookie.getValue());
+        Assert.assertEquals(3600, cookie.getMaxAge());
+        Assert.assertEquals("ok", login.asString());
+        Assert.assertEquals(3L, (long) fita.stats().get("replayed"));
+    }
+
+    @Test
+    public void deveFalharQuandoNaoHaGravacao() {
+        //porta sem servidor: a requisição só pode ser atendida pela fita
+        String url = "http://127.0.0.1:9/users";
+        Path arquivo = pasta.getRoot().toPath().resolve("uma.cassette");
+        Cassette.write(arquivo, Collections.singletonMap(CassetteKey.of("POST", url, null, "{\"name\":\"Ana\"}"),
+                new Recording(201, "HTTP/1.1 201 Created", Collections.emptyList(), new byte[0])));
+        CassetteFilter fita = new CassetteFilter(CassetteFilter.Modo.REPLAY, arquivo, host -> true);
+
+        given().filter(fita).body("{\"name\":\"Ana\"}").post(url).then().statusCode(201);
+        try {
+            given().filter(fita).body("{\"name\":\"Bia\"}").post(url);
+            Assert.fail("sem gravação para o corpo novo, não deveria ir para a rede");
+        } catch (IllegalStateException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().startsWith("Sem gravação na fita"));
+        }
+        Assert.assertEquals(1L, (long) fita.stats().get("missing"));
+    }
+
+    @Test
+    public void deveMarcarAFitaSinteticaPeloNome() {
+        Map<String, Recording> gravacoes = Collections.singletonMap(CassetteKey.of("GET", "http://127.0.0.1:9/users", null, null),
+                new Recording(200, "HTTP/1.1 200 OK", Collections.emptyList(), new byte[0]));
+        Path sintetica = pasta.getRoot().toPath().resolve("api.synthetic.cassette");
+        Path real = pasta.getRoot().toPath().resolve("api.cassette");
+        Cassette.write(sintetica, gravacoes);
+        Cassette.write(real, gravacoes);
+
+        Assert.assertTrue(new CassetteFilter(CassetteFilter.Modo.REPLAY, sintetica, host -> true).synthetic());
+        Assert.assertFalse(new CassetteFilter(CassetteFilter.Modo.REPLAY, real, host -> true).synthetic());
+        Assert.assertFalse("gravar vai para a rede", new CassetteFilter(CassetteFilter.Modo.RECORD, sintetica, host -> true).synthetic());
+        Assert.assertFalse("sem o arquivo não há o que reproduzir",
+                new CassetteFilter(CassetteFilter.Modo.REPLAY, pasta.getRoot().toPath().resolve("outra.synthetic.cassette"), host -> true).synthetic());
+    }
+
+    @Test
+    public void deveDeixarAsRequisicoesLocaisIremParaARede() {
+        StandInServer servidor = StandInServer.start(requisicao -> StandInResponse.json(200, "{\"local\":true}"));
+        try {
+            CassetteFilter fita = CassetteFilter.create(CassetteFilter.Modo.REPLAY, pasta.getRoot().toPath().resolve("inexistente.cassette"));
+            given().filter(fita).get(servidor.url("/qualquer")).then().body("local", is(true));
+            Assert.assertEquals(1L, (long) fita.stats().get("passedThrough"));
+        } finally {
+            servidor.close();
+        }
+    }
+
+    @Test
+    public void deveAcharCadaGravacaoPelaTabelaHash() {
+        Path arquivo = pasta.getRoot().toPath().resolve("grande.cassette");
+        Map<String, Recording> gravacoes = new LinkedHashMap<>();
+        for (int i = 0; i < 2000; i++) {
+            gravacoes.put(CassetteKey.of("GET", "https://api.exemplo.com/users/" + i + "?pagina=" + (i % 7), null, null),
+                    new Recording(200, "HTTP/1.1 200 OK", Collections.singletonList(new Header("X-Id", String.valueOf(i))),
+                            ("{\"id\":" + i + "}").getBytes(StandardCharsets.UTF_8)));
+        }
+        Cassette.write(arquivo, gravacoes);
+
+        Cassette fita = Cassette.open(arquivo);
+        Assert.assertEquals(2000, fita.size());
+        for (int i = 0; i < 2000; i++) {
+            Recording gravacao = fita.find(CassetteKey.of("GET", "https://api.exemplo.com:443/users/" + i + "?pagina=" + (i % 7), null, null));
+            Assert.assertEquals(String.valueOf(i), gravacao.headers().get(0).getValue());
+            Assert.assertEquals("{\"id\":" + i + "}", new String(gravacao.body(), StandardCharsets.UTF_8));
+        }
+        Assert.assertNull(fita.find(CassetteKey.of("GET", "https://api.exemplo.com/users/2000", null, null)));
+        Assert.assertEquals(gravacoes.keySet(), fita.recordings().keySet());
+    }
+}
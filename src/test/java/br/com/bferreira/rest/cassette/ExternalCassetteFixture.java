@@ -0,0 +1,132 @@
+package br.com.bferreira.rest.cassette;
+
+import br.com.bferreira.rest.AuthTest;
+import io.restassured.RestAssured;
+import io.restassured.filter.FilterContext;
+import io.restassured.filter.OrderedFilter;
+import io.restassured.http.Header;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Result;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Monta a fita sintética dos serviços externos do {@link AuthTest} sem acesso a eles: roda o AuthTest
+ * com um filtro global que responde às requisições externas com as respostas abaixo (no
+ * formato das APIs reais) e grava cada uma com a chave da requisição que o teste fez de
+ * fato. O nome {@code *.synthetic.cassette} marca a fita como sintética: o {@link CassetteFilter}
+ * avisa e o AuthTest pula as validações das APIs externas. Com acesso às APIs, grave as
+ * respostas reais na {@code external.cassette}:
+ * <pre>
+ * mvn test -Dtest=AuthTest -Dcassette.mode=record
+ * </pre>
+ * Para remontar a fita daqui:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=br.com.bferreira.rest.cassette.ExternalCassetteFixture
+ * </pre>
+ */
+public class ExternalCassetteFixture {
+
+    //exp em 2100-01-01, para o CredentialCache não renovar o token
+    private static final String TOKEN = base64("{\"alg\":\"HS256\",\"typ\":\"JWT\"}") + "."
+            + base64("{\"id\":5140,\"nome\":\"Bruno Graves\",\"email\":\"bruno_graves@bol.com.br\",\"exp\":4102444800}") + ".Zml0YQ";
+
+    public static void main(String[] args) {
+        Path arquivo = Paths.get(args.length > 0 ? args[0] : "src/test/resources/cassettes/external.synthetic.cassette");
+        Map<String, Recording> respostas = respostas();
+        Map<String, Recording> gravacoes = new LinkedHashMap<>();
+
+        System.setProperty("cassette.mode", "off");//o BaseTest não deve instalar a fita que está sendo montada
+        RestAssured.filters(new OrderedFilter() {
+            @Override
+            public Response filter(FilterableRequestSpecification requisicao, FilterableResponseSpecification resposta, FilterContext contexto) {
+                URI uri = URI.create(requisicao.getURI());
+                if (uri.getHost().startsWith("127.")) {
+                    return contexto.next(requisicao, resposta);
+                }
+                String endereco = requisicao.getMethod() + " " + uri.getScheme() + "://" + uri.getHost() + uri.getPath();
+                Recording gravacao = respostas.get(endereco);
+                if (gravacao == null) {
+                    throw new IllegalStateException("Sem resposta montada para " + endereco);
+                }
+                gravacoes.put(CassetteKey.of(requisicao), gravacao);
+                return gravacao.toResponse();
+            }
+
+            @Override
+            public int getOrder() {
+                return LOWEST_PRECEDENCE;
+            }
+        });
+
+        Result resultado = JUnitCore.runClasses(AuthTest.class);
+        resultado.getFailures().forEach(falha -> System.err.println(falha.getTestHeader() + ": " + falha.getMessage()));
+        Cassette.write(arquivo, gravacoes);
+        System.out.println(gravacoes.size() + " gravações em " + arquivo.toAbsolutePath());
+        gravacoes.keySet().forEach(System.out::println);
+        System.exit(resultado.wasSuccessful() ? 0 : 1);
+    }
+
+    private static Map<String, Recording> respostas() {
+        Map<String, Recording> respostas = new LinkedHashMap<>();
+        respostas.put("GET https://swapi.dev/api/people/1", json(200, "{\"name\":\"Luke Skywalker\",\"height\":\"172\",\"mass\":\"77\","
+                + "\"hair_color\":\"blond\",\"skin_color\":\"fair\",\"eye_color\":\"blue\",\"birth_year\":\"19BBY\",\"gender\":\"male\","
+                + "\"homeworld\":\"https://swapi.dev/api/planets/1/\",\"films\":[\"https://swapi.dev/api/films/1/\","
+                + "\"https://swapi.dev/api/films/2/\",\"https://swapi.dev/api/films/3/\",\"https://swapi.dev/api/films/6/\"],"
+                + "\"species\":[],\"vehicles\":[\"https://swapi.dev/api/vehicles/14/\",\"https://swapi.dev/api/vehicles/30/\"],"
+                + "\"starships\":[\"https://swapi.dev/api/starships/12/\",\"https://swapi.dev/api/starships/22/\"],"
+                + "\"created\":\"2014-12-09T13:50:51.644000Z\",\"edited\":\"2014-12-20T21:17:56.891000Z\","
+                + "\"url\":\"https://swapi.dev/api/people/1/\"}"));
+        respostas.put("GET https://api.openweathermap.org/data/2.5/weather", json(200, "{\"coord\":{\"lon\":-51.23,\"lat\":-30.03},"
+                + "\"weather\":[{\"id\":803,\"main\":\"Clouds\",\"description\":\"broken clouds\",\"icon\":\"04d\"}],"
+                + "\"base\":\"stations\",\"main\":{\"temp\":22.4,\"feels_like\":22.6,\"temp_min\":21.1,\"temp_max\":23.9,"
+                + "\"pressure\":1014,\"humidity\":73},\"visibility\":10000,\"wind\":{\"speed\":3.6,\"deg\":120},"
+                + "\"clouds\":{\"all\":75},\"dt\":1729250400,\"sys\":{\"type\":2,\"id\":2007617,\"country\":\"BR\","
+                + "\"sunrise\":1729240211,\"sunset\":1729286350},\"timezone\":-10800,\"id\":3452925,"
+                + "\"name\":\"Porto Alegre\",\"cod\":200}"));
+        respostas.put("POST https://barrigarest.wcaquino.me/signin", json(200,
+                "{\"id\":5140,\"nome\":\"Bruno Graves\",\"token\":\"" + TOKEN + "\"}"));
+        respostas.put("GET https://barrigarest.wcaquino.me/contas", json(200,
+                "[{\"id\":1877392,\"nome\":\"Conta mesmo nome\",\"visivel\":true,\"usuario_id\":5140}]"));
+        List<Header> logar = new ArrayList<>();
+        logar.add(new Header("Content-Type", "text/html; charset=utf-8"));
+        logar.add(new Header("Set-Cookie", "connect.sid=s%3AY2Fzc2V0dGU.ZmFrZQ; Path=/; Expires=Fri, 01 Jan 2100 00:00:00 GMT; HttpOnly"));
+        respostas.put("POST https://seubarriga.wcaquino.me/logar", new Recording(200, "HTTP/1.1 200 OK", logar,
+                bytes("<html><head><title>Seu Barriga</title></head><body><div class=\"alert alert-success\">Bem vindo, Bruno!</div></body></html>")));
+        List<Header> contas = new ArrayList<>();
+        contas.add(new Header("Content-Type", "text/html; charset=utf-8"));
+        respostas.put("GET https://seubarriga.wcaquino.me/contas", new Recording(200, "HTTP/1.1 200 OK", contas,
+                bytes("<html><head><title>Seu Barriga - Contas</title></head><body>"
+                        + "<table id=\"tabelaContas\" class=\"table table-hover table-bordered\">"
+                        + "<thead><tr><th>Conta</th><th>Ações</th></tr></thead>"
+                        + "<tbody><tr><td>Conta mesmo nome</td><td><a href=\"/editarConta?id=1877392\">editar</a></td></tr></tbody>"
+                        + "</table></body></html>")));
+        return respostas;
+    }
+
+    private static Recording json(int status, String corpo) {
+        List<Header> headers = new ArrayList<>();
+        headers.add(new Header("Content-Type", "application/json; charset=utf-8"));
+        return new Recording(status, "HTTP/1.1 " + status + " OK", headers, bytes(corpo));
+    }
+
+    private static byte[] bytes(String texto) {
+        return texto.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String base64(String json) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes(json));
+    }
+}
@@ -0,0 +1,135 @@
+package br.com.bferreira.rest.compression;
+
+import br.com.bferreira.rest.config.ConnectionPool;
+import br.com.bferreira.rest.metrics.RequestMetrics;
+import br.com.bferreira.rest.standin.StandInHandler;
+import br.com.bferreira.rest.standin.StandInResponse;
+import br.com.bferreira.rest.standin.StandInServer;
+import io.restassured.RestAssured;
+import io.restassured.config.RestAssuredConfig;
+import org.apache.http.HttpEntity;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.BufferedHttpEntity;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.AbstractHttpClient;
+import org.apache.http.protocol.BasicHttpContext;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.*;
+
+public class ContentCodingTest {
+
+    private static final StandInHandler LISTA = requisicao -> {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 1; i <= 200; i++) {
+            json.append(i > 1 ? "," : "").append("{\"id\":").append(i).append(",\"name\":\"Usuario ").append(i)
+                    .append("\",\"age\":").append(20 + i % 50).append(",\"salary\":").append(1000 + i).append('}');
+        }
+        return StandInResponse.json(200, json.append(']').toString());
+    };
+
+    @Test
+    public void deveDescomprimirGzipEDeflateEContarOsBytes() {
+        RestAssuredConfig config = ContentCoding.create().config();
+        try (StandInServer servidor = StandInServer.start(LISTA, true)) {
+            given().config(config).noFilters()
+                    .get(servidor.url("/compressao/gzip"))
+                    .then().statusCode(200).header("Content-Encoding", "gzip").body("$", hasSize(200)).body("name[199]", is("Usuario 200"));
+            given().config(config).noFilters().header("Accept-Encoding", "deflate, gzip;q=0")
+                    .get(servidor.url("/compressao/deflate"))
+                    .then().statusCode(200).header("Content-Encoding", "deflate").body("$", hasSize(200));
+
+            for (String caminho : new String[]{"/compressao/gzip", "/compressao/deflate"}) {
+                Map<String, Long> stats = RequestMetrics.stats().get(RequestMetrics.endpointKey("GET", servidor.url(caminho)));
+                Assert.assertEquals(1L, (long) stats.get("compressedBodies"));
+                //a lista repete muito texto: comprime para bem menos da metade
+                Assert.assertThat(stats.get("bodyWireBytes") * 2, lessThan(stats.get("bodyDecodedBytes")));
+            }
+        }
+    }
+
+    @Test
+    public void deveDescomprimirDaRedeSemOPoolCopiarOCorpo() {
+        try (ConnectionPool pool = ConnectionPool.create(2, 10, 30_000);
+             StandInServer servidor = StandInServer.start(LISTA, true);
+             StandInServer semCompressao = StandInServer.start(LISTA, false)) {
+            //entre o interceptador do pool e o da compressão: a entidade como o pool a deixou
+            List<HttpEntity> entregues = new CopyOnWriteArrayList<>();
+            RestAssuredConfig base = RestAssured.config().httpClient(pool.httpClientConfig());
+            RestAssuredConfig config = ContentCoding.create().applyTo(base.httpClient(base.getHttpClientConfig().httpClientFactory(() -> {
+                AbstractHttpClient cliente = (AbstractHttpClient) pool.httpClientConfig().httpClientInstance();
+                cliente.addResponseInterceptor((resposta, contexto) -> entregues.add(resposta.getEntity()));
+                return cliente;
+            })));
+
+            for (int i = 0; i < 2; i++) {
+                given().config(config).noFilters()
+                        .get(servidor.url("/compressao/gzip"))
+                        .then().statusCode(200).header("Content-Encoding", "gzip").body("$", hasSize(200));
+            }
+            given().config(config).noFilters()
+                    .get(semCompressao.url("/compressao/identity"))
+                    .then().statusCode(200).body("$", hasSize(200));
+
+            Assert.assertEquals(3, entregues.size());
+            for (HttpEntity comprimida : entregues.subList(0, 2)) {
+                Assert.assertTrue("comprimido continua em streaming", comprimida.isStreaming());
+                Assert.assertThat(comprimida, not(instanceOf(BufferedHttpEntity.class)));
+            }
+            Assert.assertThat("sem Content-Encoding o pool ainda lê na chegada", entregues.get(2), instanceOf(BufferedHttpEntity.class));
+            //lido até o fim pelo parser: a conexão voltou e a segunda requisição comprimida a reaproveitou
+            Assert.assertEquals(Long.valueOf(0), pool.stats().get("leased"));
+            Assert.assertEquals(1, pool.reused());
+        }
+    }
+
+    @Test
+    public void deveMedirOGanhoComOStandInComprimindoOuNao() {
+        RestAssuredConfig config = ContentCoding.create().config();
+        try (StandInServer semCompressao = StandInServer.start(LISTA, false);
+             StandInServer comCompressao = StandInServer.start(LISTA, true)) {
+            given().config(config).noFilters().get(semCompressao.url("/ganho")).then().statusCode(200).body("$", hasSize(200));
+            given().config(config).noFilters().get(comCompressao.url("/ganho")).then().statusCode(200).body("$", hasSize(200));
+
+            Map<String, Long> sem = RequestMetrics.stats().get(RequestMetrics.endpointKey("GET", semCompressao.url("/ganho")));
+            Map<String, Long> com = RequestMetrics.stats().get(RequestMetrics.endpointKey("GET", comCompressao.url("/ganho")));
+            Assert.assertEquals(0L, (long) sem.get("compressedBodies"));
+            Assert.assertEquals(sem.get("bodyWireBytes"), sem.get("bodyDecodedBytes"));
+            Assert.assertEquals(sem.get("bodyDecodedBytes"), com.get("bodyDecodedBytes"));
+            Assert.assertThat(com.get("bodyWireBytes") * 2, lessThan(sem.get("bodyWireBytes")));
+        }
+    }
+
+    @Test
+    public void deveComprimirCorposDeRequisicaoAPartirDoMinimo() throws Exception {
+        ContentCoding compressao = ContentCoding.create().compressRequests(1024);
+        String grande = "{\"nome\":\"" + "x".repeat(4096) + "\"}";
+
+        HttpPost pequeno = new HttpPost("http://localhost/users");
+        pequeno.setEntity(new StringEntity("{\"nome\":\"x\"}"));
+        compressao.process(pequeno, new BasicHttpContext());
+        Assert.assertNull(pequeno.getEntity().getContentEncoding());
+
+        HttpPost comprimido = new HttpPost("http://localhost/users");
+        comprimido.setEntity(new StringEntity(grande));
+        compressao.process(comprimido, new BasicHttpContext());
+        Assert.assertEquals("gzip", comprimido.getEntity().getContentEncoding().getValue());
+        ByteArrayOutputStream naRede = new ByteArrayOutputStream();
+        comprimido.getEntity().writeTo(naRede);
+        Assert.assertThat(naRede.size(), lessThan(200));
+
+        //o stand-in descomprime antes do handler: o eco volta igual ao enviado
+        try (StandInServer servidor = StandInServer.start(requisicao -> StandInResponse.json(201, requisicao.bodyAsString()))) {
+            given().config(compressao.config()).noFilters().contentType("application/json").body(grande)
+                    .post(servidor.url("/users"))
+                    .then().statusCode(201).body("nome.length()", is(4096));
+        }
+    }
+}
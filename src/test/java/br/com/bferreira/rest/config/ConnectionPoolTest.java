@@ -0,0 +1,109 @@
+package br.com.bferreira.rest.config;
+
+import br.com.bferreira.rest.standin.StandInServer;
+import io.restassured.RestAssured;
+import io.restassured.config.RestAssuredConfig;
+import org.apache.http.conn.scheme.Scheme;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+
+public class ConnectionPoolTest {
+
+    private ConnectionPool pool;
+
+    @BeforeClass
+    public static void setup() {
+        StandInServer.install();
+    }
+
+    @After
+    public void fechar() {
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
+    @Test
+    public void deveReaproveitarAConexaoEntreRequisicoes() {
+        pool = ConnectionPool.create(2, 10, 30_000);
+        RestAssuredConfig config = RestAssured.config().httpClient(pool.httpClientConfig());
+
+        for (int i = 0; i < 3; i++) {
+            given().config(config).get("/ola").then().statusCode(200).body(is("Ola Mundo!"));
+        }
+
+        Assert.assertEquals(1, pool.created());
+        Assert.assertEquals(2, pool.reused());
+        Assert.assertEquals(Long.valueOf(1), pool.stats().get("available"));
+    }
+
+    @Test
+    public void deveDevolverAConexaoMesmoSemLerOCorpo() {
+        pool = ConnectionPool.create(1, 1, 30_000);
+        RestAssuredConfig config = RestAssured.config().httpClient(pool.httpClientConfig());
+
+        for (int i = 0; i < 3; i++) {
+            given().config(config).get("/users").then().statusCode(200);
+        }
+
+        Assert.assertEquals(Long.valueOf(0), pool.stats().get("leased"));
+        Assert.assertEquals(2, pool.reused());
+    }
+
+    @Test
+    public void deveIsolarOHttpsRelaxadoDasRequisicoesSeguintes() throws IOException {
+        pool = ConnectionPool.create(2, 10, 30_000);
+        RestAssuredConfig config = RestAssured.config().httpClient(pool.httpClientConfig());
+        Scheme https = pool.schemeRegistry().get("https");
+
+        //o RestAssured registra no registro do cliente um esquema https que aceita qualquer certificado;
+        //o servidor fecha a conexão sem handshake, mas o esquema já foi trocado antes de conectar
+        try (ServerSocket semTls = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            Thread fechar = new Thread(() -> {
+                try {
+                    semTls.accept().close();
+                } catch (IOException e) {
+                    //socket fechado no fim do teste
+                }
+            });
+            fechar.setDaemon(true);
+            fechar.start();
+            try {
+                given().config(config).relaxedHTTPSValidation()
+                        .get("https://" + semTls.getInetAddress().getHostAddress() + ":" + semTls.getLocalPort() + "/ola");
+                Assert.fail("o servidor não fala TLS");
+            } catch (Exception e) {
+                Assert.assertThat(e, instanceOf(IOException.class));
+            }
+        }
+        Assert.assertSame("o esquema do pool não foi trocado", https, pool.schemeRegistry().get("https"));
+        Assert.assertEquals("a requisição relaxada não usa o pool", 0, pool.created());
+
+        given().config(config).get("/ola").then().statusCode(200);
+        Assert.assertSame(https, pool.schemeRegistry().get("https"));
+        Assert.assertEquals(1, pool.created());
+    }
+
+    @Test
+    public void deveFecharConexoesOciosas() throws InterruptedException {
+        pool = ConnectionPool.create(2, 10, 50);
+        given().config(RestAssured.config().httpClient(pool.httpClientConfig())).get("/ola").then().statusCode(200);
+
+        long limite = System.currentTimeMillis() + 5_000;
+        while (pool.stats().get("available") > 0 && System.currentTimeMillis() < limite) {
+            Thread.sleep(20);
+        }
+        Assert.assertEquals(Long.valueOf(0), pool.stats().get("available"));
+        Assert.assertEquals(Long.valueOf(1), pool.stats().get("evicted"));
+    }
+}
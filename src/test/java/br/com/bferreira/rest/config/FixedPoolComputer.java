@@ -0,0 +1,82 @@
+package br.com.bferreira.rest.config;
+
+import org.junit.runner.Computer;
+import org.junit.runner.Runner;
+import org.junit.runners.ParentRunner;
+import org.junit.runners.model.InitializationError;
+import org.junit.runners.model.RunnerBuilder;
+import org.junit.runners.model.RunnerScheduler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Igual ao {@code org.junit.experimental.ParallelComputer} com classes e métodos em
+ * paralelo, mas com um número fixo de threads, para medir a escala de 1 a N núcleos.
+ * Classes e métodos usam pools separados: a thread de uma classe fica esperando os
+ * seus métodos terminarem, e com um pool só isso poderia travar a execução.
+ */
+public class FixedPoolComputer extends Computer {
+
+    private final ExecutorService classes;
+    private final ExecutorService metodos;
+
+    public FixedPoolComputer(int threads) {
+        this.classes = Executors.newFixedThreadPool(threads, threads("junit-classe-"));
+        this.metodos = Executors.newFixedThreadPool(threads, threads("junit-metodo-"));
+    }
+
+    @Override
+    public Runner getSuite(RunnerBuilder builder, Class<?>[] classes) throws InitializationError {
+        return agendar(super.getSuite(builder, classes), this.classes, true);
+    }
+
+    @Override
+    protected Runner getRunner(RunnerBuilder builder, Class<?> testClass) throws Throwable {
+        return agendar(super.getRunner(builder, testClass), metodos, false);
+    }
+
+    private Runner agendar(Runner runner, ExecutorService executor, boolean encerrar) {
+        if (runner instanceof ParentRunner) {
+            ((ParentRunner<?>) runner).setScheduler(new RunnerScheduler() {
+                private final List<Future<?>> pendentes = new ArrayList<>();
+
+                @Override
+                public void schedule(Runnable filho) {
+                    pendentes.add(executor.submit(filho));
+                }
+
+                @Override
+                public void finished() {
+                    try {
+                        for (Future<?> pendente : pendentes) {
+                            pendente.get();
+                        }
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    } finally {
+                        if (encerrar) {
+                            classes.shutdown();
+                            metodos.shutdown();
+                        }
+                    }
+                }
+            });
+        }
+        return runner;
+    }
+
+    private static ThreadFactory threads(String prefixo) {
+        AtomicInteger contador = new AtomicInteger();
+        return tarefa -> {
+            Thread thread = new Thread(tarefa, prefixo + contador.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,62 @@
+package br.com.bferreira.rest.config;
+
+import br.com.bferreira.rest.GlobalSetup;
+import br.com.bferreira.rest.OlaMundoTest;
+import br.com.bferreira.rest.UserJsonTest;
+import br.com.bferreira.rest.UserXMLTest;
+import br.com.bferreira.rest.VerbosTest;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Result;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+/**
+ * Mede o tempo de parede da suíte (menos o AuthTest, que depende de serviços externos)
+ * com 1, 2, ... N threads usando o {@link FixedPoolComputer}.
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=br.com.bferreira.rest.config.ParallelScalingBenchmark -Dexec.args="8 5"
+ * </pre>
+ * Argumentos: número máximo de threads (padrão: núcleos disponíveis) e repetições por medição.
+ */
+public class ParallelScalingBenchmark {
+
+    private static final Class<?>[] CLASSES = {OlaMundoTest.class, UserJsonTest.class, UserXMLTest.class, VerbosTest.class};
+
+    public static void main(String[] args) {
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int repeticoes = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));//descarta o que os testes imprimem (inclusive o log de falha), antes do RestAssured capturar o System.out
+        GlobalSetup.install();//antes das threads: o BaseTest de cada classe não mexe mais nos estáticos do RestAssured
+
+        executar(1);//aquecimento do JIT e carga de classes
+        double base = 0;
+        console.printf("%-8s %12s %10s%n", "threads", "melhor (ms)", "speedup");
+        for (int threads = 1; threads <= maxThreads; threads++) {
+            long melhor = Long.MAX_VALUE;
+            for (int i = 0; i < repeticoes; i++) {
+                melhor = Math.min(melhor, executar(threads));
+            }
+            double ms = melhor / 1e6;
+            if (threads == 1) {
+                base = ms;
+            }
+            console.printf("%-8d %12.1f %10.2f%n", threads, ms, base / ms);
+        }
+        System.setOut(console);
+    }
+
+    private static long executar(int threads) {
+        long inicio = System.nanoTime();
+        Result resultado = new JUnitCore().run(new FixedPoolComputer(threads), CLASSES);
+        long duracao = System.nanoTime() - inicio;
+        if (resultado.getRunCount() == 0) {
+            throw new IllegalStateException("Nenhum teste executado");
+        }
+        return duracao;
+    }
+}
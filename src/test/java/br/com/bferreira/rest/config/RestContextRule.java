@@ -0,0 +1,36 @@
+package br.com.bferreira.rest.config;
+
+import org.junit.rules.TestRule;
+import org.junit.runner.Description;
+import org.junit.runners.model.Statement;
+
+import java.util.function.Supplier;
+
+/**
+ * Associa um {@link RestContext} à thread que executa cada teste e desfaz a associação
+ * no final. O contexto é obtido na hora da execução, então pode ser montado no
+ * {@code @BeforeClass} e guardado num campo estático da classe de teste.
+ */
+public class RestContextRule implements TestRule {
+
+    private final Supplier<RestContext> contexto;
+
+    public RestContextRule(Supplier<RestContext> contexto) {
+        this.contexto = contexto;
+    }
+
+    @Override
+    public Statement apply(Statement base, Description description) {
+        return new Statement() {
+            @Override
+            public void evaluate() throws Throwable {
+                RestContext anterior = RestContext.bind(contexto.get());
+                try {
+                    base.evaluate();
+                } finally {
+                    RestContext.bind(anterior);
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,47 @@
+package br.com.bferreira.rest.config;
+
+import br.com.bferreira.rest.standin.StandInServer;
+import io.restassured.builder.ResponseSpecBuilder;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.hamcrest.Matchers.*;
+
+public class RestContextTest {
+
+    @BeforeClass
+    public static void setup() {
+        StandInServer.install();
+    }
+
+    @Test
+    public void deveAplicarResponseSpecDoContextoDaThread() {
+        RestContext anterior = RestContext.bind(RestContext.of(null, new ResponseSpecBuilder().expectStatusCode(201).build()));
+        try {
+            RestContext.given().get("/ola");
+            Assert.fail("O status 200 deveria violar o spec do contexto");
+        } catch (AssertionError e) {
+            Assert.assertThat(e.getMessage(), containsString("201"));
+        } finally {
+            RestContext.bind(anterior);
+        }
+    }
+
+    @Test
+    public void naoDeveVazarContextoParaOutraThread() throws Exception {
+        RestContext contexto = RestContext.of(null, new ResponseSpecBuilder().expectStatusCode(404).build());
+        RestContext anterior = RestContext.bind(contexto);
+        try {
+            RestContext.given().get("/users/4");
+            RestContext emOutraThread = CompletableFuture.supplyAsync(RestContext::current).get();
+            Assert.assertThat(emOutraThread, is(nullValue()));
+            CompletableFuture.runAsync(() -> RestContext.given().get("/ola").then().statusCode(200)).get();
+        } finally {
+            RestContext.bind(anterior);
+        }
+        Assert.assertThat(RestContext.current(), is(nullValue()));
+    }
+}
@@ -0,0 +1,37 @@
+package br.com.bferreira.rest.daemon;
+
+import br.com.bferreira.rest.standin.StandInServer;
+import io.restassured.RestAssured;
+import org.junit.Assert;
+import org.junit.Test;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Rodada pelo {@link TestDaemonTest} dentro do daemon (o surefire não a pega pelo nome): cada
+ * execução tem de encontrar a classe recém-carregada e a JVM como se nenhuma outra tivesse rodado.
+ * Suja o {@code basePath} do RestAssured de propósito, então deve rodar sozinha.
+ */
+public class DaemonFixture {
+
+    private static int execucoes;
+
+    @Test
+    public void deveComecarDoZero() {
+        Assert.assertEquals("estático de outra execução", 1, ++execucoes);
+        Assert.assertNull("propriedade de outra execução", System.getProperty("daemon.fixture"));
+        Assert.assertEquals("RestAssured de outra execução", RestAssured.DEFAULT_PATH, RestAssured.basePath);
+
+        StandInServer.install();
+        given().when().get("/ola").then().statusCode(200).body(is("Ola Mundo!"));
+        System.setProperty("daemon.fixture", "sujo");
+        RestAssured.basePath = "/sujo";
+        System.out.println("requisição ao stand-in da execução");
+    }
+
+    @Test
+    public void deveFalhar() {
+        Assert.fail("falha proposital");
+    }
+}
@@ -0,0 +1,87 @@
+package br.com.bferreira.rest.daemon;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Carrega as classes do projeto ({@code target/classes} e {@code target/test-classes}) antes
+ * de perguntar ao pai, que fica com os jars. Cada execução do daemon usa um carregador novo:
+ * as classes editadas e recompiladas entram, e os estáticos da execução anterior somem com o
+ * carregador antigo, enquanto RestAssured, Groovy e Hamcrest continuam carregados e compilados
+ * pelo JIT no pai. As classes do próprio daemon sempre vêm do pai.
+ */
+final class ProjectClassLoader extends URLClassLoader {
+
+    private static final Set<String> DO_DAEMON = Set.of(
+            TestDaemon.class.getName(), TestDaemonClient.class.getName(), ProjectClassLoader.class.getName());
+
+    static {
+        registerAsParallelCapable();
+    }
+
+    private final List<Class<?>> definidas = Collections.synchronizedList(new ArrayList<>());
+
+    ProjectClassLoader(List<Path> diretorios, ClassLoader pai) {
+        super(urls(diretorios), pai);
+    }
+
+    @Override
+    protected Class<?> loadClass(String nome, boolean resolver) throws ClassNotFoundException {
+        synchronized (getClassLoadingLock(nome)) {
+            Class<?> classe = findLoadedClass(nome);
+            if (classe == null && !doDaemon(nome)) {
+                try {
+                    classe = findClass(nome);
+                    definidas.add(classe);
+                } catch (ClassNotFoundException e) {
+                    // não é do projeto: vem dos jars, pelo pai
+                }
+            }
+            if (classe == null) {
+                return super.loadClass(nome, resolver);
+            }
+            if (resolver) {
+                resolveClass(classe);
+            }
+            return classe;
+        }
+    }
+
+    @Override
+    public URL getResource(String nome) {
+        URL recurso = findResource(nome);
+        return recurso != null ? recurso : super.getResource(nome);
+    }
+
+    /** Classes do projeto carregadas por este carregador até agora. */
+    List<Class<?>> definedClasses() {
+        synchronized (definidas) {
+            return new ArrayList<>(definidas);
+        }
+    }
+
+    private static boolean doDaemon(String nome) {
+        int cifrao = nome.indexOf('$');
+        return DO_DAEMON.contains(cifrao < 0 ? nome : nome.substring(0, cifrao));
+    }
+
+    private static URL[] urls(List<Path> diretorios) {
+        URL[] urls = new URL[diretorios.size()];
+        for (int i = 0; i < urls.length; i++) {
+            try {
+                urls[i] = diretorios.get(i).toUri().toURL();
+            } catch (MalformedURLException e) {
+                throw new UncheckedIOException(new IOException("Diretório inválido: " + diretorios.get(i), e));
+            }
+        }
+        return urls;
+    }
+}
@@ -0,0 +1,341 @@
+package br.com.bferreira.rest.daemon;
+
+import io.restassured.RestAssured;
+import io.restassured.path.json.JsonPath;
+import io.restassured.path.xml.XmlPath;
+import org.hamcrest.Matchers;
+import org.junit.internal.TextListener;
+import org.junit.runner.Description;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Request;
+import org.junit.runner.Result;
+import org.junit.runner.manipulation.Filter;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * JVM de testes que fica no ar entre as execuções, com o RestAssured, o Groovy do GPath, o
+ * Hamcrest e os parsers de XML já carregados e aquecidos. O {@link TestDaemonClient} manda
+ * as classes (ou {@code Classe#metodo}) a rodar e recebe a saída e o resultado.
+ *
+ * <p>Cada execução roda numa thread nova, com um {@link ProjectClassLoader} novo sobre os
+ * diretórios de classes do classpath. No fim, o daemon fecha os recursos guardados em
+ * estáticos do projeto (stand-in, pool de conexões...), interrompe as threads que a execução
+ * deixou, volta o {@code RestAssured} para o padrão e restaura as propriedades de sistema,
+ * {@code System.out} e {@code System.err}: nada passa de uma execução para a outra.</p>
+ *
+ * <p>Protocolo (uma linha por conexão, em 127.0.0.1): {@code <token> RUN spec...} ou
+ * {@code <token> STOP}. A resposta é a saída dos testes e, na última linha,
+ * {@code #FIM testes falhas ignorados ms} ou {@code #ERRO mensagem}. Porta e token ficam em
+ * {@code test-daemon.port} na pasta de estado (por padrão, {@code target}). Sem conexões por
+ * {@code test.daemon.idleMinutes} (padrão 30) o daemon sai sozinho.</p>
+ */
+public final class TestDaemon {
+
+    static final String ARQUIVO_PORTA = "test-daemon.port";
+
+    private final Path estado;
+    private final List<Path> diretorios;
+    private final ServerSocket servidor;
+    private final String token;
+    private int execucoes;
+
+    private TestDaemon(Path estado, List<Path> diretorios) throws IOException {
+        this.estado = estado;
+        this.diretorios = diretorios;
+        this.servidor = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        byte[] aleatorio = new byte[16];
+        new SecureRandom().nextBytes(aleatorio);
+        StringBuilder hex = new StringBuilder();
+        for (byte b : aleatorio) {
+            hex.append(String.format("%02x", b));
+        }
+        this.token = hex.toString();
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path estado = Paths.get(args.length > 0 ? args[0] : "target");
+        TestDaemon daemon = new TestDaemon(estado,
+                projectDirectories(System.getProperty("test.daemon.projectDirs", System.getProperty("java.class.path"))));
+        long inicio = System.nanoTime();
+        warmUp();
+        System.out.println("Daemon de testes aquecido em " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio)
+                + " ms; classes do projeto em " + daemon.diretorios);
+        daemon.publicar();
+        daemon.servir(TimeUnit.MINUTES.toMillis(Long.getLong("test.daemon.idleMinutes", 30)));
+        //System.exit, e não só o fim do main: é na saída que a JVM grava o arquivo do AppCDS (-XX:ArchiveClassesAtExit)
+        System.exit(0);
+    }
+
+    /**
+     * Diretórios do classpath: as classes do projeto, recarregadas a cada execução. O cliente
+     * os passa em {@code test.daemon.projectDirs}, fora do {@code -cp}, porque a JVM não grava
+     * o arquivo AppCDS com diretórios não vazios no classpath.
+     */
+    static List<Path> projectDirectories(String classpath) {
+        return Arrays.stream(classpath.split(File.pathSeparator))
+                .filter(entrada -> !entrada.isEmpty())
+                .map(Paths::get)
+                .filter(Files::isDirectory)
+                .collect(Collectors.toList());
+    }
+
+    //carrega e inicializa o que toda execução usa: especificação de request, JsonPath e XmlPath (Groovy) e Hamcrest
+    static void warmUp() {
+        for (int i = 0; i < 3; i++) {
+            RestAssured.given().baseUri("http://localhost").basePath("/aquecimento").queryParam("i", i).header("X-Aquecimento", i);
+            JsonPath json = JsonPath.from("{\"users\":[{\"name\":\"a\",\"age\":" + i + "},{\"name\":\"b\",\"age\":30}]}");
+            json.getList("users.findAll{it.age >= 18}.name");
+            XmlPath xml = XmlPath.from("<users><user id=\"1\"><name>a</name><age>" + i + "</age></user></users>");
+            xml.getInt("users.user.age");
+            Matchers.hasItem("a").matches(Arrays.asList("a", "b"));
+            Matchers.hasSize(2).matches(Arrays.asList("a", "b"));
+        }
+        RestAssured.reset();
+    }
+
+    private void publicar() throws IOException {
+        Files.createDirectories(estado);
+        Path porta = estado.resolve(ARQUIVO_PORTA);
+        Path temporario = estado.resolve(ARQUIVO_PORTA + ".tmp");
+        Files.deleteIfExists(temporario);
+        Files.createFile(temporario);
+        try {
+            Files.setPosixFilePermissions(temporario, PosixFilePermissions.fromString("rw-------"));
+        } catch (UnsupportedOperationException e) {
+            // sistema de arquivos sem permissões POSIX
+        }
+        Properties propriedades = new Properties();
+        propriedades.setProperty("port", Integer.toString(servidor.getLocalPort()));
+        propriedades.setProperty("token", token);
+        propriedades.setProperty("pid", Long.toString(ProcessHandle.current().pid()));
+        try (OutputStream saida = Files.newOutputStream(temporario)) {
+            propriedades.store(saida, "daemon de testes");
+        }
+        Files.move(temporario, porta, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    //uma conexão por vez: as execuções ficam em fila, nunca duas na mesma JVM
+    private void servir(long ociosoMillis) throws IOException {
+        servidor.setSoTimeout((int) Math.min(Integer.MAX_VALUE, ociosoMillis));
+        try {
+            while (true) {
+                try (Socket conexao = servidor.accept()) {
+                    if (!atender(conexao)) {
+                        return;
+                    }
+                } catch (SocketTimeoutException e) {
+                    System.out.println("Daemon de testes ocioso; saindo");
+                    return;
+                } catch (IOException e) {
+                    System.out.println("Conexão perdida: " + e);
+                }
+            }
+        } finally {
+            servidor.close();
+            Files.deleteIfExists(estado.resolve(ARQUIVO_PORTA));
+        }
+    }
+
+    private boolean atender(Socket conexao) throws IOException {
+        BufferedReader entrada = new BufferedReader(new InputStreamReader(conexao.getInputStream(), StandardCharsets.UTF_8));
+        PrintStream saida = new PrintStream(conexao.getOutputStream(), true, StandardCharsets.UTF_8);
+        String linha = entrada.readLine();
+        String[] partes = linha == null ? new String[0] : linha.trim().split("\\s+");
+        if (partes.length < 2 || !MessageDigest.isEqual(token.getBytes(StandardCharsets.US_ASCII),
+                partes[0].getBytes(StandardCharsets.US_ASCII))) {
+            saida.println("#ERRO token inválido");
+            return true;
+        }
+        switch (partes[1]) {
+            case "STOP":
+                saida.println("#FIM 0 0 0 0");
+                return false;
+            case "RUN":
+                try {
+                    Result resultado = run(Arrays.asList(partes).subList(2, partes.length), saida);
+                    saida.println("#FIM " + resultado.getRunCount() + " " + resultado.getFailureCount() + " "
+                            + resultado.getIgnoreCount() + " " + resultado.getRunTime());
+                } catch (RuntimeException e) {
+                    saida.println("#ERRO " + e.getMessage());
+                }
+                return true;
+            default:
+                saida.println("#ERRO comando desconhecido: " + partes[1]);
+                return true;
+        }
+    }
+
+    /** Roda as classes ou métodos pedidos num carregador novo e desfaz o que a execução deixou na JVM. */
+    Result run(List<String> specs, PrintStream saida) {
+        if (specs.isEmpty()) {
+            throw new IllegalArgumentException("nenhuma classe de teste informada");
+        }
+        ProjectClassLoader carregador = new ProjectClassLoader(diretorios, TestDaemon.class.getClassLoader());
+        Properties propriedades = (Properties) System.getProperties().clone();
+        PrintStream out = System.out;
+        PrintStream err = System.err;
+        Result[] resultado = new Result[1];
+        RuntimeException[] erro = new RuntimeException[1];
+        Thread execucao = new Thread(() -> {
+            try {
+                resultado[0] = executar(specs, carregador, saida);
+            } catch (RuntimeException e) {
+                erro[0] = e;
+            }
+        }, "execucao-" + ++execucoes);
+        execucao.setContextClassLoader(carregador);
+        System.setOut(saida);
+        System.setErr(saida);
+        try {
+            execucao.start();
+            execucao.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            limpar(carregador);
+            System.setOut(out);
+            System.setErr(err);
+            System.setProperties(propriedades);
+        }
+        if (erro[0] != null) {
+            throw erro[0];
+        }
+        return resultado[0];
+    }
+
+    private Result executar(List<String> specs, ClassLoader carregador, PrintStream saida) {
+        Set<String> inteiras = new HashSet<>();
+        Set<String> metodos = new HashSet<>();
+        Set<Class<?>> classes = new LinkedHashSet<>();
+        for (String spec : specs) {
+            int cerquilha = spec.indexOf('#');
+            String nome = resolver(cerquilha < 0 ? spec : spec.substring(0, cerquilha));
+            try {
+                classes.add(Class.forName(nome, false, carregador));
+            } catch (ClassNotFoundException e) {
+                throw new IllegalArgumentException("classe de teste não encontrada: " + nome);
+            }
+            if (cerquilha < 0) {
+                inteiras.add(nome);
+            } else {
+                metodos.add(nome + "#" + spec.substring(cerquilha + 1));
+            }
+        }
+        Filter filtro = new Filter() {
+            @Override
+            public boolean shouldRun(Description descricao) {
+                if (descricao.isTest()) {
+                    String metodo = descricao.getMethodName();
+                    //parametrizados: metodo[0], metodo[1]...
+                    String base = metodo == null || metodo.indexOf('[') < 0 ? metodo : metodo.substring(0, metodo.indexOf('['));
+                    return inteiras.contains(descricao.getClassName()) || metodos.contains(descricao.getClassName() + "#" + base);
+                }
+                return descricao.getChildren().stream().anyMatch(this::shouldRun);
+            }
+
+            @Override
+            public String describe() {
+                return String.join(" ", specs);
+            }
+        };
+        JUnitCore junit = new JUnitCore();
+        junit.addListener(new TextListener(saida));
+        return junit.run(Request.classes(classes.toArray(new Class<?>[0])).filterWith(filtro));
+    }
+
+    //nome simples (OlaMundoTest) ou completo; o simples é procurado nos diretórios de classes
+    String resolver(String nome) {
+        if (nome.indexOf('.') >= 0) {
+            return nome;
+        }
+        List<String> achadas = new ArrayList<>();
+        for (Path diretorio : diretorios) {
+            try (Stream<Path> arquivos = Files.walk(diretorio)) {
+                arquivos.filter(arquivo -> arquivo.getFileName().toString().equals(nome + ".class"))
+                        .map(arquivo -> diretorio.relativize(arquivo).toString())
+                        .map(relativo -> relativo.substring(0, relativo.length() - ".class".length()).replace(File.separatorChar, '.'))
+                        .forEach(achadas::add);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        if (achadas.size() != 1) {
+            throw new IllegalArgumentException(achadas.isEmpty() ? "classe de teste não encontrada: " + nome
+                    : "nome ambíguo " + nome + ": " + achadas);
+        }
+        return achadas.get(0);
+    }
+
+    private static void limpar(ProjectClassLoader carregador) {
+        for (Class<?> classe : carregador.definedClasses()) {
+            fecharEstaticos(classe, carregador);
+        }
+        RestAssured.reset();
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread != Thread.currentThread() && thread.getContextClassLoader() == carregador) {
+                thread.interrupt();
+            }
+        }
+        try {
+            carregador.close();
+        } catch (IOException e) {
+            // só libera os arquivos abertos pelo carregador
+        }
+    }
+
+    //só fecha objetos de classes do próprio projeto (StandInServer, ConnectionPool...), nunca um System.out guardado num estático
+    private static void fecharEstaticos(Class<?> classe, ClassLoader carregador) {
+        Field[] campos;
+        try {
+            campos = classe.getDeclaredFields();
+        } catch (LinkageError e) {
+            return;
+        }
+        for (Field campo : campos) {
+            //pelo tipo declarado, para não inicializar à toa uma classe que a execução só carregou
+            if (!Modifier.isStatic(campo.getModifiers()) || !AutoCloseable.class.isAssignableFrom(campo.getType())) {
+                continue;
+            }
+            try {
+                campo.setAccessible(true);
+                Object valor = campo.get(null);
+                if (valor instanceof AutoCloseable && valor.getClass().getClassLoader() == carregador) {
+                    ((AutoCloseable) valor).close();
+                }
+            } catch (Exception | LinkageError e) {
+                System.err.println("Não foi possível fechar " + classe.getName() + "." + campo.getName() + ": " + e);
+            }
+        }
+    }
+}
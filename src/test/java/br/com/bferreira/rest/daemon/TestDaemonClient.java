@@ -0,0 +1,332 @@
+package br.com.bferreira.rest.daemon;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URISyntaxException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Stream;
+
+/**
+ * Cliente do {@link TestDaemon}. Só usa classes do JDK, então sobe rápido mesmo sem o resto
+ * do classpath:
+ *
+ * <pre>
+ * java -cp target/test-classes br.com.bferreira.rest.daemon.TestDaemonClient OlaMundoTest UserJsonTest#deveVerificarPrimeiroNivel
+ * java -cp target/test-classes br.com.bferreira.rest.daemon.TestDaemonClient --stop
+ * </pre>
+ *
+ * Sem daemon no ar, sobe um em segundo plano com o classpath de testes (o do próprio cliente,
+ * quando vem do Maven, ou o da última subida, guardado em {@code test-daemon.classpath}) e o
+ * log em {@code test-daemon.log}. A partir do JDK 13 o daemon sobe com o arquivo AppCDS
+ * {@code test-daemon.jsa}: na primeira vez ele é gravado na saída do daemon
+ * ({@code -XX:ArchiveClassesAtExit}); nas seguintes, as classes dos jars vêm mapeadas dele.
+ * No JDK 19+ a JVM recria o arquivo sozinha quando o classpath muda
+ * ({@code -XX:+AutoCreateSharedArchive}). {@code -Dtest.daemon.cds=false} desliga.
+ *
+ * <p>Código de saída: 0 se tudo passou, 1 com falhas e 2 se não deu para rodar.</p>
+ */
+public final class TestDaemonClient {
+
+    static final String ARQUIVO_CLASSPATH = "test-daemon.classpath";
+    private static final long ESPERA_SUBIDA_MILLIS = 120_000;
+    private static final String PACOTE = "br/com/bferreira/rest/daemon";
+    private static final List<String> DO_DAEMON = List.of("TestDaemon", "TestDaemonClient", "ProjectClassLoader");
+
+    private final Path estado;
+    private String classpath;
+    private boolean cds = Boolean.parseBoolean(System.getProperty("test.daemon.cds", "true"));
+    private long ociosoMinutos = Long.getLong("test.daemon.idleMinutes", 30);
+
+    private TestDaemonClient(Path estado) {
+        this.estado = estado;
+    }
+
+    /** Cliente do daemon cuja porta, token, classpath, log e arquivo AppCDS ficam em {@code estado}. */
+    public static TestDaemonClient at(Path estado) {
+        return new TestDaemonClient(estado);
+    }
+
+    public static void main(String[] args) {
+        Path estado = Paths.get("target");
+        boolean parar = false;
+        List<String> specs = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if ("--dir".equals(args[i]) && i + 1 < args.length) {
+                estado = Paths.get(args[++i]);
+            } else if ("--stop".equals(args[i])) {
+                parar = true;
+            } else {
+                //vindo do Maven, -Dtest.daemon=OlaMundoTest,UserJsonTest chega como um argumento só
+                Arrays.stream(args[i].split(",")).map(String::trim).filter(spec -> !spec.isEmpty()).forEach(specs::add);
+            }
+        }
+        TestDaemonClient cliente = at(estado);
+        if (parar) {
+            System.out.println(cliente.stop() ? "Daemon de testes parado" : "Nenhum daemon de testes no ar");
+            System.exit(0);
+        }
+        System.exit(cliente.run(specs, System.out));
+    }
+
+    /** Classpath de testes para subir o daemon; sem ele, usa o do cliente ou o da última subida. */
+    public TestDaemonClient classpath(String classpath) {
+        this.classpath = classpath;
+        return this;
+    }
+
+    public TestDaemonClient cds(boolean cds) {
+        this.cds = cds;
+        return this;
+    }
+
+    public TestDaemonClient idleMinutes(long minutos) {
+        this.ociosoMinutos = minutos;
+        return this;
+    }
+
+    /** Roda as classes ou métodos ({@code Classe#metodo}) no daemon, subindo-o se preciso; devolve o código de saída. */
+    public int run(List<String> specs, PrintStream saida) {
+        if (specs.isEmpty()) {
+            saida.println("Informe as classes de teste, ex.: OlaMundoTest UserJsonTest#deveVerificarPrimeiroNivel");
+            return 2;
+        }
+        try {
+            return enviar(conectarOuSubir(), "RUN " + String.join(" ", specs), saida);
+        } catch (IOException e) {
+            saida.println("Não foi possível falar com o daemon de testes: " + e);
+            return 2;
+        }
+    }
+
+    /** Para o daemon, se houver um no ar; devolve se havia. */
+    public boolean stop() {
+        try {
+            Socket conexao = conectar();
+            if (conexao == null) {
+                return false;
+            }
+            Long pid = pid();
+            enviar(conexao, "STOP", new PrintStream(OutputStream.nullOutputStream()));
+            if (pid != null) {
+                //espera a saída, quando o AppCDS é gravado
+                ProcessHandle.of(pid).ifPresent(processo -> processo.onExit().orTimeout(60, TimeUnit.SECONDS).join());
+            }
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private int enviar(Socket conexao, String comando, PrintStream saida) throws IOException {
+        try (conexao) {
+            PrintWriter escrita = new PrintWriter(conexao.getOutputStream(), true, StandardCharsets.UTF_8);
+            escrita.println(token() + " " + comando);
+            BufferedReader leitura = new BufferedReader(new InputStreamReader(conexao.getInputStream(), StandardCharsets.UTF_8));
+            String linha;
+            while ((linha = leitura.readLine()) != null) {
+                if (linha.startsWith("#FIM ")) {
+                    String[] campos = linha.split(" ");
+                    return Integer.parseInt(campos[2]) > 0 ? 1 : 0;
+                }
+                if (linha.startsWith("#ERRO ")) {
+                    saida.println(linha.substring("#ERRO ".length()));
+                    return 2;
+                }
+                saida.println(linha);
+            }
+            saida.println("O daemon de testes encerrou a conexão sem resultado; veja " + estado.resolve("test-daemon.log"));
+            return 2;
+        }
+    }
+
+    private Socket conectar() throws IOException {
+        Properties porta = porta();
+        if (porta == null) {
+            return null;
+        }
+        Socket conexao = new Socket();
+        try {
+            conexao.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(porta.getProperty("port"))), 1000);
+            return conexao;
+        } catch (ConnectException e) {
+            //arquivo de um daemon que já saiu
+            conexao.close();
+            Files.deleteIfExists(estado.resolve(TestDaemon.ARQUIVO_PORTA));
+            return null;
+        }
+    }
+
+    //dois clientes sem daemon no ar sobem um só: o synchronized segura as threads desta JVM e a trava do arquivo, outros processos
+    private Socket conectarOuSubir() throws IOException {
+        synchronized (TestDaemonClient.class) {
+            Files.createDirectories(estado);
+            try (FileChannel trava = FileChannel.open(estado.resolve("test-daemon.lock"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                 FileLock ignorada = trava.lock()) {
+                Socket conexao = conectar();
+                return conexao != null ? conexao : subir();
+            }
+        }
+    }
+
+    private Socket subir() throws IOException {
+        String testes = classpathDeTestes();
+        Files.write(estado.resolve(ARQUIVO_CLASSPATH), testes.getBytes(StandardCharsets.UTF_8));
+        List<String> diretorios = new ArrayList<>();
+        List<String> jars = new ArrayList<>();
+        jars.add(jarDoDaemon().toString());
+        for (String entrada : testes.split(File.pathSeparator)) {
+            if (!entrada.isEmpty()) {
+                (Files.isDirectory(Paths.get(entrada)) ? diretorios : jars).add(entrada);
+            }
+        }
+        List<String> comando = new ArrayList<>();
+        comando.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        comando.addAll(opcoesCds());
+        comando.add("-Dtest.daemon.idleMinutes=" + ociosoMinutos);
+        comando.add("-Dtest.daemon.projectDirs=" + String.join(File.pathSeparator, diretorios));
+        comando.add("-cp");
+        comando.add(String.join(File.pathSeparator, jars));
+        comando.add(TestDaemon.class.getName());
+        comando.add(estado.toString());
+        Path log = estado.resolve("test-daemon.log");
+        Process processo = new ProcessBuilder(comando)
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .redirectInput(ProcessBuilder.Redirect.from(nulo()))
+                .start();
+        long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ESPERA_SUBIDA_MILLIS);
+        while (System.nanoTime() < limite) {
+            if (!processo.isAlive()) {
+                throw new IOException("o daemon de testes saiu com código " + processo.exitValue() + "; veja " + log);
+            }
+            Socket conexao = conectar();
+            if (conexao != null) {
+                return conexao;
+            }
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("interrompido esperando o daemon de testes subir", e);
+            }
+        }
+        processo.destroy();
+        throw new IOException("o daemon de testes não subiu em " + ESPERA_SUBIDA_MILLIS + " ms; veja " + log);
+    }
+
+    /**
+     * As classes do daemon num jar próprio, já que o diretório de onde vêm fica fora do
+     * {@code -cp}. Só é regravado quando muda, para não invalidar o arquivo AppCDS.
+     */
+    private Path jarDoDaemon() throws IOException {
+        Path origem;
+        try {
+            origem = Paths.get(TestDaemonClient.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        } catch (URISyntaxException e) {
+            throw new IOException(e);
+        }
+        if (!Files.isDirectory(origem)) {
+            return origem;
+        }
+        ByteArrayOutputStream conteudo = new ByteArrayOutputStream();
+        try (JarOutputStream jar = new JarOutputStream(conteudo);
+             Stream<Path> arquivos = Files.list(origem.resolve(PACOTE))) {
+            for (Path arquivo : (Iterable<Path>) arquivos.sorted()::iterator) {
+                String nome = arquivo.getFileName().toString();
+                if (DO_DAEMON.stream().anyMatch(classe -> nome.equals(classe + ".class") || nome.startsWith(classe + "$"))) {
+                    JarEntry entrada = new JarEntry(PACOTE + "/" + nome);
+                    entrada.setTime(0);
+                    jar.putNextEntry(entrada);
+                    jar.write(Files.readAllBytes(arquivo));
+                    jar.closeEntry();
+                }
+            }
+        }
+        Path destino = estado.resolve("test-daemon.jar").toAbsolutePath();
+        byte[] bytes = conteudo.toByteArray();
+        if (!Files.isRegularFile(destino) || !Arrays.equals(bytes, Files.readAllBytes(destino))) {
+            Files.write(destino, bytes);
+        }
+        return destino;
+    }
+
+    private List<String> opcoesCds() {
+        int versao = Runtime.version().feature();
+        if (!cds || versao < 13) {
+            return List.of();
+        }
+        Path arquivo = estado.resolve("test-daemon.jsa").toAbsolutePath();
+        if (versao >= 19) {
+            return List.of("-XX:+AutoCreateSharedArchive", "-XX:SharedArchiveFile=" + arquivo);
+        }
+        //um arquivo de outro classpath (dependência nova, jar do daemon recompilado) é ignorado pela JVM, com aviso no log; mvn clean gera outro
+        return List.of(Files.isRegularFile(arquivo) ? "-XX:SharedArchiveFile=" + arquivo : "-XX:ArchiveClassesAtExit=" + arquivo);
+    }
+
+    private String classpathDeTestes() throws IOException {
+        if (classpath != null) {
+            return classpath;
+        }
+        String proprio = System.getProperty("java.class.path");
+        //pelo Maven (exec com %classpath) o cliente já vem com o classpath de testes inteiro
+        if (getClass().getClassLoader().getResource("org/junit/runner/JUnitCore.class") != null) {
+            return proprio;
+        }
+        Path gravado = estado.resolve(ARQUIVO_CLASSPATH);
+        if (!Files.isRegularFile(gravado)) {
+            throw new IOException("sem classpath de testes: suba o daemon uma vez pelo Maven (mvn test -Dtest.daemon=...)");
+        }
+        return new String(Files.readAllBytes(gravado), StandardCharsets.UTF_8).trim();
+    }
+
+    private Properties porta() throws IOException {
+        Path arquivo = estado.resolve(TestDaemon.ARQUIVO_PORTA);
+        if (!Files.isRegularFile(arquivo)) {
+            return null;
+        }
+        Properties propriedades = new Properties();
+        try (InputStream entrada = Files.newInputStream(arquivo)) {
+            propriedades.load(entrada);
+        }
+        return propriedades.getProperty("port") == null ? null : propriedades;
+    }
+
+    private String token() throws IOException {
+        Properties porta = porta();
+        return porta == null ? "" : porta.getProperty("token");
+    }
+
+    private Long pid() throws IOException {
+        Properties porta = porta();
+        return porta == null || porta.getProperty("pid") == null ? null : Long.valueOf(porta.getProperty("pid"));
+    }
+
+    private static File nulo() {
+        return new File(System.getProperty("os.name").startsWith("Windows") ? "NUL" : "/dev/null");
+    }
+}
@@ -0,0 +1,57 @@
+package br.com.bferreira.rest.daemon;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+
+public class TestDaemonTest {
+
+    @ClassRule
+    public static final TemporaryFolder pasta = new TemporaryFolder();
+
+    private static TestDaemonClient cliente;
+
+    @BeforeClass
+    public static void apontarCliente() {
+        //o surefire roda com um jar de manifesto; o classpath de verdade vem nesta propriedade
+        String classpath = System.getProperty("surefire.test.class.path", System.getProperty("java.class.path"));
+        cliente = TestDaemonClient.at(pasta.getRoot().toPath()).classpath(classpath).cds(false).idleMinutes(2);
+    }
+
+    @AfterClass
+    public static void pararDaemon() {
+        cliente.stop();
+    }
+
+    @Test
+    public void deveRodarCadaExecucaoComClassesEEstadoNovos() {
+        for (int i = 0; i < 2; i++) {
+            ByteArrayOutputStream saida = new ByteArrayOutputStream();
+            int codigo = cliente.run(Collections.singletonList("DaemonFixture#deveComecarDoZero"), new PrintStream(saida, true, StandardCharsets.UTF_8));
+            String texto = saida.toString(StandardCharsets.UTF_8);
+            Assert.assertEquals("execução " + (i + 1) + ":\n" + texto, 0, codigo);
+            Assert.assertTrue(texto, texto.contains("requisição ao stand-in da execução"));
+            Assert.assertTrue(texto, texto.contains("OK (1 test)"));
+        }
+    }
+
+    @Test
+    public void deveDevolverFalhasEErrosPeloCodigoDeSaida() {
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        Assert.assertEquals(1, cliente.run(Arrays.asList(DaemonFixture.class.getName() + "#deveFalhar"), new PrintStream(saida, true, StandardCharsets.UTF_8)));
+        Assert.assertTrue(saida.toString(StandardCharsets.UTF_8).contains("falha proposital"));
+
+        saida.reset();
+        Assert.assertEquals(2, cliente.run(Collections.singletonList("ClasseQueNaoExiste"), new PrintStream(saida, true, StandardCharsets.UTF_8)));
+        Assert.assertTrue(saida.toString(StandardCharsets.UTF_8).contains("classe de teste não encontrada"));
+    }
+}
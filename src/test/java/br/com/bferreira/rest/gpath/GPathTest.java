@@ -0,0 +1,146 @@
+package br.com.bferreira.rest.gpath;
+
+import br.com.bferreira.rest.standin.StandInServer;
+import io.restassured.path.json.JsonPath;
+import io.restassured.path.xml.XmlPath;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static br.com.bferreira.rest.gpath.GPathMatchers.gpath;
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.*;
+
+public class GPathTest {
+
+    //expressões usadas no UserJsonTest e no UserXMLTest
+    private static final String[] EXPRESSOES_JSON = {
+            "$", "name", "filhos.name", "age[1]", "salary",
+            "age.findAll{it <= 25}.size()", "findAll{it.age <= 25 && it.age > 20}.name",
+            "findAll{it.age <= 25}[0].name", "findAll{it.age <= 25}[-1].name", "find{it.age <= 25}.name",
+            "findAll{it.name.contains('n')}.name", "findAll{it.name.length() > 10}.name",
+            "name.collect{it.toUpperCase()}", "name.findAll{it.startsWith('Maria')}.collect{it.toUpperCase()}",
+            "name.findAll{it.startsWith('Maria')}.collect{it.toUpperCase()}.toArray()",
+            "age.collect{it * 2}", "id.max()", "salary.min()", "salary.findAll{it != null}.sum()",
+            "name.findAll{it.startsWith('Maria')}"
+    };
+
+    private static final String[] EXPRESSOES_XML = {
+            "users.user.size()", "users.user.findAll{it.age.toInteger() <= 25}.size()", "users.user.@id",
+            "users.user.find{it.age == 25}.name",
+            "users.user.salary.find{it != null}", "users.user.salary.find{it != null}.toDouble()",
+            "users.user.age.collect{it.toInteger() * 2}",
+            "users.user.name.findAll{it.toString().startsWith('Maria')}.collect{it.toString().toUpperCase()}",
+            "users.user.name.findAll{it.toString().contains('n')}"
+    };
+
+    private static String usersJson;
+    private static String usersXml;
+
+    @BeforeClass
+    public static void setup() {
+        StandInServer.install();
+        usersJson = given().get("/users").asString();
+        usersXml = given().get("/usersXML").asString();
+    }
+
+    @Test
+    public void deveDarOMesmoResultadoDoJsonPath() {
+        for (String expressao : EXPRESSOES_JSON) {
+            CompiledPath compilada = GPath.compile(expressao);
+            Assert.assertTrue("Deveria usar o caminho rápido: " + expressao, compilada.isFast());
+            assertMesmoValor(expressao, JsonPath.from(usersJson).get(expressao), compilada.evaluate(usersJson));
+        }
+    }
+
+    @Test
+    public void deveDarOMesmoResultadoDoXmlPath() {
+        for (String expressao : EXPRESSOES_XML) {
+            CompiledPath compilada = GPath.compile(expressao);
+            Assert.assertTrue("Deveria usar o caminho rápido: " + expressao, compilada.isFast());
+            Object esperado = XmlPath.from(usersXml).get(expressao);
+            Object atual = compilada.evaluate(usersXml);
+            if (esperado instanceof List) {
+                //o XmlPath devolve elementos (Node) cujo toString é o texto; o motor devolve o texto direto
+                Assert.assertEquals(expressao, esperado.toString(), atual.toString());
+            } else {
+                assertMesmoValor(expressao, esperado, atual);
+            }
+        }
+    }
+
+    @Test
+    public void deveDevolverListaDeNomesComoOBodyDoRestAssured() {
+        //o XmlPath.get junta os textos numa String só, mas o body() do RestAssured valida uma lista
+        @SuppressWarnings("unchecked")
+        List<Object> nomes = (List<Object>) GPath.evaluate("users.user.findAll{it.name.contains('n').toString()}.name", usersXml);
+        Assert.assertThat(nomes, hasItems("Maria Joaquina", "Ana Julia"));
+    }
+
+    @Test
+    public void deveTratarSizeSemParentesesComoTamanhoDaLista() {
+        Assert.assertEquals(2, GPath.evaluate("age.findAll{it <= 25}.size", usersJson));
+        Assert.assertEquals(1, GPath.evaluate("age.findAll{it <= 25 && it > 20}.size", usersJson));
+    }
+
+    @Test
+    public void deveCairParaOGroovyForaDoSubconjunto() {
+        String expressao = "collect{u -> u.name.split(' ')[0]}";
+        CompiledPath compilada = GPath.compile(expressao);
+        Assert.assertFalse(compilada.isFast());
+        Assert.assertEquals(Arrays.asList("João", "Maria", "Ana"), compilada.evaluate(usersJson));
+
+        long scripts = GPath.stats().get("groovyScripts");
+        compilada.evaluate(usersJson);
+        Assert.assertEquals("A classe do script deve ser gerada uma vez só", scripts, (long) GPath.stats().get("groovyScripts"));
+    }
+
+    @Test
+    public void deveReaproveitarExpressaoCompilada() {
+        Assert.assertSame(GPath.compile("id.max()"), GPath.compile("id.max()"));
+        Map<String, Long> stats = GPath.stats();
+        Assert.assertThat(stats.get("cacheHits"), greaterThan(0L));
+    }
+
+    @Test
+    public void deveValidarBodyComMatcherCompilado() {
+        given()
+        .when()
+            .get("/users")
+        .then()
+            .statusCode(200)
+            .body(gpath("age.findAll{it <= 25}.size", is(2)))
+            .body(gpath("salary.findAll{it != null}.sum()", closeTo(3734.5678f, 0.001)))
+            .body(gpath("findAll{it.age <= 25}[-1].name", is("Ana Júlia")));
+
+        given()
+        .when()
+            .get("/usersXML")
+        .then()
+            .body(gpath("users.user.findAll{it.age.toInteger() <= 25}.size()", is(2)))
+            .body(gpath("users.user.@id", hasItems("1", "2", "3")));
+    }
+
+    @Test
+    public void deveDescreverFalhaComOValorEncontrado() {
+        try {
+            given().get("/users").then().body(gpath("id.max()", is(4)));
+            Assert.fail();
+        } catch (AssertionError e) {
+            Assert.assertThat(e.getMessage(), containsString("GPath \"id.max()\" is <4>"));
+        }
+    }
+
+    private static void assertMesmoValor(String expressao, Object esperado, Object atual) {
+        if (esperado instanceof Object[]) {
+            Assert.assertArrayEquals(expressao, (Object[]) esperado, (Object[]) atual);
+        } else {
+            Assert.assertEquals(expressao, esperado, atual);
+            Assert.assertEquals(expressao, esperado == null ? null : esperado.getClass(), atual == null ? null : atual.getClass());
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package br.com.bferreira.rest.gpath;
+
+import br.com.bferreira.rest.standin.StandInServer;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static br.com.bferreira.rest.gpath.SoftBody.soft;
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.*;
+
+public class SoftBodyTest {
+
+    private static String usersJson;
+
+    @BeforeClass
+    public static void setup() {
+        StandInServer.install();
+        usersJson = given().get("/users").asString();
+    }
+
+    @Test
+    public void deveReportarTodasAsFalhasDeUmaVez() {
+        try {
+            given().get("/users").then()
+                    .body(soft()
+                            .body("$", hasSize(3))
+                            .body("age.findAll{it <= 25}.size()", is(3))
+                            .body("find{it.age <= 25}.name", is("Maria Joaquina"))
+                            .body("id.max()", is(4)));
+            Assert.fail("duas verificações deveriam falhar");
+        } catch (AssertionError e) {
+            String mensagem = e.getMessage();
+            Assert.assertTrue(mensagem, mensagem.contains("2 de 4 verificações falharam"));
+            Assert.assertTrue(mensagem, mensagem.contains("[2] \"age.findAll{it <= 25}.size()\": esperado is <3>, mas was <2>"));
+            Assert.assertTrue(mensagem, mensagem.contains("[4] \"id.max()\": esperado is <4>, mas was <3>"));
+            Assert.assertFalse(mensagem, mensagem.contains("[3]"));
+        }
+    }
+
+    @Test
+    public void deveContinuarDepoisDeUmPathQueNaoAvalia() {
+        List<String> falhas = soft()
+                .body("filhos.name.foo.bar()", hasItem("x"))
+                .body("name", hasItem("João da Silva"))
+                .body("salary.min()", is(1234.5678f))
+                .failures(usersJson);
+        Assert.assertEquals(falhas.toString(), 1, falhas.size());
+        Assert.assertTrue(falhas.get(0), falhas.get(0).startsWith("[1] \"filhos.name.foo.bar()\": não pôde ser avaliado"));
+    }
+
+    @Test
+    public void deveCalcularAsProjecoesComunsUmaVez() {
+        Object arvore = ParsedBody.of(usersJson).tree();
+        Map<String, Object> compartilhados = new HashMap<>();
+        Object menores = Evaluator.evalShared(PathParser.parse("age.findAll{it <= 25}.size()"), arvore, compartilhados);
+        Object idades = compartilhados.get("$.age");
+        Object dobro = Evaluator.evalShared(PathParser.parse("age.collect{it * 2}"), arvore, compartilhados);
+
+        Assert.assertEquals(2, menores);
+        Assert.assertEquals(List.of(60, 50, 40), dobro);
+        Assert.assertNotNull(compartilhados.keySet().toString(), idades);
+        Assert.assertSame(idades, compartilhados.get("$.age"));
+        Assert.assertEquals(4, compartilhados.size());//$.age, o findAll, o size() e o collect
+    }
+}
@@ -0,0 +1,118 @@
+package br.com.bferreira.rest.gpath;
+
+import br.com.bferreira.rest.standin.StandInServer;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.*;
+
+public class StreamingJsonAssertTest {
+
+    @BeforeClass
+    public static void setup() {
+        StandInServer.install();
+    }
+
+    @Test
+    public void deveValidarListaDeUsuariosNumaUnicaPassada() {
+        int itens = StreamingJsonAssert.rootArray()
+                .size(is(3))
+                .every("id", greaterThan(0))
+                .hasItems("name", "João da Silva", "Maria Joaquina")
+                .hasItem("filhos.name", hasItems("Zezinho", "Luizinho"))
+                .contains("salary", 1234.5678f, 2500, null)
+                .count("age", lessThanOrEqualTo(25), is(2))
+                .sum("salary", closeTo(3734.5678, 0.001))
+                .min("age", is(20))
+                .max("id", is(3))
+                .validate(given().get("/users"));
+
+        Assert.assertEquals(3, itens);
+    }
+
+    @Test
+    public void deveReunirTodasAsFalhas() {
+        try {
+            StreamingJsonAssert.rootArray()
+                    .size(is(4))
+                    .every("age", greaterThan(25))
+                    .hasItem("name", "Ninguém")
+                    .max("id", is(4))
+                    .validate(given().get("/users"));
+            Assert.fail();
+        } catch (AssertionError e) {
+            Assert.assertThat(e.getMessage(), allOf(
+                    startsWith("4 falha(s)"),
+                    containsString("Tamanho da lista: esperado is <4>, mas foi 3"),
+                    containsString("2 item(ns) falharam, o primeiro [1] = 25"),
+                    containsString("\"name\" sem os itens [\"Ninguém\"]"),
+                    containsString("max(\"id\"): esperado is <4>, mas foi 3")));
+        }
+    }
+
+    @Test
+    public void deveTratarCampoAusenteNoItemComoNullSemCairParaOGroovy() {
+        //no Groovy, filhos.name num item sem filhos lança NPE: só passa se ficar no caminho rápido
+        int itens = StreamingJsonAssert.rootArray()
+                .hasItem("filhos.name", hasItems("Zezinho"))
+                .contains("filhos[0].name", null, "Zezinho")
+                .validate(new StringReader("[{\"id\":1},{\"id\":2,\"filhos\":[{\"name\":\"Zezinho\"}]}]"));
+
+        Assert.assertEquals(2, itens);
+    }
+
+    @Test
+    public void deveValidarListaGrandeSemMontarOCorpo() {
+        int total = 500_000;
+        int itens = StreamingJsonAssert.rootArray()
+                .size(is(total))
+                .every("name", startsWith("Usuario "))
+                .count("age", greaterThanOrEqualTo(60), is(total / 100 * 40))
+                .sum("age", is(total / 100 * 4950))
+                .max("age", is(99))
+                .hasItem("name", "Usuario 499999")
+                .validate(new ListaGerada(total));
+
+        Assert.assertEquals(total, itens);
+    }
+
+    /** Gera o JSON de uma lista sob demanda, sem nunca ter o documento inteiro em memória. */
+    private static final class ListaGerada extends Reader {
+        private final int total;
+        private int proximo;
+        private String pedaco = "[";
+        private int posicao;
+
+        ListaGerada(int total) {
+            this.total = total;
+        }
+
+        @Override
+        public int read(char[] destino, int inicio, int tamanho) {
+            if (posicao == pedaco.length()) {
+                if (proximo > total) {
+                    return -1;
+                }
+                proximo++;
+                int id = proximo;
+                pedaco = id > total ? "]" : (id > 1 ? "," : "")
+                        + "{\"id\":" + id + ",\"name\":\"Usuario " + id + "\",\"age\":" + (id % 100) + "}";
+                posicao = 0;
+            }
+            int lidos = Math.min(tamanho, pedaco.length() - posicao);
+            pedaco.getChars(posicao, posicao + lidos, destino, inicio);
+            posicao += lidos;
+            return lidos;
+        }
+
+        @Override
+        public void close() throws IOException {
+        }
+    }
+}
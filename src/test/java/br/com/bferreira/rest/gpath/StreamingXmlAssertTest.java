@@ -0,0 +1,120 @@
+package br.com.bferreira.rest.gpath;
+
+import br.com.bferreira.rest.standin.StandInServer;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Enumeration;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.*;
+
+public class StreamingXmlAssertTest {
+
+    //expressões do UserXMLTest e do GPathTest que cabem no streaming
+    private static final String[] EXPRESSOES = {
+            "users.user.size()", "users.user.size", "users.user.findAll{it.age.toInteger() <= 25}.size()",
+            "users.user.@id", "users.user.name", "users.user.find{it.age == 25}.name", "users.user[1].name",
+            "users.user[-1].name", "users.user.salary.find{it != null}", "users.user.salary.find{it != null}.toDouble()",
+            "users.user.age.collect{it.toInteger() * 2}", "users.user.age.max()", "users.user.filhos.name",
+            "users.user.name.findAll{it.toString().startsWith('Maria')}.collect{it.toString().toUpperCase()}",
+            "users.user.name.findAll{it.toString().contains('n')}", "users.user.count{it.age.toInteger() > 20}",
+            "users.user.any{it.name == 'Maria Joaquina'}", "users.user.every{it.age.toInteger() > 20}"
+    };
+
+    private static String usersXml;
+
+    @BeforeClass
+    public static void setup() {
+        StandInServer.install();
+        usersXml = given().get("/usersXML").asString();
+    }
+
+    @Test
+    public void deveDarOMesmoResultadoDoGPath() {
+        for (String expressao : EXPRESSOES) {
+            Object esperado = GPath.evaluate(expressao, usersXml);
+            StreamingXmlAssert.document()
+                    .body(expressao, esperado == null ? nullValue() : hasToString(esperado.toString()))
+                    .validate(stream(usersXml));
+        }
+    }
+
+    @Test
+    public void deveValidarTodasAsAssertivasNumaLeitura() {
+        StreamingXmlAssert.Throughput vazao = StreamingXmlAssert.document()
+                .body("users.user.size()", is(3))
+                .body("users.user.findAll{it.age.toInteger() <= 25}.size()", is(2))
+                .body("users.user.@id", hasItems("1", "2", "3"))
+                .body("users.user.find{it.age == 25}.name", is("Maria Joaquina"))
+                .body("users.user.filhos.name", hasItems("Zezinho", "Luizinho"))
+                .validate(given().get("/usersXML"));
+
+        Assert.assertTrue(vazao.bytes() > 0);
+    }
+
+    @Test
+    public void deveReunirAsFalhas() {
+        try {
+            StreamingXmlAssert.document()
+                    .body("users.user.size()", is(4))
+                    .body("users.user.name", hasItem("Ninguém"))
+                    .validate(stream(usersXml));
+            Assert.fail();
+        } catch (AssertionError e) {
+            Assert.assertThat(e.getMessage(), allOf(startsWith("2 falha(s)"),
+                    containsString("\"users.user.size()\": esperado is <4>, mas foi 3")));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void deveRecusarPathForaDoSubconjunto() {
+        StreamingXmlAssert.document().body("users.user.name.join(',')", is(""));
+    }
+
+    @Test
+    public void deveLerDocumentoGrandeEmStreaming() {
+        int total = 200_000;
+        StreamingXmlAssert.Throughput vazao = StreamingXmlAssert.document()
+                .body("users.user.size()", is(total))
+                .body("users.user.findAll{it.age.toInteger() <= 25}.size()", is(total / 100 * 26))
+                .body("users.user.age.max()", is("99"))
+                .validate(documentoGerado(total));
+
+        Assert.assertTrue(vazao.megabytesPerSecond() > 0);
+    }
+
+    private static InputStream stream(String texto) {
+        return new ByteArrayInputStream(texto.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** XML com {@code total} usuários gerado sob demanda, sem montar o documento inteiro. */
+    private static InputStream documentoGerado(int total) {
+        return new SequenceInputStream(new Enumeration<InputStream>() {
+            private int proximo;
+
+            @Override
+            public boolean hasMoreElements() {
+                return proximo <= total + 1;
+            }
+
+            @Override
+            public InputStream nextElement() {
+                int id = proximo++;
+                if (id == 0) {
+                    return stream("<users>");
+                }
+                if (id > total) {
+                    return stream("</users>");
+                }
+                return stream("<user id=\"" + id + "\"><name>Usuario " + id + "</name><age>" + (id % 100)
+                        + "</age><endereco><rua>Rua " + id + "</rua></endereco></user>");
+            }
+        });
+    }
+}
@@ -0,0 +1,89 @@
+package br.com.bferreira.rest.load;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/** Resultado de um {@link LoadTest}: estatísticas por cenário e da janela de medição. */
+public final class LoadReport {
+
+    private final String modelo;
+    private final String threads;
+    private final long nanos;
+    private final List<ScenarioStats> cenarios;
+
+    LoadReport(String modelo, String threads, long nanos, List<ScenarioStats> cenarios) {
+        this.modelo = modelo;
+        this.threads = threads;
+        this.nanos = nanos;
+        this.cenarios = Collections.unmodifiableList(new ArrayList<>(cenarios));
+    }
+
+    public List<ScenarioStats> scenarios() {
+        return cenarios;
+    }
+
+    public ScenarioStats scenario(String name) {
+        for (ScenarioStats cenario : cenarios) {
+            if (cenario.name().equals(name)) {
+                return cenario;
+            }
+        }
+        throw new IllegalArgumentException("Cenário inexistente: " + name);
+    }
+
+    public long requests() {
+        long total = 0;
+        for (ScenarioStats cenario : cenarios) {
+            total += cenario.requests();
+        }
+        return total;
+    }
+
+    public long errors() {
+        long total = 0;
+        for (ScenarioStats cenario : cenarios) {
+            total += cenario.errors();
+        }
+        return total;
+    }
+
+    public double seconds() {
+        return nanos / 1e9;
+    }
+
+    public double throughput() {
+        return requests() / seconds();
+    }
+
+    public double throughput(ScenarioStats cenario) {
+        return cenario.requests() / seconds();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder texto = new StringBuilder();
+        texto.append(String.format(Locale.ROOT, "%s, threads %s, %.1f s medidos: %d execuções, %.1f/s, %d erros%n",
+                modelo, threads, seconds(), requests(), throughput(), errors()));
+        int largura = "cenário".length();
+        for (ScenarioStats cenario : cenarios) {
+            largura = Math.max(largura, cenario.name().length());
+        }
+        texto.append(String.format(Locale.ROOT, "%-" + largura + "s %8s %8s %7s %9s %9s %9s %9s %9s%n",
+                "cenário", "exec", "exec/s", "erros", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms"));
+        for (ScenarioStats cenario : cenarios) {
+            LatencyHistogram h = cenario.latencies();
+            texto.append(String.format(Locale.ROOT, "%-" + largura + "s %8d %8.1f %7d %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                    cenario.name(), cenario.requests(), throughput(cenario), cenario.errors(),
+                    h.percentileMicros(50) / 1e3, h.percentileMicros(90) / 1e3, h.percentileMicros(99) / 1e3,
+                    h.percentileMicros(99.9) / 1e3, h.maxMicros() / 1e3));
+        }
+        for (ScenarioStats cenario : cenarios) {
+            if (cenario.firstError() != null) {
+                texto.append("  ").append(cenario.name()).append(": ").append(cenario.firstError()).append(System.lineSeparator());
+            }
+        }
+        return texto.toString();
+    }
+}
@@ -0,0 +1,196 @@
+package br.com.bferreira.rest.load;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Gerador de carga que repete {@link Scenario cenários} (inclusive os próprios testes da
+ * suíte) em rodízio, registrando latência, falhas e erros por cenário.
+ * <ul>
+ *   <li>{@link #closed(int)}: modelo fechado, N usuários executando sem pausa, cada um
+ *   começando a próxima execução quando a anterior termina;</li>
+ *   <li>{@link #open(double)}: modelo aberto, execuções iniciadas numa taxa fixa por segundo,
+ *   independente das que ainda estão em andamento. A latência conta a partir do horário
+ *   previsto de início, então atrasos do próprio gerador não escondem a fila.</li>
+ * </ul>
+ * No Java 21+ cada execução roda numa thread virtual; em versões anteriores, num pool de
+ * threads de plataforma.
+ *
+ * <pre>
+ * LoadReport relatorio = LoadTest.closed(50)
+ *         .scenarios(Scenario.testMethods(VerbosTest.class))
+ *         .warmup(Duration.ofSeconds(5))
+ *         .duration(Duration.ofSeconds(30))
+ *         .run();
+ * </pre>
+ */
+public final class LoadTest {
+
+    private final String modelo;
+    private final int usuarios;
+    private final double porSegundo;
+    private final List<Scenario> cenarios = new ArrayList<>();
+    private Duration aquecimento = Duration.ZERO;
+    private Duration duracao = Duration.ofSeconds(10);
+
+    private LoadTest(String modelo, int usuarios, double porSegundo) {
+        this.modelo = modelo;
+        this.usuarios = usuarios;
+        this.porSegundo = porSegundo;
+    }
+
+    public static LoadTest closed(int usuarios) {
+        if (usuarios <= 0) {
+            throw new IllegalArgumentException("Usuários deve ser positivo: " + usuarios);
+        }
+        return new LoadTest("fechado com " + usuarios + " usuários", usuarios, 0);
+    }
+
+    public static LoadTest open(double porSegundo) {
+        if (porSegundo <= 0) {
+            throw new IllegalArgumentException("Taxa deve ser positiva: " + porSegundo);
+        }
+        return new LoadTest("aberto a " + porSegundo + "/s", 0, porSegundo);
+    }
+
+    public LoadTest scenario(Scenario cenario) {
+        cenarios.add(cenario);
+        return this;
+    }
+
+    public LoadTest scenarios(Collection<Scenario> cenarios) {
+        this.cenarios.addAll(cenarios);
+        return this;
+    }
+
+    /** Tempo executando antes de medir (JIT, conexões, caches); não entra no relatório. */
+    public LoadTest warmup(Duration aquecimento) {
+        this.aquecimento = aquecimento;
+        return this;
+    }
+
+    public LoadTest duration(Duration duracao) {
+        this.duracao = duracao;
+        return this;
+    }
+
+    public LoadReport run() {
+        if (cenarios.isEmpty()) {
+            throw new IllegalStateException("Nenhum cenário configurado");
+        }
+        List<ScenarioStats> stats = new ArrayList<>(cenarios.size());
+        for (Scenario cenario : cenarios) {
+            stats.add(new ScenarioStats(cenario.name()));
+        }
+        long inicioMedicao = System.nanoTime() + aquecimento.toNanos();
+        long fim = inicioMedicao + duracao.toNanos();
+        AtomicLong proximo = new AtomicLong();
+
+        ExecutorService executor = VirtualThreads.executor("carga-");
+        try {
+            if (usuarios > 0) {
+                for (int i = 0; i < usuarios; i++) {
+                    executor.execute(() -> {
+                        while (true) {
+                            long inicio = System.nanoTime();
+                            if (inicio >= fim) {
+                                return;
+                            }
+                            executar((int) (proximo.getAndIncrement() % cenarios.size()), inicio, inicioMedicao, stats);
+                        }
+                    });
+                }
+            } else {
+                agendarTaxaFixa(executor, inicioMedicao, fim, stats);
+            }
+        } finally {
+            encerrar(executor);
+        }
+        return new LoadReport("modelo " + modelo, VirtualThreads.descricao(), duracao.toNanos(), stats);
+    }
+
+    private void agendarTaxaFixa(ExecutorService executor, long inicioMedicao, long fim, List<ScenarioStats> stats) {
+        double intervalo = 1e9 / porSegundo;
+        long inicio = System.nanoTime();
+        for (long i = 0; ; i++) {
+            long previsto = inicio + (long) (i * intervalo);
+            if (previsto >= fim) {
+                return;
+            }
+            long espera = previsto - System.nanoTime();
+            if (espera > 0) {
+                LockSupport.parkNanos(espera);
+            }
+            int indice = (int) (i % cenarios.size());
+            executor.execute(() -> executar(indice, previsto, inicioMedicao, stats));
+        }
+    }
+
+    private void executar(int indice, long inicio, long inicioMedicao, List<ScenarioStats> stats) {
+        Throwable problema = null;
+        try {
+            cenarios.get(indice).executar();
+        } catch (Throwable e) {
+            problema = e;
+        }
+        if (inicio >= inicioMedicao) {
+            stats.get(indice).registrar(System.nanoTime() - inicio, problema);
+        }
+    }
+
+    private static void encerrar(ExecutorService executor) {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Threads virtuais quando a JVM tem (Java 21+), sem exigir compilar para o 21. */
+    static final class VirtualThreads {
+
+        private VirtualThreads() {
+        }
+
+        static boolean disponiveis() {
+            try {
+                Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+                return true;
+            } catch (NoSuchMethodException e) {
+                return false;
+            }
+        }
+
+        static String descricao() {
+            return disponiveis() ? "virtuais" : "de plataforma";
+        }
+
+        static ExecutorService executor(String prefixo) {
+            if (disponiveis()) {
+                try {
+                    return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+                } catch (ReflectiveOperationException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+            AtomicInteger contador = new AtomicInteger();
+            return Executors.newCachedThreadPool(tarefa -> {
+                Thread thread = new Thread(tarefa, prefixo + contador.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+}
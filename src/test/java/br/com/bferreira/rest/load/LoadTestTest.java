@@ -0,0 +1,83 @@
+package br.com.bferreira.rest.load;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.*;
+
+public class LoadTestTest {
+
+    @Test
+    public void deveCalcularPercentis() {
+        LatencyHistogram histograma = new LatencyHistogram();
+        for (int ms = 1; ms <= 1000; ms++) {
+            histograma.record(TimeUnit.MILLISECONDS.toNanos(ms));
+        }
+        Assert.assertEquals(1000, histograma.count());
+        Assert.assertThat((double) histograma.percentileMicros(50), closeTo(500_000, 500));
+        Assert.assertThat((double) histograma.percentileMicros(99), closeTo(990_000, 990));
+        Assert.assertThat((double) histograma.percentileMicros(99.9), closeTo(999_000, 999));
+        Assert.assertEquals(1_000_000, histograma.maxMicros());
+        Assert.assertEquals(1_000, histograma.minMicros());
+    }
+
+    @Test
+    public void deveContarFalhasDeAssertivaComoErro() {
+        LoadReport relatorio = LoadTest.closed(4)
+                .scenario(Scenario.of("ok", () -> Thread.sleep(1)))
+                .scenario(Scenario.of("falha", () -> Assert.assertEquals(1, 2)))
+                .duration(Duration.ofMillis(300))
+                .run();
+
+        ScenarioStats ok = relatorio.scenario("ok");
+        ScenarioStats falha = relatorio.scenario("falha");
+        Assert.assertThat(ok.requests(), greaterThan(0L));
+        Assert.assertEquals(0, ok.errors());
+        Assert.assertEquals(falha.requests(), falha.assertionFailures());
+        Assert.assertEquals(falha.requests(), falha.errors());
+        Assert.assertThat(falha.firstError(), startsWith("AssertionError: expected:<1> but was:<2>"));
+    }
+
+    @Test
+    public void deveManterATaxaNoModeloAberto() {
+        LoadReport relatorio = LoadTest.open(200)
+                .scenario(Scenario.of("noop", () -> { }))
+                .duration(Duration.ofMillis(500))
+                .run();
+
+        Assert.assertThat(relatorio.requests(), allOf(greaterThanOrEqualTo(90L), lessThanOrEqualTo(100L)));
+    }
+
+    @Test
+    public void deveExecutarMetodosDeTesteComoCenarios() {
+        List<Scenario> cenarios = Scenario.testMethods(Exemplo.class);
+        Assert.assertEquals(2, cenarios.size());
+
+        LoadReport relatorio = LoadTest.closed(1).scenarios(cenarios).duration(Duration.ofMillis(100)).run();
+        Assert.assertEquals(0, relatorio.scenario("Exemplo.passa").errors());
+        Assert.assertEquals(relatorio.scenario("Exemplo.semAExcecaoEsperada").requests(),
+                relatorio.scenario("Exemplo.semAExcecaoEsperada").assertionFailures());
+    }
+
+    public static class Exemplo {
+        private boolean preparado;
+
+        @org.junit.Before
+        public void preparar() {
+            preparado = true;
+        }
+
+        @Test
+        public void passa() {
+            Assert.assertTrue(preparado);
+        }
+
+        @Test(expected = IllegalStateException.class)
+        public void semAExcecaoEsperada() {
+        }
+    }
+}
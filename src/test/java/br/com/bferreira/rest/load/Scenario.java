@@ -0,0 +1,108 @@
+package br.com.bferreira.rest.load;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.junit.runners.model.FrameworkMethod;
+import org.junit.runners.model.TestClass;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Um fluxo executado repetidamente pelo {@link LoadTest}. Pode ser qualquer ação ou um
+ * método de teste JUnit já existente, executado como o JUnit faria: instância nova da
+ * classe, métodos {@code @Before}, o teste e os {@code @After}. Um AssertionError conta
+ * como falha do cenário, qualquer outra exceção como erro.
+ */
+public final class Scenario {
+
+    /** Ação de um cenário; pode lançar qualquer coisa, que vira falha ou erro. */
+    public interface Acao {
+        void executar() throws Throwable;
+    }
+
+    private final String name;
+    private final Acao acao;
+
+    private Scenario(String name, Acao acao) {
+        this.name = name;
+        this.acao = acao;
+    }
+
+    public static Scenario of(String name, Acao acao) {
+        return new Scenario(name, acao);
+    }
+
+    public static Scenario testMethod(Class<?> classe, String metodo) {
+        TestClass testClass = new TestClass(classe);
+        for (FrameworkMethod teste : testClass.getAnnotatedMethods(Test.class)) {
+            if (teste.getName().equals(metodo)) {
+                return teste(testClass, teste);
+            }
+        }
+        throw new IllegalArgumentException("Teste inexistente: " + classe.getSimpleName() + "." + metodo);
+    }
+
+    /** Todos os métodos {@code @Test} (sem {@code @Ignore}) da classe, um cenário por método. */
+    public static List<Scenario> testMethods(Class<?> classe) {
+        TestClass testClass = new TestClass(classe);
+        List<Scenario> cenarios = new ArrayList<>();
+        for (FrameworkMethod teste : testClass.getAnnotatedMethods(Test.class)) {
+            if (teste.getAnnotation(Ignore.class) == null) {
+                cenarios.add(teste(testClass, teste));
+            }
+        }
+        return cenarios;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    void executar() throws Throwable {
+        acao.executar();
+    }
+
+    private static Scenario teste(TestClass testClass, FrameworkMethod teste) {
+        List<FrameworkMethod> antes = testClass.getAnnotatedMethods(Before.class);
+        List<FrameworkMethod> depois = testClass.getAnnotatedMethods(After.class);
+        Class<? extends Throwable> esperada = teste.getAnnotation(Test.class).expected();
+        String nome = testClass.getJavaClass().getSimpleName() + "." + teste.getName();
+        return new Scenario(nome, () -> {
+            Object instancia;
+            try {
+                instancia = testClass.getOnlyConstructor().newInstance();
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            try {
+                for (FrameworkMethod metodo : antes) {
+                    metodo.invokeExplosively(instancia);
+                }
+                try {
+                    teste.invokeExplosively(instancia);
+                } catch (Throwable e) {
+                    if (!esperada.isInstance(e)) {
+                        throw e;
+                    }
+                    return;
+                }
+                if (esperada != Test.None.class) {
+                    throw new AssertionError("Esperava a exceção " + esperada.getName());
+                }
+            } finally {
+                for (FrameworkMethod metodo : depois) {
+                    metodo.invokeExplosively(instancia);
+                }
+            }
+        });
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
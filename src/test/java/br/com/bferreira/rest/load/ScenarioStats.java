@@ -0,0 +1,68 @@
+package br.com.bferreira.rest.load;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/** Latências, falhas de assertiva e erros de um cenário durante a medição. */
+public final class ScenarioStats {
+
+    private final String name;
+    private final LatencyHistogram latencias = new LatencyHistogram();
+    private final LongAdder falhas = new LongAdder();
+    private final LongAdder erros = new LongAdder();
+    private final AtomicReference<String> primeiroProblema = new AtomicReference<>();
+
+    ScenarioStats(String name) {
+        this.name = name;
+    }
+
+    void registrar(long nanos, Throwable problema) {
+        latencias.record(nanos);
+        if (problema == null) {
+            return;
+        }
+        if (problema instanceof AssertionError) {
+            falhas.increment();
+        } else {
+            erros.increment();
+        }
+        primeiroProblema.compareAndSet(null, problema.getClass().getSimpleName() + ": " + problema.getMessage());
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public LatencyHistogram latencies() {
+        return latencias;
+    }
+
+    public long requests() {
+        return latencias.count();
+    }
+
+    /** Execuções que falharam numa assertiva (status, body...). */
+    public long assertionFailures() {
+        return falhas.sum();
+    }
+
+    /** Execuções que terminaram com outra exceção (conexão, timeout...). */
+    public long exceptions() {
+        return erros.sum();
+    }
+
+    /** Falhas de assertiva e exceções, que contam igualmente como erro. */
+    public long errors() {
+        return assertionFailures() + exceptions();
+    }
+
+    public double errorRate() {
+        long n = requests();
+        return n == 0 ? 0 : (double) errors() / n;
+    }
+
+    /** Mensagem do primeiro erro, para diagnóstico. */
+    public String firstError() {
+        return primeiroProblema.get();
+    }
+}
@@ -0,0 +1,53 @@
+package br.com.bferreira.rest.load;
+
+import br.com.bferreira.rest.VerbosTest;
+import br.com.bferreira.rest.config.ConnectionPool;
+import br.com.bferreira.rest.log.BufferedLog;
+import br.com.bferreira.rest.standin.StandInServer;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.time.Duration;
+
+/**
+ * Roda os cenários do {@link VerbosTest} (POST/PUT/DELETE de /users e POST de /usersXML)
+ * como teste de carga contra o stand-in, ou contra outro servidor com {@code -Dload.baseUri}.
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=br.com.bferreira.rest.load.VerbosLoadTest -Dexec.args="closed 50 30 5"
+ * </pre>
+ * Argumentos: modelo ({@code closed} ou {@code open}), usuários (fechado) ou execuções por
+ * segundo (aberto), segundos medidos e segundos de aquecimento. Para threads virtuais, rode
+ * com um JDK 21+.
+ */
+public class VerbosLoadTest {
+
+    public static void main(String[] args) {
+        String modelo = args.length > 0 ? args[0] : "closed";
+        double carga = args.length > 1 ? Double.parseDouble(args[1]) : 16;
+        long segundos = args.length > 2 ? Long.parseLong(args[2]) : 10;
+        long aquecimento = args.length > 3 ? Long.parseLong(args[3]) : 3;
+
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));//descarta o que os testes imprimem (inclusive o log de falha), antes do RestAssured capturar o System.out
+        ConnectionPool.install();
+        BufferedLog.install();
+        String baseUri = System.getProperty("load.baseUri");
+        if (baseUri == null) {
+            StandInServer.install();
+        } else {
+            io.restassured.RestAssured.baseURI = baseUri;
+        }
+
+        LoadTest teste = "open".equals(modelo) ? LoadTest.open(carga) : LoadTest.closed((int) carga);
+        LoadReport relatorio = teste
+                .scenarios(Scenario.testMethods(VerbosTest.class))
+                .warmup(Duration.ofSeconds(aquecimento))
+                .duration(Duration.ofSeconds(segundos))
+                .run();
+        System.setOut(console);
+        console.print(relatorio);
+        System.exit(relatorio.errors() == 0 ? 0 : 1);
+    }
+}
@@ -0,0 +1,143 @@
+package br.com.bferreira.rest.log;
+
+import br.com.bferreira.rest.standin.StandInResponse;
+import br.com.bferreira.rest.standin.StandInServer;
+import io.restassured.filter.Filter;
+import io.restassured.response.Response;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.Description;
+import org.junit.runners.model.Statement;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.restassured.RestAssured.given;
+
+public class BufferedLogTest {
+
+    private static StandInServer servidor;
+
+    @BeforeClass
+    public static void subirServidor() {
+        servidor = StandInServer.start(requisicao -> StandInResponse.json(200, "{\"caminho\":\"" + requisicao.path() + "\"}"));
+    }
+
+    @AfterClass
+    public static void derrubarServidor() {
+        servidor.close();
+    }
+
+    @Test
+    public void naoDeveImprimirNadaQuandoOTestePassa() throws Throwable {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Filter filtro = BufferedLog.filter(BufferedLog.Modo.FAILURE);
+        int[] guardadas = new int[1];
+
+        executar(new FailureLogRule(new PrintStream(bytes, true, "UTF-8")), () -> {
+            given().filter(filtro).get(servidor.url("/um")).then().statusCode(200);
+            guardadas[0] = BufferedLog.buffered();
+        });
+
+        Assert.assertEquals(1, guardadas[0]);
+        Assert.assertEquals(0, BufferedLog.buffered());
+        Assert.assertEquals("", bytes.toString("UTF-8"));
+    }
+
+    @Test
+    public void deveImprimirAsRequisicoesDoTesteQuandoEleFalha() throws Throwable {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Filter filtro = BufferedLog.filter(BufferedLog.Modo.FAILURE);
+
+        try {
+            executar(new FailureLogRule(new PrintStream(bytes, true, "UTF-8")), () -> {
+                given().filter(filtro).get(servidor.url("/um")).then().statusCode(200);
+                given().filter(filtro).header("X-Teste", "sim").get(servidor.url("/dois")).then().statusCode(201);
+            });
+            Assert.fail("a falha do teste deveria ser propagada");
+        } catch (AssertionError e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("201"));
+        }
+
+        String log = bytes.toString("UTF-8");
+        //o filtro global (instalado antes da suíte) e o do teste guardam cada requisição uma vez só
+        Assert.assertTrue(log, log.contains("requisição 1 de 2"));
+        Assert.assertTrue(log, log.contains("requisição 2 de 2"));
+        Assert.assertTrue(log, log.indexOf(servidor.url("/um")) < log.indexOf(servidor.url("/dois")));
+        Assert.assertTrue(log, log.contains("X-Teste=sim"));
+        Assert.assertTrue(log, log.contains("\"caminho\": \"/dois\""));
+        Assert.assertEquals(0, BufferedLog.buffered());
+    }
+
+    @Test
+    public void deveGuardarCadaRequisicaoUmaVezSoComDoisFiltros() throws Throwable {
+        int[] guardadas = new int[1];
+
+        executar(new FailureLogRule(new PrintStream(new ByteArrayOutputStream(), true, "UTF-8")), () -> {
+            given().filter(BufferedLog.filter(BufferedLog.Modo.FAILURE)).filter(BufferedLog.filter(BufferedLog.Modo.FAILURE))
+                    .get(servidor.url("/um")).then().statusCode(200);
+            guardadas[0] = BufferedLog.buffered();
+        });
+
+        Assert.assertEquals(1, guardadas[0]);
+    }
+
+    @Test
+    public void deveManterSoAsUltimasTrocasNoBuffer() {
+        RequestRing buffer = new RequestRing(3);
+        List<Exchange> trocas = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Exchange troca = new Exchange(null, null, null, i, 0);
+            trocas.add(troca);
+            buffer.add(troca);
+        }
+
+        Assert.assertEquals(trocas.subList(2, 5), buffer.snapshot());
+        Assert.assertEquals(2, buffer.discarded());
+        buffer.clear();
+        Assert.assertEquals(0, buffer.size());
+        Assert.assertTrue(buffer.snapshot().isEmpty());
+    }
+
+    @Test
+    public void deveEscreverEmSegundoPlanoNoModoAssincrono() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintStream saida = new PrintStream(bytes, true, "UTF-8");
+        AsyncLogWriter escritor = new AsyncLogWriter(16, () -> saida);
+        List<Exchange> trocas = new ArrayList<>();
+        Filter captura = (requisicao, resposta, contexto) -> {
+            long inicio = System.nanoTime();
+            Response recebida = contexto.next(requisicao, resposta);
+            trocas.add(new Exchange(requisicao, recebida, null, inicio, System.nanoTime() - inicio));
+            return recebida;
+        };
+        for (int i = 0; i < 3; i++) {
+            given().filter(captura).get(servidor.url("/async/" + i)).then().statusCode(200);
+        }
+
+        trocas.forEach(escritor::offer);
+
+        Assert.assertTrue(escritor.flush(5_000));
+        Assert.assertEquals(3, escritor.written());
+        Assert.assertEquals(0, escritor.dropped());
+        String log = new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+        for (int i = 0; i < 3; i++) {
+            Assert.assertTrue(log, log.contains(servidor.url("/async/" + i)));
+        }
+        Assert.assertTrue(log, log.contains("requisição em " + Thread.currentThread().getName()));
+    }
+
+    private static void executar(FailureLogRule regra, Runnable corpo) throws Throwable {
+        regra.apply(new Statement() {
+            @Override
+            public void evaluate() {
+                corpo.run();
+            }
+        }, Description.createTestDescription(BufferedLogTest.class, "corpo")).evaluate();
+    }
+}
@@ -0,0 +1,49 @@
+package br.com.bferreira.rest.log;
+
+import io.restassured.RestAssured;
+import org.junit.AssumptionViolatedException;
+import org.junit.rules.TestRule;
+import org.junit.runner.Description;
+import org.junit.runners.model.Statement;
+
+import java.io.PrintStream;
+
+/**
+ * Imprime as requisições e respostas guardadas pelo {@link BufferedLog} na thread do teste
+ * só quando o teste falha; nos testes que passam o buffer é descartado sem formatar nada.
+ */
+public class FailureLogRule implements TestRule {
+
+    private final PrintStream saida;
+
+    /** Imprime no mesmo destino do {@code log().all()} do RestAssured. */
+    public FailureLogRule() {
+        this(null);
+    }
+
+    public FailureLogRule(PrintStream saida) {
+        this.saida = saida;
+    }
+
+    @Override
+    public Statement apply(Statement base, Description description) {
+        return new Statement() {
+            @Override
+            public void evaluate() throws Throwable {
+                BufferedLog.clear();
+                try {
+                    base.evaluate();
+                } catch (AssumptionViolatedException e) {
+                    throw e;
+                } catch (Throwable e) {
+                    PrintStream destino = saida != null ? saida : RestAssured.config().getLogConfig().defaultStream();
+                    destino.println("==== " + description.getDisplayName() + " falhou: " + e);
+                    BufferedLog.dump(destino);
+                    throw e;
+                } finally {
+                    BufferedLog.clear();
+                }
+            }
+        };
+    }
+}
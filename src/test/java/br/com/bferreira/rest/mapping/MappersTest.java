@@ -0,0 +1,147 @@
+package br.com.bferreira.rest.mapping;
+
+import br.com.bferreira.rest.cassette.Recording;
+import com.google.gson.Gson;
+import io.restassured.common.mapper.TypeRef;
+import io.restassured.http.Header;
+import io.restassured.mapper.ObjectMapperSerializationContext;
+import io.restassured.response.Response;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class MappersTest {
+
+    @JsonMapped
+    static class Pedido {
+        long numero;
+        int itens;
+        boolean pago;
+        Double desconto;
+        BigDecimal total;
+        List<String> tags;
+        List<Long> codigos;
+        Cliente cliente;
+        List<Cliente> contatos;
+        transient String ignorado;
+    }
+
+    @JsonMapped
+    static class Cliente {
+        private String nome;
+        private final String fixo = "fixo";
+
+        void setNome(String nome) {
+            this.nome = nome;
+        }
+    }
+
+    private static final String PEDIDO = "{\"numero\":9007199254740993,\"itens\":\"3\",\"pago\":true,\"desconto\":null,"
+            + "\"total\":12.30,\"tags\":[\"a\",null,\"b\"],\"codigos\":[1,2],\"extra\":{\"x\":[1,{\"y\":2}]},"
+            + "\"cliente\":{\"nome\":\"Ana\",\"idade\":30},\"contatos\":[{\"nome\":\"Bia\"},null],\"ignorado\":\"x\"}";
+
+    @Test
+    public void deveLerCamposDiretoEPorSetterPulandoChavesDesconhecidas() {
+        Pedido pedido = Mappers.read(PEDIDO.getBytes(StandardCharsets.UTF_8), Pedido.class);
+        Assert.assertEquals(9007199254740993L, pedido.numero);
+        Assert.assertEquals(3, pedido.itens);
+        Assert.assertTrue(pedido.pago);
+        Assert.assertNull(pedido.desconto);
+        Assert.assertEquals(new BigDecimal("12.30"), pedido.total);
+        Assert.assertEquals(Arrays.asList("a", null, "b"), pedido.tags);
+        Assert.assertEquals(Arrays.asList(1L, 2L), pedido.codigos);
+        Assert.assertEquals("Ana", pedido.cliente.nome);
+        Assert.assertEquals("Bia", pedido.contatos.get(0).nome);
+        Assert.assertNull(pedido.contatos.get(1));
+        Assert.assertNull("transient não é lido", pedido.ignorado);
+        Assert.assertTrue(Mappers.supports(Pedido.class));
+        Assert.assertTrue(Mappers.forType(Pedido.class) instanceof MappersTest_PedidoMapper);
+    }
+
+    @Test
+    public void deveDesserializarPeloObjectMapperDoRestAssured() {
+        Response resposta = new Recording(200, "HTTP/1.1 200 OK",
+                Collections.singletonList(new Header("Content-Type", "application/json")),
+                ("[" + PEDIDO + "," + PEDIDO + "]").getBytes(StandardCharsets.UTF_8)).toResponse();
+
+        List<Pedido> pedidos = resposta.as(new TypeRef<List<Pedido>>() {}.getType(), Mappers.objectMapper());
+        Assert.assertEquals(2, pedidos.size());
+        Assert.assertEquals(Arrays.asList(1L, 2L), pedidos.get(1).codigos);
+        Assert.assertEquals(2, Mappers.asList(resposta, Pedido.class).size());
+    }
+
+    @JsonMapped
+    static class Valores {
+        String texto;
+        double numero;
+        List<Double> numeros;
+    }
+
+    @Test
+    public void deveLerTextosENumerosComoOGson() {
+        String json = "{\"texto\":\"Jo\u00e3o \\\"Zé\\\" \\u00e9\\n\\\\ \uD83D\uDE00\",\"numero\":1234.5678,"
+                + "\"numeros\":[0.1,-0.5,1e3,2.5E-3,123456789012345678,0.30000000000000004,\"7.25\",-0]}";
+        Valores lidos = Mappers.read(json.getBytes(StandardCharsets.UTF_8), Valores.class);
+        Valores esperados = new Gson().fromJson(json, Valores.class);
+        Assert.assertEquals(esperados.texto, lidos.texto);
+        Assert.assertEquals(esperados.numero, lidos.numero, 0d);
+        Assert.assertEquals(esperados.numeros, lidos.numeros);
+
+        try {
+            Mappers.read("{\"texto\":\"a\" \"numero\":1}".getBytes(StandardCharsets.UTF_8), Valores.class);
+            Assert.fail("falta a vírgula");
+        } catch (IllegalStateException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().startsWith("JSON inválido na posição 13"));
+        }
+    }
+
+    @Test
+    public void deveSerializarPeloMapperPadraoDoRestAssured() {
+        Valores valores = new Valores();
+        valores.texto = "Zé";
+        valores.numero = 1.5;
+        valores.numeros = Arrays.asList(0.1, 2.0);
+
+        Object json = Mappers.objectMapper().serialize(new ObjectMapperSerializationContext() {
+            @Override
+            public Object getObjectToSerialize() {
+                return valores;
+            }
+
+            @Override
+            public <T> T getObjectToSerializeAs(Class<T> tipo) {
+                return tipo.cast(valores);
+            }
+
+            @Override
+            public String getContentType() {
+                return "application/json";
+            }
+
+            @Override
+            public String getCharset() {
+                return "UTF-8";
+            }
+        });
+
+        Valores lidos = Mappers.read(json.toString().getBytes(StandardCharsets.UTF_8), Valores.class);
+        Assert.assertEquals("Zé", lidos.texto);
+        Assert.assertEquals(1.5, lidos.numero, 0d);
+        Assert.assertEquals(valores.numeros, lidos.numeros);
+    }
+
+    @Test
+    public void deveRecusarTipoSemMapperGerado() {
+        try {
+            Mappers.read(new byte[]{'{', '}'}, String.class);
+            Assert.fail("String não tem @JsonMapped");
+        } catch (IllegalArgumentException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("java.lang.String"));
+        }
+    }
+}
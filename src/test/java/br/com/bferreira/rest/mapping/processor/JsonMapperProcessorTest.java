@@ -0,0 +1,52 @@
+package br.com.bferreira.rest.mapping.processor;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+public class JsonMapperProcessorTest {
+
+    private static final String SERVICO = "META-INF/services/br.com.bferreira.rest.mapping.JsonMapper";
+
+    @Rule
+    public TemporaryFolder pasta = new TemporaryFolder();
+
+    @Test
+    public void deveManterOsMappersJaRegistradosNaCompilacaoIncremental() throws IOException {
+        Path fontes = pasta.newFolder("fontes").toPath();
+        Path classes = pasta.newFolder("classes").toPath();
+
+        compilar(classes, escrever(fontes, "Conta", "@br.com.bferreira.rest.mapping.JsonMapped public class Conta { String nome; }"));
+        //só a classe alterada passa pelo processador, como no build incremental
+        compilar(classes, escrever(fontes, "Movimento", "@br.com.bferreira.rest.mapping.JsonMapped public class Movimento { double valor; }"));
+
+        List<String> mappers = Files.readAllLines(classes.resolve(SERVICO), StandardCharsets.UTF_8);
+        Assert.assertEquals(Arrays.asList("exemplo.ContaMapper", "exemplo.MovimentoMapper"), mappers);
+    }
+
+    private static File escrever(Path fontes, String classe, String corpo) throws IOException {
+        Path arquivo = fontes.resolve(classe + ".java");
+        Files.write(arquivo, ("package exemplo;\n" + corpo + "\n").getBytes(StandardCharsets.UTF_8));
+        return arquivo.toFile();
+    }
+
+    private static void compilar(Path classes, File fonte) {
+        JavaCompiler compilador = ToolProvider.getSystemJavaCompiler();
+        int resultado = compilador.run(null, null, null,
+                "-proc:only", "-processor", JsonMapperProcessor.class.getName(),
+                "-classpath", System.getProperty("java.class.path") + File.pathSeparator + classes,
+                "-d", classes.toString(), "-s", classes.toString(), fonte.getPath());
+        Assert.assertEquals(0, resultado);
+    }
+}
@@ -0,0 +1,113 @@
+package br.com.bferreira.rest.matchers;
+
+import br.com.bferreira.rest.standin.StandInResponse;
+import br.com.bferreira.rest.standin.StandInServer;
+import org.hamcrest.Matcher;
+import org.hamcrest.Matchers;
+import org.hamcrest.StringDescription;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static io.restassured.RestAssured.given;
+
+public class CollectionMatchersTest {
+
+    private static final List<?>[] LISTAS = {
+            Arrays.asList(1, 3, 5, 7, 9),
+            Arrays.asList(1, 1, 3),
+            Arrays.asList(1L, 3L, 5L),
+            Arrays.asList(1234.5678f, 2500, null),
+            Arrays.asList("João da Silva", "Maria Joaquina", "Ana Júlia"),
+            Arrays.asList(Arrays.asList("Zezinho", "Luizinho"), null),
+            Collections.emptyList()
+    };
+
+    private static final Object[][] ESPERADOS = {
+            {1}, {3, 1}, {1, 3, 5, 7, 9}, {3, 1, 9, 7, 5}, {1, 1, 3}, {1, 3, 3}, {1L, 3L, 5L}, {1L, 3},
+            {1234.5678f, 2500, null}, {null}, {2500}, {"Ana Júlia", "João da Silva"}, {"Ana Júlia", "Ana"},
+            {Arrays.asList("Zezinho", "Luizinho")}, {}
+    };
+
+    @Test
+    public void deveConcordarComOsMatchersDoHamcrest() {
+        for (List<?> lista : LISTAS) {
+            for (Object[] esperados : ESPERADOS) {
+                String caso = lista + " x " + Arrays.toString(esperados);
+                if (esperados.length == 1) {
+                    comparar(caso, lista, Matchers.hasItem(esperados[0]), CollectionMatchers.hasItem(esperados[0]));
+                }
+                comparar(caso, lista, Matchers.hasItems(esperados), CollectionMatchers.hasItems(esperados));
+                if (esperados.length > 0) {
+                    comparar(caso, lista, Matchers.contains(esperados), CollectionMatchers.contains(esperados));
+                }
+                comparar(caso, lista, Matchers.containsInAnyOrder(esperados), CollectionMatchers.containsInAnyOrder(esperados));
+            }
+        }
+    }
+
+    @Test
+    public void deveVerificarListasGrandesPeloIndice() {
+        List<Integer> ids = new ArrayList<>();
+        List<String> nomes = new ArrayList<>();
+        for (int i = 1; i <= 100_000; i++) {
+            ids.add(i);
+            nomes.add("Usuario " + i);
+        }
+        Integer[] idsEsperados = new Integer[500];
+        String[] nomesEsperados = new String[500];
+        for (int i = 0; i < 500; i++) {
+            idsEsperados[i] = 100_000 - i * 200;
+            nomesEsperados[i] = "Usuario " + idsEsperados[i];
+        }
+        Assert.assertThat(ids, CollectionMatchers.hasItems(idsEsperados));
+        Assert.assertThat(nomes, CollectionMatchers.hasItems(nomesEsperados));
+        Assert.assertFalse(CollectionMatchers.hasItems(100_001).matches(ids));
+        Assert.assertFalse(CollectionMatchers.hasItems(1L, 2L).matches(ids));//Long não é igual a Integer, como no Hamcrest
+
+        List<Integer> embaralhados = new ArrayList<>(ids);
+        Collections.shuffle(embaralhados);
+        Assert.assertThat(embaralhados, CollectionMatchers.containsInAnyOrder(ids.toArray(new Integer[0])));
+        Assert.assertThat(ids, CollectionMatchers.contains(ids.toArray(new Integer[0])));
+    }
+
+    @Test
+    public void deveFalharNoBodyComAMesmaMensagemDoHamcrest() {
+        try (StandInServer servidor = StandInServer.start(requisicao -> StandInResponse.json(200,
+                "[{\"id\":1,\"name\":\"João da Silva\"},{\"id\":2,\"name\":\"Maria Joaquina\"}]"))) {
+            given().get(servidor.url("/users")).then()
+                    .body("id", CollectionMatchers.containsInAnyOrder(2, 1))
+                    .body("name", CollectionMatchers.hasItems("Maria Joaquina"));
+            String esperada = mensagem(() -> given().get(servidor.url("/users")).then().body("name", Matchers.hasItems("Ana Júlia")));
+            String atual = mensagem(() -> given().get(servidor.url("/users")).then().body("name", CollectionMatchers.hasItems("Ana Júlia")));
+            Assert.assertEquals(esperada, atual);
+        }
+    }
+
+    private static void comparar(String caso, List<?> lista, Matcher<?> hamcrest, Matcher<?> indexado) {
+        Assert.assertEquals(caso, hamcrest.matches(lista), indexado.matches(lista));
+        Assert.assertEquals(caso, StringDescription.toString(hamcrest), StringDescription.toString(indexado));
+        if (!hamcrest.matches(lista)) {
+            Assert.assertEquals(caso, divergencia(hamcrest, lista), divergencia(indexado, lista));
+        }
+    }
+
+    private static String divergencia(Matcher<?> matcher, Object item) {
+        StringDescription descricao = new StringDescription();
+        matcher.describeMismatch(item, descricao);
+        return descricao.toString();
+    }
+
+    private static String mensagem(Runnable verificacao) {
+        try {
+            verificacao.run();
+        } catch (AssertionError e) {
+            return e.getMessage();
+        }
+        throw new AssertionError("a verificação deveria falhar");
+    }
+}
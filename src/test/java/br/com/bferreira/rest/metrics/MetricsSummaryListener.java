@@ -0,0 +1,39 @@
+package br.com.bferreira.rest.metrics;
+
+import org.junit.runner.Result;
+import org.junit.runner.notification.RunListener;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Escreve o {@link RequestMetrics#summary()} no fim da suíte, em
+ * {@code metrics.summary.file} (padrão {@code target/request-metrics.txt}), e imprime na saída.
+ * Registrado como listener do surefire no pom.
+ */
+@RunListener.ThreadSafe
+public class MetricsSummaryListener extends RunListener {
+
+    @Override
+    public void testRunFinished(Result result) {
+        if (RequestMetrics.stats().isEmpty()) {
+            return;
+        }
+        String resumo = RequestMetrics.summary();
+        Path arquivo = Paths.get(System.getProperty("metrics.summary.file", "target/request-metrics.txt"));
+        try {
+            if (arquivo.getParent() != null) {
+                Files.createDirectories(arquivo.getParent());
+            }
+            Files.write(arquivo, resumo.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        System.out.println("Requisições por endpoint (médias em ms, " + arquivo + "):");
+        System.out.print(resumo);
+    }
+}
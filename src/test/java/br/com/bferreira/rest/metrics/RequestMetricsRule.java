@@ -0,0 +1,24 @@
+package br.com.bferreira.rest.metrics;
+
+import org.junit.rules.TestRule;
+import org.junit.runner.Description;
+import org.junit.runners.model.Statement;
+
+/** Marca a classe e o método do teste nas requisições medidas pelo {@link RequestMetrics}. */
+public class RequestMetricsRule implements TestRule {
+
+    @Override
+    public Statement apply(Statement base, Description description) {
+        return new Statement() {
+            @Override
+            public void evaluate() throws Throwable {
+                RequestMetrics.currentTest(description.getClassName(), description.getMethodName());
+                try {
+                    base.evaluate();
+                } finally {
+                    RequestMetrics.currentTest(null, null);
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,108 @@
+package br.com.bferreira.rest.metrics;
+
+import br.com.bferreira.rest.config.ConnectionPool;
+import br.com.bferreira.rest.standin.StandInResponse;
+import br.com.bferreira.rest.standin.StandInServer;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.is;
+
+public class RequestMetricsTest {
+
+    @Rule
+    public final TemporaryFolder pasta = new TemporaryFolder();
+
+    @Rule
+    public final RequestMetricsRule metricas = new RequestMetricsRule();
+
+    @BeforeClass
+    public static void instalar() {
+        ConnectionPool.install();
+        RequestMetrics.install();
+    }
+
+    @Test
+    public void deveSomarAsFasesPorEndpoint() {
+        StandInServer servidor = StandInServer.start(requisicao -> requisicao.path().endsWith("/3")
+                ? StandInResponse.empty(404)
+                : StandInResponse.json(200, "{\"id\":1,\"nome\":\"" + "x".repeat(5000) + "\"}"), false);//sem gzip: bytes in conta os 5000 na rede
+        try {
+            given().get(servidor.url("/fases/usuarios/1")).then().statusCode(200).body("id", is(1));
+            given().body("{}").put(servidor.url("/fases/usuarios/2")).then().statusCode(200);
+            given().get(servidor.url("/fases/usuarios/3")).then().statusCode(404);
+            try {
+                given().get(servidor.url("/fases/usuarios/4")).then().body("id", is(2));
+                Assert.fail("a validação deveria falhar");
+            } catch (AssertionError esperado) {
+                //contada como falha de validação
+            }
+        } finally {
+            servidor.close();
+        }
+
+        Map<String, Long> get = RequestMetrics.stats().get("GET 127.0.0.1:" + servidor.port() + "/fases/usuarios/{id}");
+        Assert.assertNotNull(RequestMetrics.stats().keySet().toString(), get);
+        Assert.assertEquals(3L, (long) get.get("requests"));
+        Assert.assertEquals(1L, (long) get.get("errors"));
+        Assert.assertEquals(0L, (long) get.get("offline"));
+        Assert.assertEquals(4L, (long) get.get("assertions"));
+        Assert.assertEquals(1L, (long) get.get("assertionFailures"));
+        Assert.assertTrue(get.get("serverNanos") > 0);
+        Assert.assertTrue(get.get("bytesIn") > 2 * 5000);
+        Assert.assertTrue(get.get("bytesOut") > 0);
+        Assert.assertTrue(get.get("totalNanos") >= get.get("serverNanos") + get.get("downloadNanos"));
+
+        Map<String, Long> put = RequestMetrics.stats().get("PUT 127.0.0.1:" + servidor.port() + "/fases/usuarios/{id}");
+        Assert.assertEquals(1L, (long) put.get("requests"));
+        Assert.assertTrue(RequestMetrics.summary().contains("/fases/usuarios/{id}"));
+    }
+
+    @Test
+    public void deveGravarEventosJfrComOTeste() throws Exception {
+        StandInServer servidor = StandInServer.start(requisicao -> StandInResponse.json(200, "{\"ok\":true}"));
+        Path arquivo = pasta.getRoot().toPath().resolve("testes.jfr");
+        try (Recording gravacao = new Recording()) {
+            gravacao.enable("br.com.bferreira.rest.HttpExchange");
+            gravacao.enable("br.com.bferreira.rest.Assertion");
+            gravacao.start();
+            given().get(servidor.url("/jfr/contas")).then().statusCode(200).and().body("ok", is(true));
+            gravacao.stop();
+            gravacao.dump(arquivo);
+        } finally {
+            servidor.close();
+        }
+
+        List<RecordedEvent> eventos = RecordingFile.readAllEvents(arquivo).stream()
+                .filter(evento -> evento.getString("testMethod").equals("deveGravarEventosJfrComOTeste"))
+                .collect(Collectors.toList());
+        RecordedEvent troca = eventos.stream().filter(evento -> evento.getEventType().getName().endsWith("HttpExchange")).findFirst().get();
+        Assert.assertEquals(RequestMetricsTest.class.getName(), troca.getString("testClass"));
+        Assert.assertEquals("GET 127.0.0.1:" + servidor.port() + "/jfr/contas", troca.getString("endpoint"));
+        Assert.assertEquals(200, troca.getInt("status"));
+        Assert.assertFalse(troca.getBoolean("offline"));
+        Assert.assertTrue(troca.getLong("bytesIn") > 0);
+        List<String> validacoes = eventos.stream().filter(evento -> evento.getEventType().getName().endsWith("Assertion"))
+                .map(evento -> evento.getString("assertion")).collect(Collectors.toList());
+        Assert.assertEquals(List.of("statusCode", "body(\"ok\")"), validacoes);
+    }
+
+    @Test
+    public void deveAgruparIdsNumericosNoEndpoint() {
+        Assert.assertEquals("GET api.exemplo.com/users/{id}/contas", RequestMetrics.normalizar("GET", "https://api.exemplo.com/users/42/contas?x=1"));
+        Assert.assertEquals("DELETE 127.0.0.1:8080/users/{id}", RequestMetrics.normalizar("DELETE", "http://127.0.0.1:8080/users/7"));
+        Assert.assertEquals("GET 127.0.0.1:8080/", RequestMetrics.normalizar("GET", "http://127.0.0.1:8080"));
+    }
+}
@@ -0,0 +1,183 @@
+package br.com.bferreira.rest.ratelimit;
+
+import br.com.bferreira.rest.metrics.PolicyEvent;
+import br.com.bferreira.rest.metrics.RequestMetrics;
+import br.com.bferreira.rest.resilience.ResiliencePolicy;
+import br.com.bferreira.rest.standin.StandInResponse;
+import br.com.bferreira.rest.standin.StandInServer;
+import io.restassured.config.RestAssuredConfig;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.*;
+
+public class RateLimiterTest {
+
+    @Test
+    public void deveEspacarAsReservasPelaCotaSemRecusar() {
+        long segundo = TimeUnit.SECONDS.toNanos(1);
+        TokenBucket balde = new TokenBucket(4, segundo, 1, 0);
+        //5 chegando juntas: a primeira sai na hora e as outras a cada 250 ms
+        for (int i = 0; i < 5; i++) {
+            Assert.assertEquals(i * segundo / 4, balde.reservar(0));
+        }
+        //depois de um tempo parado, sem acumular fichas além da rajada
+        Assert.assertEquals(0, balde.reservar(10 * segundo));
+        Assert.assertEquals(segundo / 4, balde.reservar(10 * segundo));
+        Assert.assertEquals(7, balde.acquired());
+        Assert.assertEquals(5, balde.delayed());
+        Assert.assertEquals(segundo, balde.maxWaitNanos());
+
+        TokenBucket comRajada = new TokenBucket(4, segundo, 3, 0);
+        Assert.assertEquals(0, comRajada.reservar(0));
+        Assert.assertEquals(0, comRajada.reservar(0));
+        Assert.assertEquals(0, comRajada.reservar(0));
+        Assert.assertEquals(segundo / 4, comRajada.reservar(0));
+    }
+
+    @Test
+    public void deveReservarOMesmoInstanteEmTodasAsCotasDaRequisicao() {
+        long segundo = TimeUnit.SECONDS.toNanos(1);
+        TokenBucket host = new TokenBucket(1, segundo, 1, 0);
+        TokenBucket chave = new TokenBucket(1, segundo, 1, 0);
+        Assert.assertEquals(0, chave.reservar(0));
+
+        //a requisição nas duas cotas só sai quando a da chave libera, e ocupa o host a partir daí
+        Assert.assertEquals(segundo, RateLimiter.reservar(Arrays.asList(host, chave), 0));
+        //a seguinte no mesmo host sai um período depois, não junto com ela
+        Assert.assertEquals(2 * segundo, host.reservar(0));
+        Assert.assertEquals(2, host.acquired());
+        Assert.assertEquals(2 * segundo, host.maxWaitNanos());
+    }
+
+    @Test
+    public void deveChegarNaCotaSem429ComVariasThreads() throws Exception {
+        int cota = 10;
+        ConcurrentLinkedDeque<Long> chegadas = new ConcurrentLinkedDeque<>();
+        AtomicInteger recusadas = new AtomicInteger();
+        //servidor que recusa acima de 10 requisições em qualquer janela de 700 ms: a fila fica antes da conexão e do
+        //envio, então a folga cobre até 200 ms de diferença entre sair da fila e chegar no servidor
+        try (StandInServer servidor = StandInServer.start(requisicao -> {
+            if (requisicao.path().startsWith("/aquecer")) {
+                return StandInResponse.text(200, "ok");
+            }
+            long agora = System.nanoTime();
+            chegadas.removeIf(chegada -> agora - chegada >= TimeUnit.MILLISECONDS.toNanos(700));
+            if (chegadas.size() >= cota) {
+                recusadas.incrementAndGet();
+                return StandInResponse.text(429, "Too Many Requests");
+            }
+            chegadas.add(agora);
+            return StandInResponse.text(200, "ok");
+        })) {
+            RateLimiter limite = RateLimiter.create().perQueryParam("appid", cota, Duration.ofSeconds(1));
+            ExecutorService threads = Executors.newFixedThreadPool(8);
+            List<Future<Integer>> status = new ArrayList<>();
+            long inicio = 0;
+            try {
+                //a fila é antes da conexão: com a JVM fria, a primeira ida de cada thread atrasa e junta as chegadas
+                List<Future<Integer>> aquecimento = new ArrayList<>();
+                for (int i = 0; i < 8; i++) {
+                    aquecimento.add(threads.submit(() -> given().noFilters().get(servidor.url("/aquecer")).statusCode()));
+                }
+                for (Future<Integer> resposta : aquecimento) {
+                    resposta.get();
+                }
+                inicio = System.nanoTime();
+                for (int i = 0; i < 20; i++) {
+                    status.add(threads.submit(() -> given().noFilters().filter(limite)
+                            .queryParam("appid", "chave-de-teste").get(servidor.url("/weather")).statusCode()));
+                }
+                for (Future<Integer> resposta : status) {
+                    Assert.assertEquals(200, (int) resposta.get());
+                }
+            } finally {
+                threads.shutdownNow();
+            }
+            long ms = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio);
+            Assert.assertEquals(0, recusadas.get());
+            //20 requisições a 10/s: a última sai em 19 * 100 ms
+            Assert.assertThat(ms, greaterThanOrEqualTo(1900L));
+
+            Map<String, Map<String, Long>> stats = limite.stats();
+            Assert.assertEquals(1, stats.size());
+            String chave = stats.keySet().iterator().next();
+            Assert.assertThat(chave, startsWith("appid chav…"));
+            Assert.assertThat(chave, not(containsString("chave-de-teste")));
+            Assert.assertEquals(20L, (long) stats.get(chave).get("acquired"));
+            Assert.assertThat(stats.get(chave).get("delayed"), greaterThanOrEqualTo(10L));
+            //8 threads na fila: cada uma chega a esperar pelas 7 da frente
+            Assert.assertThat(stats.get(chave).get("maxWaitNanos"), greaterThan(TimeUnit.MILLISECONDS.toNanos(250)));
+        }
+    }
+
+    @Test
+    public void deveEsperarACotaAntesDaPoliticaDeResiliencia() throws Exception {
+        try (StandInServer servidor = StandInServer.start(requisicao -> StandInResponse.text(200, "ok"))) {
+            RateLimiter limite = RateLimiter.create().perQueryParam("appid", 2, Duration.ofSeconds(1));
+            //a fila chega a 2,5 s, bem acima do hedge: se a espera fosse dentro da tentativa, sairiam hedges com outras fichas
+            ResiliencePolicy politica = ResiliencePolicy.policy()
+                    .retries(2)
+                    .hedgeAfter(Duration.ofSeconds(1));
+            RestAssuredConfig config = politica.config();
+            String url = servidor.url("/weather");
+            given().config(config).get(servidor.url("/aquecer")).then().statusCode(200);//JVM fria: a primeira passa do hedge sozinha
+            ExecutorService threads = Executors.newFixedThreadPool(6);
+            List<Future<Integer>> status = new ArrayList<>();
+            try {
+                for (int i = 0; i < 6; i++) {
+                    status.add(threads.submit(() -> given().config(config).filter(limite)
+                            .queryParam("appid", "chave-de-teste").get(url).statusCode()));
+                }
+                for (Future<Integer> resposta : status) {
+                    Assert.assertEquals(200, (int) resposta.get());
+                }
+            } finally {
+                threads.shutdownNow();
+            }
+
+            Map<String, Long> cota = limite.stats().values().iterator().next();
+            Assert.assertEquals(6L, (long) cota.get("acquired"));
+            Assert.assertThat(cota.get("maxWaitNanos"), greaterThan(TimeUnit.SECONDS.toNanos(2)));
+            Map<String, Long> eventos = RequestMetrics.stats().get(RequestMetrics.endpointKey("GET", url));
+            Assert.assertEquals(6L, (long) eventos.get("requests"));
+            Assert.assertEquals(0L, (long) eventos.get(PolicyEvent.HEDGE.key()));
+        }
+    }
+
+    @Test
+    public void deveSepararCotasPorCredencialENaoLimitarOutrosHosts() {
+        try (StandInServer servidor = StandInServer.start(requisicao -> StandInResponse.text(200, "ok"))) {
+            RateLimiter limite = RateLimiter.create()
+                    .perHeader("Authorization", 2, Duration.ofSeconds(1))
+                    .perHost("api.openweathermap.org", 1, Duration.ofMinutes(1));
+            long inicio = System.nanoTime();
+            for (int i = 0; i < 2; i++) {
+                given().noFilters().filter(limite).header("Authorization", "Bearer um").get(servidor.url("/a")).then().statusCode(200);
+                given().noFilters().filter(limite).header("Authorization", "Bearer dois").get(servidor.url("/a")).then().statusCode(200);
+            }
+            //duas credenciais a 2/s: a segunda ficha de "um" demora ~500 ms e a de "dois" já está livre quando ela sai
+            Assert.assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio), greaterThanOrEqualTo(400L));
+            //e a cota do openweathermap não pegou o localhost
+            Map<String, Map<String, Long>> stats = limite.stats();
+            Assert.assertEquals(2, stats.size());
+            Assert.assertThat(stats.keySet(), everyItem(startsWith("Authorization Bear…")));
+            for (Map<String, Long> cota : stats.values()) {
+                Assert.assertEquals(2L, (long) cota.get("acquired"));
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package br.com.bferreira.rest.resilience;
+
+import br.com.bferreira.rest.metrics.PolicyEvent;
+import br.com.bferreira.rest.metrics.RequestMetrics;
+import br.com.bferreira.rest.standin.FaultInjector;
+import br.com.bferreira.rest.standin.StandInServer;
+import br.com.bferreira.rest.standin.WcaquinoApi;
+import io.restassured.response.Response;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.*;
+
+public class ResiliencePolicyTest {
+
+    private static long contagem(String metodo, String url, PolicyEvent evento) {
+        Map<String, Long> stats = RequestMetrics.stats().get(RequestMetrics.endpointKey(metodo, url));
+        return stats == null ? 0 : stats.get(evento.key());
+    }
+
+    @Test
+    public void deveRepetirDepoisDe503MasNaoRepetirPost() {
+        FaultInjector falhas = FaultInjector.wrap(new WcaquinoApi())
+                .status("/users/1", 503, 2)
+                .status("/usersXML", 503, 1);
+        ResiliencePolicy politica = ResiliencePolicy.policy()
+                .retries(3)
+                .backoff(Duration.ofMillis(1), Duration.ofMillis(10));
+        try (StandInServer servidor = StandInServer.start(falhas)) {
+            String url = servidor.url("/users/1");
+            given().config(politica.config())
+                    .get(url)
+                    .then().statusCode(200).body("name", is("João da Silva"));
+            Assert.assertEquals(2, falhas.injected());
+            Assert.assertEquals(2, contagem("GET", url, PolicyEvent.RETRY));
+
+            //POST não é idempotente: o 503 volta direto
+            given().config(politica.config())
+                    .contentType("application/xml").body("<user><name>Zeca</name></user>")
+                    .post(servidor.url("/usersXML"))
+                    .then().statusCode(503);
+            Assert.assertEquals(3, falhas.injected());
+            Assert.assertEquals(0, contagem("POST", servidor.url("/usersXML"), PolicyEvent.RETRY));
+        }
+    }
+
+    @Test
+    public void deveEstourarOTimeoutDeLeituraERepetirDentroDoPrazoTotal() {
+        FaultInjector falhas = FaultInjector.wrap(new WcaquinoApi())
+                .delay("/users/2", Duration.ofMillis(1500), 1)
+                .delay("/users/3", Duration.ofSeconds(3), FaultInjector.ALWAYS);
+        try (StandInServer servidor = StandInServer.start(falhas)) {
+            String url = servidor.url("/users/2");
+            given().config(ResiliencePolicy.policy()
+                            .readTimeout(Duration.ofMillis(200))
+                            .retries(1)
+                            .backoff(Duration.ofMillis(1), Duration.ofMillis(10))
+                            .config())
+                    .get(url)
+                    .then().statusCode(200).body("name", is("Maria Joaquina"));
+            Assert.assertEquals(1, contagem("GET", url, PolicyEvent.READ_TIMEOUT));
+            Assert.assertEquals(1, contagem("GET", url, PolicyEvent.RETRY));
+
+            long inicio = System.nanoTime();
+            try {
+                given().config(ResiliencePolicy.policy().totalTimeout(Duration.ofMillis(300)).retries(5).config())
+                        .get(servidor.url("/users/3"));
+                Assert.fail("Deveria estourar o prazo total");
+            } catch (Exception e) {
+                Assert.assertThat(e, instanceOf(SocketTimeoutException.class));
+            }
+            Assert.assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio), lessThan(2000L));
+            Assert.assertEquals(1, contagem("GET", servidor.url("/users/3"), PolicyEvent.TOTAL_TIMEOUT));
+        }
+    }
+
+    @Test
+    public void deveResponderPeloHedgeQuandoAPrimeiraDemora() {
+        FaultInjector falhas = FaultInjector.wrap(new WcaquinoApi())
+                .delay("/usersXML", Duration.ofSeconds(2), 1);
+        try (StandInServer servidor = StandInServer.start(falhas)) {
+            String url = servidor.url("/usersXML");
+            given().get(servidor.url("/ola")).then().statusCode(200);//aquece o RestAssured antes de medir
+            long inicio = System.nanoTime();
+            Response resposta = given().config(ResiliencePolicy.policy().hedgeAfter(Duration.ofMillis(100)).config()).get(url);
+            Assert.assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio), lessThan(1500L));
+            resposta.then().statusCode(200).body("users.user[1].name", is("Maria Joaquina"));
+            Assert.assertEquals(1, contagem("GET", url, PolicyEvent.HEDGE));
+            Assert.assertEquals(1, contagem("GET", url, PolicyEvent.HEDGE_WIN));
+        }
+    }
+}
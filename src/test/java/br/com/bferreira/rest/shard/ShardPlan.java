@@ -0,0 +1,118 @@
+package br.com.bferreira.rest.shard;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeSet;
+
+/**
+ * Divisão das classes de teste em K partes de duração parecida, pelo LPT (a mais demorada
+ * primeiro, sempre para a parte com menos carga até ali), que fica a no máximo 4/3 do ótimo.
+ * Classes sem histórico entram com a média das conhecidas. O resultado só depende das
+ * durações e dos nomes, então máquinas diferentes com o mesmo arquivo de tempos chegam à
+ * mesma divisão.
+ */
+public final class ShardPlan {
+
+    //sem histórico nenhum, toda classe vale o mesmo
+    private static final long DURACAO_PADRAO = 1000;
+
+    private final List<List<String>> partes;
+    private final long[] cargas;
+    private final long total;
+
+    private ShardPlan(List<List<String>> partes, long[] cargas, long total) {
+        this.partes = partes;
+        this.cargas = cargas;
+        this.total = total;
+    }
+
+    public static ShardPlan lpt(Collection<String> classes, TestDurations duracoes, int quantidade) {
+        if (quantidade < 1) {
+            throw new IllegalArgumentException("Quantidade de partes inválida: " + quantidade);
+        }
+        Map<String, Long> conhecidas = duracoes.asMap();
+        long estimativa = conhecidas.isEmpty() ? DURACAO_PADRAO
+                : Math.max(1, conhecidas.values().stream().mapToLong(Long::longValue).sum() / conhecidas.size());
+        List<String> ordenadas = new ArrayList<>(new TreeSet<>(classes));
+        Map<String, Long> pesos = new HashMap<>();
+        for (String classe : ordenadas) {
+            pesos.put(classe, conhecidas.getOrDefault(classe, estimativa));
+        }
+        ordenadas.sort(Comparator.comparing((String classe) -> pesos.get(classe)).reversed().thenComparing(Comparator.naturalOrder()));
+
+        List<List<String>> partes = new ArrayList<>();
+        for (int i = 0; i < quantidade; i++) {
+            partes.add(new ArrayList<>());
+        }
+        long[] cargas = new long[quantidade];
+        //menor carga primeiro; empate pelo índice
+        PriorityQueue<Integer> livres = new PriorityQueue<>(quantidade,
+                Comparator.<Integer>comparingLong(i -> cargas[i]).thenComparingInt(i -> i));
+        for (int i = 0; i < quantidade; i++) {
+            livres.add(i);
+        }
+        long total = 0;
+        for (String classe : ordenadas) {
+            int parte = livres.poll();
+            partes.get(parte).add(classe);
+            cargas[parte] += pesos.get(classe);
+            total += pesos.get(classe);
+            livres.add(parte);
+        }
+        for (List<String> parte : partes) {
+            Collections.sort(parte);
+        }
+        return new ShardPlan(partes, cargas, total);
+    }
+
+    public int size() {
+        return partes.size();
+    }
+
+    /** Classes da parte {@code indice} (0 a K-1), em ordem alfabética. */
+    public List<String> shard(int indice) {
+        if (indice < 0 || indice >= partes.size()) {
+            throw new IllegalArgumentException("Parte " + indice + " fora de 0.." + (partes.size() - 1));
+        }
+        return Collections.unmodifiableList(partes.get(indice));
+    }
+
+    /** Duração estimada da parte, em ms. */
+    public long load(int indice) {
+        return cargas[indice];
+    }
+
+    /** Duração estimada da parte mais demorada: o tempo de parede com uma máquina por parte. */
+    public long makespan() {
+        long maior = 0;
+        for (long carga : cargas) {
+            maior = Math.max(maior, carga);
+        }
+        return maior;
+    }
+
+    public long totalMillis() {
+        return total;
+    }
+
+    /** Quanto a divisão fica do ideal (total / K): 1.0 é perfeita. */
+    public double imbalance() {
+        return total == 0 ? 1.0 : makespan() * (double) partes.size() / total;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder texto = new StringBuilder();
+        for (int i = 0; i < partes.size(); i++) {
+            texto.append(String.format("parte %d: %3d classes, %8d ms%n", i, partes.get(i).size(), cargas[i]));
+        }
+        return texto.append(String.format("total %d ms, maior parte %d ms, desequilíbrio %.3f%n", total, makespan(), imbalance()))
+                .toString();
+    }
+}
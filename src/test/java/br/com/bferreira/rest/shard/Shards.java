@@ -0,0 +1,185 @@
+package br.com.bferreira.rest.shard;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Linha de comando das partes da suíte, chamada pelo perfil {@code shard} do pom:
+ *
+ * <pre>
+ * plan  pastaDasClassesDeTeste K índice arquivoDeIncludes arquivoDeTempos pastaDeRelatórios
+ * merge pastaDestino arquivoDeTempos pastaComAsPartes arquivoDeTemposNovos
+ * </pre>
+ *
+ * O {@code plan} acha as classes que o surefire rodaria (mesmos padrões de nome, só as
+ * concretas com métodos {@code @Test} ou {@code @RunWith}), divide pelo {@link ShardPlan} com os tempos do arquivo (ou, sem ele, dos
+ * relatórios da última execução) e grava os includes da parte pedida para o
+ * {@code includesFile} do surefire. O {@code merge} junta os relatórios das partes
+ * ({@code surefire-reports-shard-*}, trazidas de cada máquina para a mesma pasta) numa só, grava os tempos delas por cima dos do arquivo num arquivo novo (a semente
+ * versionada não muda a cada execução) e falha se alguma parte teve falhas.
+ */
+public final class Shards {
+
+    private static final Pattern NOME_DE_TESTE = Pattern.compile("(Test[^$]*|[^$]*Test|[^$]*Tests|[^$]*TestCase)\\.class");
+    //parte vazia: um include que não casa com nada, para o surefire não cair nos includes padrão
+    private static final String NENHUMA = "**/NenhumaClasseNestaParte.java";
+
+    private Shards() {
+    }
+
+    public static void main(String[] args) {
+        if (args.length >= 6 && "plan".equals(args[0])) {
+            plan(Paths.get(args[1]), Integer.parseInt(args[2].trim()), Integer.parseInt(args[3].trim()),
+                    Paths.get(args[4]), Paths.get(args[5]), args.length > 6 ? Paths.get(args[6]) : null);
+        } else if (args.length == 5 && "merge".equals(args[0])) {
+            merge(Paths.get(args[1]), Paths.get(args[2]), Paths.get(args[4]), partes(Paths.get(args[3])));
+        } else {
+            throw new IllegalArgumentException("Uso: plan classesDeTeste K índice includes tempos [relatórios]"
+                    + " | merge destino tempos pastaComAsPartes temposNovos");
+        }
+    }
+
+    /** Grava os includes da parte {@code indice} e devolve a divisão inteira. */
+    public static ShardPlan plan(Path classesDeTeste, int quantidade, int indice, Path includes, Path tempos, Path relatorios) {
+        TestDurations duracoes = Files.isRegularFile(tempos) ? TestDurations.load(tempos)
+                : relatorios == null ? TestDurations.of(Collections.emptyMap()) : TestDurations.fromSurefireReports(relatorios);
+        List<String> classes = testClasses(classesDeTeste, Thread.currentThread().getContextClassLoader());
+        ShardPlan divisao = ShardPlan.lpt(classes, duracoes, quantidade);
+        List<String> linhas = divisao.shard(indice).stream()
+                .map(classe -> classe.replace('.', '/') + ".java")
+                .collect(Collectors.toList());
+        try {
+            if (includes.toAbsolutePath().getParent() != null) {
+                Files.createDirectories(includes.toAbsolutePath().getParent());
+            }
+            Files.write(includes, linhas.isEmpty() ? List.of(NENHUMA) : linhas, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Não foi possível gravar " + includes, e);
+        }
+        System.out.println("Divisão da suíte em " + quantidade + " partes (tempos de "
+                + (Files.isRegularFile(tempos) ? tempos : relatorios) + "); rodando a parte " + indice + ":");
+        System.out.print(divisao);
+        return divisao;
+    }
+
+    /** Junta os relatórios das partes em {@code destino} e grava em {@code novos} os tempos delas por cima dos de {@code tempos}. */
+    public static void merge(Path destino, Path tempos, Path novos, List<Path> partes) {
+        TestDurations duracoes = Files.isRegularFile(tempos) ? TestDurations.load(tempos) : TestDurations.of(Collections.emptyMap());
+        long[] totais = new long[4];
+        StringBuilder resumo = new StringBuilder();
+        try {
+            Files.createDirectories(destino);
+            for (Path parte : partes) {
+                if (!Files.isDirectory(parte)) {
+                    throw new IllegalArgumentException("Relatórios da parte não encontrados: " + parte);
+                }
+                long[] daParte = new long[4];
+                double segundos = 0;
+                try (DirectoryStream<Path> relatorios = Files.newDirectoryStream(parte, "TEST-*.xml")) {
+                    for (Path relatorio : relatorios) {
+                        segundos += TestDurations.suiteTotals(relatorio, daParte);
+                        Files.copy(relatorio, destino.resolve(relatorio.getFileName()), StandardCopyOption.REPLACE_EXISTING);
+                    }
+                }
+                try (Stream<Path> textos = Files.list(parte)) {
+                    for (Path texto : (Iterable<Path>) textos.filter(p -> p.toString().endsWith(".txt"))::iterator) {
+                        Files.copy(texto, destino.resolve(texto.getFileName()), StandardCopyOption.REPLACE_EXISTING);
+                    }
+                }
+                for (int i = 0; i < 4; i++) {
+                    totais[i] += daParte[i];
+                }
+                resumo.append(String.format("%s: %d testes, %d falhas, %d erros, %d ignorados, %.1f s somando as classes%n",
+                        parte, daParte[0], daParte[1], daParte[2], daParte[3], segundos));
+                duracoes = duracoes.merge(TestDurations.fromSurefireReports(parte));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Não foi possível juntar os relatórios em " + destino, e);
+        }
+        duracoes.write(novos);
+        System.out.print(resumo);
+        System.out.printf("Total: %d testes, %d falhas, %d erros, %d ignorados; tempos gravados em %s%n",
+                totais[0], totais[1], totais[2], totais[3], novos);
+        if (totais[1] + totais[2] > 0) {
+            throw new IllegalStateException((totais[1] + totais[2]) + " testes falharam nas partes; veja " + destino);
+        }
+    }
+
+    static List<Path> partes(Path raiz) {
+        List<Path> partes = new ArrayList<>();
+        try (DirectoryStream<Path> pastas = Files.newDirectoryStream(raiz, "surefire-reports-shard-*")) {
+            pastas.forEach(partes::add);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Não foi possível listar as partes em " + raiz, e);
+        }
+        if (partes.isEmpty()) {
+            throw new IllegalArgumentException("Nenhuma pasta surefire-reports-shard-* em " + raiz);
+        }
+        partes.sort(null);
+        return partes;
+    }
+
+    /**
+     * Classes concretas em {@code pasta} com nome de teste para o surefire e algo para o JUnit rodar
+     * (métodos {@code @Test} ou {@code @RunWith}), em ordem alfabética. Só o nome não basta: apoios
+     * como {@code TestDaemon}, {@code LoadTest} e {@code TestDurations} casam com os padrões.
+     */
+    static List<String> testClasses(Path pasta, ClassLoader carregador) {
+        List<String> classes = new ArrayList<>();
+        try (Stream<Path> arquivos = Files.walk(pasta)) {
+            for (Path arquivo : (Iterable<Path>) arquivos::iterator) {
+                if (!NOME_DE_TESTE.matcher(arquivo.getFileName().toString()).matches()) {
+                    continue;
+                }
+                String relativo = pasta.relativize(arquivo).toString().replace('\\', '/');
+                String classe = relativo.substring(0, relativo.length() - ".class".length()).replace('/', '.');
+                if (executavel(classe, carregador)) {
+                    classes.add(classe);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Não foi possível listar as classes de teste em " + pasta, e);
+        }
+        classes.sort(null);
+        return classes;
+    }
+
+    private static boolean executavel(String classe, ClassLoader carregador) {
+        try {
+            Class<?> tipo = Class.forName(classe, false, carregador);
+            int modificadores = tipo.getModifiers();
+            if (!Modifier.isPublic(modificadores) || Modifier.isAbstract(modificadores) || Modifier.isInterface(modificadores)) {
+                return false;
+            }
+            if (tipo.isAnnotationPresent(RunWith.class)) {
+                return true;
+            }
+            for (Method metodo : tipo.getMethods()) {
+                if (metodo.isAnnotationPresent(Test.class)) {
+                    return true;
+                }
+            }
+            return false;
+        } catch (ClassNotFoundException | LinkageError e) {
+            //fora do classpath de teste: o surefire decide
+            return true;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package br.com.bferreira.rest.shard;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class ShardsTest {
+
+    @Rule
+    public final TemporaryFolder pasta = new TemporaryFolder();
+
+    @Test
+    public void deveDividirPelaMaisDemoradaPrimeiro() {
+        Map<String, Long> duracoes = new LinkedHashMap<>();
+        duracoes.put("G", 1L);
+        duracoes.put("A", 7L);
+        duracoes.put("C", 5L);
+        duracoes.put("F", 2L);
+        duracoes.put("B", 6L);
+        duracoes.put("E", 3L);
+        duracoes.put("D", 4L);
+        List<String> classes = new ArrayList<>(duracoes.keySet());
+        classes.add("Nova");//sem histórico: entra com a média, 4 ms
+
+        ShardPlan divisao = ShardPlan.lpt(classes, TestDurations.of(duracoes), 3);
+        Assert.assertEquals(Arrays.asList("A", "E", "G"), divisao.shard(0));
+        Assert.assertEquals(Arrays.asList("B", "Nova"), divisao.shard(1));
+        Assert.assertEquals(Arrays.asList("C", "D", "F"), divisao.shard(2));
+        Assert.assertEquals(32, divisao.totalMillis());
+        Assert.assertEquals(11, divisao.makespan());
+        Assert.assertEquals(10, divisao.load(1));
+
+        Collections.reverse(classes);
+        Assert.assertEquals("a ordem de entrada não muda a divisão", divisao.toString(),
+                ShardPlan.lpt(classes, TestDurations.of(duracoes), 3).toString());
+        Assert.assertEquals(Collections.emptyList(), ShardPlan.lpt(classes, TestDurations.of(duracoes), 20).shard(19));
+    }
+
+    @Test
+    public void deveJuntarAsPartesEGravarOsTemposParaAProximaDivisao() throws Exception {
+        Path raiz = pasta.getRoot().toPath();
+        relatorio(raiz.resolve("surefire-reports-shard-0"), "a.UmTest", 0, "0.500", "1.250");
+        relatorio(raiz.resolve("surefire-reports-shard-1"), "b.OutroTest", 0, "2.000");
+        Path tempos = raiz.resolve("semente.properties");
+        TestDurations.of(Collections.singletonMap("c.AntigoTest", 900L)).write(tempos);
+        Path novos = raiz.resolve("target/test-durations.properties");
+
+        Shards.merge(raiz.resolve("todos"), tempos, novos, Shards.partes(raiz));
+
+        Assert.assertTrue(Files.exists(raiz.resolve("todos/TEST-a.UmTest.xml")));
+        Assert.assertTrue(Files.exists(raiz.resolve("todos/TEST-b.OutroTest.xml")));
+        Assert.assertEquals("a semente não muda", Collections.singletonMap("c.AntigoTest", 900L), TestDurations.load(tempos).asMap());
+        Map<String, Long> gravados = TestDurations.load(novos).asMap();
+        Assert.assertEquals(Long.valueOf(1750), gravados.get("a.UmTest"));
+        Assert.assertEquals(Long.valueOf(2000), gravados.get("b.OutroTest"));
+        Assert.assertEquals(Long.valueOf(900), gravados.get("c.AntigoTest"));
+
+        relatorio(raiz.resolve("surefire-reports-shard-2"), "d.QuebradoTest", 1, "0.100");
+        try {
+            Shards.merge(raiz.resolve("todos"), tempos, novos, Shards.partes(raiz));
+            Assert.fail("uma parte teve falha");
+        } catch (IllegalStateException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().startsWith("1 testes falharam"));
+        }
+    }
+
+    @Test
+    public void deveAcharAsMesmasClassesQueOSurefire() {
+        List<String> classes = Shards.testClasses(Paths.get("target/test-classes"), getClass().getClassLoader());
+        Assert.assertTrue(classes.contains("br.com.bferreira.rest.UserJsonTest"));
+        Assert.assertTrue(classes.contains("br.com.bferreira.rest.shard.ShardsTest"));
+        Assert.assertFalse("abstrata", classes.contains("br.com.bferreira.rest.BaseTest"));
+        Assert.assertFalse("fora dos padrões de nome", classes.contains("br.com.bferreira.rest.config.ParallelScalingBenchmark"));
+        Assert.assertTrue(classes.contains("br.com.bferreira.rest.daemon.TestDaemonTest"));
+        for (String apoio : Arrays.asList("daemon.TestDaemon", "daemon.TestDaemonClient", "load.LoadTest",
+                "load.VerbosLoadTest", "shard.TestDurations")) {
+            Assert.assertFalse("sem métodos @Test: " + apoio, classes.contains("br.com.bferreira.rest." + apoio));
+        }
+        Assert.assertTrue(classes.stream().noneMatch(classe -> classe.contains("$")));
+    }
+
+    private static void relatorio(Path pasta, String classe, int falhas, String... tempos) throws Exception {
+        Files.createDirectories(pasta);
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<testsuite name=\"").append(classe)
+                .append("\" time=\"9.9\" tests=\"").append(tempos.length).append("\" errors=\"0\" skipped=\"0\" failures=\"")
+                .append(falhas).append("\">\n  <properties><property name=\"x\" value=\"y\"/></properties>\n");
+        for (int i = 0; i < tempos.length; i++) {
+            xml.append("  <testcase name=\"t").append(i).append("\" classname=\"").append(classe)
+                    .append("\" time=\"").append(tempos[i]).append("\"/>\n");
+        }
+        Files.write(pasta.resolve("TEST-" + classe + ".xml"), xml.append("</testsuite>\n").toString().getBytes(StandardCharsets.UTF_8));
+    }
+}
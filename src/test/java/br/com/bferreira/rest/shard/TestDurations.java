@@ -0,0 +1,174 @@
+package br.com.bferreira.rest.shard;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * Duração de cada classe de teste, em milissegundos: a soma dos tempos dos métodos nos
+ * relatórios {@code TEST-*.xml} do surefire, ou o arquivo de tempos gravado pelo
+ * {@link Shards} ({@code classe=ms}, em ordem alfabética, para dar diffs pequenos).
+ */
+public final class TestDurations {
+
+    private static final XMLInputFactory FABRICA = criarFabrica();
+
+    private final Map<String, Long> duracoes;
+
+    private TestDurations(Map<String, Long> duracoes) {
+        this.duracoes = Collections.unmodifiableMap(new TreeMap<>(duracoes));
+    }
+
+    public static TestDurations of(Map<String, Long> duracoes) {
+        return new TestDurations(duracoes);
+    }
+
+    /** Lê os {@code TEST-*.xml} da pasta (vazio se ela não existe). */
+    public static TestDurations fromSurefireReports(Path pasta) {
+        Map<String, Long> duracoes = new TreeMap<>();
+        if (!Files.isDirectory(pasta)) {
+            return new TestDurations(duracoes);
+        }
+        try (DirectoryStream<Path> relatorios = Files.newDirectoryStream(pasta, "TEST-*.xml")) {
+            for (Path relatorio : relatorios) {
+                lerRelatorio(relatorio, duracoes);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Não foi possível ler os relatórios em " + pasta, e);
+        }
+        return new TestDurations(duracoes);
+    }
+
+    public static TestDurations load(Path arquivo) {
+        Properties propriedades = new Properties();
+        try (Reader leitor = Files.newBufferedReader(arquivo, StandardCharsets.UTF_8)) {
+            propriedades.load(leitor);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Não foi possível ler os tempos de " + arquivo, e);
+        }
+        Map<String, Long> duracoes = new TreeMap<>();
+        for (String classe : propriedades.stringPropertyNames()) {
+            duracoes.put(classe, Long.parseLong(propriedades.getProperty(classe).trim()));
+        }
+        return new TestDurations(duracoes);
+    }
+
+    public void write(Path arquivo) {
+        try {
+            if (arquivo.toAbsolutePath().getParent() != null) {
+                Files.createDirectories(arquivo.toAbsolutePath().getParent());
+            }
+            try (Writer saida = Files.newBufferedWriter(arquivo, StandardCharsets.UTF_8)) {
+                saida.write("# duração de cada classe de teste em ms, gravada pelo Shards merge\n");
+                for (Map.Entry<String, Long> duracao : duracoes.entrySet()) {
+                    saida.write(duracao.getKey() + "=" + duracao.getValue() + "\n");
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Não foi possível gravar os tempos em " + arquivo, e);
+        }
+    }
+
+    /** Estes tempos com os de {@code maisNovos} por cima. */
+    public TestDurations merge(TestDurations maisNovos) {
+        Map<String, Long> todas = new TreeMap<>(duracoes);
+        todas.putAll(maisNovos.duracoes);
+        return new TestDurations(todas);
+    }
+
+    public Map<String, Long> asMap() {
+        return duracoes;
+    }
+
+    public boolean isEmpty() {
+        return duracoes.isEmpty();
+    }
+
+    private static void lerRelatorio(Path relatorio, Map<String, Long> duracoes) throws IOException {
+        Map<String, Double> segundos = new TreeMap<>();
+        String suite = null;
+        double tempoDaSuite = 0;
+        try (InputStream entrada = Files.newInputStream(relatorio)) {
+            XMLStreamReader xml = FABRICA.createXMLStreamReader(entrada);
+            try {
+                while (xml.hasNext()) {
+                    if (xml.next() != XMLStreamConstants.START_ELEMENT) {
+                        continue;
+                    }
+                    String elemento = xml.getLocalName();
+                    if ("testsuite".equals(elemento) && suite == null) {
+                        suite = xml.getAttributeValue(null, "name");
+                        tempoDaSuite = numero(xml.getAttributeValue(null, "time"));
+                    } else if ("testcase".equals(elemento)) {
+                        String classe = xml.getAttributeValue(null, "classname");
+                        segundos.merge(classe == null ? suite : classe, numero(xml.getAttributeValue(null, "time")), Double::sum);
+                    }
+                }
+            } finally {
+                xml.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("Relatório inválido: " + relatorio, e);
+        }
+        if (segundos.isEmpty() && suite != null) {
+            segundos.put(suite, tempoDaSuite);
+        }
+        segundos.forEach((classe, tempo) -> duracoes.merge(classe, Math.round(tempo * 1000), Long::sum));
+    }
+
+    /** Soma tests, failures, errors e skipped do {@code <testsuite>} em {@code totais}; devolve o time dele, em segundos. */
+    static double suiteTotals(Path relatorio, long[] totais) throws IOException {
+        try (InputStream entrada = Files.newInputStream(relatorio)) {
+            XMLStreamReader xml = FABRICA.createXMLStreamReader(entrada);
+            try {
+                while (xml.hasNext()) {
+                    if (xml.next() == XMLStreamConstants.START_ELEMENT && "testsuite".equals(xml.getLocalName())) {
+                        String[] atributos = {"tests", "failures", "errors", "skipped"};
+                        for (int i = 0; i < atributos.length; i++) {
+                            totais[i] += Math.round(numero(xml.getAttributeValue(null, atributos[i])));
+                        }
+                        return numero(xml.getAttributeValue(null, "time"));
+                    }
+                }
+                return 0;
+            } finally {
+                xml.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("Relatório inválido: " + relatorio, e);
+        }
+    }
+
+    //o surefire escreve "1,234.5" em alguns locales
+    private static double numero(String valor) {
+        if (valor == null || valor.isEmpty()) {
+            return 0;
+        }
+        try {
+            return Double.parseDouble(valor.replace(",", ""));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static XMLInputFactory criarFabrica() {
+        XMLInputFactory fabrica = XMLInputFactory.newInstance();
+        fabrica.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        fabrica.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return fabrica;
+    }
+}
@@ -0,0 +1,138 @@
+package br.com.bferreira.rest.standin;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Locale;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compressão das respostas e descompressão dos corpos de requisição do stand-in. Usada só pela
+ * thread do seletor, então os {@link Deflater}/{@link Inflater} são reaproveitados entre
+ * requisições em vez de alocados (com memória nativa) a cada uma.
+ */
+final class Compressao {
+
+    /** Corpos menores que isso não compensam os cabeçalhos do gzip. */
+    static final int MINIMO = Integer.getInteger("standin.compression.minBytes", 256);
+
+    private static final byte[] CABECALHO_GZIP = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+    private final Deflater gzip = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    private final Deflater zlib = new Deflater(Deflater.DEFAULT_COMPRESSION, false);
+    private final Inflater brutoInflater = new Inflater(true);
+    private final Inflater zlibInflater = new Inflater(false);
+    private final byte[] buffer = new byte[8 * 1024];
+
+    /** {@code gzip} ou {@code deflate}, o preferido entre os aceitos pelo cliente, ou null. */
+    static String escolher(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return null;
+        }
+        boolean deflate = false;
+        for (String item : acceptEncoding.split(",")) {
+            String[] partes = item.split(";");
+            String nome = partes[0].trim().toLowerCase(Locale.ROOT);
+            boolean recusado = partes.length > 1 && partes[1].trim().matches("q=0(\\.0*)?");
+            if (recusado) {
+                continue;
+            }
+            if ("gzip".equals(nome) || "x-gzip".equals(nome) || "*".equals(nome)) {
+                return "gzip";
+            }
+            deflate |= "deflate".equals(nome);
+        }
+        return deflate ? "deflate" : null;
+    }
+
+    byte[] comprimir(byte[] corpo, String codificacao) {
+        boolean ehGzip = "gzip".equals(codificacao);
+        Deflater deflater = ehGzip ? gzip : zlib;
+        deflater.reset();
+        deflater.setInput(corpo);
+        deflater.finish();
+        ByteArrayOutputStream saida = new ByteArrayOutputStream(corpo.length / 2 + 32);
+        if (ehGzip) {
+            saida.write(CABECALHO_GZIP, 0, CABECALHO_GZIP.length);
+        }
+        while (!deflater.finished()) {
+            saida.write(buffer, 0, deflater.deflate(buffer));
+        }
+        if (ehGzip) {
+            CRC32 crc = new CRC32();
+            crc.update(corpo);
+            escreverLE(saida, (int) crc.getValue());
+            escreverLE(saida, corpo.length);
+        }
+        return saida.toByteArray();
+    }
+
+    /** Corpo de requisição com Content-Encoding gzip ou deflate (com ou sem o envelope zlib). */
+    byte[] descomprimir(byte[] corpo, String codificacao) {
+        String nome = codificacao.trim().toLowerCase(Locale.ROOT);
+        int inicio = 0;
+        Inflater inflater;
+        if ("gzip".equals(nome) || "x-gzip".equals(nome)) {
+            inicio = inicioDoGzip(corpo);
+            inflater = brutoInflater;
+        } else if ("deflate".equals(nome)) {
+            boolean comZlib = corpo.length > 1 && (corpo[0] & 0x0f) == 8 && ((corpo[0] & 0xff) << 8 | corpo[1] & 0xff) % 31 == 0;
+            inflater = comZlib ? zlibInflater : brutoInflater;
+        } else {
+            throw new IllegalStateException("Content-Encoding não suportado: " + codificacao);
+        }
+        inflater.reset();
+        inflater.setInput(corpo, inicio, corpo.length - inicio);
+        ByteArrayOutputStream saida = new ByteArrayOutputStream(corpo.length * 4);
+        try {
+            while (!inflater.finished()) {
+                int n = inflater.inflate(buffer);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalStateException("Corpo " + codificacao + " truncado");
+                }
+                saida.write(buffer, 0, n);
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corpo " + codificacao + " inválido", e);
+        }
+        return saida.toByteArray();
+    }
+
+    void close() {
+        gzip.end();
+        zlib.end();
+        brutoInflater.end();
+        zlibInflater.end();
+    }
+
+    /** Pula o cabeçalho do gzip (RFC 1952), com os campos opcionais. */
+    private static int inicioDoGzip(byte[] corpo) {
+        if (corpo.length < 10 || corpo[0] != 0x1f || corpo[1] != (byte) 0x8b) {
+            throw new IllegalStateException("Corpo gzip inválido");
+        }
+        int flags = corpo[3];
+        int pos = 10;
+        if ((flags & 4) != 0) {
+            pos += 2 + ((corpo[pos] & 0xff) | (corpo[pos + 1] & 0xff) << 8);
+        }
+        for (int campo : new int[]{8, 16}) {//nome do arquivo e comentário, terminados em zero
+            if ((flags & campo) != 0) {
+                while (corpo[pos++] != 0) {
+                    // avança até o terminador
+                }
+            }
+        }
+        if ((flags & 2) != 0) {
+            pos += 2;
+        }
+        return pos;
+    }
+
+    private static void escreverLE(ByteArrayOutputStream saida, int valor) {
+        saida.write(valor);
+        saida.write(valor >>> 8);
+        saida.write(valor >>> 16);
+        saida.write(valor >>> 24);
+    }
+}
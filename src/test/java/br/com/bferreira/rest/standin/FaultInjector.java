@@ -0,0 +1,109 @@
+package br.com.bferreira.rest.standin;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Envolve um {@link StandInHandler} com latência e falhas programadas, para testar timeouts,
+ * retentativas e hedging sem rede:
+ *
+ * <pre>
+ * FaultInjector falhas = FaultInjector.wrap(new WcaquinoApi())
+ *         .status("/users/1", 503, 2)                   // as 2 próximas requisições a /users/1 dão 503
+ *         .delay("/ola", Duration.ofMillis(300), 1)     // a próxima a /ola demora 300 ms
+ *         .disconnect("/usersXML", 1);                  // a próxima a /usersXML derruba a conexão
+ * StandInServer servidor = StandInServer.start(falhas);
+ * </pre>
+ *
+ * Cada regra vale para os paths que começam com o prefixo informado e para as {@code vezes}
+ * requisições seguintes ({@link #ALWAYS} para todas); a primeira regra ainda ativa na ordem
+ * de cadastro é a aplicada. Pode ser reconfigurado com o servidor no ar.
+ */
+public final class FaultInjector implements StandInHandler {
+
+    public static final int ALWAYS = -1;
+
+    private final StandInHandler handler;
+    private final List<Regra> regras = new CopyOnWriteArrayList<>();
+    private final AtomicInteger aplicadas = new AtomicInteger();
+
+    private FaultInjector(StandInHandler handler) {
+        this.handler = handler;
+    }
+
+    public static FaultInjector wrap(StandInHandler handler) {
+        return new FaultInjector(handler);
+    }
+
+    /** Responde normalmente, mas só depois do atraso. */
+    public FaultInjector delay(String prefixo, Duration atraso, int vezes) {
+        return regra(prefixo, vezes, requisicao -> handler.handle(requisicao).delay(atraso));
+    }
+
+    /** Responde com o status, sem chamar o handler. */
+    public FaultInjector status(String prefixo, int status, int vezes) {
+        return regra(prefixo, vezes, requisicao -> StandInResponse.text(status, StandInResponse.reason(status)));
+    }
+
+    /** Fecha a conexão sem responder. */
+    public FaultInjector disconnect(String prefixo, int vezes) {
+        return regra(prefixo, vezes, requisicao -> StandInResponse.disconnect());
+    }
+
+    /** Remove todas as regras. */
+    public void clear() {
+        regras.clear();
+    }
+
+    /** Quantas requisições receberam alguma falha até agora. */
+    public int injected() {
+        return aplicadas.get();
+    }
+
+    @Override
+    public StandInResponse handle(StandInRequest request) {
+        String path = request.path();
+        for (Regra regra : regras) {
+            if (path.startsWith(regra.prefixo) && regra.consumir()) {
+                aplicadas.incrementAndGet();
+                return regra.falha.apply(request);
+            }
+        }
+        return handler.handle(request);
+    }
+
+    private FaultInjector regra(String prefixo, int vezes, Function<StandInRequest, StandInResponse> falha) {
+        regras.add(new Regra(prefixo, vezes, falha));
+        return this;
+    }
+
+    private static final class Regra {
+        private final String prefixo;
+        private final AtomicInteger restantes;
+        private final Function<StandInRequest, StandInResponse> falha;
+
+        private Regra(String prefixo, int vezes, Function<StandInRequest, StandInResponse> falha) {
+            this.prefixo = prefixo;
+            this.restantes = new AtomicInteger(vezes);
+            this.falha = falha;
+        }
+
+        private boolean consumir() {
+            while (true) {
+                int atual = restantes.get();
+                if (atual == ALWAYS) {
+                    return true;
+                }
+                if (atual <= 0) {
+                    return false;
+                }
+                if (restantes.compareAndSet(atual, atual - 1)) {
+                    return true;
+                }
+            }
+        }
+    }
+}
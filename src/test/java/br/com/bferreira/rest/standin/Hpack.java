@@ -0,0 +1,225 @@
+package br.com.bferreira.rest.standin;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * HPACK (RFC 7541) do HTTP/2 do stand-in: decodifica os blocos de headers que o cliente manda,
+ * com tabela estática, tabela dinâmica e Huffman, e codifica os das respostas só com literais
+ * sem indexação nem Huffman, o que qualquer cliente aceita. A tabela dinâmica é estado da
+ * conexão: uma instância por conexão, usada só pela thread do seletor.
+ */
+final class Hpack {
+
+    private static final String[][] ESTATICA = {
+            {":authority", ""}, {":method", "GET"}, {":method", "POST"}, {":path", "/"}, {":path", "/index.html"},
+            {":scheme", "http"}, {":scheme", "https"}, {":status", "200"}, {":status", "204"}, {":status", "206"},
+            {":status", "304"}, {":status", "400"}, {":status", "404"}, {":status", "500"}, {"accept-charset", ""},
+            {"accept-encoding", "gzip, deflate"}, {"accept-language", ""}, {"accept-ranges", ""}, {"accept", ""},
+            {"access-control-allow-origin", ""}, {"age", ""}, {"allow", ""}, {"authorization", ""}, {"cache-control", ""},
+            {"content-disposition", ""}, {"content-encoding", ""}, {"content-language", ""}, {"content-length", ""},
+            {"content-location", ""}, {"content-range", ""}, {"content-type", ""}, {"cookie", ""}, {"date", ""},
+            {"etag", ""}, {"expect", ""}, {"expires", ""}, {"from", ""}, {"host", ""}, {"if-match", ""},
+            {"if-modified-since", ""}, {"if-none-match", ""}, {"if-range", ""}, {"if-unmodified-since", ""},
+            {"last-modified", ""}, {"link", ""}, {"location", ""}, {"max-forwards", ""}, {"proxy-authenticate", ""},
+            {"proxy-authorization", ""}, {"range", ""}, {"referer", ""}, {"refresh", ""}, {"retry-after", ""},
+            {"server", ""}, {"set-cookie", ""}, {"strict-transport-security", ""}, {"transfer-encoding", ""},
+            {"user-agent", ""}, {"vary", ""}, {"via", ""}, {"www-authenticate", ""}
+    };
+
+    //bits do código Huffman de cada byte (e do EOS, 256); o código é canônico, então os tamanhos bastam
+    private static final int[] TAMANHOS_HUFFMAN = {
+            13, 23, 28, 28, 28, 28, 28, 28, 28, 24, 30, 28, 28, 30, 28, 28, 28, 28, 28, 28, 28, 28, 30, 28, 28, 28, 28, 28, 28, 28, 28, 28,
+            6, 10, 10, 12, 13, 6, 8, 11, 10, 10, 8, 11, 8, 6, 6, 6, 5, 5, 5, 6, 6, 6, 6, 6, 6, 6, 7, 8, 15, 6, 12, 10,
+            13, 6, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 8, 7, 8, 13, 19, 13, 14, 6,
+            15, 5, 6, 5, 6, 5, 6, 6, 6, 5, 7, 7, 6, 6, 6, 5, 6, 7, 6, 5, 5, 6, 7, 7, 7, 7, 7, 15, 11, 14, 13, 28,
+            20, 22, 20, 20, 22, 22, 22, 23, 22, 23, 23, 23, 23, 23, 24, 23, 24, 24, 22, 23, 24, 23, 23, 23, 23, 21, 22, 23, 22, 23, 23, 24,
+            22, 21, 20, 22, 22, 23, 23, 21, 23, 22, 22, 24, 21, 22, 23, 23, 21, 21, 22, 21, 23, 22, 23, 23, 20, 22, 22, 22, 23, 22, 22, 23,
+            26, 26, 20, 19, 22, 23, 22, 25, 26, 26, 26, 27, 27, 26, 24, 25, 19, 21, 26, 27, 27, 26, 27, 24, 21, 21, 26, 26, 28, 27, 27, 27,
+            20, 24, 20, 21, 22, 21, 21, 23, 22, 22, 25, 25, 24, 24, 26, 23, 26, 27, 26, 26, 27, 27, 27, 27, 27, 28, 27, 27, 27, 27, 27, 26,
+            30
+    };
+    private static final int EOS = 256;
+    //árvore de decodificação: filhos do nó pelo bit 0 e pelo bit 1, e o símbolo das folhas (-1 nos nós internos)
+    private static final int[] ZERO = new int[2 * TAMANHOS_HUFFMAN.length];
+    private static final int[] UM = new int[2 * TAMANHOS_HUFFMAN.length];
+    private static final int[] SIMBOLO = new int[2 * TAMANHOS_HUFFMAN.length];
+
+    static {
+        Integer[] ordem = new Integer[TAMANHOS_HUFFMAN.length];
+        for (int i = 0; i < ordem.length; i++) {
+            ordem[i] = i;
+        }
+        Arrays.sort(ordem, (a, b) -> TAMANHOS_HUFFMAN[a] != TAMANHOS_HUFFMAN[b]
+                ? Integer.compare(TAMANHOS_HUFFMAN[a], TAMANHOS_HUFFMAN[b]) : Integer.compare(a, b));
+        Arrays.fill(SIMBOLO, -1);
+        int nos = 1;
+        long codigo = 0;
+        int anterior = TAMANHOS_HUFFMAN[ordem[0]];
+        for (int simbolo : ordem) {
+            int tamanho = TAMANHOS_HUFFMAN[simbolo];
+            codigo <<= tamanho - anterior;
+            anterior = tamanho;
+            int no = 0;
+            for (int bit = tamanho - 1; bit >= 0; bit--) {
+                int[] filhos = (codigo >>> bit & 1) == 0 ? ZERO : UM;
+                if (filhos[no] == 0) {
+                    filhos[no] = nos++;
+                }
+                no = filhos[no];
+            }
+            SIMBOLO[no] = simbolo;
+            codigo++;
+        }
+    }
+
+    //mais recente primeiro, como os índices a partir de 62
+    private final ArrayDeque<String[]> dinamica = new ArrayDeque<>();
+    private int tamanhoDinamica;
+    private int maximoDinamica = 4096;
+
+    /** Headers do bloco, na ordem em que vieram (pseudo-headers como {@code :path} inclusive). */
+    List<String[]> decodificar(byte[] bloco) {
+        List<String[]> headers = new ArrayList<>();
+        int[] pos = {0};
+        while (pos[0] < bloco.length) {
+            int primeiro = bloco[pos[0]] & 0xff;
+            if ((primeiro & 0x80) != 0) {
+                headers.add(entrada(inteiro(bloco, pos, 7)));
+            } else if ((primeiro & 0x40) != 0) {
+                String[] header = literal(bloco, pos, 6);
+                indexar(header);
+                headers.add(header);
+            } else if ((primeiro & 0x20) != 0) {
+                maximoDinamica = inteiro(bloco, pos, 5);
+                ajustar();
+            } else {
+                headers.add(literal(bloco, pos, 4));//sem indexação ou nunca indexado
+            }
+        }
+        return headers;
+    }
+
+    /** {@code :status} e os headers da resposta, com os nomes em minúsculas como o HTTP/2 exige. */
+    static byte[] codificar(int status, Map<String, String> headers) {
+        ByteArrayOutputStream bloco = new ByteArrayOutputStream(64 + headers.size() * 32);
+        bloco.write(0x08);//literal sem indexação com o nome da entrada 8 da tabela estática (:status)
+        texto(bloco, String.valueOf(status));
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            bloco.write(0x00);//literal sem indexação, nome novo
+            texto(bloco, header.getKey().toLowerCase(Locale.ROOT));
+            texto(bloco, header.getValue());
+        }
+        return bloco.toByteArray();
+    }
+
+    private String[] literal(byte[] bloco, int[] pos, int prefixo) {
+        int indice = inteiro(bloco, pos, prefixo);
+        String nome = indice == 0 ? texto(bloco, pos) : entrada(indice)[0];
+        return new String[]{nome, texto(bloco, pos)};
+    }
+
+    private String[] entrada(int indice) {
+        if (indice <= 0) {
+            throw new IllegalStateException("Índice HPACK inválido: " + indice);
+        }
+        if (indice <= ESTATICA.length) {
+            return ESTATICA[indice - 1];
+        }
+        int posicao = indice - ESTATICA.length - 1;
+        if (posicao >= dinamica.size()) {
+            throw new IllegalStateException("Índice HPACK fora da tabela dinâmica: " + indice);
+        }
+        int i = 0;
+        for (String[] entrada : dinamica) {
+            if (i++ == posicao) {
+                return entrada;
+            }
+        }
+        throw new IllegalStateException("Índice HPACK fora da tabela dinâmica: " + indice);
+    }
+
+    private void indexar(String[] header) {
+        dinamica.addFirst(header);
+        tamanhoDinamica += tamanho(header);
+        ajustar();
+    }
+
+    private void ajustar() {
+        while (tamanhoDinamica > maximoDinamica && !dinamica.isEmpty()) {
+            tamanhoDinamica -= tamanho(dinamica.removeLast());
+        }
+    }
+
+    //tamanho de uma entrada pela RFC: os octetos do nome e do valor mais 32
+    private static int tamanho(String[] header) {
+        return header[0].length() + header[1].length() + 32;
+    }
+
+    private static int inteiro(byte[] bloco, int[] pos, int prefixo) {
+        int maximo = (1 << prefixo) - 1;
+        int valor = bloco[pos[0]++] & maximo;
+        if (valor < maximo) {
+            return valor;
+        }
+        int deslocamento = 0;
+        int octeto;
+        do {
+            octeto = bloco[pos[0]++] & 0xff;
+            valor += (octeto & 0x7f) << deslocamento;
+            deslocamento += 7;
+        } while ((octeto & 0x80) != 0);
+        return valor;
+    }
+
+    private static String texto(byte[] bloco, int[] pos) {
+        boolean huffman = (bloco[pos[0]] & 0x80) != 0;
+        int tamanho = inteiro(bloco, pos, 7);
+        int inicio = pos[0];
+        pos[0] += tamanho;
+        if (pos[0] > bloco.length) {
+            throw new IllegalStateException("Texto HPACK além do fim do bloco");
+        }
+        if (!huffman) {
+            return new String(bloco, inicio, tamanho, StandardCharsets.ISO_8859_1);
+        }
+        StringBuilder texto = new StringBuilder(tamanho * 8 / 5);
+        int no = 0;
+        for (int i = inicio; i < inicio + tamanho; i++) {
+            for (int bit = 7; bit >= 0; bit--) {
+                no = (bloco[i] >>> bit & 1) == 0 ? ZERO[no] : UM[no];
+                if (SIMBOLO[no] >= 0) {
+                    if (SIMBOLO[no] == EOS) {
+                        throw new IllegalStateException("EOS no meio de um texto HPACK");
+                    }
+                    texto.append((char) SIMBOLO[no]);
+                    no = 0;
+                }
+            }
+        }
+        return texto.toString();//o que sobrar em no é o preenchimento com o prefixo do EOS
+    }
+
+    private static void texto(ByteArrayOutputStream bloco, String texto) {
+        byte[] bytes = texto.getBytes(StandardCharsets.ISO_8859_1);
+        int tamanho = bytes.length;
+        if (tamanho < 0x7f) {
+            bloco.write(tamanho);
+        } else {
+            bloco.write(0x7f);
+            tamanho -= 0x7f;
+            while (tamanho >= 0x80) {
+                bloco.write(tamanho & 0x7f | 0x80);
+                tamanho >>>= 7;
+            }
+            bloco.write(tamanho);
+        }
+        bloco.write(bytes, 0, bytes.length);
+    }
+}
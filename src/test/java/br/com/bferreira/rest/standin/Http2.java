@@ -0,0 +1,330 @@
+package br.com.bferreira.rest.standin;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lado servidor do HTTP/2 em texto puro (h2c) de uma conexão do {@link StandInServer}, depois
+ * do {@code Upgrade: h2c} que o HttpClient do JDK faz na primeira requisição para um
+ * {@code http://}. Separa os frames que chegam, junta HEADERS/CONTINUATION/DATA de cada stream
+ * até a requisição ficar completa e monta os frames das respostas dentro das janelas de controle
+ * de fluxo do cliente; o que não cabe sai quando ele manda WINDOW_UPDATE. Sem push, prioridade
+ * nem TLS. Só a thread do seletor usa.
+ */
+final class Http2 {
+
+    /** Requisição completa de um stream: os headers na ordem recebida (pseudo-headers inclusive) e o corpo. */
+    static final class Requisicao {
+        final int stream;
+        final List<String[]> headers;
+        final byte[] corpo;
+
+        private Requisicao(int stream, List<String[]> headers, byte[] corpo) {
+            this.stream = stream;
+            this.headers = headers;
+            this.corpo = corpo;
+        }
+    }
+
+    private static final byte[] PREFACIO = "PRI * HTTP/2.0\r\n\r\nSM\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1);
+    private static final int CABECALHO_FRAME = 9;
+
+    private static final int DATA = 0x0;
+    private static final int HEADERS = 0x1;
+    private static final int RST_STREAM = 0x3;
+    private static final int SETTINGS = 0x4;
+    private static final int PUSH_PROMISE = 0x5;
+    private static final int PING = 0x6;
+    private static final int WINDOW_UPDATE = 0x8;
+    private static final int CONTINUATION = 0x9;
+
+    private static final int END_STREAM = 0x1;
+    private static final int ACK = 0x1;
+    private static final int END_HEADERS = 0x4;
+    private static final int PADDED = 0x8;
+    private static final int PRIORITY = 0x20;
+
+    private static final int SETTINGS_INITIAL_WINDOW_SIZE = 0x4;
+    private static final int SETTINGS_MAX_FRAME_SIZE = 0x5;
+
+    private static final int JANELA_PADRAO = 65_535;
+    private static final int FRAME_PADRAO = 16_384;
+    //janela que o stand-in anuncia para receber: corpos de até 16 MB, como no HTTP/1.1
+    private static final int JANELA_RECEPCAO = 16 * 1024 * 1024;
+
+    private final Hpack hpack = new Hpack();
+    private final Map<Integer, Stream> streams = new HashMap<>();
+    private boolean prefacioLido;
+    private long janelaConexao = JANELA_PADRAO;
+    private int janelaInicial = JANELA_PADRAO;
+    private int maximoFrame = FRAME_PADRAO;
+    private int aguardandoContinuacao;
+
+    /**
+     * Conexão vinda do upgrade, com as configurações do cliente do header {@code HTTP2-Settings}.
+     * A requisição do upgrade já é o stream 1, meio fechado: falta só a resposta.
+     */
+    Http2(String configuracoes) {
+        byte[] dados = Base64.getUrlDecoder().decode(configuracoes.trim());
+        aplicar(dados, 0, dados.length, new ArrayList<>());
+        streams.put(1, new Stream(1, janelaInicial));
+    }
+
+    /** Primeiros frames do servidor depois do 101: SETTINGS com a janela de recepção e a janela maior da conexão. */
+    ByteBuffer abertura() {
+        ByteBuffer configuracoes = ByteBuffer.allocate(6).putShort((short) SETTINGS_INITIAL_WINDOW_SIZE).putInt(JANELA_RECEPCAO);
+        ByteBuffer abertura = ByteBuffer.allocate(2 * CABECALHO_FRAME + 6 + 4);
+        abertura.put(frame(SETTINGS, 0, 0, configuracoes.array(), 0, 6))
+                .put(janela(0, JANELA_RECEPCAO - JANELA_PADRAO))
+                .flip();
+        return abertura;
+    }
+
+    /**
+     * Consome os frames completos de {@code entrada} até completar uma requisição, que é
+     * devolvida; null quando faltam bytes (o frame incompleto fica no buffer para a próxima
+     * leitura). Os frames de controle a responder (ACK de SETTINGS e PING, WINDOW_UPDATE e os
+     * DATA que esperavam janela) vão para {@code saida}.
+     */
+    Requisicao ler(ByteBuffer entrada, List<ByteBuffer> saida) {
+        byte[] dados = entrada.array();
+        int disponivel = entrada.position();
+        int pos = 0;
+        Requisicao completa = null;
+        try {
+            if (!prefacioLido) {
+                if (disponivel < PREFACIO.length) {
+                    return null;
+                }
+                for (int i = 0; i < PREFACIO.length; i++) {
+                    if (dados[i] != PREFACIO[i]) {
+                        throw new IllegalStateException("Prefácio HTTP/2 inválido");
+                    }
+                }
+                pos = PREFACIO.length;
+                prefacioLido = true;
+            }
+            while (completa == null && disponivel - pos >= CABECALHO_FRAME) {
+                int tamanho = (dados[pos] & 0xff) << 16 | (dados[pos + 1] & 0xff) << 8 | dados[pos + 2] & 0xff;
+                if (tamanho > FRAME_PADRAO) {
+                    throw new IllegalStateException("Frame HTTP/2 maior que o SETTINGS_MAX_FRAME_SIZE: " + tamanho);
+                }
+                if (disponivel - pos - CABECALHO_FRAME < tamanho) {
+                    break;
+                }
+                int tipo = dados[pos + 3] & 0xff;
+                int flags = dados[pos + 4] & 0xff;
+                int stream = ByteBuffer.wrap(dados, pos + 5, 4).getInt() & 0x7fffffff;
+                completa = frame(tipo, flags, stream, dados, pos + CABECALHO_FRAME, tamanho, saida);
+                pos += CABECALHO_FRAME + tamanho;
+            }
+        } finally {
+            System.arraycopy(dados, pos, dados, 0, disponivel - pos);
+            entrada.position(disponivel - pos);
+        }
+        return completa;
+    }
+
+    /**
+     * Frames da resposta do stream: HEADERS (e CONTINUATION, se o bloco não couber num frame)
+     * e os DATA que cabem nas janelas do cliente. Stream cancelado pelo cliente não recebe nada.
+     */
+    void responder(int stream, int status, Map<String, String> headers, byte[] corpo, List<ByteBuffer> saida) {
+        Stream atual = streams.get(stream);
+        if (atual == null) {
+            return;
+        }
+        byte[] bloco = Hpack.codificar(status, headers);
+        int pos = 0;
+        do {
+            int pedaco = Math.min(maximoFrame, bloco.length - pos);
+            int flags = (pos + pedaco == bloco.length ? END_HEADERS : 0) | (pos == 0 && corpo.length == 0 ? END_STREAM : 0);
+            saida.add(frame(pos == 0 ? HEADERS : CONTINUATION, flags, stream, bloco, pos, pedaco));
+            pos += pedaco;
+        } while (pos < bloco.length);
+        if (corpo.length == 0) {
+            streams.remove(stream);
+            return;
+        }
+        atual.pendente = corpo;
+        enviar(atual, saida);
+    }
+
+    private Requisicao frame(int tipo, int flags, int stream, byte[] dados, int inicio, int tamanho, List<ByteBuffer> saida) {
+        if (aguardandoContinuacao != 0 && (tipo != CONTINUATION || stream != aguardandoContinuacao)) {
+            throw new IllegalStateException("Esperava CONTINUATION do stream " + aguardandoContinuacao);
+        }
+        switch (tipo) {
+            case DATA:
+                return dados(flags, stream, dados, inicio, tamanho, saida);
+            case HEADERS:
+                return headers(flags, stream, dados, inicio, tamanho);
+            case CONTINUATION:
+                Stream continuado = streams.get(stream);
+                continuado.bloco.write(dados, inicio, tamanho);
+                return (flags & END_HEADERS) != 0 ? blocoCompleto(continuado) : null;
+            case SETTINGS:
+                if ((flags & ACK) == 0) {
+                    aplicar(dados, inicio, tamanho, saida);
+                    saida.add(frame(SETTINGS, ACK, 0, dados, 0, 0));
+                }
+                return null;
+            case PING:
+                if ((flags & ACK) == 0) {
+                    saida.add(frame(PING, ACK, 0, dados, inicio, tamanho));
+                }
+                return null;
+            case WINDOW_UPDATE:
+                int incremento = ByteBuffer.wrap(dados, inicio, 4).getInt() & 0x7fffffff;
+                if (stream == 0) {
+                    janelaConexao += incremento;
+                } else if (streams.containsKey(stream)) {
+                    streams.get(stream).janela += incremento;
+                }
+                enviarPendentes(saida);
+                return null;
+            case RST_STREAM:
+                streams.remove(stream);
+                return null;
+            case PUSH_PROMISE:
+                throw new IllegalStateException("Cliente não pode mandar PUSH_PROMISE");
+            default:
+                return null;//PRIORITY, GOAWAY (o cliente fecha a conexão em seguida) e tipos desconhecidos
+        }
+    }
+
+    private Requisicao headers(int flags, int stream, byte[] dados, int inicio, int tamanho) {
+        Stream atual = streams.computeIfAbsent(stream, id -> new Stream(id, janelaInicial));
+        int fim = inicio + tamanho;
+        if ((flags & PADDED) != 0) {
+            fim -= dados[inicio++] & 0xff;
+        }
+        if ((flags & PRIORITY) != 0) {
+            inicio += 5;
+        }
+        atual.bloco = new ByteArrayOutputStream(fim - inicio);
+        atual.bloco.write(dados, inicio, fim - inicio);
+        atual.fimRemoto = (flags & END_STREAM) != 0;
+        if ((flags & END_HEADERS) == 0) {
+            aguardandoContinuacao = stream;
+            return null;
+        }
+        return blocoCompleto(atual);
+    }
+
+    private Requisicao blocoCompleto(Stream atual) {
+        aguardandoContinuacao = 0;
+        List<String[]> decodificados = hpack.decodificar(atual.bloco.toByteArray());//trailers também passam pelo HPACK
+        atual.bloco = null;
+        if (atual.headers == null) {
+            atual.headers = decodificados;
+        }
+        return atual.fimRemoto ? completar(atual) : null;
+    }
+
+    private Requisicao dados(int flags, int stream, byte[] dados, int inicio, int tamanho, List<ByteBuffer> saida) {
+        if (tamanho > 0) {
+            saida.add(janela(0, tamanho));//o preenchimento também conta na janela
+        }
+        Stream atual = streams.get(stream);
+        if (atual == null || atual.corpo == null) {
+            return null;//stream já cancelado
+        }
+        int fim = inicio + tamanho;
+        if ((flags & PADDED) != 0) {
+            fim -= dados[inicio++] & 0xff;
+        }
+        atual.corpo.write(dados, inicio, fim - inicio);
+        if ((flags & END_STREAM) != 0) {
+            return completar(atual);
+        }
+        if (tamanho > 0) {
+            saida.add(janela(stream, tamanho));
+        }
+        return null;
+    }
+
+    private static Requisicao completar(Stream atual) {
+        byte[] corpo = atual.corpo.toByteArray();
+        atual.corpo = null;
+        return new Requisicao(atual.id, atual.headers, corpo);
+    }
+
+    private void aplicar(byte[] dados, int inicio, int tamanho, List<ByteBuffer> saida) {
+        ByteBuffer configuracoes = ByteBuffer.wrap(dados, inicio, tamanho);
+        while (configuracoes.remaining() >= 6) {
+            int id = configuracoes.getShort() & 0xffff;
+            int valor = configuracoes.getInt();
+            if (id == SETTINGS_INITIAL_WINDOW_SIZE) {
+                for (Stream stream : streams.values()) {
+                    stream.janela += valor - janelaInicial;
+                }
+                janelaInicial = valor;
+            } else if (id == SETTINGS_MAX_FRAME_SIZE) {
+                maximoFrame = valor;
+            }
+        }
+        enviarPendentes(saida);
+    }
+
+    private void enviarPendentes(List<ByteBuffer> saida) {
+        for (Stream stream : new ArrayList<>(streams.values())) {
+            if (stream.pendente != null) {
+                enviar(stream, saida);
+            }
+        }
+    }
+
+    private void enviar(Stream stream, List<ByteBuffer> saida) {
+        byte[] corpo = stream.pendente;
+        while (stream.enviado < corpo.length) {
+            long janela = Math.min(janelaConexao, stream.janela);
+            if (janela <= 0) {
+                return;//o resto sai no próximo WINDOW_UPDATE
+            }
+            int pedaco = (int) Math.min(Math.min(janela, maximoFrame), corpo.length - stream.enviado);
+            boolean ultimo = stream.enviado + pedaco == corpo.length;
+            saida.add(frame(DATA, ultimo ? END_STREAM : 0, stream.id, corpo, stream.enviado, pedaco));
+            stream.enviado += pedaco;
+            stream.janela -= pedaco;
+            janelaConexao -= pedaco;
+        }
+        streams.remove(stream.id);
+    }
+
+    private static ByteBuffer janela(int stream, int incremento) {
+        return frame(WINDOW_UPDATE, 0, stream, ByteBuffer.allocate(4).putInt(incremento).array(), 0, 4);
+    }
+
+    private static ByteBuffer frame(int tipo, int flags, int stream, byte[] dados, int inicio, int tamanho) {
+        ByteBuffer frame = ByteBuffer.allocate(CABECALHO_FRAME + tamanho);
+        frame.put((byte) (tamanho >>> 16)).put((byte) (tamanho >>> 8)).put((byte) tamanho)
+                .put((byte) tipo).put((byte) flags).putInt(stream)
+                .put(dados, inicio, tamanho)
+                .flip();
+        return frame;
+    }
+
+    private static final class Stream {
+        private final int id;
+        //janela de envio: quanto o cliente ainda aceita neste stream
+        private long janela;
+        private ByteArrayOutputStream bloco;
+        private List<String[]> headers;
+        private ByteArrayOutputStream corpo = new ByteArrayOutputStream();
+        private boolean fimRemoto;
+        private byte[] pendente;
+        private int enviado;
+
+        private Stream(int id, long janela) {
+            this.id = id;
+            this.janela = janela;
+        }
+    }
+}
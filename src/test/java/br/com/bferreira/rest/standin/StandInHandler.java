@@ -0,0 +1,10 @@
+package br.com.bferreira.rest.standin;
+
+/**
+ * Trata uma requisição do {@link StandInServer}. É chamado na thread do seletor,
+ * então não pode bloquear.
+ */
+public interface StandInHandler {
+
+    StandInResponse handle(StandInRequest request);
+}
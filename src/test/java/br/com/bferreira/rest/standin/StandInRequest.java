@@ -0,0 +1,83 @@
+package br.com.bferreira.rest.standin;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Requisição (HTTP/1.1 ou HTTP/2) já lida por completo pelo {@link StandInServer}.
+ * Os nomes dos headers são guardados em minúsculas.
+ */
+public final class StandInRequest {
+
+    private final String method;
+    private final String path;
+    private final Map<String, String> query;
+    private final Map<String, String> headers;
+    private final byte[] body;
+
+    StandInRequest(String method, String target, Map<String, String> headers, byte[] body) {
+        this.method = method;
+        int interrogacao = target.indexOf('?');
+        this.path = decode(interrogacao < 0 ? target : target.substring(0, interrogacao));
+        this.query = interrogacao < 0 ? Collections.<String, String>emptyMap() : parseQuery(target.substring(interrogacao + 1));
+        this.headers = headers;
+        this.body = body;
+    }
+
+    public String method() {
+        return method;
+    }
+
+    public String path() {
+        return path;
+    }
+
+    public Map<String, String> query() {
+        return query;
+    }
+
+    public String header(String name) {
+        return headers.get(name.toLowerCase(Locale.ROOT));
+    }
+
+    public Map<String, String> headers() {
+        return Collections.unmodifiableMap(headers);
+    }
+
+    public byte[] body() {
+        return body;
+    }
+
+    public String bodyAsString() {
+        return new String(body, StandardCharsets.UTF_8);
+    }
+
+    private static Map<String, String> parseQuery(String raw) {
+        Map<String, String> params = new LinkedHashMap<>();
+        for (String par : raw.split("&")) {
+            if (par.isEmpty()) {
+                continue;
+            }
+            int igual = par.indexOf('=');
+            if (igual < 0) {
+                params.put(decode(par), "");
+            } else {
+                params.put(decode(par.substring(0, igual)), decode(par.substring(igual + 1)));
+            }
+        }
+        return params;
+    }
+
+    private static String decode(String valor) {
+        try {
+            return URLDecoder.decode(valor, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package br.com.bferreira.rest.standin;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Resposta devolvida por um {@link StandInHandler}. O Content-Length e o Connection
+ * são preenchidos pelo servidor na hora de serializar. Para simular uma API instável, a
+ * resposta pode sair com atraso ({@link #delay}) ou virar uma queda da conexão
+ * ({@link #disconnect()}); o atraso é agendado no seletor, sem bloquear as outras conexões.
+ */
+public final class StandInResponse {
+
+    public static final String JSON = "application/json; charset=utf-8";
+    public static final String XML = "application/xml; charset=utf-8";
+    public static final String TEXT = "text/plain; charset=utf-8";
+
+    private final int status;
+    private final Map<String, String> headers = new LinkedHashMap<>();
+    private final byte[] body;
+    private long atrasoNanos;
+    private boolean desconectar;
+
+    public StandInResponse(int status, String contentType, byte[] body) {
+        this.status = status;
+        this.body = body;
+        if (contentType != null) {
+            headers.put("Content-Type", contentType);
+        }
+    }
+
+    public static StandInResponse json(int status, String json) {
+        return new StandInResponse(status, JSON, json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static StandInResponse xml(int status, String xml) {
+        return new StandInResponse(status, XML, xml.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static StandInResponse text(int status, String text) {
+        return new StandInResponse(status, TEXT, text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static StandInResponse empty(int status) {
+        return new StandInResponse(status, null, new byte[0]);
+    }
+
+    /** Fecha a conexão sem responder, como um servidor que caiu no meio da requisição. */
+    public static StandInResponse disconnect() {
+        StandInResponse resposta = empty(0);
+        resposta.desconectar = true;
+        return resposta;
+    }
+
+    /** Só escreve a resposta (ou derruba a conexão) depois do atraso. */
+    public StandInResponse delay(Duration atraso) {
+        this.atrasoNanos = atraso.toNanos();
+        return this;
+    }
+
+    public StandInResponse header(String name, String value) {
+        headers.put(name, value);
+        return this;
+    }
+
+    public int status() {
+        return status;
+    }
+
+    public Map<String, String> headers() {
+        return headers;
+    }
+
+    public byte[] body() {
+        return body;
+    }
+
+    public long delayNanos() {
+        return atrasoNanos;
+    }
+
+    public boolean disconnects() {
+        return desconectar;
+    }
+
+    static String reason(int status) {
+        switch (status) {
+            case 200: return "OK";
+            case 201: return "Created";
+            case 204: return "No Content";
+            case 304: return "Not Modified";
+            case 400: return "Bad Request";
+            case 401: return "Unauthorized";
+            case 404: return "Not Found";
+            case 405: return "Method Not Allowed";
+            case 429: return "Too Many Requests";
+            case 500: return "Internal Server Error";
+            case 502: return "Bad Gateway";
+            case 503: return "Service Unavailable";
+            case 504: return "Gateway Timeout";
+            default: return "Status " + status;
+        }
+    }
+}
@@ -0,0 +1,606 @@
+package br.com.bferreira.rest.standin;
+
+import io.restassured.RestAssured;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Servidor HTTP/1.1 não bloqueante (um seletor NIO numa única thread daemon) que
+ * substitui o restapi.wcaquino.me nos testes. Suporta keep-alive e pipelining:
+ * várias requisições na mesma conexão são respondidas na ordem em que chegaram. Uma
+ * resposta com atraso fica na fila da conexão até o prazo, que o próprio loop do seletor
+ * acompanha: as outras conexões continuam sendo atendidas.
+ *
+ * <p>Também fala HTTP/2 sem TLS (h2c): quando a requisição pede {@code Upgrade: h2c}, como o
+ * HttpClient do JDK com {@code HTTP_2} faz num {@code http://}, a conexão troca de protocolo
+ * e as requisições seguintes chegam como streams multiplexados (ver {@link Http2}).</p>
+ *
+ * <p>Como um servidor de verdade, comprime com gzip (ou deflate) as respostas a partir de
+ * {@code standin.compression.minBytes} (256) quando o Accept-Encoding permite, e aceita corpos
+ * de requisição com Content-Encoding gzip ou deflate. {@code -Dstandin.compression=false}
+ * desliga a compressão das respostas.</p>
+ *
+ * <p>Uso normal: {@link #install()} sobe a instância compartilhada da JVM (uma só vez)
+ * e aponta o {@code RestAssured.baseURI} (com a porta) para ela.
+ */
+public final class StandInServer implements Closeable {
+
+    private static final int MAX_REQUISICAO = 16 * 1024 * 1024;
+    private static final byte[] FIM_LINHA = {'\r', '\n'};
+    private static final byte[] FIM_HEADERS = {'\r', '\n', '\r', '\n'};
+    private static final byte[] TROCA_PARA_H2C = "HTTP/1.1 101 Switching Protocols\r\nConnection: Upgrade\r\nUpgrade: h2c\r\n\r\n"
+            .getBytes(StandardCharsets.ISO_8859_1);
+    //específicos da conexão HTTP/1.1, proibidos no HTTP/2
+    private static final Set<String> SO_HTTP1 = Set.of("connection", "keep-alive", "proxy-connection", "transfer-encoding", "upgrade");
+
+    private static volatile StandInServer compartilhado;
+
+    private final StandInHandler handler;
+    private final boolean comprimir;
+    //só a thread do seletor usa
+    private final Compressao compressao = new Compressao();
+    private final Selector selector;
+    private final ServerSocketChannel serverChannel;
+    private final Thread loop;
+    private final long startupNanos;
+    private final LongAdder conexoesAceitas = new LongAdder();
+    private volatile boolean rodando = true;
+    //conexões cuja próxima resposta espera um atraso; só a thread do seletor mexe
+    private final Set<SelectionKey> atrasadas = new HashSet<>();
+
+    private StandInServer(StandInHandler handler, boolean comprimir) throws IOException {
+        long inicio = System.nanoTime();
+        this.handler = handler;
+        this.comprimir = comprimir;
+        this.selector = Selector.open();
+        this.serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        this.loop = new Thread(this::executar, "stand-in-" + port());
+        loop.setDaemon(true);
+        loop.start();
+        this.startupNanos = System.nanoTime() - inicio;
+    }
+
+    /** Sobe um servidor novo numa porta livre do loopback. */
+    public static StandInServer start(StandInHandler handler) {
+        return start(handler, Boolean.parseBoolean(System.getProperty("standin.compression", "true")));
+    }
+
+    /** Sobe um servidor novo, comprimindo ou não as respostas (para comparar os bytes na rede). */
+    public static StandInServer start(StandInHandler handler, boolean comprimir) {
+        try {
+            return new StandInServer(handler, comprimir);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Não foi possível subir o stand-in", e);
+        }
+    }
+
+    /** Instância única da JVM servindo a {@link WcaquinoApi}. */
+    public static StandInServer shared() {
+        StandInServer servidor = compartilhado;
+        if (servidor == null) {
+            synchronized (StandInServer.class) {
+                servidor = compartilhado;
+                if (servidor == null) {
+                    servidor = start(new WcaquinoApi());
+                    compartilhado = servidor;
+                }
+            }
+        }
+        return servidor;
+    }
+
+    /** Sobe (se preciso) o servidor compartilhado e aponta o RestAssured para ele. */
+    public static StandInServer install() {
+        StandInServer servidor = shared();
+        //a porta vai no baseURI: o RestAssured.port também seria aplicado às URLs absolutas sem porta (APIs externas)
+        String baseUri = servidor.baseUri() + ":" + servidor.port();
+        if (!baseUri.equals(RestAssured.baseURI)) {
+            RestAssured.baseURI = baseUri;
+        }
+        return servidor;
+    }
+
+    public int port() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    public String host() {
+        return InetAddress.getLoopbackAddress().getHostAddress();
+    }
+
+    public String baseUri() {
+        return "http://" + host();
+    }
+
+    /** URL absoluta para o path informado, ex.: {@code url("/users/1")}. */
+    public String url(String path) {
+        return baseUri() + ":" + port() + path;
+    }
+
+    public long startupNanos() {
+        return startupNanos;
+    }
+
+    /** Conexões TCP aceitas desde que o servidor subiu. */
+    public long connectionsAccepted() {
+        return conexoesAceitas.sum();
+    }
+
+    @Override
+    public void close() {
+        rodando = false;
+        selector.wakeup();
+        try {
+            loop.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void executar() {
+        try {
+            while (rodando) {
+                selector.select(esperaAteProximaLiberacao());
+                Iterator<SelectionKey> chaves = selector.selectedKeys().iterator();
+                while (chaves.hasNext()) {
+                    SelectionKey chave = chaves.next();
+                    chaves.remove();
+                    try {
+                        if (!chave.isValid()) {
+                            continue;
+                        }
+                        if (chave.isAcceptable()) {
+                            aceitar();
+                        } else {
+                            if (chave.isReadable()) {
+                                ler(chave);
+                            }
+                            if (chave.isValid() && chave.isWritable()) {
+                                escrever(chave);
+                            }
+                        }
+                    } catch (IOException | RuntimeException e) {
+                        fechar(chave);
+                    }
+                }
+                liberarAtrasadas();
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            // servidor encerrado
+        } finally {
+            for (SelectionKey chave : selector.keys()) {
+                fechar(chave);
+            }
+            try {
+                selector.close();
+            } catch (IOException ignored) {
+                // nada a fazer no encerramento
+            }
+            compressao.close();
+        }
+    }
+
+    private void aceitar() throws IOException {
+        SocketChannel canal;
+        while ((canal = serverChannel.accept()) != null) {
+            canal.configureBlocking(false);
+            canal.socket().setTcpNoDelay(true);
+            canal.register(selector, SelectionKey.OP_READ, new Conexao());
+            conexoesAceitas.increment();
+        }
+    }
+
+    private void ler(SelectionKey chave) throws IOException {
+        SocketChannel canal = (SocketChannel) chave.channel();
+        Conexao conexao = (Conexao) chave.attachment();
+        int lidos;
+        do {
+            if (!conexao.entrada.hasRemaining()) {
+                conexao.crescer();
+            }
+            lidos = canal.read(conexao.entrada);
+        } while (lidos > 0);
+
+        responderCompletas(conexao);
+        if (lidos < 0 && conexao.saida.isEmpty()) {
+            fechar(chave);
+            return;
+        }
+        if (lidos < 0) {
+            conexao.fecharAposEscrita = true;
+        }
+        escrever(chave);
+    }
+
+    private void responderCompletas(Conexao conexao) {
+        if (conexao.http2 != null) {
+            responderHttp2(conexao);
+            return;
+        }
+        StandInRequest requisicao;
+        while (!conexao.fecharAposEscrita && (requisicao = proximaRequisicao(conexao, compressao)) != null) {
+            if ("h2c".equalsIgnoreCase(requisicao.header("upgrade")) && requisicao.header("http2-settings") != null) {
+                //a própria requisição do upgrade vira o stream 1; o resto do buffer já é HTTP/2
+                conexao.http2 = new Http2(requisicao.header("http2-settings"));
+                conexao.saida.add(new Pendente(ByteBuffer.wrap(TROCA_PARA_H2C), 0));
+                conexao.saida.add(new Pendente(conexao.http2.abertura(), 0));
+                responderHttp2(conexao, 1, requisicao);
+                responderHttp2(conexao);
+                return;
+            }
+            StandInResponse resposta = atender(requisicao);
+            boolean fechar = resposta.disconnects() || "close".equalsIgnoreCase(requisicao.header("connection"));
+            long liberarEm = resposta.delayNanos() > 0 ? System.nanoTime() + resposta.delayNanos() : 0;
+            ByteBuffer dados = resposta.disconnects() ? ByteBuffer.allocate(0) : serializar(requisicao, resposta, fechar);
+            conexao.saida.add(new Pendente(dados, liberarEm));
+            conexao.fecharAposEscrita = fechar;
+        }
+    }
+
+    private void responderHttp2(Conexao conexao) {
+        List<ByteBuffer> controle = new ArrayList<>();
+        Http2.Requisicao recebida;
+        while (!conexao.fecharAposEscrita && (recebida = conexao.http2.ler(conexao.entrada, controle)) != null) {
+            enfileirar(conexao, controle);
+            Map<String, String> headers = new LinkedHashMap<>();
+            String metodo = null;
+            String alvo = null;
+            for (String[] header : recebida.headers) {
+                switch (header[0]) {
+                    case ":method":
+                        metodo = header[1];
+                        break;
+                    case ":path":
+                        alvo = header[1];
+                        break;
+                    case ":authority":
+                        headers.putIfAbsent("host", header[1]);
+                        break;
+                    default:
+                        if (!header[0].startsWith(":")) {
+                            headers.merge(header[0], header[1], (antes, depois) -> antes + ("cookie".equals(header[0]) ? "; " : ", ") + depois);
+                        }
+                }
+            }
+            if (metodo == null || alvo == null) {
+                throw new IllegalStateException("Stream " + recebida.stream + " sem :method ou :path");
+            }
+            responderHttp2(conexao, recebida.stream, novaRequisicao(metodo, alvo, headers, recebida.corpo, compressao));
+        }
+        enfileirar(conexao, controle);
+    }
+
+    //como no HTTP/1.1, o atraso segura a fila da conexão: as respostas dos outros streams saem depois desta
+    private void responderHttp2(Conexao conexao, int stream, StandInRequest requisicao) {
+        StandInResponse resposta = atender(requisicao);
+        long liberarEm = resposta.delayNanos() > 0 ? System.nanoTime() + resposta.delayNanos() : 0;
+        if (resposta.disconnects()) {
+            conexao.saida.add(new Pendente(ByteBuffer.allocate(0), liberarEm));
+            conexao.fecharAposEscrita = true;
+            return;
+        }
+        CorpoDaResposta corpo = corpo(requisicao, resposta);
+        Map<String, String> headers = new LinkedHashMap<>();
+        resposta.headers().forEach((nome, valor) -> {
+            if (!SO_HTTP1.contains(nome.toLowerCase(Locale.ROOT))) {
+                headers.put(nome, valor);
+            }
+        });
+        if (corpo.codificacao != null) {
+            headers.put("Content-Encoding", corpo.codificacao);
+            headers.put("Vary", "Accept-Encoding");
+        }
+        if (resposta.status() != 204 && resposta.status() != 304) {
+            headers.put("Content-Length", String.valueOf(corpo.tamanho));
+        }
+        List<ByteBuffer> frames = new ArrayList<>();
+        conexao.http2.responder(stream, resposta.status(), headers, corpo.bytes, frames);
+        for (ByteBuffer frame : frames) {
+            conexao.saida.add(new Pendente(frame, liberarEm));
+            liberarEm = 0;
+        }
+    }
+
+    private static void enfileirar(Conexao conexao, List<ByteBuffer> frames) {
+        for (ByteBuffer frame : frames) {
+            conexao.saida.add(new Pendente(frame, 0));
+        }
+        frames.clear();
+    }
+
+    private StandInResponse atender(StandInRequest requisicao) {
+        try {
+            return handler.handle(requisicao);
+        } catch (RuntimeException e) {
+            return StandInResponse.text(500, String.valueOf(e));
+        }
+    }
+
+    private void escrever(SelectionKey chave) throws IOException {
+        SocketChannel canal = (SocketChannel) chave.channel();
+        Conexao conexao = (Conexao) chave.attachment();
+        while (!conexao.saida.isEmpty()) {
+            Pendente pendente = conexao.saida.peek();
+            if (pendente.liberarEm != 0 && pendente.liberarEm - System.nanoTime() > 0) {
+                //resposta com atraso: o loop volta a esta conexão quando o prazo vencer
+                chave.interestOps(SelectionKey.OP_READ);
+                atrasadas.add(chave);
+                return;
+            }
+            pendente.liberarEm = 0;
+            ByteBuffer atual = pendente.dados;
+            canal.write(atual);
+            if (atual.hasRemaining()) {
+                chave.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                return;
+            }
+            conexao.saida.poll();
+        }
+        if (conexao.fecharAposEscrita) {
+            fechar(chave);
+        } else {
+            chave.interestOps(SelectionKey.OP_READ);
+        }
+    }
+
+    //0 bloqueia até chegar algo; com respostas atrasadas, acorda no prazo da mais próxima
+    private long esperaAteProximaLiberacao() {
+        long agora = System.nanoTime();
+        long menor = Long.MAX_VALUE;
+        for (SelectionKey chave : atrasadas) {
+            Pendente pendente = ((Conexao) chave.attachment()).saida.peek();
+            if (pendente != null) {
+                menor = Math.min(menor, pendente.liberarEm - agora);
+            }
+        }
+        return menor == Long.MAX_VALUE ? 0 : Math.max(1, TimeUnit.NANOSECONDS.toMillis(menor) + 1);
+    }
+
+    private void liberarAtrasadas() {
+        if (atrasadas.isEmpty()) {
+            return;
+        }
+        List<SelectionKey> vencidas = new ArrayList<>(atrasadas);
+        atrasadas.clear();
+        for (SelectionKey chave : vencidas) {
+            try {
+                if (chave.isValid()) {
+                    escrever(chave);
+                }
+            } catch (IOException | RuntimeException e) {
+                fechar(chave);
+            }
+        }
+    }
+
+    private static void fechar(SelectionKey chave) {
+        chave.cancel();
+        try {
+            chave.channel().close();
+        } catch (IOException ignored) {
+            // conexão já caiu
+        }
+    }
+
+    /** Extrai a próxima requisição completa do buffer, ou null se ainda faltam bytes. */
+    private static StandInRequest proximaRequisicao(Conexao conexao, Compressao compressao) {
+        byte[] dados = conexao.entrada.array();
+        int disponivel = conexao.entrada.position();
+        int fimHeaders = indexOf(dados, 0, disponivel, FIM_HEADERS);
+        if (fimHeaders < 0) {
+            if (disponivel > MAX_REQUISICAO) {
+                throw new IllegalStateException("Headers grandes demais");
+            }
+            return null;
+        }
+
+        String[] linhas = new String(dados, 0, fimHeaders, StandardCharsets.ISO_8859_1).split("\r\n");
+        String[] inicial = linhas[0].split(" ");
+        if (inicial.length < 2) {
+            throw new IllegalStateException("Linha de requisição inválida: " + linhas[0]);
+        }
+        Map<String, String> headers = new LinkedHashMap<>();
+        for (int i = 1; i < linhas.length; i++) {
+            int doisPontos = linhas[i].indexOf(':');
+            if (doisPontos > 0) {
+                headers.put(linhas[i].substring(0, doisPontos).trim().toLowerCase(Locale.ROOT),
+                        linhas[i].substring(doisPontos + 1).trim());
+            }
+        }
+
+        int inicioCorpo = fimHeaders + FIM_HEADERS.length;
+        byte[] corpo;
+        int consumido;
+        if ("chunked".equalsIgnoreCase(headers.get("transfer-encoding"))) {
+            Chunked chunked = Chunked.decodificar(dados, inicioCorpo, disponivel);
+            if (chunked == null) {
+                return null;
+            }
+            corpo = chunked.corpo;
+            consumido = chunked.fim;
+        } else {
+            String contentLength = headers.get("content-length");
+            int tamanho = contentLength == null ? 0 : Integer.parseInt(contentLength);
+            if (tamanho > MAX_REQUISICAO) {
+                throw new IllegalStateException("Corpo grande demais");
+            }
+            if (disponivel - inicioCorpo < tamanho) {
+                return null;
+            }
+            corpo = new byte[tamanho];
+            System.arraycopy(dados, inicioCorpo, corpo, 0, tamanho);
+            consumido = inicioCorpo + tamanho;
+        }
+
+        System.arraycopy(dados, consumido, dados, 0, disponivel - consumido);
+        conexao.entrada.position(disponivel - consumido);
+        return novaRequisicao(inicial[0], inicial[1], headers, corpo, compressao);
+    }
+
+    private static StandInRequest novaRequisicao(String metodo, String alvo, Map<String, String> headers, byte[] corpo, Compressao compressao) {
+        String codificacao = headers.remove("content-encoding");
+        if (codificacao != null && !"identity".equalsIgnoreCase(codificacao.trim())) {
+            corpo = compressao.descomprimir(corpo, codificacao);//o handler sempre vê o corpo decodificado
+        }
+        return new StandInRequest(metodo, alvo, headers, corpo);
+    }
+
+    /** Corpo como vai na rede: vazio em HEAD/204/304, comprimido quando o cliente aceita. */
+    private CorpoDaResposta corpo(StandInRequest requisicao, StandInResponse resposta) {
+        boolean semCorpo = "HEAD".equals(requisicao.method()) || resposta.status() == 204 || resposta.status() == 304;
+        byte[] corpo = semCorpo ? new byte[0] : resposta.body();
+        int tamanho = resposta.body().length;
+        String codificacao = null;
+        if (comprimir && !semCorpo && corpo.length >= Compressao.MINIMO && !resposta.headers().containsKey("Content-Encoding")) {
+            codificacao = Compressao.escolher(requisicao.header("accept-encoding"));
+            if (codificacao != null) {
+                corpo = compressao.comprimir(corpo, codificacao);
+                tamanho = corpo.length;
+            }
+        }
+        return new CorpoDaResposta(corpo, tamanho, codificacao);
+    }
+
+    private ByteBuffer serializar(StandInRequest requisicao, StandInResponse resposta, boolean fechar) {
+        CorpoDaResposta saida = corpo(requisicao, resposta);
+        byte[] corpo = saida.bytes;
+        int tamanho = saida.tamanho;
+        String codificacao = saida.codificacao;
+
+        StringBuilder cabecalho = new StringBuilder(128)
+                .append("HTTP/1.1 ").append(resposta.status()).append(' ')
+                .append(StandInResponse.reason(resposta.status())).append("\r\n");
+        for (Map.Entry<String, String> header : resposta.headers().entrySet()) {
+            cabecalho.append(header.getKey()).append(": ").append(header.getValue()).append("\r\n");
+        }
+        if (codificacao != null) {
+            cabecalho.append("Content-Encoding: ").append(codificacao).append("\r\nVary: Accept-Encoding\r\n");
+        }
+        if (resposta.status() != 204 && resposta.status() != 304) {
+            cabecalho.append("Content-Length: ").append(tamanho).append("\r\n");
+        }
+        cabecalho.append("Connection: ").append(fechar ? "close" : "keep-alive").append("\r\n\r\n");
+
+        byte[] inicio = cabecalho.toString().getBytes(StandardCharsets.ISO_8859_1);
+        ByteBuffer buffer = ByteBuffer.allocate(inicio.length + corpo.length);
+        buffer.put(inicio).put(corpo).flip();
+        return buffer;
+    }
+
+    private static int indexOf(byte[] dados, int de, int limite, byte[] alvo) {
+        externo:
+        for (int i = de; i <= limite - alvo.length; i++) {
+            for (int j = 0; j < alvo.length; j++) {
+                if (dados[i + j] != alvo[j]) {
+                    continue externo;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    private static final class Conexao {
+        private ByteBuffer entrada = ByteBuffer.allocate(8 * 1024);
+        private final ArrayDeque<Pendente> saida = new ArrayDeque<>();
+        private boolean fecharAposEscrita;
+        //depois do Upgrade: h2c
+        private Http2 http2;
+
+        private void crescer() {
+            if (entrada.capacity() >= MAX_REQUISICAO) {
+                throw new IllegalStateException("Requisição grande demais");
+            }
+            ByteBuffer maior = ByteBuffer.allocate(entrada.capacity() * 2);
+            entrada.flip();
+            maior.put(entrada);
+            entrada = maior;
+        }
+    }
+
+    /** Resposta serializada na fila da conexão; {@code liberarEm} (nanoTime) diferente de 0 segura a escrita até o prazo. */
+    private static final class Pendente {
+        private final ByteBuffer dados;
+        private long liberarEm;
+
+        private Pendente(ByteBuffer dados, long liberarEm) {
+            this.dados = dados;
+            this.liberarEm = liberarEm;
+        }
+    }
+
+    /** Corpo da resposta como vai na rede, o Content-Length e o Content-Encoding aplicado (ou null). */
+    private static final class CorpoDaResposta {
+        private final byte[] bytes;
+        private final int tamanho;
+        private final String codificacao;
+
+        private CorpoDaResposta(byte[] bytes, int tamanho, String codificacao) {
+            this.bytes = bytes;
+            this.tamanho = tamanho;
+            this.codificacao = codificacao;
+        }
+    }
+
+    /** Decodificação de corpo com Transfer-Encoding: chunked. */
+    private static final class Chunked {
+        private final byte[] corpo;
+        private final int fim;
+
+        private Chunked(byte[] corpo, int fim) {
+            this.corpo = corpo;
+            this.fim = fim;
+        }
+
+        private static Chunked decodificar(byte[] dados, int inicio, int limite) {
+            ByteArrayOutputStream corpo = new ByteArrayOutputStream();
+            int pos = inicio;
+            while (true) {
+                int fimLinha = indexOf(dados, pos, limite, FIM_LINHA);
+                if (fimLinha < 0) {
+                    return null;
+                }
+                String linha = new String(dados, pos, fimLinha - pos, StandardCharsets.ISO_8859_1);
+                int ponto = linha.indexOf(';');
+                int tamanho = Integer.parseInt((ponto < 0 ? linha : linha.substring(0, ponto)).trim(), 16);
+                pos = fimLinha + 2;
+                if (tamanho == 0) {
+                    int fimTrailer = indexOf(dados, pos - 2, limite, FIM_HEADERS);
+                    return fimTrailer < 0 ? null : new Chunked(corpo.toByteArray(), fimTrailer + FIM_HEADERS.length);
+                }
+                if (limite - pos < tamanho + 2) {
+                    return null;
+                }
+                corpo.write(dados, pos, tamanho);
+                pos += tamanho + 2;
+            }
+        }
+
+    }
+}
@@ -0,0 +1,163 @@
+package br.com.bferreira.rest.standin;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.*;
+
+public class StandInServerTest {
+
+    @Test
+    public void deveSubirEmMenosDe100ms() {
+        try (StandInServer servidor = StandInServer.start(new WcaquinoApi())) {
+            Assert.assertThat(servidor.port(), greaterThan(0));
+            Assert.assertThat(TimeUnit.NANOSECONDS.toMillis(servidor.startupNanos()), lessThan(100L));
+        }
+    }
+
+    @Test
+    public void deveResponderRequisicoesEmPipelineNaMesmaConexao() throws Exception {
+        try (StandInServer servidor = StandInServer.start(new WcaquinoApi());
+             Socket socket = new Socket(servidor.host(), servidor.port())) {
+            //duas requisições enviadas de uma vez, antes de ler qualquer resposta
+            String requisicoes = "GET /ola HTTP/1.1\r\nHost: x\r\n\r\n"
+                    + "POST /users HTTP/1.1\r\nHost: x\r\nContent-Type: application/json\r\nContent-Length: 26\r\n"
+                    + "Connection: close\r\n\r\n{\"name\":\"Zeca\",\"age\":40}  ";
+            OutputStream saida = socket.getOutputStream();
+            saida.write(requisicoes.getBytes(StandardCharsets.UTF_8));
+            saida.flush();
+
+            String respostas = lerTudo(socket.getInputStream());
+            Assert.assertThat(respostas, startsWith("HTTP/1.1 200 OK"));
+            Assert.assertThat(respostas, containsString("Ola Mundo!HTTP/1.1 201 Created"));
+            Assert.assertThat(respostas, containsString("\"name\":\"Zeca\""));
+            Assert.assertThat(respostas, containsString("Connection: close"));
+        }
+    }
+
+    @Test
+    public void deveDecodificarCorpoChunked() throws Exception {
+        try (StandInServer servidor = StandInServer.start(new WcaquinoApi());
+             Socket socket = new Socket(servidor.host(), servidor.port())) {
+            String requisicao = "POST /usersXML HTTP/1.1\r\nHost: x\r\nTransfer-Encoding: chunked\r\nConnection: close\r\n\r\n"
+                    + "10\r\n<user><name>Bia<\r\n"
+                    + "1a\r\n/name><age>33</age></user>\r\n"
+                    + "0\r\n\r\n";
+            socket.getOutputStream().write(requisicao.getBytes(StandardCharsets.UTF_8));
+
+            String resposta = lerTudo(socket.getInputStream());
+            Assert.assertThat(resposta, startsWith("HTTP/1.1 201 Created"));
+            Assert.assertThat(resposta, containsString("<name>Bia</name><age>33</age>"));
+        }
+    }
+
+    @Test
+    public void deveAtrasarEDerrubarConexoesComOFaultInjector() throws Exception {
+        FaultInjector falhas = FaultInjector.wrap(new WcaquinoApi())
+                .delay("/ola", Duration.ofMillis(200), 1)
+                .disconnect("/usersXML", 1);
+        try (StandInServer servidor = StandInServer.start(falhas)) {
+            try (Socket lento = new Socket(servidor.host(), servidor.port());
+                 Socket rapido = new Socket(servidor.host(), servidor.port())) {
+                long inicio = System.nanoTime();
+                lento.getOutputStream().write("GET /ola HTTP/1.1\r\nHost: x\r\nConnection: close\r\n\r\n".getBytes(StandardCharsets.UTF_8));
+                rapido.getOutputStream().write("GET /users/1 HTTP/1.1\r\nHost: x\r\nConnection: close\r\n\r\n".getBytes(StandardCharsets.UTF_8));
+                //o atraso de uma conexão não segura as outras
+                Assert.assertThat(lerTudo(rapido.getInputStream()), containsString("João da Silva"));
+                Assert.assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio), lessThan(200L));
+                Assert.assertThat(lerTudo(lento.getInputStream()), endsWith("Ola Mundo!"));
+                Assert.assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio), greaterThanOrEqualTo(200L));
+            }
+            try (Socket socket = new Socket(servidor.host(), servidor.port())) {
+                socket.getOutputStream().write("GET /usersXML HTTP/1.1\r\nHost: x\r\n\r\n".getBytes(StandardCharsets.UTF_8));
+                Assert.assertEquals("", lerTudo(socket.getInputStream()));
+            }
+            Assert.assertEquals(2, falhas.injected());
+        }
+    }
+
+    @Test
+    public void deveMultiplexarStreamsHttp2DepoisDoUpgradeH2c() throws Exception {
+        StandInHandler eco = requisicao -> StandInResponse.text(200, requisicao.method() + " " + requisicao.path() + " "
+                + requisicao.header("x-teste") + " " + requisicao.body().length + " "
+                + "x".repeat(Integer.parseInt(requisicao.query().getOrDefault("extra", "0"))));
+        try (StandInServer servidor = StandInServer.start(eco)) {
+            HttpClient cliente = HttpClient.newBuilder().version(HttpClient.Version.HTTP_2).build();
+            //a primeira requisição faz o Upgrade: h2c e abre a conexão que as outras compartilham
+            HttpResponse<String> upgrade = cliente.send(HttpRequest.newBuilder(URI.create(servidor.url("/upgrade")))
+                    .POST(HttpRequest.BodyPublishers.ofString("abc")).build(), HttpResponse.BodyHandlers.ofString());
+            Assert.assertEquals(HttpClient.Version.HTTP_2, upgrade.version());
+            Assert.assertEquals("POST /upgrade null 3 ", upgrade.body());
+
+            List<CompletableFuture<HttpResponse<String>>> respostas = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                //corpos maiores que um frame (16 KB) e que a janela inicial (64 KB), nos dois sentidos
+                int enviados = i == 3 ? 100_000 : i;
+                int extra = i == 7 ? 200_000 : 0;
+                respostas.add(cliente.sendAsync(HttpRequest.newBuilder(URI.create(servidor.url("/itens/" + i + "?extra=" + extra)))
+                        .header("X-Teste", "h" + i).POST(HttpRequest.BodyPublishers.ofString("y".repeat(enviados))).build(),
+                        HttpResponse.BodyHandlers.ofString()));
+            }
+            for (int i = 0; i < respostas.size(); i++) {
+                HttpResponse<String> resposta = respostas.get(i).get(10, TimeUnit.SECONDS);
+                Assert.assertEquals(HttpClient.Version.HTTP_2, resposta.version());
+                Assert.assertEquals(200, resposta.statusCode());
+                String esperado = "POST /itens/" + i + " h" + i + " " + (i == 3 ? 100_000 : i) + " ";
+                Assert.assertEquals(esperado + "x".repeat(i == 7 ? 200_000 : 0), resposta.body());
+            }
+            Assert.assertEquals(1, servidor.connectionsAccepted());
+        }
+    }
+
+    @Test
+    public void deveDecodificarHeadersHpackComHuffmanETabelaDinamica() {
+        //exemplos C.4.1 a C.4.3 da RFC 7541: três requisições na mesma conexão
+        Hpack hpack = new Hpack();
+        Assert.assertEquals("[[:method, GET], [:scheme, http], [:path, /], [:authority, www.example.com]]",
+                texto(hpack.decodificar(hex("828684418cf1e3c2e5f23a6ba0ab90f4ff"))));
+        Assert.assertEquals("[[:method, GET], [:scheme, http], [:path, /], [:authority, www.example.com], [cache-control, no-cache]]",
+                texto(hpack.decodificar(hex("828684be5886a8eb10649cbf"))));
+        Assert.assertEquals("[[:method, GET], [:scheme, https], [:path, /index.html], [:authority, www.example.com], [custom-key, custom-value]]",
+                texto(hpack.decodificar(hex("828785bf408825a849e95ba97d7f8925a849e95bb8e8b4bf"))));
+    }
+
+    private static byte[] hex(String texto) {
+        byte[] bytes = new byte[texto.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) Integer.parseInt(texto.substring(2 * i, 2 * i + 2), 16);
+        }
+        return bytes;
+    }
+
+    private static String texto(List<String[]> headers) {
+        List<String> pares = new ArrayList<>();
+        headers.forEach(header -> pares.add(Arrays.toString(header)));
+        return pares.toString();
+    }
+
+    private static String lerTudo(InputStream entrada) throws Exception {
+        ByteArrayOutputStream lidos = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int n;
+        while ((n = entrada.read(buffer)) > 0) {
+            lidos.write(buffer, 0, n);
+        }
+        return new String(lidos.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,246 @@
+package br.com.bferreira.rest.standin;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+
+/**
+ * Reproduz os endpoints do restapi.wcaquino.me usados no curso (/ola, /users, /usersXML,
+ * /basicauth e /basicauth2) com os mesmos payloads, status codes e desafios de autenticação.
+ * Não guarda estado: POST/PUT/DELETE respondem como a API real, mas a massa de dados
+ * continua a mesma, o que permite rodar os testes em qualquer ordem.
+ *
+ * <p>Os GET com 200 levam ETag (hash do corpo) e Last-Modified (subida do stand-in) e
+ * respondem 304 a um If-None-Match ou If-Modified-Since que ainda valha.</p>
+ */
+public class WcaquinoApi implements StandInHandler {
+
+    static final String[] USERS_JSON = {
+            "{\"id\":1,\"name\":\"João da Silva\",\"age\":30,\"salary\":1234.5678}",
+            "{\"id\":2,\"name\":\"Maria Joaquina\",\"endereco\":{\"rua\":\"Rua dos bobos\",\"numero\":0},\"age\":25,\"salary\":2500}",
+            "{\"id\":3,\"name\":\"Ana Júlia\",\"age\":20,\"filhos\":[{\"name\":\"Zezinho\"},{\"name\":\"Luizinho\"}]}"
+    };
+
+    static final String[] USERS_XML = {
+            "<user id=\"1\"><name>João da Silva</name><age>30</age><salary>1234.5678</salary></user>",
+            "<user id=\"2\"><name>Maria Joaquina</name><endereco><rua>Rua dos bobos</rua><numero>0</numero></endereco><age>25</age><salary>2500</salary></user>",
+            "<user id=\"3\"><name>Ana Julia</name><age>20</age><filhos><name>Zezinho</name><name>Luizinho</name></filhos></user>"
+    };
+
+    private static final String CREDENCIAIS = "Basic " + Base64.getEncoder()
+            .encodeToString("admin:senha".getBytes(StandardCharsets.UTF_8));
+
+    private static final Gson GSON = new GsonBuilder().disableHtmlEscaping().serializeNulls().create();
+
+    private final AtomicInteger proximoId = new AtomicInteger(USERS_JSON.length + 1);
+    private final String usersJson = "[" + String.join(",", USERS_JSON) + "]";
+    private final String usersXml = "<users>" + String.join("", USERS_XML) + "</users>";
+
+    //precisão de segundos, como no header
+    private final Instant modificadoEm = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+    private final String lastModified = DateTimeFormatter.RFC_1123_DATE_TIME.format(modificadoEm.atZone(ZoneOffset.UTC));
+
+    @Override
+    public StandInResponse handle(StandInRequest request) {
+        StandInResponse resposta = responder(request);
+        return "GET".equals(request.method()) && resposta.status() == 200 ? condicional(request, resposta) : resposta;
+    }
+
+    private StandInResponse condicional(StandInRequest request, StandInResponse resposta) {
+        CRC32 crc = new CRC32();
+        crc.update(resposta.body());
+        String etag = "\"" + Long.toHexString(crc.getValue()) + "\"";
+        String ifNoneMatch = request.header("if-none-match");
+        boolean inalterado = ifNoneMatch != null
+                ? Arrays.stream(ifNoneMatch.split(",")).map(String::trim).anyMatch(valor -> valor.equals(etag) || valor.equals("*"))
+                : naoModificadoDesde(request.header("if-modified-since"));
+        StandInResponse devolvida = inalterado ? StandInResponse.empty(304) : resposta;
+        return devolvida.header("ETag", etag).header("Last-Modified", lastModified);
+    }
+
+    private boolean naoModificadoDesde(String ifModifiedSince) {
+        if (ifModifiedSince == null) {
+            return false;
+        }
+        try {
+            return !modificadoEm.isAfter(ZonedDateTime.parse(ifModifiedSince, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant());
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    private StandInResponse responder(StandInRequest request) {
+        String[] partes = request.path().replaceAll("/+$", "").split("/");
+        String recurso = partes.length > 1 ? partes[1] : "";
+        String id = partes.length > 2 ? partes[2] : null;
+        String metodo = request.method();
+
+        switch (recurso) {
+            case "ola":
+                return "GET".equals(metodo) ? StandInResponse.text(200, "Ola Mundo!") : naoPermitido();
+            case "users":
+                return users(metodo, id, request);
+            case "usersXML":
+                return usersXml(metodo, id, request);
+            case "basicauth":
+                return basicAuth(request, true);
+            case "basicauth2":
+                return basicAuth(request, false);
+            default:
+                return StandInResponse.text(404, "Not Found");
+        }
+    }
+
+    private StandInResponse users(String metodo, String id, StandInRequest request) {
+        int indice = indice(id);
+        switch (metodo) {
+            case "GET":
+                if (id == null) {
+                    return StandInResponse.json(200, usersJson);
+                }
+                return indice < 0 ? erroJson(404, "Usuário inexistente") : StandInResponse.json(200, USERS_JSON[indice]);
+            case "POST":
+                if (id != null) {
+                    return naoPermitido();
+                }
+                JsonObject novo = corpoJson(request);
+                if (novo == null) {
+                    return erroJson(400, "Houve algum problema no tratamento do seu XML");
+                }
+                if (!novo.has("name")) {
+                    return erroJson(400, "Name é um atributo obrigatório");
+                }
+                JsonObject criado = new JsonObject();
+                criado.addProperty("id", proximoId.getAndIncrement());
+                novo.entrySet().forEach(campo -> criado.add(campo.getKey(), campo.getValue()));
+                return StandInResponse.json(201, GSON.toJson(criado));
+            case "PUT":
+                if (indice < 0) {
+                    return erroJson(400, "Registro inexistente");
+                }
+                JsonObject alteracao = corpoJson(request);
+                if (alteracao == null) {
+                    return erroJson(400, "Houve algum problema no tratamento do seu XML");
+                }
+                JsonObject alterado = JsonParser.parseString(USERS_JSON[indice]).getAsJsonObject();
+                alteracao.entrySet().forEach(campo -> alterado.add(campo.getKey(), campo.getValue()));
+                alterado.addProperty("id", indice + 1);
+                return StandInResponse.json(200, GSON.toJson(alterado));
+            case "DELETE":
+                return indice < 0 ? erroJson(400, "Registro inexistente") : StandInResponse.empty(204);
+            default:
+                return naoPermitido();
+        }
+    }
+
+    private StandInResponse usersXml(String metodo, String id, StandInRequest request) {
+        int indice = indice(id);
+        switch (metodo) {
+            case "GET":
+                if (id == null) {
+                    return StandInResponse.xml(200, usersXml);
+                }
+                return indice < 0
+                        ? StandInResponse.xml(404, "<error>Usuário inexistente</error>")
+                        : StandInResponse.xml(200, USERS_XML[indice]);
+            case "POST":
+                Document documento = corpoXml(request);
+                if (documento == null) {
+                    return StandInResponse.xml(400, "<error>Houve algum problema no tratamento do seu XML</error>");
+                }
+                String nome = texto(documento, "name");
+                if (nome == null) {
+                    return StandInResponse.xml(400, "<error>Name é um atributo obrigatório</error>");
+                }
+                StringBuilder xml = new StringBuilder("<user id=\"").append(proximoId.getAndIncrement()).append("\">")
+                        .append("<name>").append(escaparXml(nome)).append("</name>");
+                String idade = texto(documento, "age");
+                if (idade != null) {
+                    xml.append("<age>").append(escaparXml(idade)).append("</age>");
+                }
+                return StandInResponse.xml(201, xml.append("</user>").toString());
+            default:
+                return naoPermitido();
+        }
+    }
+
+    private static StandInResponse basicAuth(StandInRequest request, boolean desafiar) {
+        if (CREDENCIAIS.equals(request.header("authorization"))) {
+            return StandInResponse.json(200, "{\"status\":\"logado\"}");
+        }
+        StandInResponse negado = StandInResponse.text(401, "Unauthorized");
+        //o /basicauth2 não devolve o desafio, então só a autenticação preemptiva funciona nele
+        return desafiar ? negado.header("WWW-Authenticate", "Basic realm=\"Authorization Required\"") : negado;
+    }
+
+    private static int indice(String id) {
+        if (id == null) {
+            return -1;
+        }
+        try {
+            int valor = Integer.parseInt(id);
+            return valor >= 1 && valor <= USERS_JSON.length ? valor - 1 : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static JsonObject corpoJson(StandInRequest request) {
+        try {
+            JsonElement elemento = JsonParser.parseString(request.bodyAsString());
+            return elemento.isJsonObject() ? elemento.getAsJsonObject() : null;
+        } catch (JsonParseException e) {
+            return null;
+        }
+    }
+
+    private static Document corpoXml(StandInRequest request) {
+        try {
+            DocumentBuilderFactory fabrica = DocumentBuilderFactory.newInstance();
+            fabrica.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            return fabrica.newDocumentBuilder().parse(new ByteArrayInputStream(request.body()));
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static String texto(Document documento, String tag) {
+        NodeList nos = documento.getElementsByTagName(tag);
+        Node no = nos.getLength() == 0 ? null : nos.item(0);
+        return no == null ? null : no.getTextContent();
+    }
+
+    private static String escaparXml(String valor) {
+        return valor.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+
+    private static StandInResponse erroJson(int status, String mensagem) {
+        JsonObject erro = new JsonObject();
+        erro.addProperty("error", mensagem);
+        return StandInResponse.json(status, GSON.toJson(erro));
+    }
+
+    private static StandInResponse naoPermitido() {
+        return StandInResponse.text(405, "Method Not Allowed");
+    }
+}
@@ -0,0 +1,86 @@
+package br.com.bferreira.rest.xpath;
+
+import br.com.bferreira.rest.gpath.ParsedBody;
+import br.com.bferreira.rest.standin.StandInServer;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import javax.xml.xpath.XPathExpression;
+
+import static br.com.bferreira.rest.xpath.XPathMatchers.hasXPath;
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.*;
+
+public class XPathMatchersTest {
+
+    private static String usersXml;
+
+    @BeforeClass
+    public static void setup() {
+        StandInServer.install();
+        usersXml = given().get("/usersXML").asString();
+    }
+
+    @Test
+    public void deveCompartilharODomEntreAsAvaliacoesDaMesmaResposta() {
+        //o RestAssured entrega uma String nova a cada matcher, com o mesmo conteúdo
+        Assert.assertSame(ParsedBody.cached(new String(usersXml)).document(), ParsedBody.cached(new String(usersXml)).document());
+    }
+
+    @Test
+    public void naoDeveRecompilarXPathJaUsado() {
+        Assert.assertThat(usersXml, hasXPath("//user[age > 24][age < 30]/name", is("Maria Joaquina")));
+        //o contador de compilações é global e os outros métodos rodam em paralelo: confere a expressão da própria thread
+        XPathExpression compilada = XPathCache.compile("//user[age > 24][age < 30]/name");
+        for (int i = 0; i < 100; i++) {
+            Assert.assertThat(usersXml, hasXPath("//user[age > 24][age < 30]/name", is("Maria Joaquina")));
+        }
+        Assert.assertSame(compilada, XPathCache.compile("//user[age > 24][age < 30]/name"));
+    }
+
+    @Test
+    public void deveValidarComOBodyDoRestAssured() {
+        given()
+        .when()
+            .get("/usersXML")
+        .then()
+            .body(hasXPath("count(/users/user)", is("3")))
+            .body(hasXPath("/users/user[@id=1]"))
+            .body(hasXPath("/users/user[last()]/name", is("Ana Julia")));
+    }
+
+    @Test
+    public void deveMontarUmDomSoPorRespostaNoBody() {
+        String outroXml = given().get("/usersXML/1").asString();
+        ParsedBody.cached(outroXml);//o último corpo da thread passa a ser outro: a resposta abaixo precisa de um parse
+        long antes = ParsedBody.documentsParsed();
+        given()
+        .when()
+            .get("/usersXML")
+        .then()
+            .body(hasXPath("count(/users/user)", is("3")))
+            .body(hasXPath("/users/user[@id=1]"))
+            .body(hasXPath("/users/user[age < 30]/name", is("Maria Joaquina")))
+            .body(hasXPath("/users/user[last()]/name", is("Ana Julia")));
+        Assert.assertEquals(1, ParsedBody.documentsParsed() - antes);
+    }
+
+    @Test
+    public void deveDescreverFalhaComoOHamcrest() {
+        try {
+            Assert.assertThat(usersXml, hasXPath("/users/user[@id=9]"));
+            Assert.fail();
+        } catch (AssertionError e) {
+            Assert.assertThat(e.getMessage(), allOf(
+                    containsString("an XML document with xpath /users/user[@id=9]"),
+                    containsString("xpath returned no results.")));
+        }
+        try {
+            Assert.assertThat(usersXml, hasXPath("//name", is("Maria")));
+            Assert.fail();
+        } catch (AssertionError e) {
+            Assert.assertThat(e.getMessage(), containsString("was \"João da Silva\""));
+        }
+    }
+}